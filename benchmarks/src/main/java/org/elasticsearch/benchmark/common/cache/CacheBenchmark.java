@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Cache} under contention, for a growing number of threads that mostly read keys that are
+ * in the cache and sometimes insert new keys. Run with e.g. {@code -p writePercent=0,5} to compare read-only and mixed loads.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    @Param({"10000"})
+    public int maximumWeight;
+
+    @Param({"0", "5"})
+    public int writePercent;
+
+    @Param({"false", "true"})
+    public boolean frequencyAwareAdmission;
+
+    private Cache<Integer, Integer> cache;
+
+    @Setup
+    public void setup() {
+        cache = CacheBuilder.<Integer, Integer>builder()
+            .setMaximumWeight(maximumWeight)
+            .setFrequencyAwareAdmission(frequencyAwareAdmission)
+            .build();
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(i, i);
+        }
+    }
+
+    private Integer access() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) < writePercent) {
+            final int key = random.nextInt(maximumWeight * 2);
+            cache.put(key, key);
+            return key;
+        }
+        // skewed towards small keys, like most cache workloads
+        return cache.get((int) (maximumWeight * Math.pow(random.nextDouble(), 3)));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer threads01() {
+        return access();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer threads04() {
+        return access();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Integer threads16() {
+        return access();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Integer threads64() {
+        return access();
+    }
+}
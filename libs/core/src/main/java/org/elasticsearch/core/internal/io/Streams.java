@@ -44,9 +44,23 @@ public class Streams {
      * @throws IOException in case of I/O errors
      */
     public static long copy(final InputStream in, final OutputStream out) throws IOException {
+        return copy(in, out, new byte[8192]);
+    }
+
+    /**
+     * Copy the contents of the given InputStream to the given OutputStream using the given buffer.
+     * Closes both streams when done.
+     *
+     * @param in     the stream to copy from
+     * @param out    the stream to copy to
+     * @param buffer the buffer to use for the copy
+     * @return the number of bytes copied
+     * @throws IOException in case of I/O errors
+     */
+    public static long copy(final InputStream in, final OutputStream out, final byte[] buffer) throws IOException {
         Objects.requireNonNull(in, "No InputStream specified");
         Objects.requireNonNull(out, "No OutputStream specified");
-        final byte[] buffer = new byte[8192];
+        Objects.requireNonNull(buffer, "No buffer specified");
         Exception err = null;
         try {
             long byteCount = 0;
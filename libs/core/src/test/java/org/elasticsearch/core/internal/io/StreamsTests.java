@@ -39,4 +39,14 @@ public class StreamsTests extends ESTestCase {
         assertThat(count, equalTo((long) content.length));
         assertThat(Arrays.equals(content, out.toByteArray()), equalTo(true));
     }
+
+    public void testCopyFromInputStreamWithBuffer() throws IOException {
+        byte[] content = randomAlphaOfLengthBetween(1, 100).getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream in = new ByteArrayInputStream(content);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        long count = Streams.copy(in, out, new byte[randomIntBetween(1, 16)]);
+
+        assertThat(count, equalTo((long) content.length));
+        assertThat(Arrays.equals(content, out.toByteArray()), equalTo(true));
+    }
 }
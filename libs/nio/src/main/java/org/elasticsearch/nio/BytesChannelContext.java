@@ -20,11 +20,20 @@
 package org.elasticsearch.nio;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 public class BytesChannelContext extends SocketChannelContext {
 
+    // stay well below the IOV_MAX limit of common platforms for a single gathering write
+    static final int MAX_BUFFERS_PER_WRITE = 512;
+
+    // the buffers of a gathering write, reused from one write to the next
+    private ByteBuffer[] gatheringBuffers = new ByteBuffer[0];
+
     public BytesChannelContext(NioSocketChannel channel, NioSelector selector, Consumer<Exception> exceptionHandler,
                                ReadWriteHandler handler, InboundChannelBuffer channelBuffer) {
         this(channel, selector, exceptionHandler, handler, channelBuffer, ALWAYS_ALLOW_CHANNEL);
@@ -63,7 +72,9 @@ public class BytesChannelContext extends SocketChannelContext {
         FlushOperation flushOperation;
         while (lastOpCompleted && (flushOperation = getPendingFlush()) != null) {
             try {
-                if (singleFlush(flushOperation)) {
+                if (getPendingFlushes().size() > 1) {
+                    lastOpCompleted = gatheringFlush();
+                } else if (singleFlush(flushOperation)) {
                     currentFlushOperationComplete();
                 } else {
                     lastOpCompleted = false;
@@ -91,8 +102,52 @@ public class BytesChannelContext extends SocketChannelContext {
      * Returns a boolean indicating if the operation was fully flushed.
      */
     private boolean singleFlush(FlushOperation flushOperation) throws IOException {
-        int written = flushToChannel(flushOperation.getBuffersToWrite());
-        flushOperation.incrementIndex(written);
+        long written = flushToChannel(flushOperation.getBuffersToWrite());
+        flushOperation.incrementIndex(Math.toIntExact(written));
         return flushOperation.isFullyFlushed();
     }
+
+    /**
+     * Flushes the buffers of several pending operations with a single gathering write and completes all operations that
+     * were fully flushed. Returns a boolean indicating if all operations that were part of the write were fully flushed.
+     */
+    private boolean gatheringFlush() throws IOException {
+        final List<FlushOperation> pendingFlushes = getPendingFlushes();
+        int bufferCount = 0;
+        int operations = 0;
+        for (FlushOperation flushOperation : pendingFlushes) {
+            final ByteBuffer[] operationBuffers = flushOperation.getBuffersToWrite();
+            if (operations > 0 && bufferCount + operationBuffers.length > MAX_BUFFERS_PER_WRITE) {
+                break;
+            }
+            if (bufferCount + operationBuffers.length > gatheringBuffers.length) {
+                gatheringBuffers = Arrays.copyOf(gatheringBuffers, Math.max(bufferCount + operationBuffers.length,
+                    Math.min(2 * gatheringBuffers.length, MAX_BUFFERS_PER_WRITE)));
+            }
+            System.arraycopy(operationBuffers, 0, gatheringBuffers, bufferCount, operationBuffers.length);
+            bufferCount += operationBuffers.length;
+            operations++;
+        }
+
+        long written;
+        try {
+            written = flushToChannel(gatheringBuffers, 0, bufferCount);
+        } finally {
+            // do not hold on to the buffers of the operations once they are written
+            Arrays.fill(gatheringBuffers, 0, bufferCount, null);
+        }
+        for (int i = 0; i < operations; i++) {
+            final FlushOperation flushOperation = getPendingFlush();
+            final int delta = (int) Math.min(written, flushOperation.remaining());
+            flushOperation.incrementIndex(delta);
+            written -= delta;
+            if (flushOperation.isFullyFlushed()) {
+                currentFlushOperationComplete();
+            } else {
+                return false;
+            }
+        }
+        assert written == 0 : "wrote [" + written + "] bytes more than the flushed operations contained";
+        return true;
+    }
 }
@@ -27,7 +27,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -160,12 +162,21 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
     protected void currentFlushOperationComplete() {
         FlushOperation flushOperation = pendingFlushes.pollFirst();
         getSelector().executeListener(flushOperation.getListener(), null);
+        // Some protocols only produce more messages to flush once the previous ones were flushed.
+        pendingFlushes.addAll(readWriteHandler.pollFlushOperations());
     }
 
     protected FlushOperation getPendingFlush() {
         return pendingFlushes.peekFirst();
     }
 
+    /**
+     * Returns all pending flush operations in the order in which they must be flushed.
+     */
+    protected List<FlushOperation> getPendingFlushes() {
+        return Collections.unmodifiableList(pendingFlushes);
+    }
+
     @Override
     protected void register() throws IOException {
         super.register();
@@ -271,9 +282,13 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
         }
     }
 
-    protected int flushToChannel(ByteBuffer[] buffers) throws IOException {
+    protected long flushToChannel(ByteBuffer[] buffers) throws IOException {
+        return flushToChannel(buffers, 0, buffers.length);
+    }
+
+    protected long flushToChannel(ByteBuffer[] buffers, int offset, int length) throws IOException {
         try {
-            return (int) rawChannel.write(buffers);
+            return rawChannel.write(buffers, offset, length);
         } catch (IOException e) {
             closeNow = true;
             throw e;
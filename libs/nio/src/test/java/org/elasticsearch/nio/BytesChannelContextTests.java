@@ -23,6 +23,7 @@ import org.elasticsearch.common.CheckedFunction;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
+import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -32,6 +33,7 @@ import java.util.function.Consumer;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -220,6 +222,57 @@ public class BytesChannelContextTests extends ESTestCase {
         assertFalse(context.readyForFlush());
     }
 
+    @SuppressWarnings("unchecked")
+    public void testMultipleWritesAreGatheredIntoSingleFlush() throws IOException {
+        assertFalse(context.readyForFlush());
+
+        BiConsumer<Void, Exception> listener2 = mock(BiConsumer.class);
+        ByteBuffer buffer1 = ByteBuffer.allocate(10);
+        ByteBuffer buffer2 = ByteBuffer.allocate(10);
+        context.queueWriteOperation(new FlushReadyWrite(context, new ByteBuffer[] {buffer1}, listener));
+        context.queueWriteOperation(new FlushReadyWrite(context, new ByteBuffer[] {buffer2}, listener2));
+
+        // the first operation is fully flushed while the second is only partially flushed
+        when(rawChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).thenReturn(15L);
+        context.flushChannel();
+
+        verify(rawChannel, times(1)).write(any(ByteBuffer[].class), anyInt(), anyInt());
+        verify(selector).executeListener(listener, null);
+        verify(selector, times(0)).executeListener(listener2, null);
+        assertTrue(context.readyForFlush());
+
+        when(rawChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).thenReturn(5L);
+        context.flushChannel();
+
+        verify(selector).executeListener(listener2, null);
+        assertFalse(context.readyForFlush());
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testGatheringWritesReuseTheirBufferArray() throws IOException {
+        BiConsumer<Void, Exception> listener2 = mock(BiConsumer.class);
+        ByteBuffer buffer1 = ByteBuffer.allocate(10);
+        ByteBuffer buffer2 = ByteBuffer.allocate(10);
+        context.queueWriteOperation(new FlushReadyWrite(context, new ByteBuffer[] {buffer1}, listener));
+        context.queueWriteOperation(new FlushReadyWrite(context, new ByteBuffer[] {buffer2}, listener2));
+
+        // nothing can be written the first time
+        when(rawChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).thenReturn(0L, 20L);
+        context.flushChannel();
+        assertTrue(context.readyForFlush());
+        context.flushChannel();
+        assertFalse(context.readyForFlush());
+
+        ArgumentCaptor<ByteBuffer[]> buffers = ArgumentCaptor.forClass(ByteBuffer[].class);
+        verify(rawChannel, times(2)).write(buffers.capture(), eq(0), eq(2));
+        assertSame(buffers.getAllValues().get(0), buffers.getAllValues().get(1));
+        // the buffers of the flushed operations are not retained
+        assertNull(buffers.getValue()[0]);
+        assertNull(buffers.getValue()[1]);
+        verify(selector).executeListener(listener, null);
+        verify(selector).executeListener(listener2, null);
+    }
+
     public void testWhenIOExceptionThrownListenerIsCalled() throws IOException {
         assertFalse(context.readyForFlush());
 
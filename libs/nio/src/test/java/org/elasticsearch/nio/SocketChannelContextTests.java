@@ -212,6 +212,20 @@ public class SocketChannelContextTests extends ESTestCase {
         assertTrue(context.readyForFlush());
     }
 
+    public void testFlushOperationCompletionWillCheckForNewFlushOperations() {
+        ByteBuffer[] buffer = {ByteBuffer.allocate(10)};
+        FlushReadyWrite writeOperation = new FlushReadyWrite(context, buffer, listener);
+        when(readWriteHandler.writeToBytes(writeOperation)).thenReturn(Collections.singletonList(writeOperation));
+        context.queueWriteOperation(writeOperation);
+
+        FlushOperation nextFlush = mock(FlushOperation.class);
+        when(readWriteHandler.pollFlushOperations()).thenReturn(Collections.singletonList(nextFlush));
+        context.currentFlushOperationComplete();
+
+        verify(selector).executeListener(listener, null);
+        assertSame(nextFlush, context.getPendingFlush());
+    }
+
     @SuppressWarnings({"unchecked", "varargs"})
     public void testFlushOpsClearedOnClose() throws Exception {
         try (SocketChannel realChannel = SocketChannel.open()) {
@@ -107,7 +107,8 @@ final class PercolatorHighlightSubFetchPhase implements FetchSubPhase {
                             new SearchHit(slot, "unknown", new Text(hit.getType()), Collections.emptyMap()),
                             percolatorLeafReaderContext, slot, percolatorIndexSearcher
                         );
-                        hitContext.cache().clear();
+                        // releases what was cached while highlighting the previous document
+                        hitContext.close();
                         highlightPhase.hitExecute(subSearchContext, hitContext);
                         for (Map.Entry<String, HighlightField> entry : hitContext.hit().getHighlightFields().entrySet()) {
                             if (percolateQuery.getDocuments().size() == 1) {
@@ -133,6 +134,7 @@ final class PercolatorHighlightSubFetchPhase implements FetchSubPhase {
                     }
                 }
             }
+            hitContext.close();
         }
     }
 
@@ -27,18 +27,25 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.UTF8StreamWriter;
 import org.elasticsearch.http.HttpPipelinedRequest;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.After;
 
+import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -209,6 +216,49 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
     }
 
 
+    public void testChunkedResponseIsOnlyWrittenWhileTheChannelIsWritable() {
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new ChunkedWriteHandler(),
+            new Netty4HttpPipeliningHandler(logger, randomIntBetween(1, 10)));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        final HttpPipelinedRequest<FullHttpRequest> pipelinedRequest = embeddedChannel.readInbound();
+        final Netty4HttpRequest request = new Netty4HttpRequest(pipelinedRequest.getRequest(), pipelinedRequest.getSequence());
+
+        final List<CheckedConsumer<UTF8StreamWriter, IOException>> parts = new ArrayList<>();
+        final StringBuilder expectedContent = new StringBuilder();
+        final int numParts = randomIntBetween(1, 10);
+        for (int i = 0; i < numParts; i++) {
+            final String part = randomAlphaOfLengthBetween(1, 100);
+            expectedContent.append(part);
+            parts.add(out -> out.append(part));
+        }
+        final Netty4ChunkedHttpResponse response = request.createResponse(RestStatus.OK,
+            ChunkedRestResponseBody.fromText("text/plain; charset=UTF-8", parts.iterator()));
+        assertTrue(HttpUtil.isTransferEncodingChunked(response));
+
+        embeddedChannel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        final ChannelPromise promise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(response, promise);
+        // nothing is serialized until the channel becomes writable
+        assertNull(embeddedChannel.readOutbound());
+        assertFalse(promise.isDone());
+
+        embeddedChannel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        embeddedChannel.runPendingTasks();
+        assertSame(response, embeddedChannel.readOutbound());
+        final StringBuilder content = new StringBuilder();
+        HttpContent chunk;
+        boolean last = false;
+        while ((chunk = embeddedChannel.readOutbound()) != null) {
+            assertFalse(last);
+            content.append(chunk.content().toString(StandardCharsets.UTF_8));
+            last = chunk instanceof LastHttpContent;
+            chunk.release();
+        }
+        assertTrue(last);
+        assertEquals(expectedContent.toString(), content.toString());
+        assertTrue(promise.isSuccess());
+    }
+
     private void assertReadHttpMessageHasContent(EmbeddedChannel embeddedChannel, String expectedContent) {
         FullHttpResponse response = (FullHttpResponse) embeddedChannel.outboundMessages().poll();
         assertNotNull("Expected response to exist, maybe you did not wait long enough?", response);
@@ -165,9 +165,32 @@ class GoogleCloudStorageBlobStore implements BlobStore {
      * @return the InputStream used to read the blob's content
      */
     InputStream readBlob(String blobName) throws IOException {
+        return Channels.newInputStream(openReadChannel(blobName, 0L));
+    }
+
+    /**
+     * Returns an {@link java.io.InputStream} for a range of the given blob, only the requested range is fetched from the bucket
+     *
+     * @param blobName name of the blob
+     * @param position the position in the blob to start reading from
+     * @param length   the number of bytes to read
+     * @return the InputStream used to read the range of the blob
+     */
+    InputStream readBlob(String blobName, long position, long length) throws IOException {
+        if (position < 0L || length < 0L) {
+            throw new IllegalArgumentException("invalid range [" + position + "-" + length + "] for blob [" + blobName + "]");
+        }
+        return org.elasticsearch.common.io.Streams.limitStream(Channels.newInputStream(openReadChannel(blobName, position)), length);
+    }
+
+    private ReadableByteChannel openReadChannel(String blobName, long position) throws IOException {
         final BlobId blobId = BlobId.of(bucketName, blobName);
         final ReadChannel readChannel = SocketAccess.doPrivilegedIOException(() -> client().reader(blobId));
-        return Channels.newInputStream(new ReadableByteChannel() {
+        if (position > 0L) {
+            // seeking is lazy, the next read requests the blob content from this position on
+            SocketAccess.doPrivilegedVoidIOException(() -> readChannel.seek(position));
+        }
+        return new ReadableByteChannel() {
             @SuppressForbidden(reason = "Channel is based of a socket not a file")
             @Override
             public int read(ByteBuffer dst) throws IOException {
@@ -190,7 +213,7 @@ class GoogleCloudStorageBlobStore implements BlobStore {
             public void close() throws IOException {
                 SocketAccess.doPrivilegedVoidIOException(readChannel::close);
             }
-        });
+        };
     }
 
     /**
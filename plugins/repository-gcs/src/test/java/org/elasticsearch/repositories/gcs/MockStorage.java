@@ -168,9 +168,10 @@ class MockStorage implements Storage {
         if (bucketName.equals(blob.getBucket())) {
             final byte[] bytes = blobs.get(blob.getName());
 
+            final ByteArrayInputStream inputStream = bytes != null ? new ByteArrayInputStream(bytes) : null;
             final ReadableByteChannel readableByteChannel;
-            if (bytes != null) {
-                readableByteChannel = Channels.newChannel(new ByteArrayInputStream(bytes));
+            if (inputStream != null) {
+                readableByteChannel = Channels.newChannel(inputStream);
             } else {
                 readableByteChannel = new ReadableByteChannel() {
                     @Override
@@ -196,7 +197,10 @@ class MockStorage implements Storage {
 
                 @Override
                 public void seek(long position) throws IOException {
-                    throw new UnsupportedOperationException();
+                    if (inputStream != null) {
+                        inputStream.reset();
+                        inputStream.skip(position);
+                    }
                 }
 
                 @Override
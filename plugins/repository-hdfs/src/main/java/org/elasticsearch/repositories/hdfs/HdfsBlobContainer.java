@@ -19,6 +19,7 @@
 package org.elasticsearch.repositories.hdfs;
 
 import org.apache.hadoop.fs.CreateFlag;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Options.CreateOpts;
@@ -28,6 +29,8 @@ import org.elasticsearch.common.blobstore.BlobMetaData;
 import org.elasticsearch.common.blobstore.BlobPath;
 import org.elasticsearch.common.blobstore.support.AbstractBlobContainer;
 import org.elasticsearch.common.blobstore.support.PlainBlobMetaData;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.repositories.hdfs.HdfsBlobStore.Operation;
 
 import java.io.FileNotFoundException;
@@ -90,6 +93,28 @@ final class HdfsBlobContainer extends AbstractBlobContainer {
         }
     }
 
+    @Override
+    public InputStream readBlob(String blobName, long position, long length) throws IOException {
+        if (position < 0L || length < 0L) {
+            throw new IllegalArgumentException("invalid range [" + position + "-" + length + "] for blob [" + blobName + "]");
+        }
+        try {
+            return store.execute(fileContext -> {
+                final FSDataInputStream stream = fileContext.open(new Path(path, blobName), bufferSize);
+                try {
+                    // seeking only moves the read position, the data nodes are asked for the range on the next read
+                    stream.seek(position);
+                } catch (IOException | RuntimeException e) {
+                    IOUtils.closeWhileHandlingException(stream);
+                    throw e;
+                }
+                return Streams.limitStream(new HDFSPrivilegedInputSteam(stream, securityContext), length);
+            });
+        } catch (FileNotFoundException fnfe) {
+            throw new NoSuchFileException("[" + blobName + "] blob not found");
+        }
+    }
+
     @Override
     public void writeBlob(String blobName, InputStream inputStream, long blobSize, boolean failIfAlreadyExists) throws IOException {
         store.execute((Operation<Void>) fileContext -> {
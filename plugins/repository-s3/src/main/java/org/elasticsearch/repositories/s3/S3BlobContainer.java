@@ -23,6 +23,7 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -43,6 +44,8 @@ import org.elasticsearch.common.blobstore.support.PlainBlobMetaData;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.collect.Tuple;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.NoSuchFileException;
@@ -90,6 +93,34 @@ class S3BlobContainer extends AbstractBlobContainer {
         }
     }
 
+    @Override
+    public InputStream readBlob(String blobName, long position, long length) throws IOException {
+        if (position < 0L || length < 0L) {
+            throw new IllegalArgumentException("invalid range [" + position + "-" + length + "] for blob [" + blobName + "]");
+        }
+        if (length == 0L) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        final GetObjectRequest getObjectRequest = new GetObjectRequest(blobStore.bucket(), buildKey(blobName));
+        getObjectRequest.setRange(position, Math.addExact(position, length - 1)); // inclusive end
+        try (AmazonS3Reference clientReference = blobStore.clientReference()) {
+            final S3Object s3Object = SocketAccess.doPrivileged(() -> clientReference.client().getObject(getObjectRequest));
+            return s3Object.getObjectContent();
+        } catch (final AmazonClientException e) {
+            if (e instanceof AmazonS3Exception) {
+                if (404 == ((AmazonS3Exception) e).getStatusCode()) {
+                    throw new NoSuchFileException("Blob object [" + blobName + "] not found: " + e.getMessage());
+                }
+                if (416 == ((AmazonS3Exception) e).getStatusCode()) {
+                    // the range starts at or after the end of the blob
+                    throw new EOFException("position [" + position + "] is past the end of blob object [" + blobName + "]: "
+                        + e.getMessage());
+                }
+            }
+            throw e;
+        }
+    }
+
     /**
      * This implementation ignores the failIfAlreadyExists flag as the S3 API has no way to enforce this due to its weak consistency model.
      */
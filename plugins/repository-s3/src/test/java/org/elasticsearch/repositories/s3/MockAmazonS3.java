@@ -42,6 +42,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -110,11 +111,24 @@ class MockAmazonS3 extends AbstractAmazonS3 {
             throw exception;
         }
 
+        byte[] range = content;
+        final long[] requestedRange = request.getRange();
+        if (requestedRange != null) {
+            if (requestedRange[0] >= content.length) {
+                AmazonS3Exception exception = new AmazonS3Exception("The requested range is not satisfiable");
+                exception.setStatusCode(416);
+                throw exception;
+            }
+            final int start = Math.toIntExact(Math.min(requestedRange[0], content.length));
+            final int end = Math.toIntExact(Math.min(requestedRange[1] + 1, content.length));
+            range = Arrays.copyOfRange(content, start, end);
+        }
+
         ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentLength(content.length);
+        metadata.setContentLength(range.length);
 
         S3Object s3Object = new S3Object();
-        s3Object.setObjectContent(new S3ObjectInputStream(new ByteArrayInputStream(content), null, false));
+        s3Object.setObjectContent(new S3ObjectInputStream(new ByteArrayInputStream(range), null, false));
         s3Object.setKey(blobName);
         s3Object.setObjectMetadata(metadata);
 
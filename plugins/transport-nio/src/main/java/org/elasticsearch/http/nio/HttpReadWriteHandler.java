@@ -29,8 +29,10 @@ import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.http.HttpHandlingSettings;
+import org.elasticsearch.http.HttpPipelinedMessage;
 import org.elasticsearch.http.HttpPipelinedRequest;
 import org.elasticsearch.http.nio.cors.NioCorsConfig;
 import org.elasticsearch.http.nio.cors.NioCorsHandler;
@@ -42,6 +44,7 @@ import org.elasticsearch.nio.WriteOperation;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.BiConsumer;
 
@@ -56,7 +59,7 @@ public class HttpReadWriteHandler implements ReadWriteHandler {
         this.nioHttpChannel = nioHttpChannel;
         this.transport = transport;
 
-        List<ChannelHandler> handlers = new ArrayList<>(5);
+        List<ChannelHandler> handlers = new ArrayList<>(8);
         HttpRequestDecoder decoder = new HttpRequestDecoder(settings.getMaxInitialLineLength(), settings.getMaxHeaderSize(),
             settings.getMaxChunkSize());
         decoder.setCumulator(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
@@ -67,6 +70,8 @@ public class HttpReadWriteHandler implements ReadWriteHandler {
         if (settings.isCompression()) {
             handlers.add(new HttpContentCompressor(settings.getCompressionLevel()));
         }
+        // serializes the bodies of chunked responses only as fast as the client reads them
+        handlers.add(new ChunkedWriteHandler());
         if (settings.isCorsEnabled()) {
             handlers.add(new NioCorsHandler(corsConfig));
         }
@@ -89,9 +94,10 @@ public class HttpReadWriteHandler implements ReadWriteHandler {
 
     @Override
     public WriteOperation createWriteOperation(SocketChannelContext context, Object message, BiConsumer<Void, Exception> listener) {
-        assert message instanceof NioHttpResponse : "This channel only supports messages that are of type: "
-            + NioHttpResponse.class + ". Found type: " + message.getClass() + ".";
-        return new HttpWriteOperation(context, (NioHttpResponse) message, listener);
+        assert message instanceof NioHttpResponse || message instanceof NioChunkedHttpResponse
+            : "This channel only supports messages that are of type: " + NioHttpResponse.class + " or "
+            + NioChunkedHttpResponse.class + ". Found type: " + message.getClass() + ".";
+        return new HttpWriteOperation(context, (HttpPipelinedMessage) message, listener);
     }
 
     @Override
@@ -102,6 +108,9 @@ public class HttpReadWriteHandler implements ReadWriteHandler {
 
     @Override
     public List<FlushOperation> pollFlushOperations() {
+        if (adaptor.getOutboundCount() == 0) {
+            return Collections.emptyList();
+        }
         ArrayList<FlushOperation> copiedOperations = new ArrayList<>(adaptor.getOutboundCount());
         FlushOperation flushOperation;
         while ((flushOperation = adaptor.pollOutboundOperation()) != null) {
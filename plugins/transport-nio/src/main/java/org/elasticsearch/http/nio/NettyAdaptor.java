@@ -24,6 +24,7 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.embedded.EmbeddedChannel;
@@ -38,8 +39,11 @@ import java.util.function.BiConsumer;
 
 public class NettyAdaptor implements AutoCloseable {
 
+    private static final int WRITABILITY_INDEX = 1;
+
     private final EmbeddedChannel nettyChannel;
     private final LinkedList<FlushOperation> flushOperations = new LinkedList<>();
+    private long pendingBytes = 0;
 
     NettyAdaptor(ChannelHandler... handlers) {
         nettyChannel = new EmbeddedChannel();
@@ -53,9 +57,14 @@ public class NettyAdaptor implements AutoCloseable {
 
                 try {
                     ByteBuf message = (ByteBuf) msg;
-                    promise.addListener((f) -> message.release());
+                    int bytes = message.readableBytes();
+                    promise.addListener((f) -> {
+                        message.release();
+                        onFlushed(bytes, f.isSuccess());
+                    });
                     NettyListener listener = NettyListener.fromChannelPromise(promise);
                     flushOperations.add(new FlushOperation(message.nioBuffers(), listener));
+                    onCaptured(bytes);
                 } catch (Exception e) {
                     promise.setFailure(e);
                 }
@@ -113,6 +122,38 @@ public class NettyAdaptor implements AutoCloseable {
         nettyChannel.writeAndFlush(writeOperation.getObject(), NettyListener.fromBiConsumer(writeOperation.getListener(), nettyChannel));
     }
 
+    /*
+     * The embedded channel hands every message to the write captor right away, so it never becomes unwritable on its own. The
+     * captured bytes are only sent later by the selector, so we make the channel unwritable while more than the high water mark of
+     * them wait to be sent. This holds back handlers that serialize while the channel is writable, like the chunked writer, until
+     * the socket caught up.
+     */
+    private void onCaptured(int bytes) {
+        pendingBytes += bytes;
+        if (pendingBytes > nettyChannel.config().getWriteBufferHighWaterMark()) {
+            setWritable(false);
+        }
+    }
+
+    private void onFlushed(int bytes, boolean success) {
+        pendingBytes -= bytes;
+        // only resume after successful flushes, a failed flush means that the channel is closing
+        if (success && pendingBytes < nettyChannel.config().getWriteBufferLowWaterMark()) {
+            setWritable(true);
+        }
+    }
+
+    private void setWritable(boolean writable) {
+        ChannelOutboundBuffer outboundBuffer = nettyChannel.unsafe().outboundBuffer();
+        if (outboundBuffer != null && outboundBuffer.getUserDefinedWritability(WRITABILITY_INDEX) != writable) {
+            outboundBuffer.setUserDefinedWritability(WRITABILITY_INDEX, writable);
+            if (writable) {
+                // the handlers hear that the channel is writable again from a task on the event loop of the channel
+                nettyChannel.runPendingTasks();
+            }
+        }
+    }
+
     public FlushOperation pollOutboundOperation() {
         return flushOperations.pollFirst();
     }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.nio;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.stream.ChunkedInput;
+import org.elasticsearch.http.HttpPipelinedMessage;
+import org.elasticsearch.http.HttpResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.IOException;
+
+/**
+ * A response whose body is sent with a chunked transfer encoding. The response itself is the head of the message, and its body is
+ * serialized by {@link #content} one chunk at a time whenever the {@link io.netty.handler.stream.ChunkedWriteHandler} finds the
+ * channel writable.
+ */
+public class NioChunkedHttpResponse extends DefaultHttpResponse implements HttpResponse, HttpPipelinedMessage {
+
+    private final int sequence;
+    private final NioHttpRequest request;
+    private final ChunkedRestResponseBody body;
+
+    NioChunkedHttpResponse(NioHttpRequest request, RestStatus status, ChunkedRestResponseBody body) {
+        super(request.nettyRequest().protocolVersion(), HttpResponseStatus.valueOf(status.getStatus()));
+        HttpUtil.setTransferEncodingChunked(this, true);
+        this.sequence = request.sequence();
+        this.request = request;
+        this.body = body;
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        headers().add(name, value);
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers().contains(name);
+    }
+
+    @Override
+    public int getSequence() {
+        return sequence;
+    }
+
+    public NioHttpRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Returns the body of this response as the chunks that follow its head, each chunk holding about as many bytes as the given
+     * channel can buffer before it becomes unwritable.
+     */
+    HttpChunkedInput content(ChannelHandlerContext ctx) {
+        return new HttpChunkedInput(new BodyInput(body, ctx.channel().config().getWriteBufferHighWaterMark()));
+    }
+
+    private static final class BodyInput implements ChunkedInput<ByteBuf> {
+
+        private final ChunkedRestResponseBody body;
+        private final int sizeHint;
+        private long progress = 0;
+
+        private BodyInput(ChunkedRestResponseBody body, int sizeHint) {
+            this.body = body;
+            this.sizeHint = sizeHint;
+        }
+
+        @Override
+        public boolean isEndOfInput() {
+            return body.isDone();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        @Deprecated
+        public ByteBuf readChunk(ChannelHandlerContext ctx) throws IOException {
+            return readChunk(ctx.alloc());
+        }
+
+        @Override
+        public ByteBuf readChunk(ByteBufAllocator allocator) throws IOException {
+            if (body.isDone()) {
+                return null;
+            }
+            final ByteBuf buffer = allocator.buffer(sizeHint);
+            boolean success = false;
+            try {
+                body.writeChunk(sizeHint, new ByteBufOutputStream(buffer));
+                progress += buffer.readableBytes();
+                success = true;
+                return buffer;
+            } finally {
+                if (success == false) {
+                    buffer.release();
+                }
+            }
+        }
+
+        @Override
+        public long length() {
+            return -1;
+        }
+
+        @Override
+        public long progress() {
+            return progress;
+        }
+    }
+}
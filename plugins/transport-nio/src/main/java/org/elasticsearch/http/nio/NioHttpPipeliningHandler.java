@@ -25,6 +25,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.FullHttpRequest;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.http.HttpPipelinedMessage;
 import org.elasticsearch.http.HttpPipelinedRequest;
 import org.elasticsearch.http.HttpPipeliningAggregator;
 
@@ -37,7 +38,7 @@ import java.util.List;
 public class NioHttpPipeliningHandler extends ChannelDuplexHandler {
 
     private final Logger logger;
-    private final HttpPipeliningAggregator<NioHttpResponse, NettyListener> aggregator;
+    private final HttpPipeliningAggregator<HttpPipelinedMessage, NettyListener> aggregator;
 
     /**
      * Construct a new pipelining handler; this handler should be used downstream of HTTP decoding/aggregation.
@@ -60,15 +61,22 @@ public class NioHttpPipeliningHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
-        assert msg instanceof NioHttpResponse : "Invalid message type: " + msg.getClass();
-        NioHttpResponse response = (NioHttpResponse) msg;
+        assert msg instanceof NioHttpResponse || msg instanceof NioChunkedHttpResponse : "Invalid message type: " + msg.getClass();
+        HttpPipelinedMessage response = (HttpPipelinedMessage) msg;
         boolean success = false;
         try {
             NettyListener listener = NettyListener.fromChannelPromise(promise);
-            List<Tuple<NioHttpResponse, NettyListener>> readyResponses = aggregator.write(response, listener);
+            List<Tuple<HttpPipelinedMessage, NettyListener>> readyResponses = aggregator.write(response, listener);
             success = true;
-            for (Tuple<NioHttpResponse, NettyListener> responseToWrite : readyResponses) {
-                ctx.write(responseToWrite.v1(), responseToWrite.v2());
+            for (Tuple<HttpPipelinedMessage, NettyListener> responseToWrite : readyResponses) {
+                if (responseToWrite.v1() instanceof NioChunkedHttpResponse) {
+                    // the head goes first, then the chunked writer pulls the body whenever the channel is writable
+                    NioChunkedHttpResponse chunkedResponse = (NioChunkedHttpResponse) responseToWrite.v1();
+                    ctx.write(chunkedResponse, ctx.newPromise());
+                    ctx.write(chunkedResponse.content(ctx), responseToWrite.v2());
+                } else {
+                    ctx.write(responseToWrite.v1(), responseToWrite.v2());
+                }
             }
         } catch (IllegalStateException e) {
             ctx.channel().close();
@@ -81,11 +89,11 @@ public class NioHttpPipeliningHandler extends ChannelDuplexHandler {
 
     @Override
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
-        List<Tuple<NioHttpResponse, NettyListener>> inflightResponses = aggregator.removeAllInflightResponses();
+        List<Tuple<HttpPipelinedMessage, NettyListener>> inflightResponses = aggregator.removeAllInflightResponses();
 
         if (inflightResponses.isEmpty() == false) {
             ClosedChannelException closedChannelException = new ClosedChannelException();
-            for (Tuple<NioHttpResponse, NettyListener> inflightResponse : inflightResponses) {
+            for (Tuple<HttpPipelinedMessage, NettyListener> inflightResponse : inflightResponses) {
                 try {
                     inflightResponse.v2().setFailure(closedChannelException);
                 } catch (RuntimeException e) {
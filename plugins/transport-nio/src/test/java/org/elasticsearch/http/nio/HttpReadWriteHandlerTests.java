@@ -34,7 +34,9 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.UTF8StreamWriter;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.http.HttpChannel;
@@ -48,6 +50,7 @@ import org.elasticsearch.http.nio.cors.NioCorsHandler;
 import org.elasticsearch.nio.FlushOperation;
 import org.elasticsearch.nio.InboundChannelBuffer;
 import org.elasticsearch.nio.SocketChannelContext;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
@@ -56,6 +59,8 @@ import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BiConsumer;
 
@@ -72,6 +77,7 @@ import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_INIT
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_RESET_COOKIES;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_PIPELINING_MAX_EVENTS;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -217,6 +223,53 @@ public class HttpReadWriteHandlerTests extends ESTestCase {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public void testEncodeChunkedHttpResponseAsTheSocketCatchesUp() throws IOException {
+        prepareHandlerForResponse(handler);
+
+        List<CheckedConsumer<UTF8StreamWriter, IOException>> parts = new ArrayList<>();
+        StringBuilder expectedContent = new StringBuilder();
+        int numParts = randomIntBetween(20, 40);
+        for (int i = 0; i < numParts; i++) {
+            String part = randomAlphaOfLength(8192);
+            expectedContent.append(part);
+            parts.add(out -> out.append(part));
+        }
+        DefaultFullHttpRequest nettyRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        NioHttpRequest nioHttpRequest = new NioHttpRequest(nettyRequest, 0);
+        NioChunkedHttpResponse httpResponse = nioHttpRequest.createResponse(RestStatus.OK,
+            ChunkedRestResponseBody.fromText("text/plain; charset=UTF-8", parts.iterator()));
+        assertTrue(HttpUtil.isTransferEncodingChunked(httpResponse));
+
+        SocketChannelContext context = mock(SocketChannelContext.class);
+        BiConsumer<Void, Exception> listener = mock(BiConsumer.class);
+        HttpWriteOperation writeOperation = new HttpWriteOperation(context, httpResponse, listener);
+        List<FlushOperation> flushOperations = handler.writeToBytes(writeOperation);
+        ByteBuf bytes = Unpooled.buffer();
+        int rounds = 0;
+        while (flushOperations.isEmpty() == false) {
+            rounds++;
+            for (FlushOperation operation : flushOperations) {
+                for (ByteBuffer buffer : operation.getBuffersToWrite()) {
+                    bytes.writeBytes(buffer);
+                }
+                ((ChannelPromise) operation.getListener()).setSuccess();
+            }
+            // the rest of the body is only serialized once the bytes that wait to be sent were sent
+            flushOperations = handler.pollFlushOperations();
+        }
+        assertThat(rounds, greaterThan(1));
+        verify(listener).accept(null, null);
+
+        FullHttpResponse response = responseDecoder.decode(bytes);
+        try {
+            assertEquals(HttpResponseStatus.OK, response.status());
+            assertEquals(expectedContent.toString(), response.content().toString(StandardCharsets.UTF_8));
+        } finally {
+            response.release();
+        }
+    }
+
     public void testCorsEnabledWithoutAllowOrigins() throws IOException {
         // Set up an HTTP transport with only the CORS enabled setting
         Settings settings = Settings.builder()
@@ -20,6 +20,7 @@
 package org.elasticsearch.action.admin.cluster.snapshots.restore;
 
 import org.elasticsearch.ElasticsearchGenerationException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.action.support.master.MasterNodeRequest;
@@ -60,6 +61,7 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
     private boolean includeGlobalState = false;
     private boolean partial = false;
     private boolean includeAliases = true;
+    private boolean mount = false;
     private Settings settings = EMPTY_SETTINGS;
     private Settings indexSettings = EMPTY_SETTINGS;
     private String[] ignoreIndexSettings = Strings.EMPTY_ARRAY;
@@ -93,6 +95,9 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
         settings = readSettingsFromStream(in);
         indexSettings = readSettingsFromStream(in);
         ignoreIndexSettings = in.readStringArray();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0)) {
+            mount = in.readBoolean();
+        }
     }
 
     @Override
@@ -111,6 +116,12 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
         writeSettingsToStream(settings, out);
         writeSettingsToStream(indexSettings, out);
         out.writeStringArray(ignoreIndexSettings);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0)) {
+            out.writeBoolean(mount);
+        } else if (mount) {
+            throw new IllegalArgumentException("mounting a snapshot requires all nodes to be on version [" + Version.V_7_0_0 +
+                "] or later");
+        }
     }
 
     @Override
@@ -457,6 +468,27 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
         return includeAliases;
     }
 
+    /**
+     * If set to true the indices are mounted instead of restored: their shards read the files of the snapshot from the
+     * repository on demand and can only be searched
+     *
+     * @param mount true if the indices should be mounted from the snapshot
+     * @return this request
+     */
+    public RestoreSnapshotRequest mount(boolean mount) {
+        this.mount = mount;
+        return this;
+    }
+
+    /**
+     * Returns true if the indices are mounted from the snapshot instead of restored
+     *
+     * @return true if the indices are mounted
+     */
+    public boolean mount() {
+        return mount;
+    }
+
     /**
      * Sets settings that should be added/changed in all restored indices
      */
@@ -531,6 +563,8 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
                 includeGlobalState = nodeBooleanValue(entry.getValue(), "include_global_state");
             } else if (name.equals("include_aliases")) {
                 includeAliases = nodeBooleanValue(entry.getValue(), "include_aliases");
+            } else if (name.equals("mount")) {
+                mount = nodeBooleanValue(entry.getValue(), "mount");
             } else if (name.equals("rename_pattern")) {
                 if (entry.getValue() instanceof String) {
                     renamePattern((String) entry.getValue());
@@ -586,6 +620,9 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
         builder.field("include_global_state", includeGlobalState);
         builder.field("partial", partial);
         builder.field("include_aliases", includeAliases);
+        if (mount) {
+            builder.field("mount", mount);
+        }
         if (settings != null) {
             builder.startObject("settings");
             if (settings.isEmpty() == false) {
@@ -628,6 +665,7 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
             includeGlobalState == that.includeGlobalState &&
             partial == that.partial &&
             includeAliases == that.includeAliases &&
+            mount == that.mount &&
             Objects.equals(snapshot, that.snapshot) &&
             Objects.equals(repository, that.repository) &&
             Arrays.equals(indices, that.indices) &&
@@ -642,7 +680,7 @@ public class RestoreSnapshotRequest extends MasterNodeRequest<RestoreSnapshotReq
     @Override
     public int hashCode() {
         int result = Objects.hash(snapshot, repository, indicesOptions, renamePattern, renameReplacement, waitForCompletion,
-            includeGlobalState, partial, includeAliases, settings, indexSettings);
+            includeGlobalState, partial, includeAliases, mount, settings, indexSettings);
         result = 31 * result + Arrays.hashCode(indices);
         result = 31 * result + Arrays.hashCode(ignoreIndexSettings);
         return result;
@@ -227,6 +227,17 @@ public class RestoreSnapshotRequestBuilder extends MasterNodeOperationRequestBui
         return this;
     }
 
+    /**
+     * If set to true the indices are mounted from the snapshot instead of restored
+     *
+     * @param mount true if the indices should be mounted from the snapshot
+     * @return this builder
+     */
+    public RestoreSnapshotRequestBuilder setMount(boolean mount) {
+        request.mount(mount);
+        return this;
+    }
+
     /**
      * Sets index settings that should be added or replaced during restore
      *
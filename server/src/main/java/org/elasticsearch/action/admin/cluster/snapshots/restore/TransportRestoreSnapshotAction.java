@@ -85,7 +85,7 @@ public class TransportRestoreSnapshotAction extends TransportMasterNodeAction<Re
         RestoreService.RestoreRequest restoreRequest = new RestoreService.RestoreRequest(request.repository(), request.snapshot(),
                 request.indices(), request.indicesOptions(), request.renamePattern(), request.renameReplacement(),
                 request.settings(), request.masterNodeTimeout(), request.includeGlobalState(), request.partial(), request.includeAliases(),
-                request.indexSettings(), request.ignoreIndexSettings(), "restore_snapshot[" + request.snapshot() + "]");
+                request.indexSettings(), request.ignoreIndexSettings(), request.mount(), "restore_snapshot[" + request.snapshot() + "]");
 
         restoreService.restoreSnapshot(restoreRequest, new ActionListener<RestoreCompletionResponse>() {
             @Override
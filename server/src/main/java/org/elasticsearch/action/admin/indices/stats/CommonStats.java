@@ -28,6 +28,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.cache.query.ElasticsearchQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.engine.SegmentsStats;
@@ -199,6 +200,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
                         break;
                     case QueryCache:
                         queryCache = indicesQueryCache.getStats(indexShard.shardId());
+                        if (indexShard.getQueryCachingPolicy() instanceof ElasticsearchQueryCachingPolicy) {
+                            queryCache.add(((ElasticsearchQueryCachingPolicy) indexShard.getQueryCachingPolicy()).stats());
+                        }
                         break;
                     case FieldData:
                         fieldData = indexShard.fieldDataStats(flags.fieldDataFields());
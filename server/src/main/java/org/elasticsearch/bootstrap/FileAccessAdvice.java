@@ -0,0 +1,116 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.bootstrap;
+
+import org.apache.lucene.util.Constants;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+
+/**
+ * Gives the operating system hints about how ranges of files are going to be read, on supported systems only (Linux).
+ */
+public final class FileAccessAdvice {
+
+    /** no instantiation */
+    private FileAccessAdvice() {}
+
+    public enum Advice {
+        /** the range will be read soon, start reading it into the page cache */
+        WILL_NEED(3),
+        /** the range will not be read again soon, drop it from the page cache */
+        DONT_NEED(4);
+
+        // the values of POSIX_FADV_WILLNEED and POSIX_FADV_DONTNEED on Linux
+        private final int value;
+
+        Advice(int value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Returns true if hints can be given on this system.
+     */
+    public static boolean isSupported() {
+        return Constants.LINUX && Natives.JNA_AVAILABLE;
+    }
+
+    /**
+     * A file opened to give hints about ranges of it. Hints are given through a single descriptor that is kept open until the
+     * file is closed, rather than through a new descriptor for every hint.
+     */
+    public interface AdvisedFile extends Closeable {
+
+        /**
+         * Gives a hint about the given range of the file.
+         *
+         * @param offset the start of the range
+         * @param length the length of the range, {@code 0} for the range to extend to the end of the file
+         * @param advice the hint
+         * @return true if the hint was given, false if hints are not supported, giving it failed or the file is closed
+         */
+        boolean advise(long offset, long length, Advice advice);
+
+        @Override
+        default void close() {
+        }
+    }
+
+    /**
+     * Opens the given file to give hints about it. Hints given through the returned file are ignored if it could not be opened.
+     */
+    public static AdvisedFile open(Path file) {
+        final int fd = Natives.tryOpenForFadvise(file);
+        if (fd < 0) {
+            return (offset, length, advice) -> false;
+        }
+        return new DescriptorAdvisedFile(file, fd);
+    }
+
+    private static final class DescriptorAdvisedFile implements AdvisedFile {
+
+        private final Path file;
+        private final int fd;
+        private boolean closed = false;
+
+        DescriptorAdvisedFile(Path file, int fd) {
+            this.file = file;
+            this.fd = fd;
+        }
+
+        @Override
+        public synchronized boolean advise(long offset, long length, Advice advice) {
+            // the descriptor may have been reused for another file once it is closed
+            if (closed) {
+                return false;
+            }
+            return Natives.tryFadvise(fd, file, offset, length, advice.value);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed == false) {
+                closed = true;
+                Natives.closeForFadvise(fd);
+            }
+        }
+    }
+}
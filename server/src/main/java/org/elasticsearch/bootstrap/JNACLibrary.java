@@ -43,6 +43,7 @@ final class JNACLibrary {
     public static final int RLIMIT_AS = Constants.MAC_OS_X ? 5 : 9;
     public static final int RLIMIT_FSIZE = Constants.MAC_OS_X ? 1 : 1;
     public static final long RLIM_INFINITY = Constants.MAC_OS_X ? 9223372036854775807L : -1L;
+    public static final int O_RDONLY = 0;
 
     static {
         try {
@@ -72,6 +73,12 @@ final class JNACLibrary {
 
     static native String strerror(int errno);
 
+    static native int open(String path, int flags);
+    static native int close(int fd);
+
+    /** only available on Linux, returns an error number rather than setting errno */
+    static native int posix_fadvise(int fd, long offset, long len, int advice);
+
     private JNACLibrary() {
     }
 }
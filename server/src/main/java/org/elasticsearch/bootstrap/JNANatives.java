@@ -175,6 +175,50 @@ class JNANatives {
         }
     }
 
+    /** Opens a file to pass access pattern hints for it to the page cache, returns -1 if the file could not be opened */
+    static int tryOpenForFadvise(Path file) {
+        if (Constants.LINUX == false) {
+            return -1;
+        }
+        try {
+            final int fd = JNACLibrary.open(file.toString(), JNACLibrary.O_RDONLY);
+            if (fd < 0) {
+                logger.debug("unable to open [{}] for fadvise [{}]", file, JNACLibrary.strerror(Native.getLastError()));
+                return -1;
+            }
+            return fd;
+        } catch (UnsatisfiedLinkError e) {
+            // this will have already been logged by CLibrary, no need to repeat it
+            return -1;
+        }
+    }
+
+    /** Passes an access pattern hint for a range of a file opened with {@link #tryOpenForFadvise(Path)} to the page cache */
+    static boolean tryFadvise(int fd, Path file, long offset, long length, int advice) {
+        try {
+            // the page cache is shared by all descriptors of a file, so advice given through this descriptor applies to
+            // the reads of Lucene's own descriptors too
+            final int result = JNACLibrary.posix_fadvise(fd, offset, length, advice);
+            if (result != 0) {
+                logger.debug("unable to fadvise [{}] [{}]", file, JNACLibrary.strerror(result));
+                return false;
+            }
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            // this will have already been logged by CLibrary, no need to repeat it
+            return false;
+        }
+    }
+
+    /** Closes a file opened with {@link #tryOpenForFadvise(Path)} */
+    static void closeForFadvise(int fd) {
+        try {
+            JNACLibrary.close(fd);
+        } catch (UnsatisfiedLinkError e) {
+            // this will have already been logged by CLibrary, no need to repeat it
+        }
+    }
+
     static void tryVirtualLock() {
         JNAKernel32Library kernel = JNAKernel32Library.getInstance();
         Pointer process = null;
@@ -137,6 +137,26 @@ final class Natives {
         JNANatives.trySetMaxFileSize();
     }
 
+    static int tryOpenForFadvise(Path file) {
+        if (!JNA_AVAILABLE) {
+            return -1;
+        }
+        return JNANatives.tryOpenForFadvise(file);
+    }
+
+    static boolean tryFadvise(int fd, Path file, long offset, long length, int advice) {
+        if (!JNA_AVAILABLE) {
+            return false;
+        }
+        return JNANatives.tryFadvise(fd, file, offset, length, advice);
+    }
+
+    static void closeForFadvise(int fd) {
+        if (JNA_AVAILABLE) {
+            JNANatives.closeForFadvise(fd);
+        }
+    }
+
     static boolean isSystemCallFilterInstalled() {
         if (!JNA_AVAILABLE) {
             return false;
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.common.blobstore;
 
+import org.elasticsearch.common.io.Streams;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
@@ -57,6 +59,38 @@ public interface BlobContainer {
      */
     InputStream readBlob(String blobName) throws IOException;
 
+    /**
+     * Creates a new {@link InputStream} that can be used to read the given range of bytes of the given blob. The default
+     * implementation reads the blob from its start and skips the bytes before the range, implementations should override it
+     * with a ranged read if the underlying store supports it.
+     *
+     * @param   blobName
+     *          The name of the blob to get an {@link InputStream} for.
+     * @param   position
+     *          The position in the blob to start reading from.
+     * @param   length
+     *          The number of bytes to read, the stream ends after this many bytes or at the end of the blob.
+     * @return  The {@code InputStream} to read the range of the blob.
+     * @throws  NoSuchFileException if the blob does not exist
+     * @throws  IOException if the blob can not be read.
+     */
+    default InputStream readBlob(String blobName, long position, long length) throws IOException {
+        if (position < 0L || length < 0L) {
+            throw new IllegalArgumentException("invalid range [" + position + "-" + length + "] for blob [" + blobName + "]");
+        }
+        final InputStream inputStream = readBlob(blobName);
+        boolean success = false;
+        try {
+            Streams.skipFully(inputStream, position);
+            success = true;
+        } finally {
+            if (success == false) {
+                inputStream.close();
+            }
+        }
+        return Streams.limitStream(inputStream, length);
+    }
+
     /**
      * Reads blob content from the input stream and writes it to the container in a new blob with the given name.
      * This method assumes the container does not already contain a blob of the same blobName.  If a blob by the
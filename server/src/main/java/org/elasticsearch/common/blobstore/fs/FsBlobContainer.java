@@ -32,6 +32,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
@@ -123,6 +125,24 @@ public class FsBlobContainer extends AbstractBlobContainer {
         }
     }
 
+    @Override
+    public InputStream readBlob(String blobName, long position, long length) throws IOException {
+        if (position < 0L || length < 0L) {
+            throw new IllegalArgumentException("invalid range [" + position + "-" + length + "] for blob [" + blobName + "]");
+        }
+        final SeekableByteChannel channel = Files.newByteChannel(path.resolve(blobName));
+        if (position > 0L) {
+            try {
+                channel.position(position);
+            } catch (IOException | RuntimeException e) {
+                IOUtils.closeWhileHandlingException(channel);
+                throw e;
+            }
+        }
+        final InputStream stream = org.elasticsearch.common.io.Streams.limitStream(Channels.newInputStream(channel), length);
+        return new BufferedInputStream(stream, Math.toIntExact(Math.min(blobStore.bufferSizeInBytes(), Math.max(length, 1L))));
+    }
+
     @Override
     public void writeBlob(String blobName, InputStream inputStream, long blobSize, boolean failIfAlreadyExists) throws IOException {
         if (failIfAlreadyExists == false) {
@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -52,17 +54,18 @@ import java.util.function.ToLongBiFunction;
  * if they are reading a segment that a writer is writing to).
  * <p>
  * The LRU functionality is backed by a single doubly-linked list chaining the entries in order of insertion. This
- * LRU list is protected by a lock that serializes all writes to it. There are opportunities for improvements
- * here if write throughput is a concern.
- * <ol>
- * <li>LRU list mutations could be inserted into a blocking queue that a single thread is reading from
- * and applying to the LRU list.</li>
- * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
- * <li>Locks on the list could be taken per node being modified instead of globally.</li>
- * </ol>
+ * LRU list is protected by a lock that serializes all writes to it. Reads do not take this lock: they record the
+ * promotion of the entry that they read in a read buffer, one of several that reads are spread over by thread, and
+ * the promotions are applied to the LRU list in batches, by the read that fills a buffer if the lock is free or else
+ * by the next write. A full buffer drops the promotions that do not fit, so the LRU order is only approximate while
+ * many threads read concurrently; this is the price for reads never waiting on each other.
  * <p>
- * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
- * invalidation) or an explicit call to {@link #refresh()}.
+ * If frequency-aware admission is enabled, the cache also estimates how frequently keys were accessed recently (see
+ * TinyLFU), and a new entry that would evict an entry that is accessed more frequently than itself is evicted instead,
+ * so that a burst of entries that are used only once does not flush the entries that are used over and over.
+ * <p>
+ * Evictions only occur after a mutation to the cache (meaning a batch of entry promotions, a cache insertion, or a
+ * manual invalidation) or an explicit call to {@link #refresh()}.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -97,6 +100,12 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // true if new entries are only admitted if they are accessed at least as frequently as the entries they evict
+    private boolean frequencyAwareAdmission;
+
+    // the recent access frequencies of the keys, guarded by the LRU lock
+    private final FrequencySketch frequencySketch = new FrequencySketch();
+
     // use CacheBuilder to construct
     Cache() {
     }
@@ -144,6 +153,10 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    void setFrequencyAwareAdmission(boolean frequencyAwareAdmission) {
+        this.frequencyAwareAdmission = frequencyAwareAdmission;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -350,6 +363,64 @@ public class Cache<K, V> {
     // lock protecting mutations to the LRU list
     private final ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
 
+    // the number of promotions that a read buffer holds before they are applied to the LRU list
+    static final int READ_BUFFER_SIZE = 32;
+
+    @SuppressWarnings("unchecked") private final ReadBuffer<K, V>[] readBuffers =
+        new ReadBuffer[Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 64) * 2 - 1)];
+
+    {
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    /**
+     * A bounded buffer of the entries that were read since the promotions were last applied to the LRU list. Any thread can
+     * add entries, but only the thread that holds the LRU lock drains them.
+     */
+    private static final class ReadBuffer<K, V> {
+        private static final int MASK = READ_BUFFER_SIZE - 1;
+
+        private final AtomicReferenceArray<Entry<K, V>> entries = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCount = new AtomicLong();
+        private volatile long readCount;
+
+        /**
+         * Adds the given entry unless the buffer is full or another thread is adding an entry concurrently.
+         *
+         * @return true if the buffer is full and should be drained
+         */
+        boolean offer(Entry<K, V> entry) {
+            final long writes = writeCount.get();
+            final long pending = writes - readCount;
+            if (pending >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            if (writeCount.compareAndSet(writes, writes + 1)) {
+                entries.lazySet((int) (writes & MASK), entry);
+                return pending + 1 >= READ_BUFFER_SIZE;
+            }
+            return false;
+        }
+
+        void drain(Consumer<Entry<K, V>> consumer) {
+            final long writes = writeCount.get();
+            long reads = readCount;
+            for (; reads < writes; reads++) {
+                final int index = (int) (reads & MASK);
+                final Entry<K, V> entry = entries.get(index);
+                if (entry == null) {
+                    // the slot was claimed but the entry is not visible yet, it will be drained next time
+                    break;
+                }
+                entries.lazySet(index, null);
+                consumer.accept(entry);
+            }
+            readCount = reads;
+        }
+    }
+
     /**
      * Returns the value to which the specified key is mapped, or null if this map contains no mapping for the key.
      *
@@ -366,11 +437,44 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            recordRead(entry, now);
             return entry.value;
         }
     }
 
+    private void recordRead(Entry<K, V> entry, long now) {
+        final ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (buffer.offer(entry)) {
+            // the buffer is full; apply its promotions unless another thread holds the lock, which drains the buffers anyway
+            try (ReleasableLock locked = lruLock.tryAcquire()) {
+                if (locked != null) {
+                    drainReadBuffers();
+                    evict(now, null);
+                }
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this::applyRead);
+        }
+    }
+
+    private void applyRead(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+
+        // new entries are linked by the thread that inserted them, and deleted entries must not be linked again
+        if (entry.state == State.EXISTING) {
+            relinkAtHead(entry);
+            if (frequencyAwareAdmission) {
+                frequencySketch.increment(entry.key.hashCode());
+            }
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -541,6 +645,8 @@ public class Cache<K, V> {
                 haveSegmentLock[i] = true;
             }
             try (ReleasableLock ignored = lruLock.acquire()) {
+                // drop the pending promotions, they are for entries that are deleted now
+                drainReadBuffers();
                 h = head;
                 Arrays.stream(segments).forEach(segment -> segment.map = new HashMap<>());
                 Entry<K, V> current = head;
@@ -571,7 +677,8 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
-            evict(now);
+            drainReadBuffers();
+            evict(now, null);
         }
     }
 
@@ -602,7 +709,7 @@ public class Cache<K, V> {
      */
     public Iterable<K> keys() {
         return () -> new Iterator<K>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator(promotedHead());
 
             @Override
             public boolean hasNext() {
@@ -630,7 +737,7 @@ public class Cache<K, V> {
      */
     public Iterable<V> values() {
         return () -> new Iterator<V>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator(promotedHead());
 
             @Override
             public boolean hasNext() {
@@ -649,6 +756,14 @@ public class Cache<K, V> {
         };
     }
 
+    // applies the pending promotions so that iterations start from the most recently used entry
+    private Entry<K, V> promotedHead() {
+        try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
+            return head;
+        }
+    }
+
     private class CacheIterator implements Iterator<Entry<K, V>> {
         private Entry<K, V> current;
         private Entry<K, V> next;
@@ -729,6 +844,8 @@ public class Cache<K, V> {
     private boolean promote(Entry<K, V> entry, long now) {
         boolean promoted = true;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
+            final boolean inserted = entry.state == State.NEW;
             switch (entry.state) {
                 case DELETED:
                     promoted = false;
@@ -741,20 +858,41 @@ public class Cache<K, V> {
                     break;
             }
             if (promoted) {
-                evict(now);
+                if (frequencyAwareAdmission) {
+                    frequencySketch.ensureCapacity(count);
+                    frequencySketch.increment(entry.key.hashCode());
+                }
+                evict(now, inserted ? entry : null);
             }
         }
         return promoted;
     }
 
-    private void evict(long now) {
+    /**
+     * Evicts entries from the tail of the LRU list while the cache exceeds its weight or the entries are expired.
+     *
+     * @param candidate the entry that was just inserted, if any; it is evicted instead of the tail if frequency-aware
+     *                  admission is enabled and the tail is accessed more frequently
+     */
+    private void evict(long now, Entry<K, V> candidate) {
         assert lruLock.isHeldByCurrentThread();
 
         while (tail != null && shouldPrune(tail, now)) {
-            evictEntry(tail);
+            if (candidate != null && candidate != tail && candidate.state == State.EXISTING
+                && isExpired(tail, now) == false && admit(candidate, tail) == false) {
+                evictEntry(candidate);
+                candidate = null;
+            } else {
+                evictEntry(tail);
+            }
         }
     }
 
+    private boolean admit(Entry<K, V> candidate, Entry<K, V> victim) {
+        return frequencyAwareAdmission == false
+            || frequencySketch.frequency(candidate.key.hashCode()) >= frequencySketch.frequency(victim.key.hashCode());
+    }
+
     private void evictEntry(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
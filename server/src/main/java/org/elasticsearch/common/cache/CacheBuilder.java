@@ -30,6 +30,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private boolean frequencyAwareAdmission;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -90,6 +91,16 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Sets whether a new entry that would evict an entry that was accessed more frequently recently is evicted itself instead.
+     * This protects the entries that are used over and over from bursts of entries that are used only once, at the cost of
+     * tracking the access frequencies of the keys.
+     */
+    public CacheBuilder<K, V> setFrequencyAwareAdmission(boolean frequencyAwareAdmission) {
+        this.frequencyAwareAdmission = frequencyAwareAdmission;
+        return this;
+    }
+
     public Cache<K, V> build() {
         Cache<K, V> cache = new Cache<>();
         if (maximumWeight != -1) {
@@ -107,6 +118,7 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        cache.setFrequencyAwareAdmission(frequencyAwareAdmission);
         return cache;
     }
 }
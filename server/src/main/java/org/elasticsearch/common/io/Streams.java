@@ -25,6 +25,8 @@ import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -235,6 +237,33 @@ public abstract class Streams {
         }
     }
 
+    /**
+     * Skips exactly the given number of bytes of the input stream.
+     *
+     * @throws EOFException if the stream ends before all bytes have been skipped
+     */
+    public static void skipFully(InputStream in, long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            final long skipped = in.skip(remaining);
+            if (skipped > 0) {
+                remaining -= skipped;
+            } else if (in.read() != -1) {
+                // some streams never skip, fall back to reading
+                remaining--;
+            } else {
+                throw new EOFException("stream ended after skipping [" + (bytes - remaining) + "] of [" + bytes + "] bytes");
+            }
+        }
+    }
+
+    /**
+     * Limits the given input stream to the provided number of bytes. Closing the returned stream closes the given stream.
+     */
+    public static InputStream limitStream(InputStream in, long limit) {
+        return new LimitedInputStream(in, limit);
+    }
+
     /**
      * Wraps the given {@link BytesStream} in a {@link StreamOutput} that simply flushes when
      * close is called.
@@ -286,4 +315,61 @@ public abstract class Streams {
             return delegate.bytes();
         }
     }
+
+    /**
+     * An {@link InputStream} that reads at most a given number of bytes of another stream.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must be non-negative but was [" + limit + "]");
+            }
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            final int result = in.read();
+            if (result != -1) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            final int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
 }
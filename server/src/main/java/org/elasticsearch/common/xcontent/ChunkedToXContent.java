@@ -0,0 +1,35 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent;
+
+import java.util.Iterator;
+
+/**
+ * Objects that render themselves as XContent in a sequence of fragments, so that the rendering can be suspended between two
+ * fragments, for instance to send the bytes that were rendered so far before rendering the rest. Rendering all fragments with the
+ * same builder, one after the other, must produce the same XContent as rendering the object at once.
+ */
+public interface ChunkedToXContent {
+
+    /**
+     * Returns the fragments of the XContent of this object, in the order in which they must be rendered.
+     */
+    Iterator<? extends ToXContent> toXContentChunked(ToXContent.Params params);
+}
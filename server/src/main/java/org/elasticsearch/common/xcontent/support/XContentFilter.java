@@ -0,0 +1,241 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent.support;
+
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters XContent objects with include and exclude patterns while they are parsed, copying the included tokens straight to
+ * the output instead of parsing the whole object to a map, filtering the map and serializing it again. The patterns match the
+ * same fields as {@link XContentMapValues#filter(String[], String[])}, and the included fields keep the order they have in the
+ * input.
+ */
+public final class XContentFilter {
+
+    private final CharacterRunAutomaton include;
+    private final CharacterRunAutomaton exclude;
+    private final CharacterRunAutomaton matchAll = new CharacterRunAutomaton(Automata.makeAnyString());
+
+    public XContentFilter(String[] includes, String[] excludes) {
+        if (includes == null || includes.length == 0) {
+            include = matchAll;
+        } else {
+            include = new CharacterRunAutomaton(XContentMapValues.makeMatchDotsInFieldNames(Regex.simpleMatchToAutomaton(includes)));
+        }
+        Automaton excludeA;
+        if (excludes == null || excludes.length == 0) {
+            excludeA = Automata.makeEmpty();
+        } else {
+            excludeA = XContentMapValues.makeMatchDotsInFieldNames(Regex.simpleMatchToAutomaton(excludes));
+        }
+        exclude = new CharacterRunAutomaton(excludeA);
+    }
+
+    /**
+     * Filters the given object, which may be compressed, to a new object of the same content type
+     */
+    public BytesReference filter(BytesReference source) throws IOException {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source)) {
+            BytesStreamOutput streamOutput = new BytesStreamOutput(Math.min(1024, source.length()));
+            XContentBuilder builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+            filter(parser, builder);
+            return BytesReference.bytes(builder);
+        }
+    }
+
+    /**
+     * Copies the included fields of the object that the parser is positioned on, or that starts with the next token, to an
+     * object of the builder.
+     */
+    public void filter(XContentParser parser, XContentBuilder builder) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException("expected an object but got [" + token + "]");
+        }
+        final Output output = new Output(builder);
+        builder.startObject();
+        filterObject(parser, output, include, 0, 0);
+        builder.endObject();
+    }
+
+    // mirrors XContentMapValues#filter(Map, ...), except that a field is only written once it is known to be included
+    private void filterObject(XContentParser parser, Output output, CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+                              int initialExcludeState) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            assert token == XContentParser.Token.FIELD_NAME : token;
+            final String key = parser.currentName();
+            token = parser.nextToken();
+
+            final int includeState = XContentMapValues.step(includeAutomaton, key, initialIncludeState);
+            if (includeState == -1) {
+                parser.skipChildren();
+                continue;
+            }
+            int excludeState = XContentMapValues.step(exclude, key, initialExcludeState);
+            if (excludeState != -1 && exclude.isAccept(excludeState)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            CharacterRunAutomaton subIncludeAutomaton = includeAutomaton;
+            int subIncludeState = includeState;
+            if (includeAutomaton.isAccept(includeState)) {
+                if (excludeState == -1 || exclude.step(excludeState, '.') == -1) {
+                    // the exclude has no chances to match inner properties, copy the whole value
+                    output.field(key);
+                    output.builder.copyCurrentStructure(parser);
+                    continue;
+                } else {
+                    // the object matched, so consider that the include matches every inner property
+                    subIncludeAutomaton = matchAll;
+                    subIncludeState = 0;
+                }
+            }
+
+            if (token == XContentParser.Token.START_OBJECT) {
+                subIncludeState = subIncludeAutomaton.step(subIncludeState, '.');
+                if (subIncludeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (excludeState != -1) {
+                    excludeState = exclude.step(excludeState, '.');
+                }
+                output.push(key, true);
+                filterObject(parser, output, subIncludeAutomaton, subIncludeState, excludeState);
+                output.pop(includeAutomaton.isAccept(includeState));
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                output.push(key, false);
+                filterArray(parser, output, subIncludeAutomaton, subIncludeState, excludeState);
+                output.pop(false);
+            } else if (includeAutomaton.isAccept(includeState) && (excludeState == -1 || exclude.isAccept(excludeState) == false)) {
+                // leaf property
+                output.field(key);
+                output.builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    // mirrors XContentMapValues#filter(Iterable, ...)
+    private void filterArray(XContentParser parser, Output output, CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+                             int initialExcludeState) throws IOException {
+        final boolean isInclude = includeAutomaton.isAccept(initialIncludeState);
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                final int includeState = includeAutomaton.step(initialIncludeState, '.');
+                if (includeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                final int excludeState = initialExcludeState == -1 ? -1 : exclude.step(initialExcludeState, '.');
+                output.push(null, true);
+                filterObject(parser, output, includeAutomaton, includeState, excludeState);
+                output.pop(false);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                output.push(null, false);
+                filterArray(parser, output, includeAutomaton, initialIncludeState, initialExcludeState);
+                output.pop(false);
+            } else if (isInclude) {
+                output.flush();
+                output.builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /**
+     * Writes to the builder, holding back the start of the objects and arrays that were entered until a value is written in
+     * them, since objects and arrays without any included values are left out.
+     */
+    private static final class Output {
+        final XContentBuilder builder;
+        // the field names of the objects and arrays that were entered and not left, null for the elements of arrays
+        private final List<String> names = new ArrayList<>();
+        private final List<Boolean> objects = new ArrayList<>();
+        // the number of entered objects and arrays whose start was written
+        private int written = 0;
+
+        Output(XContentBuilder builder) {
+            this.builder = builder;
+        }
+
+        void push(String name, boolean object) {
+            names.add(name);
+            objects.add(object);
+        }
+
+        /**
+         * Leaves the current object or array, and writes it even if it is empty if {@code keepEmpty} is set
+         */
+        void pop(boolean keepEmpty) throws IOException {
+            final int depth = names.size();
+            if (keepEmpty) {
+                flush();
+            }
+            final boolean object = objects.remove(depth - 1);
+            names.remove(depth - 1);
+            if (written == depth) {
+                if (object) {
+                    builder.endObject();
+                } else {
+                    builder.endArray();
+                }
+                written--;
+            }
+        }
+
+        void field(String name) throws IOException {
+            flush();
+            builder.field(name);
+        }
+
+        void flush() throws IOException {
+            for (; written < names.size(); written++) {
+                if (names.get(written) != null) {
+                    builder.field(names.get(written));
+                }
+                if (objects.get(written)) {
+                    builder.startObject();
+                } else {
+                    builder.startArray();
+                }
+            }
+        }
+    }
+}
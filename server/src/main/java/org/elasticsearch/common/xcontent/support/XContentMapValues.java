@@ -195,13 +195,13 @@ public class XContentMapValues {
     /** Make matches on objects also match dots in field names.
      *  For instance, if the original simple regex is `foo`, this will translate
      *  it into `foo` OR `foo.*`. */
-    private static Automaton makeMatchDotsInFieldNames(Automaton automaton) {
+    static Automaton makeMatchDotsInFieldNames(Automaton automaton) {
         return Operations.union(
                 automaton,
                 Operations.concatenate(Arrays.asList(automaton, Automata.makeChar('.'), Automata.makeAnyString())));
     }
 
-    private static int step(CharacterRunAutomaton automaton, String key, int state) {
+    static int step(CharacterRunAutomaton automaton, String key, int state) {
         for (int i = 0; state != -1 && i < key.length(); ++i) {
             state = automaton.step(state, key.charAt(i));
         }
@@ -85,7 +85,9 @@ public class GatewayMetaState implements ClusterStateApplier {
         if (DiscoveryNode.isMasterNode(settings) || DiscoveryNode.isDataNode(settings)) {
             try {
                 ensureNoPre019State();
+                final long startNS = System.nanoTime();
                 final MetaData metaData = metaStateService.loadFullState();
+                logger.debug("took {} to load state", TimeValue.timeValueMillis(TimeValue.nsecToMSec(System.nanoTime() - startNS)));
                 final MetaData upgradedMetaData = upgradeMetaData(metaData, metaDataIndexUpgradeService, metaDataUpgrader);
                 // We finished global state validation and successfully checked all indices for backward compatibility
                 // and found no non-upgradable indices, which means the upgrade can continue.
@@ -100,9 +102,6 @@ public class GatewayMetaState implements ClusterStateApplier {
                         }
                     }
                 }
-                long startNS = System.nanoTime();
-                metaStateService.loadFullState();
-                logger.debug("took {} to load state", TimeValue.timeValueMillis(TimeValue.nsecToMSec(System.nanoTime() - startNS)));
             } catch (Exception e) {
                 logger.error("failed to read local state, exiting...", e);
                 throw e;
@@ -157,8 +156,9 @@ public class GatewayMetaState implements ClusterStateApplier {
                     success = false;
                 }
             }
-            // check if the global state changed?
-            if (previousMetaData == null || !MetaData.isGlobalStateEquals(previousMetaData, newMetaData)) {
+            // check if the global state changed? the same metadata instance means nothing changed, e.g. on routing only updates
+            if (previousMetaData == null ||
+                (previousMetaData != newMetaData && MetaData.isGlobalStateEquals(previousMetaData, newMetaData) == false)) {
                 try {
                     metaStateService.writeGlobalState("changed", newMetaData);
                 } catch (Exception e) {
@@ -0,0 +1,319 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.gateway;
+
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.cluster.metadata.IndexTemplateMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedObjectNotFoundException;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the changes to the global state since it was last fully written with {@link MetaData#FORMAT}, so that a
+ * change to a single template or custom does not rewrite all the templates and customs of the cluster.
+ * <p>
+ * Each entry holds the persistent settings, templates and customs that were changed or removed since the previous entry. The log
+ * of the global state file {@code global-N.st} is written next to it as {@code global-N.log} in each data path, and is deleted
+ * together with the state file when the next full state is written. Entries are checksummed and synced one at a time, and the
+ * entries that follow one that was only partially written when the node stopped are ignored on load. The full state is written
+ * again once the log grew as large as the state file, so that loading the state never reads more than twice its size.
+ */
+final class GlobalStateLog {
+
+    private static final Logger logger = LogManager.getLogger(GlobalStateLog.class);
+
+    static final String LOG_FILE_EXTENSION = ".log";
+
+    private static final ToXContent.Params FORMAT_PARAMS;
+    private static final ToXContent.Params FLAT_SETTINGS_PARAMS =
+        new ToXContent.MapParams(Collections.singletonMap("flat_settings", "true"));
+    static {
+        Map<String, String> params = new HashMap<>(2);
+        params.put("binary", "true");
+        params.put(MetaData.CONTEXT_MODE_PARAM, MetaData.CONTEXT_MODE_GATEWAY);
+        FORMAT_PARAMS = new ToXContent.MapParams(params);
+    }
+
+    // the global state that the files on disk reflect, or null if the next write needs to write the full state
+    @Nullable
+    private MetaData lastWrittenMetaData;
+    private long generation = -1;
+    private long stateSizeInBytes;
+    private long logSizeInBytes;
+
+    /**
+     * Writes the given global state, either by appending its changes since the last write to the log or by writing the full state
+     * if this is the first write or if the log grew too large.
+     */
+    synchronized void write(MetaData metaData, Path... dataPaths) throws IOException {
+        if (lastWrittenMetaData == null || logSizeInBytes >= stateSizeInBytes) {
+            writeFullState(metaData, dataPaths);
+        } else {
+            append(metaData, dataPaths);
+        }
+    }
+
+    private void writeFullState(MetaData metaData, Path[] dataPaths) throws IOException {
+        lastWrittenMetaData = null;
+        // also deletes the log of the previous state file, whose prefix is the same
+        MetaData.FORMAT.write(metaData, dataPaths);
+        generation = MetaData.FORMAT.findMaxStateId(MetaData.GLOBAL_STATE_FILE_PREFIX, dataPaths);
+        stateSizeInBytes = Files.size(dataPaths[0].resolve(MetaDataStateFormat.STATE_DIR_NAME)
+            .resolve(MetaData.GLOBAL_STATE_FILE_PREFIX + generation + MetaDataStateFormat.STATE_FILE_EXTENSION));
+        logSizeInBytes = 0;
+        lastWrittenMetaData = metaData;
+    }
+
+    private void append(MetaData metaData, Path[] dataPaths) throws IOException {
+        final byte[] entry = entry(lastWrittenMetaData, metaData);
+        // the state on disk is unknown until the entry was written to all data paths
+        lastWrittenMetaData = null;
+        for (Path dataPath : dataPaths) {
+            final Path stateDir = dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME);
+            final Path logFile = logFile(dataPath, generation);
+            final boolean created = Files.exists(logFile) == false;
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+                Channels.writeToChannel(entry, channel);
+                channel.force(false);
+            }
+            if (created) {
+                IOUtils.fsync(stateDir, true);
+            }
+        }
+        logSizeInBytes += entry.length;
+        lastWrittenMetaData = metaData;
+    }
+
+    private static Path logFile(Path dataPath, long generation) {
+        return dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME)
+            .resolve(MetaData.GLOBAL_STATE_FILE_PREFIX + generation + LOG_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns an entry of the log that turns the given previous global state into the given one, prefixed by its length and
+     * followed by its checksum.
+     */
+    private static byte[] entry(MetaData previous, MetaData current) throws IOException {
+        final byte[] content;
+        try (XContentBuilder builder = XContentFactory.contentBuilder(MetaDataStateFormat.FORMAT)) {
+            changesToXContent(previous, current, builder);
+            content = BytesReference.toBytes(BytesReference.bytes(builder));
+        }
+        final CRC32 checksum = new CRC32();
+        checksum.update(content, 0, content.length);
+        try (BytesStreamOutput out = new BytesStreamOutput(content.length + Integer.BYTES + Long.BYTES)) {
+            out.writeInt(content.length);
+            out.writeBytes(content);
+            out.writeLong(checksum.getValue());
+            return BytesReference.toBytes(out.bytes());
+        }
+    }
+
+    private static void changesToXContent(MetaData previous, MetaData current, XContentBuilder builder) throws IOException {
+        builder.startObject();
+        builder.field("version", current.version());
+        builder.field("cluster_uuid", current.clusterUUID());
+        if (previous.persistentSettings().equals(current.persistentSettings()) == false) {
+            builder.startObject("settings");
+            current.persistentSettings().toXContent(builder, FLAT_SETTINGS_PARAMS);
+            builder.endObject();
+        }
+
+        builder.startObject("templates");
+        for (ObjectCursor<IndexTemplateMetaData> cursor : current.templates().values()) {
+            if (cursor.value.equals(previous.templates().get(cursor.value.name())) == false) {
+                IndexTemplateMetaData.Builder.toXContent(cursor.value, builder, FORMAT_PARAMS);
+            }
+        }
+        builder.endObject();
+        builder.startArray("removed_templates");
+        for (ObjectCursor<String> cursor : previous.templates().keys()) {
+            if (current.templates().containsKey(cursor.value) == false) {
+                builder.value(cursor.value);
+            }
+        }
+        builder.endArray();
+
+        builder.startObject("customs");
+        for (ObjectObjectCursor<String, MetaData.Custom> cursor : current.customs()) {
+            if (isPersisted(cursor.value) && cursor.value.equals(previous.customs().get(cursor.key)) == false) {
+                builder.startObject(cursor.key);
+                cursor.value.toXContent(builder, FORMAT_PARAMS);
+                builder.endObject();
+            }
+        }
+        builder.endObject();
+        builder.startArray("removed_customs");
+        for (ObjectObjectCursor<String, MetaData.Custom> cursor : previous.customs()) {
+            if (isPersisted(cursor.value) && isPersisted(current.customs().get(cursor.key)) == false) {
+                builder.value(cursor.key);
+            }
+        }
+        builder.endArray();
+        builder.endObject();
+    }
+
+    private static boolean isPersisted(@Nullable MetaData.Custom custom) {
+        return custom != null && custom.context().contains(MetaData.XContentContext.GATEWAY);
+    }
+
+    /**
+     * Applies the log of the latest global state file in the given data paths to the given state, which was read from that file.
+     * If the logs of the data paths differ, for instance because the node stopped while it appended an entry, the longest one is
+     * applied.
+     */
+    static MetaData replay(MetaData metaData, NamedXContentRegistry namedXContentRegistry, Path... dataPaths) throws IOException {
+        final long generation = MetaData.FORMAT.findMaxStateId(MetaData.GLOBAL_STATE_FILE_PREFIX, dataPaths);
+        List<byte[]> entries = Collections.emptyList();
+        for (Path dataPath : dataPaths) {
+            final List<byte[]> pathEntries = readEntries(logFile(dataPath, generation));
+            if (pathEntries.size() > entries.size()) {
+                entries = pathEntries;
+            }
+        }
+        for (byte[] entry : entries) {
+            try (XContentParser parser = XContentFactory.xContent(MetaDataStateFormat.FORMAT)
+                .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, entry)) {
+                metaData = applyChanges(metaData, parser);
+            }
+        }
+        return metaData;
+    }
+
+    private static List<byte[]> readEntries(Path logFile) throws IOException {
+        final List<byte[]> entries = new ArrayList<>();
+        try (InputStream inputStream = Files.newInputStream(logFile);
+             DataInputStream in = new DataInputStream(inputStream)) {
+            final long length = Files.size(logFile);
+            long position = 0;
+            while (position < length) {
+                final int entryLength = in.readInt();
+                if (entryLength < 0 || entryLength > length - position - Integer.BYTES - Long.BYTES) {
+                    logger.warn("ignoring the incomplete end of the global state log [{}] at position [{}]", logFile, position);
+                    break;
+                }
+                final byte[] entry = new byte[entryLength];
+                in.readFully(entry);
+                final CRC32 checksum = new CRC32();
+                checksum.update(entry, 0, entry.length);
+                if (in.readLong() != checksum.getValue()) {
+                    logger.warn("ignoring the corrupted end of the global state log [{}] at position [{}]", logFile, position);
+                    break;
+                }
+                entries.add(entry);
+                position += Integer.BYTES + entryLength + Long.BYTES;
+            }
+        } catch (NoSuchFileException e) {
+            // no changes since the state file was written
+        } catch (EOFException e) {
+            logger.warn("ignoring the incomplete end of the global state log [{}]", logFile);
+        }
+        return entries;
+    }
+
+    private static MetaData applyChanges(MetaData metaData, XContentParser parser) throws IOException {
+        final MetaData.Builder builder = MetaData.builder(metaData);
+        XContentParser.Token token = parser.nextToken();
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a START_OBJECT but got " + token);
+        }
+        String currentFieldName = null;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if ("settings".equals(currentFieldName)) {
+                    builder.persistentSettings(Settings.fromXContent(parser));
+                } else if ("templates".equals(currentFieldName)) {
+                    while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+                        builder.put(IndexTemplateMetaData.Builder.fromXContent(parser, parser.currentName()));
+                    }
+                } else if ("customs".equals(currentFieldName)) {
+                    while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+                        final String type = parser.currentName();
+                        parser.nextToken();
+                        try {
+                            final MetaData.Custom custom = parser.namedObject(MetaData.Custom.class, type, null);
+                            builder.putCustom(custom.getWriteableName(), custom);
+                        } catch (NamedObjectNotFoundException ex) {
+                            logger.warn("Skipping unknown custom object with type {}", type);
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unexpected field [" + currentFieldName + "]");
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                if ("removed_templates".equals(currentFieldName)) {
+                    while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                        builder.removeTemplate(parser.text());
+                    }
+                } else if ("removed_customs".equals(currentFieldName)) {
+                    while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                        builder.removeCustom(parser.text());
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unexpected field [" + currentFieldName + "]");
+                }
+            } else if (token.isValue()) {
+                if ("version".equals(currentFieldName)) {
+                    builder.version(parser.longValue());
+                } else if ("cluster_uuid".equals(currentFieldName)) {
+                    builder.clusterUUID(parser.text());
+                } else {
+                    throw new IllegalArgumentException("Unexpected field [" + currentFieldName + "]");
+                }
+            } else {
+                throw new IllegalArgumentException("Unexpected token " + token);
+            }
+        }
+        return builder.build();
+    }
+}
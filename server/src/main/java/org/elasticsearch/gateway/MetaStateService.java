@@ -43,6 +43,7 @@ public class MetaStateService {
 
     private final NodeEnvironment nodeEnv;
     private final NamedXContentRegistry namedXContentRegistry;
+    private final GlobalStateLog globalStateLog = new GlobalStateLog();
 
     public MetaStateService(NodeEnvironment nodeEnv, NamedXContentRegistry namedXContentRegistry) {
         this.nodeEnv = nodeEnv;
@@ -109,7 +110,11 @@ public class MetaStateService {
      * Loads the global state, *without* index state, see {@link #loadFullState()} for that.
      */
     MetaData loadGlobalState() throws IOException {
-        return MetaData.FORMAT.loadLatestState(logger, namedXContentRegistry, nodeEnv.nodeDataPaths());
+        final MetaData metaData = MetaData.FORMAT.loadLatestState(logger, namedXContentRegistry, nodeEnv.nodeDataPaths());
+        if (metaData == null) {
+            return null;
+        }
+        return GlobalStateLog.replay(metaData, namedXContentRegistry, nodeEnv.nodeDataPaths());
     }
 
     /**
@@ -131,12 +136,13 @@ public class MetaStateService {
     }
 
     /**
-     * Writes the global state, *without* the indices states.
+     * Writes the global state, *without* the indices states. Only the changes since the previous call are written if possible,
+     * see {@link GlobalStateLog}.
      */
     void writeGlobalState(String reason, MetaData metaData) throws IOException {
         logger.trace("[_global] writing state, reason [{}]",  reason);
         try {
-            MetaData.FORMAT.write(metaData, nodeEnv.nodeDataPaths());
+            globalStateLog.write(metaData, nodeEnv.nodeDataPaths());
             logger.trace("[_global] state written");
         } catch (Exception ex) {
             logger.warn("[_global]: failed to write global state", ex);
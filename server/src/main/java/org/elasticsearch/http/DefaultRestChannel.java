@@ -30,6 +30,7 @@ import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.rest.AbstractRestChannel;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -74,13 +75,25 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         return new ReleasableBytesStreamOutput(bigArrays);
     }
 
+    /**
+     * Sends the given response. Its content is sent in a single piece if it was serialized before, usually into the recycled pages
+     * of {@link #newBytesOutput()}, which are released once the response was written. If the response has a
+     * {@link RestResponse#chunkedContent() chunked content}, the content is sent with a chunked transfer encoding instead, and the
+     * HTTP transport serializes each chunk when the network channel can take more bytes. The body of a response to a HEAD request is
+     * released, or not serialized at all, since it is never sent.
+     */
     @Override
     public void sendResponse(RestResponse restResponse) {
+        final boolean isHeadRequest = RestRequest.Method.HEAD == request.method();
+        final ChunkedRestResponseBody chunkedContent = restResponse.chunkedContent();
+        final BytesReference content = chunkedContent == null ? restResponse.content() : null;
         HttpResponse httpResponse;
-        if (RestRequest.Method.HEAD == request.method()) {
+        if (isHeadRequest) {
             httpResponse = httpRequest.createResponse(restResponse.status(), BytesArray.EMPTY);
+        } else if (chunkedContent != null) {
+            httpResponse = httpRequest.createResponse(restResponse.status(), chunkedContent);
         } else {
-            httpResponse = httpRequest.createResponse(restResponse.status(), restResponse.content());
+            httpResponse = httpRequest.createResponse(restResponse.status(), content);
         }
 
         // TODO: Ideally we should move the setting of Cors headers into :server
@@ -101,18 +114,25 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         try {
             // If our response doesn't specify a content-type header, set one
             setHeaderField(httpResponse, CONTENT_TYPE, restResponse.contentType(), false);
-            // If our response has no content-length, calculate and set one
-            setHeaderField(httpResponse, CONTENT_LENGTH, String.valueOf(restResponse.content().length()), false);
+            // If our response has no content-length, calculate and set one, unless the content is serialized while it is sent
+            if (content != null) {
+                setHeaderField(httpResponse, CONTENT_LENGTH, String.valueOf(content.length()), false);
+            }
 
             addCookies(httpResponse);
 
-            BytesReference content = restResponse.content();
+            // the body of a response to a HEAD request is never sent, so it can be released right away instead of
+            // holding on to its pages until the response was written to the network
+            final List<Releasable> contentReleasables = isHeadRequest ? new ArrayList<>(2) : toClose;
             if (content instanceof Releasable) {
-                toClose.add((Releasable) content);
+                contentReleasables.add((Releasable) content);
             }
             BytesStreamOutput bytesStreamOutput = bytesOutputOrNull();
             if (bytesStreamOutput instanceof ReleasableBytesStreamOutput) {
-                toClose.add((Releasable) bytesStreamOutput);
+                contentReleasables.add((Releasable) bytesStreamOutput);
+            }
+            if (isHeadRequest) {
+                Releasables.close(contentReleasables);
             }
 
             if (isCloseConnection()) {
@@ -20,6 +20,7 @@
 package org.elasticsearch.http;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
@@ -62,4 +63,10 @@ public interface HttpRequest {
      */
     HttpResponse createResponse(RestStatus status, BytesReference content);
 
+    /**
+     * Create an http response from this request and the supplied status and content, which is sent with a chunked transfer
+     * encoding and serialized chunk by chunk while the network channel is writable.
+     */
+    HttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content);
+
 }
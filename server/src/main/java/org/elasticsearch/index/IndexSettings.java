@@ -77,10 +77,11 @@ public final class IndexSettings {
                 case "false":
                 case "true":
                 case "checksum":
+                case "background":
                     return s;
                 default:
                     throw new IllegalArgumentException("unknown value for [index.shard.check_on_startup] must be one of " +
-                        "[true, false, checksum] but was: " + s);
+                        "[true, false, checksum, background] but was: " + s);
             }
         }, Property.IndexScope);
 
@@ -130,6 +131,13 @@ public final class IndexSettings {
         Setting.intSetting("index.highlight.max_analyzed_offset", 1000000, 1,
             Property.Dynamic, Property.IndexScope);
 
+    /**
+     * Whether the tokens of the texts that are analyzed for a highlight request are cached, so that highlighting the same
+     * documents again replays them instead of analyzing the texts again.
+     */
+    public static final Setting<Boolean> HIGHLIGHT_CACHE_ANALYSIS_SETTING =
+        Setting.boolSetting("index.highlight.cache_analysis", false, Property.Dynamic, Property.IndexScope);
+
 
     /**
      * Index setting describing the maximum number of terms that can be used in Terms Query.
@@ -274,6 +282,13 @@ public final class IndexSettings {
     public static final Setting<Integer> MAX_REGEX_LENGTH_SETTING = Setting.intSetting("index.max_regex_length",
         1000, 1, Property.Dynamic, Property.IndexScope);
 
+    /**
+     * The name of a snapshot repository that peer recoveries into an empty shard copy fetch the files of the latest snapshot of the
+     * shard from, so that only the files that changed since have to be copied from the recovery source. Disabled if empty.
+     */
+    public static final Setting<String> INDEX_RECOVERY_REPOSITORY_SETTING =
+        Setting.simpleString("index.recovery.repository", Property.Dynamic, Property.IndexScope);
+
     public static final Setting<String> DEFAULT_PIPELINE =
        new Setting<>("index.default_pipeline", IngestService.NOOP_PIPELINE_NAME, s -> {
            if (s == null || s.isEmpty()) {
@@ -328,8 +343,10 @@ public final class IndexSettings {
     private volatile int maxShingleDiff;
     private volatile TimeValue searchIdleAfter;
     private volatile int maxAnalyzedOffset;
+    private volatile boolean highlightCacheAnalysis;
     private volatile int maxTermsCount;
     private volatile String defaultPipeline;
+    private volatile String recoveryRepository;
     private volatile boolean searchThrottled;
 
     /**
@@ -444,12 +461,14 @@ public final class IndexSettings {
         maxRefreshListeners = scopedSettings.get(MAX_REFRESH_LISTENERS_PER_SHARD);
         maxSlicesPerScroll = scopedSettings.get(MAX_SLICES_PER_SCROLL);
         maxAnalyzedOffset = scopedSettings.get(MAX_ANALYZED_OFFSET_SETTING);
+        highlightCacheAnalysis = scopedSettings.get(HIGHLIGHT_CACHE_ANALYSIS_SETTING);
         maxTermsCount = scopedSettings.get(MAX_TERMS_COUNT_SETTING);
         maxRegexLength = scopedSettings.get(MAX_REGEX_LENGTH_SETTING);
         this.mergePolicyConfig = new MergePolicyConfig(logger, this);
         this.indexSortConfig = new IndexSortConfig(this);
         searchIdleAfter = scopedSettings.get(INDEX_SEARCH_IDLE_AFTER);
         defaultPipeline = scopedSettings.get(DEFAULT_PIPELINE);
+        recoveryRepository = scopedSettings.get(INDEX_RECOVERY_REPOSITORY_SETTING);
 
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING, mergePolicyConfig::setNoCFSRatio);
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING,
@@ -491,12 +510,14 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
+        scopedSettings.addSettingsUpdateConsumer(HIGHLIGHT_CACHE_ANALYSIS_SETTING, this::setHighlightCacheAnalysis);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_FIELD_SETTING, this::setDefaultFields);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_IDLE_AFTER, this::setSearchIdleAfter);
         scopedSettings.addSettingsUpdateConsumer(MAX_REGEX_LENGTH_SETTING, this::setMaxRegexLength);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_PIPELINE, this::setDefaultPipeline);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_RECOVERY_REPOSITORY_SETTING, this::setRecoveryRepository);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING, this::setSoftDeleteRetentionOperations);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_THROTTLED, this::setSearchThrottled);
     }
@@ -799,6 +820,13 @@ public final class IndexSettings {
 
     private void setHighlightMaxAnalyzedOffset(int maxAnalyzedOffset) { this.maxAnalyzedOffset = maxAnalyzedOffset; }
 
+    /**
+     * Returns whether the tokens of the texts that are analyzed for a highlight request are cached
+     */
+    public boolean isHighlightCacheAnalysis() { return this.highlightCacheAnalysis; }
+
+    private void setHighlightCacheAnalysis(boolean highlightCacheAnalysis) { this.highlightCacheAnalysis = highlightCacheAnalysis; }
+
     /**
      *  Returns the maximum number of terms that can be used in a Terms Query request
      */
@@ -897,6 +925,17 @@ public final class IndexSettings {
         this.defaultPipeline = defaultPipeline;
     }
 
+    /**
+     * Returns the name of the repository that peer recoveries seed empty shard copies from, or an empty string if disabled
+     */
+    public String getRecoveryRepository() {
+        return recoveryRepository;
+    }
+
+    private void setRecoveryRepository(String recoveryRepository) {
+        this.recoveryRepository = recoveryRepository;
+    }
+
     /**
      * Returns <code>true</code> if soft-delete is enabled.
      */
@@ -24,6 +24,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexReaderContext;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
@@ -70,15 +71,20 @@ import java.util.concurrent.Executor;
  * Use this cache with care, only components that require that a filter is to be materialized as a {@link BitDocIdSet}
  * and require that it should always be around should use this cache, otherwise the
  * {@link org.elasticsearch.index.cache.query.QueryCache} should be used instead.
+ * <p>
+ * Nested parent filters that match few documents of a segment, because each parent has many nested documents, can be
+ * loaded through {@link #getParentBitSetProducer(Query)}, which materializes them as {@link ParentBlockBitSet}s that find the
+ * parent that precedes a document without scanning the bits of its block. Other filters are always materialized as regular
+ * bit sets, since callers may depend on their concrete type.
  */
 public final class BitsetFilterCache extends AbstractIndexComponent
-        implements IndexReader.ClosedListener, RemovalListener<IndexReader.CacheKey, Cache<Query, BitsetFilterCache.Value>>, Closeable {
+        implements IndexReader.ClosedListener, RemovalListener<IndexReader.CacheKey, Cache<Object, BitsetFilterCache.Value>>, Closeable {
 
     public static final Setting<Boolean> INDEX_LOAD_RANDOM_ACCESS_FILTERS_EAGERLY_SETTING =
         Setting.boolSetting("index.load_fixed_bitset_filters_eagerly", true, Property.IndexScope);
 
     private final boolean loadRandomAccessFiltersEagerly;
-    private final Cache<IndexReader.CacheKey, Cache<Query, Value>> loadedFilters;
+    private final Cache<IndexReader.CacheKey, Cache<Object, Value>> loadedFilters;
     private final Listener listener;
 
     public BitsetFilterCache(IndexSettings indexSettings, Listener listener) {
@@ -87,7 +93,7 @@ public final class BitsetFilterCache extends AbstractIndexComponent
             throw new IllegalArgumentException("listener must not be null");
         }
         this.loadRandomAccessFiltersEagerly = this.indexSettings.getValue(INDEX_LOAD_RANDOM_ACCESS_FILTERS_EAGERLY_SETTING);
-        this.loadedFilters = CacheBuilder.<IndexReader.CacheKey, Cache<Query, Value>>builder().removalListener(this).build();
+        this.loadedFilters = CacheBuilder.<IndexReader.CacheKey, Cache<Object, Value>>builder().removalListener(this).build();
         this.listener = listener;
     }
 
@@ -97,7 +103,16 @@ public final class BitsetFilterCache extends AbstractIndexComponent
 
 
     public BitSetProducer getBitSetProducer(Query query) {
-        return new QueryWrapperBitSetProducer(query);
+        return new QueryWrapperBitSetProducer(query, false);
+    }
+
+    /**
+     * Returns a {@link BitSetProducer} for a nested parent filter, which may load sparse bit sets as read-only
+     * {@link ParentBlockBitSet}s. Filters that are not parent filters of nested documents should use
+     * {@link #getBitSetProducer(Query)} instead.
+     */
+    public BitSetProducer getParentBitSetProducer(Query parentFilter) {
+        return new QueryWrapperBitSetProducer(parentFilter, true);
     }
 
     @Override
@@ -115,7 +130,8 @@ public final class BitsetFilterCache extends AbstractIndexComponent
         loadedFilters.invalidateAll();
     }
 
-    private BitSet getAndLoadIfNotPresent(final Query query, final LeafReaderContext context) throws IOException, ExecutionException {
+    private BitSet getAndLoadIfNotPresent(final Query query, final boolean parentFilter,
+                                          final LeafReaderContext context) throws IOException, ExecutionException {
         final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
         if (cacheHelper == null) {
             throw new IllegalArgumentException("Reader " + context.reader() + " does not support caching");
@@ -127,12 +143,13 @@ public final class BitsetFilterCache extends AbstractIndexComponent
             throw new IllegalStateException("Trying to load bit set for index " + shardId.getIndex()
                     + " with cache of index " + indexSettings.getIndex());
         }
-        Cache<Query, Value> filterToFbs = loadedFilters.computeIfAbsent(coreCacheReader, key -> {
+        Cache<Object, Value> filterToFbs = loadedFilters.computeIfAbsent(coreCacheReader, key -> {
             cacheHelper.addClosedListener(BitsetFilterCache.this);
-            return CacheBuilder.<Query, Value>builder().build();
+            return CacheBuilder.<Object, Value>builder().build();
         });
 
-        return filterToFbs.computeIfAbsent(query, key -> {
+        final Object cacheKey = parentFilter ? new ParentFilterKey(query) : query;
+        return filterToFbs.computeIfAbsent(cacheKey, key -> {
             final IndexReaderContext topLevelContext = ReaderUtil.getTopLevelContext(context);
             final IndexSearcher searcher = new IndexSearcher(topLevelContext);
             searcher.setQueryCache(null);
@@ -142,7 +159,13 @@ public final class BitsetFilterCache extends AbstractIndexComponent
             if (s == null) {
                 bitSet = null;
             } else {
-                bitSet = BitSet.of(s.iterator(), context.reader().maxDoc());
+                final DocIdSetIterator iterator = s.iterator();
+                final int maxDoc = context.reader().maxDoc();
+                if (parentFilter && ParentBlockBitSet.useFor(iterator.cost(), maxDoc)) {
+                    bitSet = ParentBlockBitSet.of(iterator, maxDoc);
+                } else {
+                    bitSet = BitSet.of(iterator, maxDoc);
+                }
             }
 
             Value value = new Value(bitSet, shardId);
@@ -152,12 +175,12 @@ public final class BitsetFilterCache extends AbstractIndexComponent
     }
 
     @Override
-    public void onRemoval(RemovalNotification<IndexReader.CacheKey, Cache<Query, Value>> notification) {
+    public void onRemoval(RemovalNotification<IndexReader.CacheKey, Cache<Object, Value>> notification) {
         if (notification.getKey() == null) {
             return;
         }
 
-        Cache<Query, Value> valueCache = notification.getValue();
+        Cache<Object, Value> valueCache = notification.getValue();
         if (valueCache == null) {
             return;
         }
@@ -182,15 +205,17 @@ public final class BitsetFilterCache extends AbstractIndexComponent
     final class QueryWrapperBitSetProducer implements BitSetProducer {
 
         final Query query;
+        final boolean parentFilter;
 
-        QueryWrapperBitSetProducer(Query query) {
+        QueryWrapperBitSetProducer(Query query, boolean parentFilter) {
             this.query = Objects.requireNonNull(query);
+            this.parentFilter = parentFilter;
         }
 
         @Override
         public BitSet getBitSet(LeafReaderContext context) throws IOException {
             try {
-                return getAndLoadIfNotPresent(query, context);
+                return getAndLoadIfNotPresent(query, parentFilter, context);
             } catch (ExecutionException e) {
                 throw ExceptionsHelper.convertToElastic(e);
             }
@@ -204,12 +229,35 @@ public final class BitsetFilterCache extends AbstractIndexComponent
         @Override
         public boolean equals(Object o) {
             if (!(o instanceof QueryWrapperBitSetProducer)) return false;
-            return this.query.equals(((QueryWrapperBitSetProducer) o).query);
+            QueryWrapperBitSetProducer other = (QueryWrapperBitSetProducer) o;
+            return this.query.equals(other.query) && this.parentFilter == other.parentFilter;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * getClass().hashCode() + query.hashCode()) + Boolean.hashCode(parentFilter);
+        }
+    }
+
+    /**
+     * The cache key of a nested parent filter, so that its bit set is cached apart from the regular bit set of the same query.
+     */
+    private static final class ParentFilterKey {
+
+        private final Query query;
+
+        ParentFilterKey(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ParentFilterKey && query.equals(((ParentFilterKey) o).query);
         }
 
         @Override
         public int hashCode() {
-            return 31 * getClass().hashCode() + query.hashCode();
+            return 31 * ParentFilterKey.class.hashCode() + query.hashCode();
         }
     }
 
@@ -260,7 +308,7 @@ public final class BitsetFilterCache extends AbstractIndexComponent
                     executor.execute(() -> {
                         try {
                             final long start = System.nanoTime();
-                            getAndLoadIfNotPresent(filterToWarm, ctx);
+                            getAndLoadIfNotPresent(filterToWarm, true, ctx);
                             if (indexShard.warmerService().logger().isTraceEnabled()) {
                                 indexShard.warmerService().logger().trace("warmed bitset for [{}], took [{}]",
                                     filterToWarm, TimeValue.timeValueNanos(System.nanoTime() - start));
@@ -279,7 +327,7 @@ public final class BitsetFilterCache extends AbstractIndexComponent
 
     }
 
-    Cache<IndexReader.CacheKey, Cache<Query, Value>> getLoadedFilters() {
+    Cache<IndexReader.CacheKey, Cache<Object, Value>> getLoadedFilters() {
         return loadedFilters;
     }
 
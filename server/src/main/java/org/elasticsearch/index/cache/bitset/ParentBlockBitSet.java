@@ -0,0 +1,157 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.bitset;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+
+import java.io.IOException;
+
+/**
+ * A read-only {@link BitSet} for sparse parent filters, where every parent document is preceded by a large block of nested
+ * documents. It stores the parent documents as packed ints in order, so the children of a parent start right after the parent
+ * that precedes it, and indexes them by windows of documents, so that {@link #prevSetBit} and {@link #nextSetBit} only need
+ * to search the few parents of a window instead of scanning the bits of all the children of a block.
+ */
+final class ParentBlockBitSet extends BitSet {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(ParentBlockBitSet.class);
+
+    // parents are indexed by windows of 2^WINDOW_SHIFT documents
+    static final int WINDOW_SHIFT = 12;
+    // sets with at least this many documents per set bit on average are built as a ParentBlockBitSet, which is also when
+    // BitSet#of would build a sparse bit set
+    static final int MIN_AVERAGE_BLOCK_SIZE = 128;
+
+    private final int length;
+    private final int cardinality;
+    private final PackedLongValues docs;
+    // the index in docs of the first document of each window, followed by the cardinality
+    private final int[] windowStarts;
+
+    private ParentBlockBitSet(int length, PackedLongValues docs, int[] windowStarts) {
+        this.length = length;
+        this.cardinality = Math.toIntExact(docs.size());
+        this.docs = docs;
+        this.windowStarts = windowStarts;
+    }
+
+    /**
+     * Whether a set of the given cost should rather be built as a {@link ParentBlockBitSet} than with {@link BitSet#of}
+     */
+    static boolean useFor(long cost, int maxDoc) {
+        return cost < maxDoc / MIN_AVERAGE_BLOCK_SIZE;
+    }
+
+    /**
+     * Builds a set from the documents of an unpositioned iterator.
+     */
+    static ParentBlockBitSet of(DocIdSetIterator iterator, int maxDoc) throws IOException {
+        final PackedLongValues.Builder docs = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        final int numWindows = (maxDoc + (1 << WINDOW_SHIFT) - 1) >>> WINDOW_SHIFT;
+        final int[] windowStarts = new int[numWindows + 1];
+        int count = 0;
+        int window = 0;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            final int docWindow = doc >>> WINDOW_SHIFT;
+            while (window < docWindow) {
+                windowStarts[++window] = count;
+            }
+            docs.add(doc);
+            count++;
+        }
+        while (window < numWindows) {
+            windowStarts[++window] = count;
+        }
+        return new ParentBlockBitSet(maxDoc, docs.build(), windowStarts);
+    }
+
+    /**
+     * Returns the number of set bits that are less than the given index
+     */
+    private int rank(int index) {
+        final int window = index >>> WINDOW_SHIFT;
+        if (window >= windowStarts.length - 1) {
+            return cardinality;
+        }
+        int low = windowStarts[window];
+        int high = windowStarts[window + 1];
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (docs.get(mid) < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public boolean get(int index) {
+        final int rank = rank(index);
+        return rank < cardinality && docs.get(rank) == index;
+    }
+
+    @Override
+    public int nextSetBit(int index) {
+        final int rank = rank(index);
+        return rank < cardinality ? (int) docs.get(rank) : DocIdSetIterator.NO_MORE_DOCS;
+    }
+
+    @Override
+    public int prevSetBit(int index) {
+        final int rank = rank(index + 1);
+        return rank == 0 ? -1 : (int) docs.get(rank - 1);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public void set(int i) {
+        throw new UnsupportedOperationException("parent block bit sets are read-only");
+    }
+
+    @Override
+    public void clear(int i) {
+        throw new UnsupportedOperationException("parent block bit sets are read-only");
+    }
+
+    @Override
+    public void clear(int startIndex, int endIndex) {
+        throw new UnsupportedOperationException("parent block bit sets are read-only");
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return BASE_RAM_BYTES_USED + docs.ramBytesUsed() + RamUsageEstimator.sizeOf(windowStarts);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The caching policy of a shard. Like {@link UsageTrackingQueryCachingPolicy}, whose reuse frequencies it relies on, it caches
+ * filters once they were used often enough recently, and it adjusts how often that is with what it observes on the shard:
+ * <ul>
+ *     <li>Filters that are costly to evaluate again are cached after fewer uses. On top of the queries that Lucene considers
+ *     costly, these are range queries that may run on doc values, geo queries, and filters whose iterators were seen to match
+ *     a large part of a segment, which the node query cache reports through {@link #onCost}.</li>
+ *     <li>If few of the filters that were cached recently were used again, which means that the cache mostly holds filters
+ *     that are not hit, filters need one more use before they are cached.</li>
+ * </ul>
+ * The decisions are counted per type of filter and reported with the {@link QueryCacheStats} of the shard.
+ */
+public final class ElasticsearchQueryCachingPolicy extends UsageTrackingQueryCachingPolicy {
+
+    // the number of uses after which costly filters are cached
+    static final int COSTLY_MIN_FREQUENCY = 2;
+    // a filter whose iterator matches at least this fraction of the documents of a segment is costly to evaluate again
+    static final double COSTLY_DENSITY = 0.01;
+    // the number of recently cached filters that the reuse ratio is computed on
+    static final int REUSE_HISTORY_SIZE = 256;
+    // cached filters need more uses if fewer than this fraction of the recently cached filters was used again
+    static final double MIN_REUSE_RATIO = 0.25;
+
+    // the hash codes of the filters that were seen to be costly
+    private final Map<Integer, Boolean> costlyFilters = new LinkedHashMap<Integer, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+            return size() > REUSE_HISTORY_SIZE;
+        }
+    };
+    // the hash codes of the recently cached filters, mapped to whether they were used again since they were cached
+    private final Map<Integer, Boolean> cachedFilters = new LinkedHashMap<Integer, Boolean>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+            if (size() > REUSE_HISTORY_SIZE) {
+                if (eldest.getValue()) {
+                    reusedFilters--;
+                }
+                return true;
+            }
+            return false;
+        }
+    };
+    private int reusedFilters = 0;
+    private final Map<String, Long> cacheDecisions = new HashMap<>();
+    private final Map<String, Long> skipDecisions = new HashMap<>();
+
+    /**
+     * A query that is built for a single search, and whose matches change while that search runs. Its uses are not recorded, so
+     * that it doesn't push the filters that are actually reused out of the history of recent uses, and it is never cached.
+     */
+    public interface SingleUseQuery {
+    }
+
+    @Override
+    public void onUse(Query query) {
+        if (query instanceof SingleUseQuery) {
+            return;
+        }
+        super.onUse(query);
+        synchronized (this) {
+            final Integer hashCode = query.hashCode();
+            if (cachedFilters.get(hashCode) == Boolean.FALSE) {
+                cachedFilters.put(hashCode, true);
+                reusedFilters++;
+            }
+        }
+    }
+
+    /**
+     * Called with the cost of the iterator of the given filter on a segment that has the given number of documents.
+     */
+    public synchronized void onCost(Query query, long cost, int maxDoc) {
+        if (maxDoc > 0 && cost >= COSTLY_DENSITY * maxDoc) {
+            costlyFilters.put(query.hashCode(), true);
+        }
+    }
+
+    @Override
+    protected int minFrequencyToCache(Query query) {
+        int minFrequency = super.minFrequencyToCache(query);
+        if (isCostly(query)) {
+            minFrequency = Math.min(minFrequency, COSTLY_MIN_FREQUENCY);
+        }
+        synchronized (this) {
+            if (cachedFilters.size() == REUSE_HISTORY_SIZE && reusedFilters < MIN_REUSE_RATIO * REUSE_HISTORY_SIZE) {
+                minFrequency++;
+            }
+        }
+        return minFrequency;
+    }
+
+    private synchronized boolean isCostly(Query query) {
+        if (query instanceof IndexOrDocValuesQuery || filterType(query).startsWith("LatLon")) {
+            return true;
+        }
+        return costlyFilters.get(query.hashCode()) != null;
+    }
+
+    @Override
+    public boolean shouldCache(Query query) throws IOException {
+        if (query instanceof SingleUseQuery) {
+            return false;
+        }
+        final boolean shouldCache = super.shouldCache(query);
+        synchronized (this) {
+            final Map<String, Long> decisions = shouldCache ? cacheDecisions : skipDecisions;
+            decisions.merge(filterType(query), 1L, Long::sum);
+            if (shouldCache) {
+                cachedFilters.putIfAbsent(query.hashCode(), false);
+            }
+        }
+        return shouldCache;
+    }
+
+    /**
+     * Returns stats that only hold the caching decisions of this policy
+     */
+    public synchronized QueryCacheStats stats() {
+        return new QueryCacheStats(0, 0, 0, 0, 0, new HashMap<>(cacheDecisions), new HashMap<>(skipDecisions));
+    }
+
+    // the simple name of the class of the filter, or of its first named super class for anonymous filters
+    static String filterType(Query query) {
+        Class<?> clazz = query.getClass();
+        while (clazz.getSimpleName().isEmpty()) {
+            clazz = clazz.getSuperclass();
+        }
+        return clazz.getSimpleName();
+    }
+}
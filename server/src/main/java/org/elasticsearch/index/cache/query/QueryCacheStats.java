@@ -20,6 +20,7 @@
 package org.elasticsearch.index.cache.query;
 
 import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -29,6 +30,10 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
 
 public class QueryCacheStats implements Streamable, ToXContentFragment {
 
@@ -37,16 +42,25 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
     long missCount;
     long cacheCount;
     long cacheSize;
+    Map<String, Long> cacheDecisions = new HashMap<>();
+    Map<String, Long> skipDecisions = new HashMap<>();
 
     public QueryCacheStats() {
     }
 
     public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize) {
+        this(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, new HashMap<>(), new HashMap<>());
+    }
+
+    public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize,
+                           Map<String, Long> cacheDecisions, Map<String, Long> skipDecisions) {
         this.ramBytesUsed = ramBytesUsed;
         this.hitCount = hitCount;
         this.missCount = missCount;
         this.cacheCount = cacheCount;
         this.cacheSize = cacheSize;
+        this.cacheDecisions = cacheDecisions;
+        this.skipDecisions = skipDecisions;
     }
 
     public void add(QueryCacheStats stats) {
@@ -55,6 +69,8 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         missCount += stats.missCount;
         cacheCount += stats.cacheCount;
         cacheSize += stats.cacheSize;
+        stats.cacheDecisions.forEach((type, count) -> cacheDecisions.merge(type, count, Long::sum));
+        stats.skipDecisions.forEach((type, count) -> skipDecisions.merge(type, count, Long::sum));
     }
 
     public long getMemorySizeInBytes() {
@@ -107,6 +123,20 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         return cacheCount - cacheSize;
     }
 
+    /**
+     * The number of times that the caching policy decided to cache a filter, per type of filter.
+     */
+    public Map<String, Long> getCacheDecisions() {
+        return Collections.unmodifiableMap(cacheDecisions);
+    }
+
+    /**
+     * The number of times that the caching policy decided not to cache a filter, per type of filter.
+     */
+    public Map<String, Long> getSkipDecisions() {
+        return Collections.unmodifiableMap(skipDecisions);
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         ramBytesUsed = in.readLong();
@@ -114,6 +144,10 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         missCount = in.readLong();
         cacheCount = in.readLong();
         cacheSize = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0)) {
+            cacheDecisions = in.readMap(StreamInput::readString, StreamInput::readVLong);
+            skipDecisions = in.readMap(StreamInput::readString, StreamInput::readVLong);
+        }
     }
 
     @Override
@@ -123,6 +157,10 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         out.writeLong(missCount);
         out.writeLong(cacheCount);
         out.writeLong(cacheSize);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0)) {
+            out.writeMap(cacheDecisions, StreamOutput::writeString, StreamOutput::writeVLong);
+            out.writeMap(skipDecisions, StreamOutput::writeString, StreamOutput::writeVLong);
+        }
     }
 
     @Override
@@ -135,6 +173,18 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         builder.field(Fields.CACHE_SIZE, getCacheSize());
         builder.field(Fields.CACHE_COUNT, getCacheCount());
         builder.field(Fields.EVICTIONS, getEvictions());
+        if (cacheDecisions.isEmpty() == false || skipDecisions.isEmpty() == false) {
+            builder.startObject(Fields.CACHING_DECISIONS);
+            final TreeSet<String> types = new TreeSet<>(cacheDecisions.keySet());
+            types.addAll(skipDecisions.keySet());
+            for (String type : types) {
+                builder.startObject(type);
+                builder.field(Fields.CACHE, cacheDecisions.getOrDefault(type, 0L));
+                builder.field(Fields.SKIP, skipDecisions.getOrDefault(type, 0L));
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -149,6 +199,9 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         static final String CACHE_SIZE = "cache_size";
         static final String CACHE_COUNT = "cache_count";
         static final String EVICTIONS = "evictions";
+        static final String CACHING_DECISIONS = "caching_decisions";
+        static final String CACHE = "cache";
+        static final String SKIP = "skip";
     }
 
 }
@@ -55,6 +55,13 @@ public interface IndexFieldDataCache {
          * Called after the fielddata is unloaded
          */
         default void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes){}
+
+        /**
+         * Called after the given fielddata is unloaded, delegates to {@link #onRemoval(ShardId, String, boolean, long)} by default
+         */
+        default void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, Accountable fieldData) {
+            onRemoval(shardId, fieldName, wasEvicted, fieldData.ramBytesUsed());
+        }
     }
 
     class None implements IndexFieldDataCache {
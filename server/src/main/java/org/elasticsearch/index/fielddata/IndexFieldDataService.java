@@ -53,6 +53,13 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
             }
         }, Property.IndexScope);
 
+    /**
+     * Whether global ordinals are written next to the commit point on flush, so that they can be read instead of being rebuilt
+     * when the shard is opened on the same commit again, e.g. after a restart
+     */
+    public static final Setting<Boolean> INDEX_PERSIST_GLOBAL_ORDINALS_SETTING =
+        Setting.boolSetting("index.fielddata.persist_global_ordinals", false, Property.IndexScope);
+
     private final CircuitBreakerService circuitBreakerService;
 
     private final IndicesFieldDataCache indicesFieldDataCache;
@@ -22,7 +22,8 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
-
+import org.apache.lucene.util.LongValues;
+import org.elasticsearch.common.Nullable;
 
 /**
  * Specialization of {@link IndexFieldData} for data that is indexed with ordinals.
@@ -47,4 +48,15 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<AtomicOrdi
      * or null if global ordinals are not needed (constant value or single segment).
      */
     OrdinalMap getOrdinalMap();
+
+    /**
+     * Returns the mapping from the ordinals of the segment at the given index to global ordinals,
+     * or null if global ordinals are not needed (constant value or single segment).
+     * Prefer this method over {@link #getOrdinalMap()}, which may have to build the {@link OrdinalMap}.
+     */
+    @Nullable
+    default LongValues getGlobalOrds(int segmentIndex) {
+        final OrdinalMap ordinalMap = getOrdinalMap();
+        return ordinalMap == null ? null : ordinalMap.getGlobalOrds(segmentIndex);
+    }
 }
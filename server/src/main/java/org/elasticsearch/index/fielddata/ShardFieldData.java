@@ -20,21 +20,33 @@
 package org.elasticsearch.index.fielddata;
 
 import com.carrotsearch.hppc.ObjectLongHashMap;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
+import org.elasticsearch.index.fielddata.ordinals.PersistedGlobalOrdinals;
 import org.elasticsearch.index.shard.ShardId;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
 
 public class ShardFieldData implements IndexFieldDataCache.Listener {
 
     private final CounterMetric evictionsMetric = new CounterMetric();
     private final CounterMetric totalMetric = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
+    // the cached global ordinals, persisted on flush if they were built for the committed segments
+    private final Set<GlobalOrdinalsIndexFieldData> globalOrdinals = ConcurrentCollections.newConcurrentSet();
 
     public FieldDataStats stats(String... fields) {
         ObjectLongHashMap<String> fieldTotals = null;
@@ -46,12 +58,24 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
                 }
             }
         }
-        return new FieldDataStats(totalMetric.count(), evictionsMetric.count(), fieldTotals == null ? null :
+        // ordinal maps built on demand are not part of the size the cache saw, they only count while their global ordinals are cached
+        long ordinalMapsSize = 0;
+        for (GlobalOrdinalsIndexFieldData fieldData : globalOrdinals) {
+            final long ordinalMapSize = fieldData.ordinalMapRamBytesUsed();
+            ordinalMapsSize += ordinalMapSize;
+            if (fieldTotals != null && ordinalMapSize > 0 && Regex.simpleMatch(fields, fieldData.getFieldName())) {
+                fieldTotals.addTo(fieldData.getFieldName(), ordinalMapSize);
+            }
+        }
+        return new FieldDataStats(totalMetric.count() + ordinalMapsSize, evictionsMetric.count(), fieldTotals == null ? null :
             new FieldMemoryStats(fieldTotals));
     }
 
     @Override
     public void onCache(ShardId shardId, String fieldName, Accountable ramUsage) {
+        if (ramUsage instanceof GlobalOrdinalsIndexFieldData) {
+            globalOrdinals.add((GlobalOrdinalsIndexFieldData) ramUsage);
+        }
         totalMetric.inc(ramUsage.ramBytesUsed());
         CounterMetric total = perFieldTotals.get(fieldName);
         if (total != null) {
@@ -66,6 +90,14 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
         }
     }
 
+    @Override
+    public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, Accountable fieldData) {
+        if (fieldData instanceof GlobalOrdinalsIndexFieldData) {
+            globalOrdinals.remove(fieldData);
+        }
+        onRemoval(shardId, fieldName, wasEvicted, fieldData.ramBytesUsed());
+    }
+
     @Override
     public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes) {
         if (wasEvicted) {
@@ -80,4 +112,30 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             }
         }
     }
+
+    /**
+     * Writes the loaded global ordinals that were built for the segments of the given commit next to it, and deletes the persisted
+     * global ordinals of all other fields, which were built for older commits or for fields that are no longer loaded or mapped.
+     *
+     * @param isMapped whether a field is still mapped
+     * @return the names of the fields whose global ordinals were written
+     */
+    public synchronized List<String> persistGlobalOrdinals(Directory directory, SegmentInfos lastCommit,
+                                                           Predicate<String> isMapped) throws IOException {
+        final byte[][] committedSegmentIds = PersistedGlobalOrdinals.segmentIds(lastCommit);
+        final List<String> persisted = new ArrayList<>();
+        final Set<String> committedFields = new HashSet<>();
+        for (GlobalOrdinalsIndexFieldData fieldData : globalOrdinals) {
+            final String fieldName = fieldData.getFieldName();
+            if (isMapped.test(fieldName) == false || fieldData.isBuiltFor(committedSegmentIds) == false) {
+                continue;
+            }
+            committedFields.add(fieldName);
+            if (fieldData.persist(directory, committedSegmentIds)) {
+                persisted.add(fieldName);
+            }
+        }
+        PersistedGlobalOrdinals.deleteStaleFiles(directory, committedFields);
+        return persisted;
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Maps the ordinals of the segments of a reader to global ordinals. It is either backed by an {@link OrdinalMap} that is built
+ * from the terms of the segments, or read from a file that was persisted next to the commit point.
+ */
+public abstract class GlobalOrdinalMap implements Accountable {
+
+    /**
+     * Returns the total number of unique terms in the global ordinal space
+     */
+    public abstract long getValueCount();
+
+    /**
+     * Returns the mapping from the ordinals of the segment at the given index to global ordinals
+     */
+    public abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * Returns the ordinal of the given global ordinal in the first segment that contains its term
+     */
+    public abstract long getFirstSegmentOrd(long globalOrd);
+
+    /**
+     * Returns the index of the first segment that contains the term of the given global ordinal
+     */
+    public abstract int getFirstSegmentNumber(long globalOrd);
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns a {@link GlobalOrdinalMap} backed by the given {@link OrdinalMap}
+     */
+    public static GlobalOrdinalMap of(OrdinalMap ordinalMap) {
+        return new GlobalOrdinalMap() {
+            @Override
+            public long getValueCount() {
+                return ordinalMap.getValueCount();
+            }
+
+            @Override
+            public LongValues getGlobalOrds(int segmentIndex) {
+                return ordinalMap.getGlobalOrds(segmentIndex);
+            }
+
+            @Override
+            public long getFirstSegmentOrd(long globalOrd) {
+                return ordinalMap.getFirstSegmentOrd(globalOrd);
+            }
+
+            @Override
+            public int getFirstSegmentNumber(long globalOrd) {
+                return ordinalMap.getFirstSegmentNumber(globalOrd);
+            }
+
+            @Override
+            public long ramBytesUsed() {
+                return ordinalMap.ramBytesUsed();
+            }
+        };
+    }
+}
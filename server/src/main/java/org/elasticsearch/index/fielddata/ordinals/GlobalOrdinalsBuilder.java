@@ -20,6 +20,8 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
@@ -30,6 +32,7 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
@@ -58,9 +61,42 @@ public enum GlobalOrdinalsBuilder {
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        final long[] segmentValueCounts = new long[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
             atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
             subs[i] = atomicFD[i].getOrdinalsValues();
+            segmentValueCounts[i] = subs[i].getValueCount();
+        }
+        final String fieldName = indexFieldData.getFieldName();
+        final byte[][] segmentIds;
+        if (indexSettings.getValue(IndexFieldDataService.INDEX_PERSIST_GLOBAL_ORDINALS_SETTING) && indexReader instanceof DirectoryReader) {
+            segmentIds = PersistedGlobalOrdinals.segmentIds(indexReader);
+        } else {
+            segmentIds = null;
+        }
+        if (segmentIds != null) {
+            GlobalOrdinalMap persisted = null;
+            try {
+                persisted = PersistedGlobalOrdinals.read(((DirectoryReader) indexReader).directory(), fieldName, segmentIds,
+                    segmentValueCounts);
+            } catch (IOException e) {
+                logger.warn(() -> new ParameterizedMessage("failed to read persisted global ordinals for [{}], rebuilding them",
+                    fieldName), e);
+            }
+            if (persisted != null) {
+                final long memorySizeInBytes = persisted.ramBytesUsed();
+                breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
+                if (logger.isDebugEnabled()) {
+                    logger.debug(
+                            "global-ordinals [{}][{}] read from persisted file took [{}]",
+                            fieldName,
+                            persisted.getValueCount(),
+                            new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                    );
+                }
+                return new GlobalOrdinalsIndexFieldData(indexSettings, fieldName, atomicFD, persisted, null, memorySizeInBytes,
+                        scriptFunction, breakerService, segmentIds, segmentValueCounts, true);
+            }
         }
         final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
@@ -69,14 +105,13 @@ public enum GlobalOrdinalsBuilder {
         if (logger.isDebugEnabled()) {
             logger.debug(
                     "global-ordinals [{}][{}] took [{}]",
-                    indexFieldData.getFieldName(),
+                    fieldName,
                     ordinalMap.getValueCount(),
                     new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
             );
         }
-        return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, memorySizeInBytes, scriptFunction
-        );
+        return new GlobalOrdinalsIndexFieldData(indexSettings, fieldName, atomicFD, GlobalOrdinalMap.of(ordinalMap), ordinalMap,
+                memorySizeInBytes, scriptFunction, breakerService, segmentIds, segmentValueCounts, false);
     }
 
     public static IndexOrdinalsFieldData buildEmpty(IndexSettings indexSettings, final IndexReader indexReader,
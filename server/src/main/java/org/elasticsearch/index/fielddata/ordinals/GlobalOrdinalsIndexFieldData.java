@@ -23,8 +23,12 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
@@ -33,10 +37,15 @@ import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.N
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.MultiValueMode;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 /**
@@ -47,23 +56,55 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
     private final String fieldName;
     private final long memorySizeInBytes;
 
-    private final OrdinalMap ordinalMap;
+    private final GlobalOrdinalMap globalOrdinalMap;
+    // built on demand if the global ordinals were read from a persisted file
+    private volatile OrdinalMap ordinalMap;
+    // the size of the ordinal map built on demand that is accounted for in the fielddata breaker, see #releaseOrdinalMap
+    private volatile long ordinalMapBytesAccounted;
+    private boolean released;
     private final Atomic[] atomicReaders;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
+    private final CircuitBreakerService breakerService;
+    @Nullable
+    private final byte[][] segmentIds;
+    private final long[] segmentValueCounts;
+    private final AtomicBoolean persisted;
 
 
     protected GlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd,
                                            OrdinalMap ordinalMap, long memorySizeInBytes, Function<SortedSetDocValues,
                                            ScriptDocValues<?>> scriptFunction) {
+        this(indexSettings, fieldName, segmentAfd, GlobalOrdinalMap.of(ordinalMap), ordinalMap, memorySizeInBytes, scriptFunction,
+            null, null, null, false);
+    }
+
+    /**
+     * @param globalOrdinalMap   the mapping from segment ordinals to global ordinals
+     * @param ordinalMap         the {@link OrdinalMap} backing the mapping, or {@code null} if it was read from a persisted file
+     * @param breakerService     accounts for the {@link OrdinalMap} if it is built on demand
+     * @param segmentIds         the ids of the segments of the reader, or {@code null} if the global ordinals are not persisted
+     * @param segmentValueCounts the number of ordinals of each segment of the reader
+     * @param persisted          whether the global ordinals were read from or already written to a persisted file
+     */
+    GlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd,
+                                 GlobalOrdinalMap globalOrdinalMap, @Nullable OrdinalMap ordinalMap, long memorySizeInBytes,
+                                 Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+                                 @Nullable CircuitBreakerService breakerService, @Nullable byte[][] segmentIds,
+                                 @Nullable long[] segmentValueCounts, boolean persisted) {
         super(indexSettings);
         this.fieldName = fieldName;
         this.memorySizeInBytes = memorySizeInBytes;
+        this.globalOrdinalMap = globalOrdinalMap;
         this.ordinalMap = ordinalMap;
         this.atomicReaders = new Atomic[segmentAfd.length];
         for (int i = 0; i < segmentAfd.length; i++) {
-            atomicReaders[i] = new Atomic(segmentAfd[i], ordinalMap, i);
+            atomicReaders[i] = new Atomic(segmentAfd[i], globalOrdinalMap, i);
         }
         this.scriptFunction = scriptFunction;
+        this.breakerService = breakerService;
+        this.segmentIds = segmentIds;
+        this.segmentValueCounts = segmentValueCounts;
+        this.persisted = new AtomicBoolean(persisted);
     }
 
     @Override
@@ -114,16 +155,99 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
 
     @Override
     public OrdinalMap getOrdinalMap() {
+        OrdinalMap ordinalMap = this.ordinalMap;
+        if (ordinalMap == null) {
+            synchronized (this) {
+                ordinalMap = this.ordinalMap;
+                if (ordinalMap == null) {
+                    final SortedSetDocValues[] subs = new SortedSetDocValues[atomicReaders.length];
+                    for (int i = 0; i < subs.length; i++) {
+                        subs[i] = atomicReaders[i].afd.getOrdinalsValues();
+                    }
+                    try {
+                        ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    // the cache weighed these global ordinals without the map, so it is accounted for separately until they are
+                    // removed from the cache, and not at all if they are still used after that
+                    if (released == false) {
+                        breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(ordinalMap.ramBytesUsed());
+                        ordinalMapBytesAccounted = ordinalMap.ramBytesUsed();
+                    }
+                    this.ordinalMap = ordinalMap;
+                }
+            }
+        }
         return ordinalMap;
     }
 
+    /**
+     * Returns the size of the {@link OrdinalMap} that was built on demand and is accounted for in the fielddata breaker. It is not
+     * part of {@link #ramBytesUsed()}, which must not change once these global ordinals are cached.
+     */
+    public long ordinalMapRamBytesUsed() {
+        return ordinalMapBytesAccounted;
+    }
+
+    /**
+     * Releases the {@link OrdinalMap} built on demand from the fielddata breaker. Called once these global ordinals are removed
+     * from the cache.
+     */
+    public synchronized void releaseOrdinalMap() {
+        if (released == false) {
+            released = true;
+            if (ordinalMapBytesAccounted > 0) {
+                breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(-ordinalMapBytesAccounted);
+                ordinalMapBytesAccounted = 0;
+            }
+        }
+    }
+
+    @Override
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return globalOrdinalMap.getGlobalOrds(segmentIndex);
+    }
+
+    /**
+     * Returns whether these global ordinals can be persisted and were built for the segments with the given ids
+     */
+    public boolean isBuiltFor(byte[][] committedSegmentIds) {
+        return segmentIds != null && Arrays.deepEquals(segmentIds, committedSegmentIds);
+    }
+
+    /**
+     * Writes these global ordinals next to the given commit if they were built for the segments of the commit and were not
+     * persisted yet.
+     *
+     * @return whether the global ordinals were written
+     */
+    public boolean persist(Directory directory, byte[][] committedSegmentIds) throws IOException {
+        if (isBuiltFor(committedSegmentIds) == false) {
+            return false;
+        }
+        if (persisted.compareAndSet(false, true) == false) {
+            return false;
+        }
+        boolean success = false;
+        try {
+            PersistedGlobalOrdinals.write(directory, fieldName, segmentIds, segmentValueCounts, globalOrdinalMap);
+            success = true;
+        } finally {
+            if (success == false) {
+                persisted.set(false);
+            }
+        }
+        return true;
+    }
+
     private final class Atomic extends AbstractAtomicOrdinalsFieldData {
 
         private final AtomicOrdinalsFieldData afd;
-        private final OrdinalMap ordinalMap;
+        private final GlobalOrdinalMap ordinalMap;
         private final int segmentIndex;
 
-        private Atomic(AtomicOrdinalsFieldData afd, OrdinalMap ordinalMap, int segmentIndex) {
+        private Atomic(AtomicOrdinalsFieldData afd, GlobalOrdinalMap ordinalMap, int segmentIndex) {
             super(scriptFunction);
             this.afd = afd;
             this.ordinalMap = ordinalMap;
@@ -0,0 +1,271 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.lucene.Lucene;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads and writes {@link GlobalOrdinalMap}s from and to files in the directory of a shard, so that global ordinals do not have
+ * to be rebuilt from the terms of all segments when a shard is opened on a commit whose global ordinals were persisted.
+ * <p>
+ * A persisted map records the ids of the segments it was built for, in order, and is only used for a reader whose segments
+ * have the same ids. The ordinals of a segment only depend on its terms, which never change after the segment was written.
+ * There is at most one file per field, named so that Lucene never considers it as one of its own files.
+ */
+public final class PersistedGlobalOrdinals {
+
+    static final String FILE_PREFIX = "global_ordinals-";
+    static final String FILE_EXTENSION = ".gord";
+    static final String CODEC_NAME = "GlobalOrdinals";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private PersistedGlobalOrdinals() {}
+
+    /**
+     * Returns the ids of the segments of the given reader in order, or {@code null} if a leaf of the reader is not a segment
+     */
+    @Nullable
+    public static byte[][] segmentIds(IndexReader reader) {
+        final byte[][] ids = new byte[reader.leaves().size()][];
+        for (LeafReaderContext leaf : reader.leaves()) {
+            try {
+                ids[leaf.ord] = Lucene.segmentReader(leaf.reader()).getSegmentInfo().info.getId();
+            } catch (IllegalStateException e) {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the ids of the segments of the given commit in order
+     */
+    public static byte[][] segmentIds(SegmentInfos segmentInfos) {
+        final byte[][] ids = new byte[segmentInfos.size()][];
+        int i = 0;
+        for (SegmentCommitInfo segmentCommitInfo : segmentInfos) {
+            ids[i++] = segmentCommitInfo.info.getId();
+        }
+        return ids;
+    }
+
+    static String fileName(String fieldName) {
+        final byte[] digest = MessageDigests.sha256().digest(fieldName.getBytes(StandardCharsets.UTF_8));
+        return FILE_PREFIX + MessageDigests.toHexString(digest) + FILE_EXTENSION;
+    }
+
+    /**
+     * Writes the given map, replacing the map that was persisted for the same field before.
+     *
+     * @param directory          the directory of the shard
+     * @param fieldName          the field of the global ordinals
+     * @param segmentIds         the ids of the segments the map was built for
+     * @param segmentValueCounts the number of ordinals of each segment
+     * @param map                the map to write
+     */
+    public static void write(Directory directory, String fieldName, byte[][] segmentIds, long[] segmentValueCounts,
+                             GlobalOrdinalMap map) throws IOException {
+        assert segmentIds.length == segmentValueCounts.length;
+        final String fileName = fileName(fieldName);
+        final String tempFileName;
+        try (IndexOutput output = directory.createTempOutput(FILE_PREFIX, "tmp", IOContext.DEFAULT)) {
+            tempFileName = output.getName();
+            CodecUtil.writeHeader(output, CODEC_NAME, VERSION_CURRENT);
+            output.writeString(fieldName);
+            output.writeVInt(segmentIds.length);
+            for (int i = 0; i < segmentIds.length; i++) {
+                assert segmentIds[i].length == StringHelper.ID_LENGTH;
+                output.writeBytes(segmentIds[i], segmentIds[i].length);
+                output.writeVLong(segmentValueCounts[i]);
+            }
+            output.writeVLong(map.getValueCount());
+            for (int i = 0; i < segmentIds.length; i++) {
+                // global ordinals increase with the ordinals of a segment, so the deltas are small
+                final LongValues globalOrds = map.getGlobalOrds(i);
+                long previous = 0;
+                for (long segmentOrd = 0; segmentOrd < segmentValueCounts[i]; segmentOrd++) {
+                    final long globalOrd = globalOrds.get(segmentOrd);
+                    output.writeVLong(globalOrd - previous);
+                    previous = globalOrd;
+                }
+            }
+            for (long globalOrd = 0; globalOrd < map.getValueCount(); globalOrd++) {
+                output.writeVInt(map.getFirstSegmentNumber(globalOrd));
+                output.writeVLong(globalOrd - map.getFirstSegmentOrd(globalOrd));
+            }
+            CodecUtil.writeFooter(output);
+        }
+        boolean success = false;
+        try {
+            if (Arrays.asList(directory.listAll()).contains(fileName)) {
+                directory.deleteFile(fileName);
+            }
+            directory.rename(tempFileName, fileName);
+            success = true;
+        } finally {
+            if (success == false) {
+                directory.deleteFile(tempFileName);
+            }
+        }
+    }
+
+    /**
+     * Deletes the persisted maps of all fields but the given ones, together with temporary files left behind by failed writes.
+     *
+     * @param directory  the directory of the shard
+     * @param keepFields the fields whose persisted maps are kept
+     */
+    public static void deleteStaleFiles(Directory directory, Set<String> keepFields) throws IOException {
+        final Set<String> keepFiles = new HashSet<>();
+        for (String fieldName : keepFields) {
+            keepFiles.add(fileName(fieldName));
+        }
+        for (String file : directory.listAll()) {
+            if (file.startsWith(FILE_PREFIX) && keepFiles.contains(file) == false) {
+                try {
+                    directory.deleteFile(file);
+                } catch (NoSuchFileException | FileNotFoundException e) {
+                    // already deleted
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the map that was persisted for the given field if it was built for the given segments.
+     *
+     * @param directory          the directory of the shard
+     * @param fieldName          the field of the global ordinals
+     * @param segmentIds         the ids of the segments of the reader the map is needed for
+     * @param segmentValueCounts the number of ordinals of each segment of the reader
+     * @return the map, or {@code null} if no map was persisted for these segments
+     */
+    @Nullable
+    public static GlobalOrdinalMap read(Directory directory, String fieldName, byte[][] segmentIds,
+                                        long[] segmentValueCounts) throws IOException {
+        try (ChecksumIndexInput input = directory.openChecksumInput(fileName(fieldName), IOContext.READONCE)) {
+            CodecUtil.checkHeader(input, CODEC_NAME, VERSION_START, VERSION_CURRENT);
+            if (fieldName.equals(input.readString()) == false || input.readVInt() != segmentIds.length) {
+                return null;
+            }
+            final byte[] segmentId = new byte[StringHelper.ID_LENGTH];
+            for (int i = 0; i < segmentIds.length; i++) {
+                input.readBytes(segmentId, 0, segmentId.length);
+                if (Arrays.equals(segmentId, segmentIds[i]) == false || input.readVLong() != segmentValueCounts[i]) {
+                    return null;
+                }
+            }
+            final long valueCount = input.readVLong();
+            final PackedLongValues[] segmentToGlobalOrds = new PackedLongValues[segmentIds.length];
+            for (int i = 0; i < segmentIds.length; i++) {
+                final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+                long globalOrd = 0;
+                for (long segmentOrd = 0; segmentOrd < segmentValueCounts[i]; segmentOrd++) {
+                    globalOrd += input.readVLong();
+                    builder.add(globalOrd);
+                }
+                segmentToGlobalOrds[i] = builder.build();
+            }
+            final PackedLongValues.Builder firstSegments = PackedLongValues.deltaPackedBuilder(PackedInts.COMPACT);
+            final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.deltaPackedBuilder(PackedInts.COMPACT);
+            for (long globalOrd = 0; globalOrd < valueCount; globalOrd++) {
+                firstSegments.add(input.readVInt());
+                globalOrdDeltas.add(input.readVLong());
+            }
+            CodecUtil.checkFooter(input);
+            return new ReadGlobalOrdinalMap(valueCount, segmentToGlobalOrds, firstSegments.build(), globalOrdDeltas.build());
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static final class ReadGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(ReadGlobalOrdinalMap.class);
+
+        private final long valueCount;
+        private final PackedLongValues[] segmentToGlobalOrds;
+        private final PackedLongValues firstSegments;
+        private final PackedLongValues globalOrdDeltas;
+
+        ReadGlobalOrdinalMap(long valueCount, PackedLongValues[] segmentToGlobalOrds, PackedLongValues firstSegments,
+                             PackedLongValues globalOrdDeltas) {
+            this.valueCount = valueCount;
+            this.segmentToGlobalOrds = segmentToGlobalOrds;
+            this.firstSegments = firstSegments;
+            this.globalOrdDeltas = globalOrdDeltas;
+        }
+
+        @Override
+        public long getValueCount() {
+            return valueCount;
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return segmentToGlobalOrds[segmentIndex];
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return globalOrd - globalOrdDeltas.get(globalOrd);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return (int) firstSegments.get(globalOrd);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long size = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds)
+                + firstSegments.ramBytesUsed() + globalOrdDeltas.ramBytesUsed();
+            for (PackedLongValues values : segmentToGlobalOrds) {
+                size += values.ramBytesUsed();
+            }
+            return size;
+        }
+    }
+}
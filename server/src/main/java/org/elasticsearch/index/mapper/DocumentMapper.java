@@ -27,6 +27,7 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchGenerationException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.settings.Settings;
@@ -129,6 +130,8 @@ public class DocumentMapper implements ToXContentFragment {
     private final Map<String, ObjectMapper> objectMappers;
 
     private final boolean hasNestedObjects;
+
+    private final SyntheticSourceLoader syntheticSourceLoader;
     private final MetadataFieldMapper[] deleteTombstoneMetadataFieldMappers;
     private final MetadataFieldMapper[] noopTombstoneMetadataFieldMappers;
 
@@ -175,6 +178,7 @@ public class DocumentMapper implements ToXContentFragment {
             }
         }
         this.hasNestedObjects = hasNestedObjects;
+        this.syntheticSourceLoader = sourceMapper().isSynthetic() ? new SyntheticSourceLoader(mapping.root) : null;
 
         try {
             mappingSource = new CompressedXContent(this, XContentType.JSON, ToXContent.EMPTY_PARAMS);
@@ -232,6 +236,14 @@ public class DocumentMapper implements ToXContentFragment {
         return metadataMapper(SourceFieldMapper.class);
     }
 
+    /**
+     * Returns the loader that reconstructs the {@code _source} of documents, or {@code null} if the {@code _source} is stored
+     */
+    @Nullable
+    public SyntheticSourceLoader syntheticSourceLoader() {
+        return syntheticSourceLoader;
+    }
+
     public IdFieldMapper idFieldMapper() {
         return metadataMapper(IdFieldMapper.class);
     }
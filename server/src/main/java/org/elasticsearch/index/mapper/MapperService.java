@@ -126,6 +126,8 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
     private volatile FieldTypeLookup fieldTypes;
     private volatile Map<String, ObjectMapper> fullPathObjectMappers = emptyMap();
     private boolean hasNested = false; // updated dynamically to true when a nested object is added
+    // incremented once all the lookups above reflect a merge
+    private volatile long mergeCount = 0;
 
     private final DocumentMapperParser documentParser;
 
@@ -166,6 +168,15 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         return this.hasNested;
     }
 
+    /**
+     * Returns the number of times mappings were merged into this service. It only increases once the field types and object
+     * mappers of a merge are visible, so anything that was built from the mappings after reading a given count reflects at
+     * least the mappings of that count.
+     */
+    public long mergeCount() {
+        return mergeCount;
+    }
+
     public IndexAnalyzers getIndexAnalyzers() {
         return this.indexAnalyzers;
     }
@@ -548,6 +559,7 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         this.fieldTypes = fieldTypes;
         this.hasNested = hasNested;
         this.fullPathObjectMappers = fullPathObjectMappers;
+        this.mergeCount++;
 
         assert assertMappersShareSameFieldType();
         assert results.values().stream().allMatch(this::assertSerialization);
@@ -897,6 +897,10 @@ public class NumberFieldMapper extends FieldMapper {
             this.type = other.type;
         }
 
+        NumberType numberType() {
+            return type;
+        }
+
         @Override
         public MappedFieldType clone() {
             return new NumberFieldType(this);
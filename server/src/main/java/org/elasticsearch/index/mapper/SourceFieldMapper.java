@@ -58,6 +58,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static class Defaults {
         public static final String NAME = SourceFieldMapper.NAME;
         public static final boolean ENABLED = true;
+        public static final boolean SYNTHETIC = false;
 
         public static final MappedFieldType FIELD_TYPE = new SourceFieldType();
 
@@ -76,6 +77,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static class Builder extends MetadataFieldMapper.Builder<Builder, SourceFieldMapper> {
 
         private boolean enabled = Defaults.ENABLED;
+        private boolean synthetic = Defaults.SYNTHETIC;
 
         private String[] includes = null;
         private String[] excludes = null;
@@ -89,6 +91,11 @@ public class SourceFieldMapper extends MetadataFieldMapper {
             return this;
         }
 
+        public Builder synthetic(boolean synthetic) {
+            this.synthetic = synthetic;
+            return this;
+        }
+
         public Builder includes(String[] includes) {
             this.includes = includes;
             return this;
@@ -101,7 +108,15 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         @Override
         public SourceFieldMapper build(BuilderContext context) {
-            return new SourceFieldMapper(enabled, includes, excludes, context.indexSettings());
+            if (synthetic) {
+                if (enabled == false) {
+                    throw new MapperParsingException("[_source] can't be both disabled and synthetic");
+                }
+                if (includes != null || excludes != null) {
+                    throw new MapperParsingException("[_source] can't be both filtered and synthetic");
+                }
+            }
+            return new SourceFieldMapper(enabled, synthetic, includes, excludes, context.indexSettings());
         }
     }
 
@@ -118,6 +133,9 @@ public class SourceFieldMapper extends MetadataFieldMapper {
                 if (fieldName.equals("enabled")) {
                     builder.enabled(XContentMapValues.nodeBooleanValue(fieldNode, name + ".enabled"));
                     iterator.remove();
+                } else if (fieldName.equals("synthetic")) {
+                    builder.synthetic(XContentMapValues.nodeBooleanValue(fieldNode, name + ".synthetic"));
+                    iterator.remove();
                 } else if (fieldName.equals("includes")) {
                     List<Object> values = (List<Object>) fieldNode;
                     String[] includes = new String[values.size()];
@@ -177,6 +195,9 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     private final boolean enabled;
 
+    /** indicates whether the source is not stored but reconstructed from the doc values and stored fields of the mapped fields */
+    private final boolean synthetic;
+
     /** indicates whether the source will always exist and be complete, for use by features like the update API */
     private final boolean complete;
 
@@ -184,23 +205,28 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     private final String[] excludes;
 
     private SourceFieldMapper(Settings indexSettings) {
-        this(Defaults.ENABLED, null, null, indexSettings);
+        this(Defaults.ENABLED, Defaults.SYNTHETIC, null, null, indexSettings);
     }
 
-    private SourceFieldMapper(boolean enabled, String[] includes, String[] excludes, Settings indexSettings) {
+    private SourceFieldMapper(boolean enabled, boolean synthetic, String[] includes, String[] excludes, Settings indexSettings) {
         super(NAME, Defaults.FIELD_TYPE.clone(), Defaults.FIELD_TYPE, indexSettings); // Only stored.
         this.enabled = enabled;
+        this.synthetic = synthetic;
         this.includes = includes;
         this.excludes = excludes;
         final boolean filtered = (includes != null && includes.length > 0) || (excludes != null && excludes.length > 0);
         this.filter = enabled && filtered && fieldType().stored() ? XContentMapValues.filter(includes, excludes) : null;
-        this.complete = enabled && includes == null && excludes == null;
+        this.complete = enabled && synthetic == false && includes == null && excludes == null;
     }
 
     public boolean enabled() {
         return enabled;
     }
 
+    public boolean isSynthetic() {
+        return synthetic;
+    }
+
     public String[] excludes() {
         return this.excludes != null ? this.excludes : Strings.EMPTY_ARRAY;
 
@@ -228,7 +254,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
         BytesReference originalSource = context.sourceToParse().source();
         BytesReference source = originalSource;
-        if (enabled && fieldType().stored() && source != null) {
+        if (enabled && synthetic == false && fieldType().stored() && source != null) {
             // Percolate and tv APIs may not set the source and that is ok, because these APIs will not index any data
             if (filter != null) {
                 // we don't update the context source if we filter, we want to keep it as is...
@@ -265,13 +291,16 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         boolean includeDefaults = params.paramAsBoolean("include_defaults", false);
 
         // all are defaults, no need to write it at all
-        if (!includeDefaults && enabled == Defaults.ENABLED && includes == null && excludes == null) {
+        if (!includeDefaults && enabled == Defaults.ENABLED && synthetic == Defaults.SYNTHETIC && includes == null && excludes == null) {
             return builder;
         }
         builder.startObject(contentType());
         if (includeDefaults || enabled != Defaults.ENABLED) {
             builder.field("enabled", enabled);
         }
+        if (includeDefaults || synthetic != Defaults.SYNTHETIC) {
+            builder.field("synthetic", synthetic);
+        }
 
         if (includes != null) {
             builder.array("includes", includes);
@@ -296,6 +325,9 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         if (this.enabled != sourceMergeWith.enabled) {
             conflicts.add("Cannot update enabled setting for [_source]");
         }
+        if (this.synthetic != sourceMergeWith.synthetic) {
+            conflicts.add("Cannot update synthetic setting for [_source]");
+        }
         if (Arrays.equals(includes(), sourceMergeWith.includes()) == false) {
             conflicts.add("Cannot update includes setting for [_source]");
         }
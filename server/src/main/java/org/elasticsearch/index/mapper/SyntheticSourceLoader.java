@@ -0,0 +1,228 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.HalfFloatPoint;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
+import org.elasticsearch.search.DocValueFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Reconstructs the {@code _source} of documents of a mapping whose {@code _source} is synthetic, from the doc values and the
+ * stored fields of the mapped fields. The source only contains the fields that have values, in the alphabetical order of their
+ * names. A field with a single value is rendered as this value and a field with several values as an array of these values in
+ * the order of the doc values, so numbers, booleans and dates are sorted and keywords are sorted and deduplicated. Keywords are
+ * rendered as they were indexed, so after their normalizer was applied, and values above {@code ignore_above} are lost.
+ * <p>
+ * Only {@code keyword}, {@code boolean}, {@code date} and numeric fields with doc values, and stored {@code text} fields, in
+ * objects that are not nested, are supported, and fields that are copied to other fields are rejected.
+ */
+public final class SyntheticSourceLoader {
+
+    private final ObjectLoader root;
+    private final Set<String> storedFields = new HashSet<>();
+
+    SyntheticSourceLoader(ObjectMapper root) {
+        this.root = new ObjectLoader(root);
+    }
+
+    /**
+     * Reconstructs the source of the given document as JSON
+     */
+    public BytesReference load(LeafReader reader, int docId) throws IOException {
+        final Map<String, List<Object>> stored;
+        if (storedFields.isEmpty()) {
+            stored = Collections.emptyMap();
+        } else {
+            CustomFieldsVisitor visitor = new CustomFieldsVisitor(storedFields, false);
+            reader.document(docId, visitor);
+            stored = visitor.fields();
+        }
+        Map<String, Object> source = root.load(reader, docId, stored);
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.map(source == null ? Collections.emptyMap() : source);
+            return BytesReference.bytes(builder);
+        }
+    }
+
+    private abstract static class Loader {
+        /**
+         * Returns the value of the given document, or {@code null} if it has no value
+         */
+        abstract Object load(LeafReader reader, int docId, Map<String, List<Object>> stored) throws IOException;
+    }
+
+    private final class ObjectLoader extends Loader {
+        // sorted by name so that the reconstructed source doesn't depend on the order of the mappers
+        private final Map<String, Loader> children = new TreeMap<>();
+
+        ObjectLoader(ObjectMapper mapper) {
+            if (mapper.nested().isNested()) {
+                throw new IllegalArgumentException("nested object [" + mapper.fullPath() + "] doesn't support synthetic _source");
+            }
+            if (mapper.isEnabled() == false) {
+                throw new IllegalArgumentException("disabled object [" + mapper.fullPath() + "] doesn't support synthetic _source");
+            }
+            for (Mapper child : mapper) {
+                if (child instanceof ObjectMapper) {
+                    children.put(child.simpleName(), new ObjectLoader((ObjectMapper) child));
+                } else if (child instanceof FieldMapper) {
+                    children.put(child.simpleName(), leafLoader((FieldMapper) child));
+                }
+                // field aliases don't have values in the source
+            }
+        }
+
+        @Override
+        Map<String, Object> load(LeafReader reader, int docId, Map<String, List<Object>> stored) throws IOException {
+            Map<String, Object> values = null;
+            for (Map.Entry<String, Loader> child : children.entrySet()) {
+                Object value = child.getValue().load(reader, docId, stored);
+                if (value != null) {
+                    if (values == null) {
+                        values = new LinkedHashMap<>();
+                    }
+                    values.put(child.getKey(), value);
+                }
+            }
+            return values;
+        }
+    }
+
+    private Loader leafLoader(FieldMapper mapper) {
+        final MappedFieldType fieldType = mapper.fieldType();
+        final String name = fieldType.name();
+        if (mapper.copyTo() != null && mapper.copyTo().copyToFields().isEmpty() == false) {
+            throw new IllegalArgumentException("field [" + name + "] is copied to other fields and doesn't support synthetic _source");
+        }
+        if (fieldType.hasDocValues()) {
+            if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+                final NumberFieldMapper.NumberType type = ((NumberFieldMapper.NumberFieldType) fieldType).numberType();
+                return new SortedNumericLoader(name) {
+                    @Override
+                    Object value(long value) {
+                        switch (type) {
+                            case HALF_FLOAT:
+                                return HalfFloatPoint.sortableShortToHalfFloat((short) value);
+                            case FLOAT:
+                                return NumericUtils.sortableIntToFloat((int) value);
+                            case DOUBLE:
+                                return NumericUtils.sortableLongToDouble(value);
+                            default:
+                                return value;
+                        }
+                    }
+                };
+            } else if (fieldType instanceof DateFieldMapper.DateFieldType) {
+                final DocValueFormat format = fieldType.docValueFormat(null, null);
+                return new SortedNumericLoader(name) {
+                    @Override
+                    Object value(long value) {
+                        return format.format(value);
+                    }
+                };
+            } else if (fieldType instanceof BooleanFieldMapper.BooleanFieldType) {
+                return new SortedNumericLoader(name) {
+                    @Override
+                    Object value(long value) {
+                        return value == 1;
+                    }
+                };
+            } else if (fieldType instanceof KeywordFieldMapper.KeywordFieldType) {
+                return new Loader() {
+                    @Override
+                    Object load(LeafReader reader, int docId, Map<String, List<Object>> stored) throws IOException {
+                        SortedSetDocValues docValues = DocValues.getSortedSet(reader, name);
+                        if (docValues.advanceExact(docId) == false) {
+                            return null;
+                        }
+                        List<Object> values = new ArrayList<>();
+                        for (long ord = docValues.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = docValues.nextOrd()) {
+                            BytesRef term = docValues.lookupOrd(ord);
+                            values.add(term.utf8ToString());
+                        }
+                        return values(values);
+                    }
+                };
+            }
+        }
+        if (fieldType.stored() && mapper instanceof TextFieldMapper) {
+            storedFields.add(name);
+            return new Loader() {
+                @Override
+                Object load(LeafReader reader, int docId, Map<String, List<Object>> stored) {
+                    List<Object> values = stored.get(name);
+                    return values == null ? null : values(values);
+                }
+            };
+        }
+        throw new IllegalArgumentException("field [" + name + "] of type [" + fieldType.typeName()
+            + "] doesn't support synthetic _source because it doesn't have doc values or isn't stored");
+    }
+
+    private abstract static class SortedNumericLoader extends Loader {
+        private final String name;
+
+        SortedNumericLoader(String name) {
+            this.name = name;
+        }
+
+        abstract Object value(long value);
+
+        @Override
+        Object load(LeafReader reader, int docId, Map<String, List<Object>> stored) throws IOException {
+            SortedNumericDocValues docValues = DocValues.getSortedNumeric(reader, name);
+            if (docValues.advanceExact(docId) == false) {
+                return null;
+            }
+            final int count = docValues.docValueCount();
+            List<Object> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(value(docValues.nextValue()));
+            }
+            return values(values);
+        }
+    }
+
+    private static Object values(List<Object> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        return values.size() == 1 ? values.get(0) : values;
+    }
+}
@@ -21,9 +21,15 @@ package org.elasticsearch.index.query;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.ConjunctionDISI;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopDocsCollector;
 import org.apache.lucene.search.TopFieldCollector;
@@ -32,8 +38,9 @@ import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.join.BitSetProducer;
-import org.apache.lucene.search.join.ParentChildrenBlockJoinQuery;
 import org.apache.lucene.search.join.ScoreMode;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.Bits;
 import org.elasticsearch.action.search.MaxScoreCollector;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.ParsingException;
@@ -52,13 +59,14 @@ import org.elasticsearch.search.fetch.subphase.InnerHitsContext;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 
-import static org.elasticsearch.search.fetch.subphase.InnerHitsContext.intersect;
-
 public class NestedQueryBuilder extends AbstractQueryBuilder<NestedQueryBuilder> {
     public static final String NAME = "nested";
     /**
@@ -371,59 +379,134 @@ public class NestedQueryBuilder extends AbstractQueryBuilder<NestedQueryBuilder>
         @Override
         public TopDocsAndMaxScore[] topDocs(SearchHit[] hits) throws IOException {
             Weight innerHitQueryWeight = createInnerHitQueryWeight();
-            TopDocsAndMaxScore[] result = new TopDocsAndMaxScore[hits.length];
+            Query rawParentFilter;
+            if (parentObjectMapper == null) {
+                rawParentFilter = Queries.newNonNestedFilter(context.indexShard().indexSettings().getIndexVersionCreated());
+            } else {
+                rawParentFilter = parentObjectMapper.nestedTypeFilter();
+            }
+            BitSetProducer parentFilter = context.bitsetFilterCache().getParentBitSetProducer(rawParentFilter);
+            Query childFilter = childObjectMapper.nestedTypeFilter();
+            Weight childWeight = context.searcher().createWeight(context.searcher().rewrite(childFilter),
+                    org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES, 1f);
+
+            Collector[] collectors = new Collector[hits.length];
+            TopDocsCollector<?>[] topDocsCollectors = new TopDocsCollector<?>[hits.length];
+            MaxScoreCollector[] maxScoreCollectors = new MaxScoreCollector[hits.length];
+            int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
             for (int i = 0; i < hits.length; i++) {
-                SearchHit hit = hits[i];
-                Query rawParentFilter;
-                if (parentObjectMapper == null) {
-                    rawParentFilter = Queries.newNonNestedFilter(context.indexShard().indexSettings().getIndexVersionCreated());
-                } else {
-                    rawParentFilter = parentObjectMapper.nestedTypeFilter();
-                }
-
-                int parentDocId = hit.docId();
-                final int readerIndex = ReaderUtil.subIndex(parentDocId, searcher().getIndexReader().leaves());
-                // With nested inner hits the nested docs are always in the same segement, so need to use the other segments
-                LeafReaderContext ctx = searcher().getIndexReader().leaves().get(readerIndex);
-
-                Query childFilter = childObjectMapper.nestedTypeFilter();
-                BitSetProducer parentFilter = context.bitsetFilterCache().getBitSetProducer(rawParentFilter);
-                Query q = new ParentChildrenBlockJoinQuery(parentFilter, childFilter, parentDocId);
-                Weight weight = context.searcher().createWeight(context.searcher().rewrite(q),
-                        org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES, 1f);
                 if (size() == 0) {
-                    TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
-                    intersect(weight, innerHitQueryWeight, totalHitCountCollector, ctx);
-                    result[i] = new TopDocsAndMaxScore(new TopDocs(new TotalHits(totalHitCountCollector.getTotalHits(),
-                        TotalHits.Relation.EQUAL_TO), Lucene.EMPTY_SCORE_DOCS), Float.NaN);
+                    collectors[i] = new TotalHitCountCollector();
                 } else {
-                    int topN = Math.min(from() + size(), context.searcher().getIndexReader().maxDoc());
-                    TopDocsCollector<?> topDocsCollector;
-                    MaxScoreCollector maxScoreCollector = null;
                     if (sort() != null) {
-                        topDocsCollector = TopFieldCollector.create(sort().sort, topN, Integer.MAX_VALUE);
+                        topDocsCollectors[i] = TopFieldCollector.create(sort().sort, topN, Integer.MAX_VALUE);
                         if (trackScores()) {
-                            maxScoreCollector = new MaxScoreCollector();
+                            maxScoreCollectors[i] = new MaxScoreCollector();
                         }
                     } else {
-                        topDocsCollector = TopScoreDocCollector.create(topN, Integer.MAX_VALUE);
-                        maxScoreCollector = new MaxScoreCollector();
-                    }
-                    try {
-                        intersect(weight, innerHitQueryWeight, MultiCollector.wrap(topDocsCollector, maxScoreCollector), ctx);
-                    } finally {
-                        clearReleasables(Lifetime.COLLECTION);
+                        topDocsCollectors[i] = TopScoreDocCollector.create(topN, Integer.MAX_VALUE);
+                        maxScoreCollectors[i] = new MaxScoreCollector();
                     }
+                    collectors[i] = MultiCollector.wrap(topDocsCollectors[i], maxScoreCollectors[i]);
+                }
+            }
+
+            // the nested docs of a hit are always in the segment of the hit, so the hits of a segment are collected together
+            // in doc id order, with a single iteration over the matches of the inner hit query in this segment
+            Integer[] order = new Integer[hits.length];
+            for (int i = 0; i < hits.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> hits[i].docId()));
+            List<LeafReaderContext> leaves = searcher().getIndexReader().leaves();
+            for (int start = 0; start < order.length; ) {
+                LeafReaderContext ctx = leaves.get(ReaderUtil.subIndex(hits[order[start]].docId(), leaves));
+                int end = start + 1;
+                while (end < order.length && hits[order[end]].docId() < ctx.docBase + ctx.reader().maxDoc()) {
+                    end++;
+                }
+                int[] parentDocs = new int[end - start];
+                Collector[] segmentCollectors = new Collector[end - start];
+                for (int i = start; i < end; i++) {
+                    parentDocs[i - start] = hits[order[i]].docId() - ctx.docBase;
+                    segmentCollectors[i - start] = collectors[order[i]];
+                }
+                try {
+                    intersectChildren(childWeight, innerHitQueryWeight, parentFilter, ctx, parentDocs, segmentCollectors);
+                } finally {
+                    clearReleasables(Lifetime.COLLECTION);
+                }
+                start = end;
+            }
 
-                    TopDocs td = topDocsCollector.topDocs(from(), size());
+            TopDocsAndMaxScore[] result = new TopDocsAndMaxScore[hits.length];
+            for (int i = 0; i < hits.length; i++) {
+                if (size() == 0) {
+                    TotalHitCountCollector totalHitCountCollector = (TotalHitCountCollector) collectors[i];
+                    result[i] = new TopDocsAndMaxScore(new TopDocs(new TotalHits(totalHitCountCollector.getTotalHits(),
+                        TotalHits.Relation.EQUAL_TO), Lucene.EMPTY_SCORE_DOCS), Float.NaN);
+                } else {
+                    TopDocs td = topDocsCollectors[i].topDocs(from(), size());
                     float maxScore = Float.NaN;
-                    if (maxScoreCollector != null) {
-                        maxScore = maxScoreCollector.getMaxScore();
+                    if (maxScoreCollectors[i] != null) {
+                        maxScore = maxScoreCollectors[i].getMaxScore();
                     }
                     result[i] = new TopDocsAndMaxScore(td, maxScore);
                 }
             }
             return result;
         }
+
+        /**
+         * Collects the matching children of the given parent documents of a segment, which must be sorted, into the collector
+         * of their parent, advancing a single iterator over the matches of the inner hit query instead of running a block join
+         * query per parent.
+         */
+        static void intersectChildren(Weight childWeight, Weight innerHitQueryWeight, BitSetProducer parentFilter,
+                                      LeafReaderContext ctx, int[] parentDocs, Collector[] collectors) throws IOException {
+            Scorer childScorer = childWeight.scorer(ctx);
+            if (childScorer == null) {
+                return;
+            }
+            Scorer innerHitQueryScorer = innerHitQueryWeight.scorer(ctx);
+            if (innerHitQueryScorer == null) {
+                return;
+            }
+            BitSet parentBits = parentFilter.getBitSet(ctx);
+            if (parentBits == null) {
+                return;
+            }
+            Bits acceptDocs = ctx.reader().getLiveDocs();
+            DocIdSetIterator iterator = ConjunctionDISI.intersectIterators(Arrays.asList(innerHitQueryScorer.iterator(),
+                childScorer.iterator()));
+            for (int i = 0; i < parentDocs.length; i++) {
+                final int parentDoc = parentDocs[i];
+                if (parentBits.get(parentDoc) == false) {
+                    continue;
+                }
+                final int firstChild = parentDoc == 0 ? 0 : parentBits.prevSetBit(parentDoc - 1) + 1;
+                if (firstChild >= parentDoc) {
+                    continue;
+                }
+                final LeafCollector leafCollector;
+                try {
+                    leafCollector = collectors[i].getLeafCollector(ctx);
+                    // Just setting the innerHitQueryScorer is ok, because that is the actual scoring part of the query
+                    leafCollector.setScorer(innerHitQueryScorer);
+                } catch (CollectionTerminatedException e) {
+                    continue;
+                }
+                try {
+                    int docId = iterator.docID() < firstChild ? iterator.advance(firstChild) : iterator.docID();
+                    for (; docId < parentDoc; docId = iterator.nextDoc()) {
+                        if (acceptDocs == null || acceptDocs.get(docId)) {
+                            leafCollector.collect(docId);
+                        }
+                    }
+                } catch (CollectionTerminatedException e) {
+                    // ignore and continue with the next parent
+                }
+            }
+        }
     }
 }
@@ -28,7 +28,7 @@ import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.Client;
-import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
@@ -49,6 +49,7 @@ import org.elasticsearch.index.mapper.ObjectMapper;
 import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.index.query.support.NestedScope;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesCompiledQueryCache;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.transport.RemoteClusterAware;
@@ -157,8 +158,11 @@ public class QueryShardContext extends QueryRewriteContext {
         return indexSettings.isQueryStringAllowLeadingWildcard();
     }
 
+    /**
+     * Returns the cached {@link BitSetProducer} for the given nested parent filter.
+     */
     public BitSetProducer bitsetFilter(Query filter) {
-        return bitsetFilterCache.getBitSetProducer(filter);
+        return bitsetFilterCache.getParentBitSetProducer(filter);
     }
 
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
@@ -272,20 +276,21 @@ public class QueryShardContext extends QueryRewriteContext {
     }
 
     public ParsedQuery toQuery(QueryBuilder queryBuilder) {
-        return toQuery(queryBuilder, q -> {
-            Query query = q.toQuery(this);
-            if (query == null) {
-                query = Queries.newMatchNoDocsQuery("No query left after rewrite.");
-            }
-            return query;
-        });
+        return toQuery(queryBuilder, null);
     }
 
-    private ParsedQuery toQuery(QueryBuilder queryBuilder, CheckedFunction<QueryBuilder, Query, IOException> filterOrQuery) {
+    /**
+     * Like {@link #toQuery(QueryBuilder)}, but reuses the query that the given cache holds for the same rewritten query on this
+     * shard if there is one, instead of creating it again.
+     */
+    public ParsedQuery toQuery(QueryBuilder queryBuilder, @Nullable IndicesCompiledQueryCache compiledQueryCache) {
         reset();
         try {
             QueryBuilder rewriteQuery = Rewriteable.rewrite(queryBuilder, this, true);
-            return new ParsedQuery(filterOrQuery.apply(rewriteQuery), copyNamedQueries());
+            if (compiledQueryCache == null) {
+                return toParsedQuery(rewriteQuery);
+            }
+            return compiledQueryCache.getOrCompute(this, rewriteQuery, this::toParsedQuery);
         } catch(QueryShardException | ParsingException e ) {
             throw e;
         } catch(Exception e) {
@@ -295,6 +300,14 @@ public class QueryShardContext extends QueryRewriteContext {
         }
     }
 
+    private ParsedQuery toParsedQuery(QueryBuilder rewriteQuery) throws IOException {
+        Query query = rewriteQuery.toQuery(this);
+        if (query == null) {
+            query = Queries.newMatchNoDocsQuery("No query left after rewrite.");
+        }
+        return new ParsedQuery(query, copyNamedQueries());
+    }
+
     public Index index() {
         return indexSettings.getIndex();
     }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.BufferedChecksumIndexInput;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.RateLimiter;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.store.ChecksumVerificationStats;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Verifies the checksums of the files of a shard after the shard was opened, reading the files at a limited rate so that the
+ * verification does not compete with searches and indexing for the disk. Shards that verify their files in the background only
+ * verify the footers of their files before they are opened, see {@link IndexSettings#INDEX_CHECK_ON_STARTUP}.
+ */
+final class BackgroundChecksumVerification {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private final Store store;
+    private final BooleanSupplier cancelled;
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong verifiedBytes = new AtomicLong();
+    private volatile Status status = Status.PENDING;
+
+    /**
+     * @param store     the store of the shard
+     * @param cancelled checked between reads, the verification stops as soon as it returns {@code true}
+     */
+    BackgroundChecksumVerification(Store store, BooleanSupplier cancelled) {
+        this.store = store;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Verifies the checksums of the given files one after the other. Files that were deleted since the list of files was taken,
+     * e.g. because their segments were merged away, are skipped.
+     *
+     * @param rateLimiter limits the rate at which files are read, usually shared with the other shards of the node, or {@code null}
+     * @throws CorruptIndexException if a file is corrupted
+     */
+    void verify(Collection<StoreFileMetaData> files, @Nullable RateLimiter rateLimiter) throws IOException {
+        assert status == Status.PENDING : "verification already started: " + status;
+        status = Status.RUNNING;
+        totalBytes.set(files.stream().mapToLong(StoreFileMetaData::length).sum());
+        try {
+            for (StoreFileMetaData file : files) {
+                if (cancelled.getAsBoolean() || store.tryIncRef() == false) {
+                    status = Status.CANCELLED;
+                    return;
+                }
+                final long verifiedBefore = verifiedBytes.get();
+                try {
+                    if (verifyFile(file, rateLimiter) == false) {
+                        status = Status.CANCELLED;
+                        return;
+                    }
+                } catch (NoSuchFileException | FileNotFoundException e) {
+                    verifiedBytes.set(verifiedBefore + file.length());
+                } finally {
+                    store.decRef();
+                }
+            }
+            status = Status.COMPLETED;
+        } catch (Exception e) {
+            status = Lucene.isCorruptionException(e) ? Status.FAILED : Status.CANCELLED;
+            throw e;
+        }
+    }
+
+    /**
+     * Verifies the checksum of the entire given file like {@link Store#checkIntegrity(StoreFileMetaData, Directory)},
+     * pausing between reads to keep the read rate under the limit.
+     *
+     * @return {@code false} if the verification was cancelled before the whole file was read
+     */
+    private boolean verifyFile(StoreFileMetaData md, @Nullable RateLimiter rateLimiter) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long bytesSinceLastPause = 0;
+        try (ChecksumIndexInput input = new BufferedChecksumIndexInput(store.directory().openInput(md.name(), IOContext.READONCE))) {
+            if (input.length() != md.length()) {
+                throw new CorruptIndexException("expected length=" + md.length() + " != actual length: " + input.length() +
+                    " : file truncated?", input);
+            }
+            long remaining = input.length() - CodecUtil.footerLength();
+            while (remaining > 0) {
+                if (cancelled.getAsBoolean()) {
+                    return false;
+                }
+                final int chunk = (int) Math.min(buffer.length, remaining);
+                input.readBytes(buffer, 0, chunk);
+                remaining -= chunk;
+                verifiedBytes.addAndGet(chunk);
+                if (rateLimiter != null) {
+                    bytesSinceLastPause += chunk;
+                    if (bytesSinceLastPause > rateLimiter.getMinPauseCheckBytes()) {
+                        rateLimiter.pause(bytesSinceLastPause);
+                        bytesSinceLastPause = 0;
+                    }
+                }
+            }
+            // throws an exception if the checksum of the content does not match the footer
+            final String checksum = Store.digestToString(CodecUtil.checkFooter(input));
+            verifiedBytes.addAndGet(CodecUtil.footerLength());
+            if (checksum.equals(md.checksum()) == false) {
+                throw new CorruptIndexException("inconsistent metadata: lucene checksum=" + checksum +
+                    ", metadata checksum=" + md.checksum(), input);
+            }
+        }
+        return true;
+    }
+
+    ChecksumVerificationStats stats() {
+        final Status status = this.status;
+        return new ChecksumVerificationStats(totalBytes.get(), verifiedBytes.get(),
+            status == Status.PENDING || status == Status.RUNNING ? 1 : 0,
+            status == Status.COMPLETED ? 1 : 0,
+            status == Status.FAILED ? 1 : 0);
+    }
+}
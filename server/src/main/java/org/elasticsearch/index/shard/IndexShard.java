@@ -29,8 +29,8 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.Sort;
-import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.util.ThreadInterruptedException;
 import org.elasticsearch.Assertions;
 import org.elasticsearch.ElasticsearchException;
@@ -49,6 +49,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.CheckedRunnable;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -73,6 +74,7 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.ShardBitsetFilterCache;
+import org.elasticsearch.index.cache.query.ElasticsearchQueryCachingPolicy;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
@@ -85,6 +87,7 @@ import org.elasticsearch.index.engine.RefreshFailedEngineException;
 import org.elasticsearch.index.engine.Segment;
 import org.elasticsearch.index.engine.SegmentsStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.fielddata.ShardFieldData;
 import org.elasticsearch.index.flush.FlushStats;
 import org.elasticsearch.index.get.GetStats;
@@ -177,6 +180,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final ShardBitsetFilterCache shardBitsetFilterCache;
     private final Object mutex = new Object();
     private final String checkIndexOnStartup;
+    @Nullable
+    private final BackgroundChecksumVerification backgroundChecksumVerification;
     private final CodecService codecService;
     private final Engine.Warmer warmer;
     private final SimilarityService similarityService;
@@ -299,6 +304,11 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         logger.debug("state: [CREATED]");
 
         this.checkIndexOnStartup = indexSettings.getValue(IndexSettings.INDEX_CHECK_ON_STARTUP);
+        if ("background".equals(checkIndexOnStartup)) {
+            this.backgroundChecksumVerification = new BackgroundChecksumVerification(store, () -> state == IndexShardState.CLOSED);
+        } else {
+            this.backgroundChecksumVerification = null;
+        }
         this.translogConfig = new TranslogConfig(shardId, shardPath().resolveTranslog(), indexSettings, bigArrays);
         final String aId = shardRouting.allocationId().getId();
         this.globalCheckpointListeners =
@@ -320,7 +330,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 }
             };
         } else {
-            cachingPolicy = new UsageTrackingQueryCachingPolicy();
+            cachingPolicy = new ElasticsearchQueryCachingPolicy();
         }
         indexShardOperationPermits = new IndexShardOperationPermits(shardId, threadPool);
         searcherWrapper = indexSearcherWrapper;
@@ -939,7 +949,11 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     public StoreStats storeStats() {
         try {
-            return store.stats();
+            final StoreStats stats = store.stats();
+            if (backgroundChecksumVerification == null) {
+                return stats;
+            }
+            return new StoreStats(stats.sizeInBytes(), backgroundChecksumVerification.stats());
         } catch (IOException e) {
             failShard("Failing shard because of exception during storeStats", e);
             throw new ElasticsearchException("io exception while building 'store stats'", e);
@@ -1022,9 +1036,63 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final long time = System.nanoTime();
         final Engine.CommitId commitId = engine.flush(force, waitIfOngoing);
         flushMetric.inc(System.nanoTime() - time);
+        schedulePersistGlobalOrdinals();
         return commitId;
     }
 
+    // at most one persist of global ordinals is queued at a time, it persists them for the latest commit when it runs
+    private final AtomicBoolean persistGlobalOrdinalsQueued = new AtomicBoolean();
+
+    /**
+     * Writes the loaded global ordinals that were built for the committed segments next to the commit, so that they do not have to
+     * be rebuilt when the shard is opened on this commit again. Writing them can take a while for fields with many terms, so it is
+     * done asynchronously on the flush thread pool rather than as part of the flush.
+     */
+    private void schedulePersistGlobalOrdinals() {
+        if (indexSettings.getValue(IndexFieldDataService.INDEX_PERSIST_GLOBAL_ORDINALS_SETTING) == false) {
+            return;
+        }
+        if (persistGlobalOrdinalsQueued.compareAndSet(false, true)) {
+            threadPool.executor(ThreadPool.Names.FLUSH).execute(new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    // the global ordinals are rebuilt if they were not persisted
+                    if (state != IndexShardState.CLOSED) {
+                        logger.warn("failed to persist global ordinals", e);
+                    }
+                }
+
+                @Override
+                public void onRejection(Exception e) {
+                    persistGlobalOrdinalsQueued.set(false);
+                    super.onRejection(e);
+                }
+
+                @Override
+                protected void doRun() throws IOException {
+                    // a flush that completes from now on queues another persist
+                    persistGlobalOrdinalsQueued.set(false);
+                    persistGlobalOrdinals();
+                }
+            });
+        }
+    }
+
+    private void persistGlobalOrdinals() throws IOException {
+        if (state == IndexShardState.CLOSED || store.tryIncRef() == false) {
+            return;
+        }
+        try {
+            final List<String> fields = shardFieldData.persistGlobalOrdinals(store.directory(), store.readLastCommittedSegmentsInfo(),
+                field -> mapperService.fullName(field) != null);
+            if (fields.isEmpty() == false) {
+                logger.debug("persisted global ordinals of {}", fields);
+            }
+        } finally {
+            store.decRef();
+        }
+    }
+
     /**
      * checks and removes translog files that no longer need to be retained. See
      * {@link org.elasticsearch.index.translog.TranslogDeletionPolicy} for details
@@ -1226,6 +1294,40 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return this;
     }
 
+    /**
+     * Returns {@code true} if the checksums of the files of this shard are verified in the background once the shard has started,
+     * see {@link #verifyChecksumsInBackground(RateLimiter)}.
+     */
+    public boolean hasBackgroundChecksumVerification() {
+        return backgroundChecksumVerification != null;
+    }
+
+    /**
+     * Verifies the checksums of the files of the last commit, and fails the shard if a file is corrupted. Only the footers of the
+     * files were verified before the shard was opened. This blocks until all files were read, and is called once per shard from a
+     * background thread that verifies the shards of the node one after the other.
+     *
+     * @param rateLimiter the limit shared by all shards of the node, or {@code null} to not limit the rate at which files are read
+     */
+    public void verifyChecksumsInBackground(@Nullable RateLimiter rateLimiter) {
+        assert backgroundChecksumVerification != null : "shard [" + shardId + "] does not verify checksums in the background";
+        try {
+            backgroundChecksumVerification.verify(snapshotStoreMetadata().asMap().values(), rateLimiter);
+            logger.debug("background checksum verification completed");
+        } catch (Exception e) {
+            if (Lucene.isCorruptionException(e)) {
+                logger.warn("background checksum verification found a corrupted file", e);
+                try {
+                    failShard("background checksum verification failed", e);
+                } catch (AlreadyClosedException ignored) {
+                    // the shard was closed in the meantime
+                }
+            } else if (state != IndexShardState.CLOSED) {
+                logger.warn("background checksum verification failed", e);
+            }
+        }
+    }
+
     /**
      * called before starting to copy index files over
      */
@@ -1363,7 +1465,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         }
         recoveryState.setStage(RecoveryState.Stage.VERIFY_INDEX);
         // also check here, before we apply the translog
-        if (Booleans.isTrue(checkIndexOnStartup) || "checksum".equals(checkIndexOnStartup)) {
+        if (Booleans.isTrue(checkIndexOnStartup) || "checksum".equals(checkIndexOnStartup) || "background".equals(checkIndexOnStartup)) {
             try {
                 checkIndex();
             } catch (IOException ex) {
@@ -1630,6 +1732,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return storeRecovery.recoverFromRepository(this, repository);
     }
 
+    /**
+     * Seeds the empty store of this shard, which is about to recover from a peer, with the files of the latest snapshot of the shard
+     * in the given repository. See {@link StoreRecovery#seedFromRepository(IndexShard, RepositoriesService, String)}.
+     */
+    public boolean seedFromRepository(RepositoriesService repositoriesService, String repositoryName) {
+        assert recoveryState.getRecoverySource().getType() == RecoverySource.Type.PEER : "invalid recovery type: " +
+            recoveryState.getRecoverySource();
+        StoreRecovery storeRecovery = new StoreRecovery(shardId, logger);
+        return storeRecovery.seedFromRepository(this, repositoriesService, repositoryName);
+    }
+
     /**
      * Tests whether or not the engine should be flushed periodically.
      * This test is based on the current size of the translog compared to the configured flush threshold size.
@@ -2029,16 +2142,23 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         BytesStreamOutput os = new BytesStreamOutput();
         PrintStream out = new PrintStream(os, false, StandardCharsets.UTF_8.name());
 
-        if ("checksum".equals(checkIndexOnStartup)) {
-            // physical verification only: verify all checksums for the latest commit
+        if ("checksum".equals(checkIndexOnStartup) || "background".equals(checkIndexOnStartup)) {
+            // physical verification only: verify all checksums for the latest commit, or only their footers if the checksums of
+            // the whole files are verified in the background once the shard is opened
+            final boolean footerOnly = "background".equals(checkIndexOnStartup);
+            final String check = footerOnly ? "footer" : "checksum";
             IOException corrupt = null;
             MetadataSnapshot metadata = snapshotStoreMetadata();
             for (Map.Entry<String, StoreFileMetaData> entry : metadata.asMap().entrySet()) {
                 try {
-                    Store.checkIntegrity(entry.getValue(), store.directory());
-                    out.println("checksum passed: " + entry.getKey());
+                    if (footerOnly) {
+                        Store.checkFooter(entry.getValue(), store.directory());
+                    } else {
+                        Store.checkIntegrity(entry.getValue(), store.directory());
+                    }
+                    out.println(check + " passed: " + entry.getKey());
                 } catch (IOException exc) {
-                    out.println("checksum failed: " + entry.getKey());
+                    out.println(check + " failed: " + entry.getKey());
                     exc.printStackTrace(out);
                     corrupt = exc;
                 }
@@ -2124,7 +2244,27 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             case PEER:
                 try {
                     markAsRecovering("from " + recoveryState.getSourceNode(), recoveryState);
-                    recoveryTargetService.startRecovery(this, recoveryState.getSourceNode(), recoveryListener);
+                    final String seedRepository = indexSettings.getRecoveryRepository();
+                    if (Strings.hasLength(seedRepository)) {
+                        // seeding the store reads from the repository, which must not happen on the cluster state thread
+                        threadPool.generic().execute(() -> {
+                            try {
+                                // best effort, an unknown repository or a failure to seed only makes the peer recovery copy all files
+                                seedFromRepository(repositoriesService, seedRepository);
+                                if (state() == IndexShardState.CLOSED) {
+                                    // got closed on us while seeding, just ignore this recovery
+                                    return;
+                                }
+                                recoveryTargetService.startRecovery(this, recoveryState.getSourceNode(), recoveryListener);
+                            } catch (Exception e) {
+                                failShard("corrupted preexisting index", e);
+                                recoveryListener.onRecoveryFailure(recoveryState,
+                                    new RecoveryFailedException(recoveryState, null, e), true);
+                            }
+                        });
+                    } else {
+                        recoveryTargetService.startRecovery(this, recoveryState.getSourceNode(), recoveryListener);
+                    }
                 } catch (Exception e) {
                     failShard("corrupted preexisting index", e);
                     recoveryListener.onRecoveryFailure(recoveryState,
@@ -21,6 +21,8 @@ package org.elasticsearch.index.shard;
 
 import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.NoMergePolicy;
@@ -45,14 +47,23 @@ import org.elasticsearch.index.engine.EngineException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.snapshots.IndexShardRestoreFailedException;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.snapshots.SnapshotInfo;
+import org.elasticsearch.snapshots.SnapshotState;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
@@ -283,6 +294,82 @@ final class StoreRecovery {
 
     }
 
+    /**
+     * Seeds the empty store of a shard that is about to recover from a peer with the files of the latest successful snapshot of the
+     * shard in the given repository. The subsequent peer recovery treats these files like any other existing local copy and only
+     * copies the files that differ from the recovery source. Seeding is best effort: if the repository is unknown or seeding fails,
+     * the store is wiped again and the peer recovery copies all files from the source. Restoring stops between files once the shard
+     * is closed, which is how a recovery that has not reached the peer recovery yet gets cancelled.
+     * @param indexShard the index shard instance to seed
+     * @param repositoriesService the service to look up the repository with
+     * @param repositoryName the name of the repository holding the snapshots of the shard
+     * @return <code>true</code> if the store has been seeded from a snapshot
+     */
+    boolean seedFromRepository(final IndexShard indexShard, final RepositoriesService repositoriesService, final String repositoryName) {
+        assert indexShard.recoveryState().getRecoverySource().getType() == RecoverySource.Type.PEER : "expected peer recovery type: " +
+            indexShard.recoveryState().getRecoverySource();
+        final Store store = indexShard.store();
+        store.incRef();
+        try {
+            if (DirectoryReader.indexExists(store.directory())) {
+                // peer recovery reuses the files of the existing copy already
+                return false;
+            }
+            final Repository repository = repositoriesService.repository(repositoryName);
+            final RepositoryData repositoryData = repository.getRepositoryData();
+            final IndexId indexId = repositoryData.getIndices().get(shardId.getIndexName());
+            if (indexId == null) {
+                return false;
+            }
+            // the snapshots of an index are listed in the order they were added to the repository, try the latest ones first
+            final List<SnapshotId> snapshotIds = new ArrayList<>(repositoryData.getSnapshots(indexId));
+            Collections.reverse(snapshotIds);
+            for (SnapshotId snapshotId : snapshotIds) {
+                final SnapshotState state = repositoryData.getSnapshotState(snapshotId);
+                if (state != null && state != SnapshotState.SUCCESS) {
+                    continue;
+                }
+                final String indexUUID = repository.getSnapshotIndexMetaData(snapshotId, indexId).getIndexUUID();
+                if (indexUUID.equals(shardId.getIndex().getUUID()) == false) {
+                    continue; // a snapshot of an earlier index with the same name
+                }
+                // the snapshot info holds the version needed to restore the shard, and the state of the snapshot if the repository
+                // was written by an old version that doesn't record it in the repository data
+                final SnapshotInfo snapshotInfo = repository.getSnapshotInfo(snapshotId);
+                if (state == null && snapshotInfo.state() != SnapshotState.SUCCESS) {
+                    continue;
+                }
+                if (indexShard.state() == IndexShardState.CLOSED) {
+                    throw new IndexShardClosedException(shardId, "shard was closed while seeding it from repository [" +
+                        repositoryName + "]");
+                }
+                logger.debug("seeding store from snapshot [{}] in repository [{}]", snapshotId, repositoryName);
+                repository.restoreShard(indexShard, snapshotId, snapshotInfo.version(), indexId, shardId, indexShard.recoveryState());
+                return true;
+            }
+            return false;
+        } catch (Exception e) {
+            if (indexShard.state() == IndexShardState.CLOSED) {
+                // got closed on us, the shard is not going to recover from a peer anymore
+                logger.debug(() -> new ParameterizedMessage("shard closed while seeding store from repository [{}]", repositoryName), e);
+                return false;
+            }
+            logger.warn(() -> new ParameterizedMessage("failed to seed store from repository [{}], recovering all files from the source",
+                repositoryName), e);
+            try {
+                Lucene.cleanLuceneIndex(store.directory());
+            } catch (Exception inner) {
+                inner.addSuppressed(e);
+                throw new IndexShardRecoveryException(shardId, "failed to clean store after seeding from repository failed", inner);
+            }
+            return false;
+        } finally {
+            // the peer recovery reports the files it reuses and copies by itself
+            indexShard.recoveryState().getIndex().reset();
+            store.decRef();
+        }
+    }
+
     private boolean canRecover(IndexShard indexShard) {
         if (indexShard.state() == IndexShardState.CLOSED) {
             // got closed on us, just ignore this recovery
@@ -461,6 +548,11 @@ final class StoreRecovery {
                 snapshotShardId = new ShardId(indexName, IndexMetaData.INDEX_UUID_NA_VALUE, shardId.id());
             }
             final IndexId indexId = repository.getRepositoryData().resolveIndexId(indexName);
+            if (SearchableSnapshotIndexStore.isSearchableSnapshot(indexShard.indexSettings().getSettings())) {
+                verifySnapshotFooters(repository, restoreSource.snapshot().getSnapshotId(), indexId, snapshotShardId);
+                mountSnapshot(indexShard);
+                return;
+            }
             repository.restoreShard(indexShard, restoreSource.snapshot().getSnapshotId(),
                 restoreSource.version(), indexId, snapshotShardId, indexShard.recoveryState());
             final Store store = indexShard.store();
@@ -480,4 +572,41 @@ final class StoreRecovery {
         }
     }
 
+    /**
+     * A mounted shard reads its files from the repository and never verifies their checksums as a whole, so at least the footers
+     * of the files are compared with the checksums recorded in the snapshot before the shard is opened.
+     */
+    private void verifySnapshotFooters(Repository repository, SnapshotId snapshotId, IndexId indexId,
+                                       ShardId snapshotShardId) throws IOException {
+        if (repository instanceof BlobStoreRepository == false) {
+            throw new IndexShardRestoreFailedException(shardId, "repository [" + repository.getMetadata().name()
+                + "] does not support mounting snapshots");
+        }
+        final List<String> corruptedFiles =
+            ((BlobStoreRepository) repository).verifyShardSnapshotFooters(snapshotId, indexId, snapshotShardId);
+        if (corruptedFiles.isEmpty() == false) {
+            throw new IndexShardRestoreFailedException(shardId, "cannot mount shard, the footers of files " + corruptedFiles
+                + " do not match the checksums recorded in snapshot [" + snapshotId + "]");
+        }
+    }
+
+    /**
+     * Opens a shard whose store reads the files of a snapshot from the repository instead of restoring them. The commit of the
+     * snapshot can't be rewritten, so the shard keeps its history and gets an empty translog with the translog UUID of the commit.
+     */
+    private void mountSnapshot(final IndexShard indexShard) throws IOException {
+        final Store store = indexShard.store();
+        final SegmentInfos segmentInfos = store.readLastCommittedSegmentsInfo();
+        final long maxSeqNo = Long.parseLong(segmentInfos.userData.get(SequenceNumbers.MAX_SEQ_NO));
+        Translog.createEmptyTranslog(indexShard.shardPath().resolveTranslog(), maxSeqNo, shardId,
+            segmentInfos.userData.get(Translog.TRANSLOG_UUID_KEY), indexShard.getPendingPrimaryTerm());
+        final RecoveryState.Index index = indexShard.recoveryState().getIndex();
+        addRecoveredFileDetails(segmentInfos, store, index);
+        index.updateVersion(segmentInfos.getVersion());
+        assert indexShard.shardRouting.primary() : "only primary shards can be mounted from a snapshot";
+        indexShard.openEngineAndRecoverFromTranslog();
+        indexShard.finalizeRecovery();
+        indexShard.postRecovery("snapshot mounted");
+    }
+
 }
@@ -34,8 +34,10 @@ import org.elasticsearch.index.store.StoreFileMetaData;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Shard snapshot metadata
@@ -53,6 +55,8 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         private final long partBytes;
         private final long numberOfParts;
         private final StoreFileMetaData metadata;
+        private final List<Chunk> chunks;
+        private final long[] chunkOffsets;
 
         /**
          * Constructs a new instance of file info
@@ -81,6 +85,34 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             this.numberOfParts = numberOfParts;
             this.partSize = partSize;
             this.partBytes = partBytes;
+            this.chunks = Collections.emptyList();
+            this.chunkOffsets = null;
+        }
+
+        /**
+         * Constructs a new instance of file info for a file that is stored as a sequence of content-defined chunks
+         *
+         * @param name     file name that identifies the file in the shard snapshots
+         * @param metaData the files meta data
+         * @param chunks   the chunks the content of the file is stored in, in order
+         */
+        public FileInfo(String name, StoreFileMetaData metaData, List<Chunk> chunks) {
+            this.name = name;
+            this.metadata = metaData;
+            this.chunks = Collections.unmodifiableList(new ArrayList<>(chunks));
+            this.chunkOffsets = new long[chunks.size()];
+            long offset = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                chunkOffsets[i] = offset;
+                offset += chunks.get(i).length();
+            }
+            if (offset != metaData.length()) {
+                throw new IllegalArgumentException("chunks of [" + name + "] add up to [" + offset + "] bytes but the file has ["
+                    + metaData.length() + "] bytes");
+            }
+            this.numberOfParts = chunks.size();
+            this.partSize = null;
+            this.partBytes = -1;
         }
 
         /**
@@ -99,7 +131,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @return part name
          */
         public String partName(long part) {
-            if (numberOfParts > 1) {
+            if (chunkOffsets != null) {
+                return chunks.get(Math.toIntExact(part)).name();
+            } else if (numberOfParts > 1) {
                 return name + ".part" + part;
             } else {
                 return name;
@@ -152,6 +186,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @return the size (in bytes) of a given part
          */
         public long partBytes(int part) {
+            if (chunkOffsets != null) {
+                return chunks.get(part).length();
+            }
             if (numberOfParts == 1) {
                 return length();
             }
@@ -163,6 +200,38 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             return length() - (partBytes * (numberOfParts-1));
         }
 
+        /**
+         * Returns the position in the file at which the given part starts
+         *
+         * @return the position of the first byte of the part in the file
+         */
+        public long partOffset(int part) {
+            if (chunkOffsets != null) {
+                return chunkOffsets[part];
+            }
+            return part == 0 ? 0L : part * partBytes;
+        }
+
+        /**
+         * Returns the part that holds the byte at the given position of the file
+         *
+         * @return the part number
+         */
+        public int partAt(long position) {
+            if (chunkOffsets != null) {
+                final int index = Arrays.binarySearch(chunkOffsets, position);
+                return index >= 0 ? index : -index - 2;
+            }
+            return Math.toIntExact(position / partBytes);
+        }
+
+        /**
+         * Returns the content-defined chunks the file is stored in, empty if the file is stored in fixed-size parts
+         */
+        public List<Chunk> chunks() {
+            return chunks;
+        }
+
         /**
          * Returns number of parts
          *
@@ -214,6 +283,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             if (!name.equals(fileInfo.name)) {
                 return false;
             }
+            if (!chunks.equals(fileInfo.chunks)) {
+                return false;
+            }
             if (partSize != null) {
                 if (!partSize.equals(fileInfo.partSize)) {
                     return false;
@@ -241,6 +313,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         static final String PART_SIZE = "part_size";
         static final String WRITTEN_BY = "written_by";
         static final String META_HASH = "meta_hash";
+        static final String CHUNKS = "chunks";
 
         /**
          * Serializes file info into JSON
@@ -269,6 +342,17 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 BytesRef br = file.metadata.hash();
                 builder.field(META_HASH, br.bytes, br.offset, br.length);
             }
+
+            if (file.chunkOffsets != null) {
+                builder.startArray(CHUNKS);
+                for (Chunk chunk : file.chunks) {
+                    builder.startObject();
+                    builder.field(NAME, chunk.name());
+                    builder.field(LENGTH, chunk.length());
+                    builder.endObject();
+                }
+                builder.endArray();
+            }
             builder.endObject();
         }
 
@@ -288,6 +372,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             Version writtenBy = null;
             String writtenByStr = null;
             BytesRef metaHash = new BytesRef();
+            List<Chunk> chunks = null;
             if (token == XContentParser.Token.START_OBJECT) {
                 while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                     if (token == XContentParser.Token.FIELD_NAME) {
@@ -314,6 +399,11 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                             } else {
                                 throw new ElasticsearchParseException("unknown parameter [{}]", currentFieldName);
                             }
+                        } else if (token == XContentParser.Token.START_ARRAY && CHUNKS.equals(currentFieldName)) {
+                            chunks = new ArrayList<>();
+                            while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                                chunks.add(Chunk.fromXContent(parser));
+                            }
                         } else {
                             throw new ElasticsearchParseException("unexpected token  [{}]", token);
                         }
@@ -335,7 +425,15 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             } else if (checksum == null) {
                 throw new ElasticsearchParseException("missing checksum for name [" + name + "]");
             }
-            return new FileInfo(name, new StoreFileMetaData(physicalName, length, checksum, writtenBy, metaHash), partSize);
+            final StoreFileMetaData metaData = new StoreFileMetaData(physicalName, length, checksum, writtenBy, metaHash);
+            if (chunks != null) {
+                try {
+                    return new FileInfo(name, metaData, chunks);
+                } catch (IllegalArgumentException e) {
+                    throw new ElasticsearchParseException("invalid chunks for name [" + name + "]", e);
+                }
+            }
+            return new FileInfo(name, metaData, partSize);
         }
 
         @Override
@@ -344,8 +442,90 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                        ", numberOfParts: " + numberOfParts +
                        ", partSize: " + partSize +
                        ", partBytes: " + partBytes +
+                       ", chunks: " + chunks.size() +
                        ", metadata: " + metadata + "]";
         }
+
+        /**
+         * A content-defined chunk of a file. Chunks are named after their content, so identical chunks of different files
+         * are stored once.
+         */
+        public static final class Chunk {
+
+            private final String name;
+            private final long length;
+
+            public Chunk(String name, long length) {
+                this.name = name;
+                this.length = length;
+            }
+
+            /**
+             * Returns the name of the blob holding the chunk
+             */
+            public String name() {
+                return name;
+            }
+
+            /**
+             * Returns the length of the chunk in bytes
+             */
+            public long length() {
+                return length;
+            }
+
+            static Chunk fromXContent(XContentParser parser) throws IOException {
+                if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+                    throw new ElasticsearchParseException("unexpected token [{}]", parser.currentToken());
+                }
+                String name = null;
+                long length = -1;
+                XContentParser.Token token;
+                while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                    if (token == XContentParser.Token.FIELD_NAME) {
+                        final String currentFieldName = parser.currentName();
+                        parser.nextToken();
+                        if (NAME.equals(currentFieldName)) {
+                            name = parser.text();
+                        } else if (LENGTH.equals(currentFieldName)) {
+                            length = parser.longValue();
+                        } else {
+                            throw new ElasticsearchParseException("unknown parameter [{}]", currentFieldName);
+                        }
+                    } else {
+                        throw new ElasticsearchParseException("unexpected token [{}]", token);
+                    }
+                }
+                if (name == null || Strings.validFileName(name) == false) {
+                    throw new ElasticsearchParseException("missing or invalid chunk name [" + name + "]");
+                } else if (length < 0) {
+                    throw new ElasticsearchParseException("missing or invalid chunk length");
+                }
+                return new Chunk(name, length);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) {
+                    return true;
+                }
+                if (o == null || getClass() != o.getClass()) {
+                    return false;
+                }
+                final Chunk that = (Chunk) o;
+                return length == that.length && name.equals(that.name);
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(name, length);
+            }
+
+            @Override
+            public String toString() {
+                return "[name: " + name + ", length: " + length + "]";
+            }
+        }
     }
 
     private final String snapshot;
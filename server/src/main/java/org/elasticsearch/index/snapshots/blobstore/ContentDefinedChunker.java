@@ -0,0 +1,126 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.elasticsearch.common.io.Streams;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits a stream into chunks whose boundaries depend on the content rather than on the position, using a rolling gear hash.
+ * Inserting or removing bytes only changes the chunks around the edit, so the remaining chunks of a modified file are identical
+ * to the chunks of the original file and can be deduplicated.
+ */
+public final class ContentDefinedChunker {
+
+    /**
+     * The largest supported average chunk size. A chunker buffers up to four times the average size, and the caller needs a chunk
+     * buffer of the same size, so larger averages would make every concurrent file upload hold tens of megabytes.
+     */
+    public static final int MAX_AVERAGE_SIZE = 1 << 20;
+
+    /**
+     * Random values for each byte value, generated with a fixed seed because chunk boundaries must not change across nodes or
+     * versions, otherwise identical content would no longer be deduplicated.
+     */
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < GEAR.length; i++) {
+            // SplitMix64
+            seed += 0x9E3779B97F4A7C15L;
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final InputStream in;
+    private final int minSize;
+    private final int maxSize;
+    private final long threshold;
+    private final byte[] pending;
+    private int pendingLength = 0;
+
+    /**
+     * @param in          the stream to split
+     * @param averageSize the expected average chunk size, must be a power of two; chunks are between a quarter of and four
+     *                    times this size
+     */
+    public ContentDefinedChunker(InputStream in, int averageSize) {
+        if (averageSize < 64 || Integer.bitCount(averageSize) != 1 || averageSize > MAX_AVERAGE_SIZE) {
+            throw new IllegalArgumentException("average chunk size must be a power of two between 64 and [" + MAX_AVERAGE_SIZE
+                + "] but was [" + averageSize + "]");
+        }
+        this.in = in;
+        this.minSize = averageSize / 4;
+        this.maxSize = averageSize * 4;
+        // after minSize bytes, a boundary is found at each byte whose hash is below the threshold, which happens with a probability
+        // of 1 / (averageSize - minSize), so chunks are averageSize bytes long on average. Cutting chunks at maxSize shortens the
+        // average by less than one percent. Comparing the whole hash is decided by its high bits, which depend on the last 64 bytes,
+        // while the low bits only depend on the last few bytes.
+        this.threshold = Long.divideUnsigned(-1L, averageSize - minSize);
+        this.pending = new byte[maxSize];
+    }
+
+    /**
+     * Returns the size of the largest chunk this chunker produces
+     */
+    public int maxChunkSize() {
+        return maxSize;
+    }
+
+    /**
+     * Reads the next chunk of the stream into the given buffer.
+     *
+     * @param chunk buffer of at least {@link #maxChunkSize()} bytes that receives the chunk at its start
+     * @return the length of the chunk, or {@code 0} once the stream is exhausted
+     */
+    public int nextChunk(byte[] chunk) throws IOException {
+        if (pendingLength < maxSize) {
+            pendingLength += Streams.readFully(in, pending, pendingLength, maxSize - pendingLength);
+        }
+        if (pendingLength == 0) {
+            return 0;
+        }
+        final int length = findBoundary(pending, pendingLength);
+        System.arraycopy(pending, 0, chunk, 0, length);
+        System.arraycopy(pending, length, pending, 0, pendingLength - length);
+        pendingLength -= length;
+        return length;
+    }
+
+    private int findBoundary(byte[] bytes, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        long hash = 0;
+        // the gear hash only depends on the last 64 bytes, so hashing can start just before the minimum size
+        for (int i = Math.max(0, minSize - Long.SIZE); i < length; i++) {
+            hash = (hash << 1) + GEAR[bytes[i] & 0xFF];
+            if (i >= minSize && Long.compareUnsigned(hash, threshold) < 0) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+}
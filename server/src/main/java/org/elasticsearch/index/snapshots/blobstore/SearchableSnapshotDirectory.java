@@ -0,0 +1,212 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.apache.lucene.store.BaseDirectory;
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.SingleInstanceLockFactory;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.collect.Tuple;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only {@link org.apache.lucene.store.Directory} over the files of a shard snapshot. Files are not restored up front,
+ * the byte ranges that are read are fetched lazily from the repository and kept in a {@link SnapshotBlockCache}.
+ * The shard snapshot itself is loaded from the repository on first access, so that creating the directory does not
+ * block on the repository.
+ */
+public final class SearchableSnapshotDirectory extends BaseDirectory {
+
+    private final String description;
+    private final CheckedSupplier<Tuple<BlobContainer, BlobStoreIndexShardSnapshot>, IOException> snapshotLoader;
+    private final SnapshotBlockCache blockCache;
+
+    private volatile BlobContainer blobContainer;
+    private volatile Map<String, BlobStoreIndexShardSnapshot.FileInfo> files;
+
+    /**
+     * @param description    describes the snapshotted shard in error messages
+     * @param snapshotLoader loads the container holding the snapshotted files and the shard snapshot listing them
+     * @param blockCache     cache for the blocks of the files that were read
+     */
+    public SearchableSnapshotDirectory(String description,
+                                       CheckedSupplier<Tuple<BlobContainer, BlobStoreIndexShardSnapshot>, IOException> snapshotLoader,
+                                       SnapshotBlockCache blockCache) {
+        super(new SingleInstanceLockFactory());
+        this.description = description;
+        this.snapshotLoader = snapshotLoader;
+        this.blockCache = blockCache;
+    }
+
+    private Map<String, BlobStoreIndexShardSnapshot.FileInfo> files() throws IOException {
+        ensureOpen();
+        Map<String, BlobStoreIndexShardSnapshot.FileInfo> files = this.files;
+        if (files == null) {
+            synchronized (this) {
+                files = this.files;
+                if (files == null) {
+                    final Tuple<BlobContainer, BlobStoreIndexShardSnapshot> snapshot = snapshotLoader.get();
+                    files = new HashMap<>();
+                    for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshot.v2().indexFiles()) {
+                        files.put(fileInfo.physicalName(), fileInfo);
+                    }
+                    this.blobContainer = snapshot.v1();
+                    this.files = files = Collections.unmodifiableMap(files);
+                }
+            }
+        }
+        return files;
+    }
+
+    private BlobStoreIndexShardSnapshot.FileInfo fileInfo(String name) throws IOException {
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = files().get(name);
+        if (fileInfo == null) {
+            throw new NoSuchFileException("file [" + name + "] is not part of the snapshot");
+        }
+        return fileInfo;
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        return files().keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public long fileLength(String name) throws IOException {
+        return fileInfo(name).length();
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = fileInfo(name);
+        return new SnapshotIndexInput("SnapshotIndexInput(" + name + ")", blobContainer, fileInfo, context, 0L, fileInfo.length());
+    }
+
+    @Override
+    public void deleteFile(String name) {
+        throw unsupported();
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) {
+        throw unsupported();
+    }
+
+    @Override
+    public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) {
+        throw unsupported();
+    }
+
+    @Override
+    public void sync(Collection<String> names) {
+        throw unsupported();
+    }
+
+    @Override
+    public void syncMetaData() {
+        // the files never change, so there is nothing to sync
+    }
+
+    @Override
+    public void rename(String source, String dest) {
+        throw unsupported();
+    }
+
+    @Override
+    public Set<String> getPendingDeletions() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void close() {
+        isOpen = false;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchableSnapshotDirectory(" + description + ")";
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("searchable snapshot directories are read-only");
+    }
+
+    private final class SnapshotIndexInput extends BufferedIndexInput {
+
+        private final BlobContainer blobContainer;
+        private final BlobStoreIndexShardSnapshot.FileInfo fileInfo;
+        private final long offset;
+        private final long length;
+
+        SnapshotIndexInput(String resourceDescription, BlobContainer blobContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                           IOContext context, long offset, long length) {
+            super(resourceDescription, context);
+            this.blobContainer = blobContainer;
+            this.fileInfo = fileInfo;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected void readInternal(byte[] b, int off, int len) throws IOException {
+            final long position = getFilePointer();
+            if (position + len > length) {
+                throw new EOFException("read past EOF: " + this);
+            }
+            blockCache.read(blobContainer, fileInfo, offset + position, b, off, len);
+        }
+
+        @Override
+        protected void seekInternal(long pos) throws IOException {
+            if (pos > length) {
+                throw new EOFException("seek past EOF: " + this);
+            }
+        }
+
+        @Override
+        public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+            if (offset < 0 || length < 0 || offset + length > this.length) {
+                throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: " + this);
+            }
+            return new SnapshotIndexInput(getFullSliceDescription(sliceDescription), blobContainer, fileInfo, IOContext.READ,
+                this.offset + offset, length);
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
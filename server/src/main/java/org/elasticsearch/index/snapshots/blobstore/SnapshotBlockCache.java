@@ -0,0 +1,216 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least-recently-used cache of fixed-size blocks of snapshotted files, kept as files in a local directory.
+ * Blocks never span two parts of a snapshotted file, so each block is loaded with a single ranged read of one blob.
+ */
+public final class SnapshotBlockCache implements Closeable {
+
+    /**
+     * How often a read retries a block that was evicted between looking it up and opening its file
+     */
+    private static final int MAX_EVICTION_RETRIES = 10;
+
+    private final Path cacheDir;
+    private final int blockSize;
+    private final AtomicLong blockIdGenerator = new AtomicLong();
+    private final Cache<BlockKey, CachedBlock> cache;
+
+    /**
+     * @param cacheDir       the directory the cached blocks are written to, all files in it are owned by this cache and files left
+     *                       over from an earlier cache are deleted
+     * @param blockSize      the size of a block in bytes
+     * @param maxSizeInBytes the maximum number of bytes kept in the cache directory, at least one block
+     */
+    public SnapshotBlockCache(Path cacheDir, int blockSize, long maxSizeInBytes) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("block size must be positive but was [" + blockSize + "]");
+        }
+        if (maxSizeInBytes < blockSize) {
+            throw new IllegalArgumentException("cache size [" + maxSizeInBytes + "] must be at least the block size [" + blockSize + "]");
+        }
+        IOUtils.rm(cacheDir);
+        this.cacheDir = Files.createDirectories(cacheDir);
+        this.blockSize = blockSize;
+        this.cache = CacheBuilder.<BlockKey, CachedBlock>builder()
+            .setMaximumWeight(maxSizeInBytes)
+            .weigher((key, block) -> block.length)
+            .removalListener(notification -> IOUtils.deleteFilesIgnoringExceptions(notification.getValue().path))
+            .build();
+    }
+
+    /**
+     * Reads bytes of a snapshotted file, loading the blocks that are not cached yet from the given container.
+     *
+     * @param container the container holding the parts of the file
+     * @param fileInfo  the snapshotted file
+     * @param position  the position in the file to start reading from
+     * @param b         the array to read into
+     * @param offset    the offset in the array to start writing at
+     * @param length    the number of bytes to read, must not go past the end of the file
+     */
+    public void read(BlobContainer container, BlobStoreIndexShardSnapshot.FileInfo fileInfo, long position,
+                     byte[] b, int offset, int length) throws IOException {
+        int retries = 0;
+        while (length > 0) {
+            final int part = fileInfo.partAt(position);
+            final long positionInPart = position - fileInfo.partOffset(part);
+            final long block = positionInPart / blockSize;
+            final int positionInBlock = Math.toIntExact(positionInPart % blockSize);
+            final BlockKey key = new BlockKey(container.path().buildAsString(), fileInfo.partName(part), block);
+            final CachedBlock cachedBlock = getOrLoadBlock(key, container, fileInfo.partBytes(part));
+            final int toRead = Math.min(length, cachedBlock.length - positionInBlock);
+            if (toRead <= 0) {
+                throw new EOFException("read past the end of block [" + key.block + "] of [" + key.blobName + "]");
+            }
+            final FileChannel channel;
+            try {
+                channel = FileChannel.open(cachedBlock.path, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // the block was evicted between looking it up and opening its file, load it again
+                if (++retries > MAX_EVICTION_RETRIES) {
+                    throw new IOException("block [" + key.block + "] of [" + key.blobName + "] was evicted [" + MAX_EVICTION_RETRIES
+                        + "] times while reading it, the cache is too small for the concurrent reads", e);
+                }
+                cache.invalidate(key, cachedBlock);
+                continue;
+            }
+            try (FileChannel ignored = channel) {
+                readFully(channel, key, positionInBlock, ByteBuffer.wrap(b, offset, toRead));
+            }
+            retries = 0;
+            position += toRead;
+            offset += toRead;
+            length -= toRead;
+        }
+    }
+
+    private CachedBlock getOrLoadBlock(BlockKey key, BlobContainer container, long partLength) throws IOException {
+        try {
+            return cache.computeIfAbsent(key, k -> loadBlock(k, container, partLength));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("failed to load block [" + key.block + "] of [" + key.blobName + "]", e.getCause());
+        }
+    }
+
+    private static void readFully(FileChannel channel, BlockKey key, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("cached block [" + key.block + "] of [" + key.blobName + "] is truncated");
+            }
+            position += read;
+        }
+    }
+
+    private CachedBlock loadBlock(BlockKey key, BlobContainer container, long partLength) throws IOException {
+        final long blockStart = key.block * blockSize;
+        final int blockLength = Math.toIntExact(Math.min(blockSize, partLength - blockStart));
+        final byte[] bytes = new byte[blockLength];
+        try (InputStream stream = container.readBlob(key.blobName, blockStart, blockLength)) {
+            if (Streams.readFully(stream, bytes) != blockLength) {
+                throw new EOFException("blob [" + key.blobName + "] is shorter than expected");
+            }
+        }
+        final Path path = cacheDir.resolve("block-" + blockIdGenerator.incrementAndGet());
+        Files.write(path, bytes, StandardOpenOption.CREATE_NEW);
+        return new CachedBlock(path, blockLength);
+    }
+
+    /**
+     * Returns the number of bytes currently held by the cache
+     */
+    public long sizeInBytes() {
+        return cache.weight();
+    }
+
+    /**
+     * Drops all cached blocks and deletes their files
+     */
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    private static final class BlockKey {
+
+        private final String containerPath;
+        private final String blobName;
+        private final long block;
+
+        BlockKey(String containerPath, String blobName, long block) {
+            this.containerPath = containerPath;
+            this.blobName = blobName;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final BlockKey that = (BlockKey) o;
+            return block == that.block && containerPath.equals(that.containerPath) && blobName.equals(that.blobName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(containerPath, blobName, block);
+        }
+    }
+
+    private static final class CachedBlock {
+
+        private final Path path;
+        private final int length;
+
+        CachedBlock(Path path, int length) {
+            this.path = path;
+            this.length = length;
+        }
+    }
+}
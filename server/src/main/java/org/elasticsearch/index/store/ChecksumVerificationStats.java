@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * The progress of the checksum verifications that shards run in the background after they were opened, see
+ * {@link org.elasticsearch.index.IndexSettings#INDEX_CHECK_ON_STARTUP}.
+ */
+public class ChecksumVerificationStats implements Writeable, ToXContentFragment {
+
+    private long totalInBytes;
+    private long verifiedInBytes;
+    private long inProgress;
+    private long completed;
+    private long failed;
+
+    public ChecksumVerificationStats() {
+
+    }
+
+    public ChecksumVerificationStats(long totalInBytes, long verifiedInBytes, long inProgress, long completed, long failed) {
+        this.totalInBytes = totalInBytes;
+        this.verifiedInBytes = verifiedInBytes;
+        this.inProgress = inProgress;
+        this.completed = completed;
+        this.failed = failed;
+    }
+
+    public ChecksumVerificationStats(StreamInput in) throws IOException {
+        totalInBytes = in.readVLong();
+        verifiedInBytes = in.readVLong();
+        inProgress = in.readVLong();
+        completed = in.readVLong();
+        failed = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(totalInBytes);
+        out.writeVLong(verifiedInBytes);
+        out.writeVLong(inProgress);
+        out.writeVLong(completed);
+        out.writeVLong(failed);
+    }
+
+    public void add(ChecksumVerificationStats stats) {
+        if (stats == null) {
+            return;
+        }
+        totalInBytes += stats.totalInBytes;
+        verifiedInBytes += stats.verifiedInBytes;
+        inProgress += stats.inProgress;
+        completed += stats.completed;
+        failed += stats.failed;
+    }
+
+    /**
+     * Returns the total size of the files that are verified
+     */
+    public long getTotalInBytes() {
+        return totalInBytes;
+    }
+
+    /**
+     * Returns the size of the files, or parts of files, that were verified so far
+     */
+    public long getVerifiedInBytes() {
+        return verifiedInBytes;
+    }
+
+    /**
+     * Returns the number of shards that are waiting for their verification to start or still verifying their files
+     */
+    public long getInProgress() {
+        return inProgress;
+    }
+
+    /**
+     * Returns the number of shards that verified all their files
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns the number of shards whose verification found a corrupted file
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.CHECKSUM_VERIFICATION);
+        builder.humanReadableField(Fields.TOTAL_IN_BYTES, Fields.TOTAL, new ByteSizeValue(totalInBytes));
+        builder.humanReadableField(Fields.VERIFIED_IN_BYTES, Fields.VERIFIED, new ByteSizeValue(verifiedInBytes));
+        builder.field(Fields.IN_PROGRESS, inProgress);
+        builder.field(Fields.COMPLETED, completed);
+        builder.field(Fields.FAILED, failed);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final String CHECKSUM_VERIFICATION = "checksum_verification";
+        static final String TOTAL = "total";
+        static final String TOTAL_IN_BYTES = "total_in_bytes";
+        static final String VERIFIED = "verified";
+        static final String VERIFIED_IN_BYTES = "verified_in_bytes";
+        static final String IN_PROGRESS = "in_progress";
+        static final String COMPLETED = "completed";
+        static final String FAILED = "failed";
+    }
+}
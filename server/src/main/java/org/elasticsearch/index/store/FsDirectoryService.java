@@ -27,6 +27,7 @@ import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.store.NativeFSLockFactory;
 import org.apache.lucene.store.SimpleFSDirectory;
 import org.apache.lucene.store.SimpleFSLockFactory;
+import org.elasticsearch.bootstrap.FileAccessAdvice;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -54,6 +55,12 @@ public class FsDirectoryService extends DirectoryService {
         } // can we set on both - node and index level, some nodes might be running on NFS so they might need simple rather than native
     }, Property.IndexScope, Property.NodeScope);
 
+    /**
+     * Whether to give the operating system hints about how files are going to be read, on supported systems only
+     */
+    public static final Setting<Boolean> INDEX_READ_ADVICE_SETTING =
+        Setting.boolSetting("index.store.fs.read_advice", true, Property.IndexScope, Property.NodeScope);
+
     private final ShardPath path;
 
     @Inject
@@ -72,6 +79,9 @@ public class FsDirectoryService extends DirectoryService {
         Set<String> preLoadExtensions = new HashSet<>(
                 indexSettings.getValue(IndexModule.INDEX_STORE_PRE_LOAD_SETTING));
         wrapped = setPreload(wrapped, location, lockFactory, preLoadExtensions);
+        if (indexSettings.getValue(INDEX_READ_ADVICE_SETTING) && FileAccessAdvice.isSupported()) {
+            wrapped = new ReadAdviceDirectory(wrapped, location, preLoadExtensions);
+        }
         return wrapped;
     }
 
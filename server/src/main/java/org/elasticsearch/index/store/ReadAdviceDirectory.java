@@ -0,0 +1,237 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.bootstrap.FileAccessAdvice;
+import org.elasticsearch.bootstrap.FileAccessAdvice.Advice;
+import org.elasticsearch.bootstrap.FileAccessAdvice.AdvisedFile;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * A directory that tells the operating system how its files are going to be read, so that reading whole files once, as
+ * snapshots, peer recoveries and integrity checks do, does not push the data that searches need out of the page cache:
+ * <ul>
+ *     <li>inputs opened with {@link IOContext#READONCE}, and their clones and slices, read ahead of their position. Closing them
+ *     drops the file from the page cache if it was only read by merges, which never read a file again</li>
+ *     <li>files with an extension that should be preloaded are read into the page cache when they are opened for searches,
+ *     whatever the type of the wrapped directory</li>
+ * </ul>
+ */
+final class ReadAdviceDirectory extends FilterDirectory {
+
+    static final long READ_AHEAD_WINDOW_BYTES = ByteSizeUnit.MB.toBytes(8);
+
+    @FunctionalInterface
+    interface Advisor {
+        AdvisedFile open(Path file);
+    }
+
+    private final Path location;
+    private final Set<String> preloadExtensions;
+    private final Advisor advisor;
+    // the files that were opened for searches and not deleted or renamed since, their pages may be needed by searches at any time
+    private final Set<String> searchedFiles = ConcurrentCollections.newConcurrentSet();
+    // the files that were opened for merges and not deleted or renamed since
+    private final Set<String> mergedFiles = ConcurrentCollections.newConcurrentSet();
+
+    ReadAdviceDirectory(Directory in, Path location, Set<String> preloadExtensions) {
+        this(in, location, preloadExtensions, FileAccessAdvice::open);
+    }
+
+    ReadAdviceDirectory(Directory in, Path location, Set<String> preloadExtensions, Advisor advisor) {
+        super(in);
+        this.location = location;
+        this.preloadExtensions = preloadExtensions;
+        this.advisor = advisor;
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        final IndexInput input = super.openInput(name, context);
+        if (context.readOnce) {
+            return new ReadOnceIndexInput(name, input, advisor.open(location.resolve(name)));
+        }
+        if (context.context == IOContext.Context.MERGE) {
+            mergedFiles.add(name);
+        } else if (searchedFiles.add(name) && shouldPreload(name)) {
+            try (AdvisedFile file = advisor.open(location.resolve(name))) {
+                file.advise(0L, 0L, Advice.WILL_NEED);
+            }
+        }
+        return input;
+    }
+
+    private boolean shouldPreload(String name) {
+        if (preloadExtensions.contains("*")) {
+            return true;
+        }
+        final String extension = IndexFileNames.getExtension(name);
+        return extension != null && preloadExtensions.contains(extension);
+    }
+
+    private boolean isMergeOnly(String name) {
+        return mergedFiles.contains(name) && searchedFiles.contains(name) == false;
+    }
+
+    @Override
+    public void deleteFile(String name) throws IOException {
+        super.deleteFile(name);
+        forget(name);
+    }
+
+    @Override
+    public void rename(String source, String dest) throws IOException {
+        super.rename(source, dest);
+        forget(source);
+        forget(dest);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            searchedFiles.clear();
+            mergedFiles.clear();
+        }
+    }
+
+    private void forget(String name) {
+        searchedFiles.remove(name);
+        mergedFiles.remove(name);
+    }
+
+    // pkg private for testing
+    boolean isSearched(String name) {
+        return searchedFiles.contains(name);
+    }
+
+    // pkg private for testing
+    boolean isMerged(String name) {
+        return mergedFiles.contains(name);
+    }
+
+    /**
+     * Reads a file once from start to end. Lucene reads through its own file descriptor, so the read-ahead window of that
+     * descriptor cannot be widened; instead the next window of the file is requested ahead of the reads, through a descriptor
+     * that is shared by the input, its clones and its slices and closed with the input. Nothing is requested until the first
+     * read, so that inputs that only seek to the footer of a file do not read ahead its start.
+     */
+    private final class ReadOnceIndexInput extends IndexInput {
+
+        private final String name;
+        private final IndexInput in;
+        private final AdvisedFile file;
+        // the position of this input in the file, non zero for slices
+        private final long sliceOffset;
+        private final boolean isClone;
+        private long readAheadUntil = 0L;
+
+        ReadOnceIndexInput(String name, IndexInput in, AdvisedFile file) {
+            this(name, in, file, 0L, false);
+        }
+
+        private ReadOnceIndexInput(String name, IndexInput in, AdvisedFile file, long sliceOffset, boolean isClone) {
+            super("ReadOnceIndexInput(" + in + ")");
+            this.name = name;
+            this.in = in;
+            this.file = file;
+            this.sliceOffset = sliceOffset;
+            this.isClone = isClone;
+        }
+
+        private void maybeReadAhead() {
+            final long position = in.getFilePointer();
+            if (readAheadUntil < in.length() && position + READ_AHEAD_WINDOW_BYTES / 2 >= readAheadUntil) {
+                final long start = Math.max(readAheadUntil, position);
+                final long end = Math.min(in.length(), start + READ_AHEAD_WINDOW_BYTES);
+                file.advise(sliceOffset + start, end - start, Advice.WILL_NEED);
+                readAheadUntil = end;
+            }
+        }
+
+        @Override
+        public byte readByte() throws IOException {
+            maybeReadAhead();
+            return in.readByte();
+        }
+
+        @Override
+        public void readBytes(byte[] b, int offset, int len) throws IOException {
+            maybeReadAhead();
+            in.readBytes(b, offset, len);
+        }
+
+        @Override
+        public void seek(long pos) throws IOException {
+            in.seek(pos);
+        }
+
+        @Override
+        public long getFilePointer() {
+            return in.getFilePointer();
+        }
+
+        @Override
+        public long length() {
+            return in.length();
+        }
+
+        @Override
+        public ReadOnceIndexInput clone() {
+            final ReadOnceIndexInput clone = new ReadOnceIndexInput(name, in.clone(), file, sliceOffset, true);
+            clone.readAheadUntil = readAheadUntil;
+            return clone;
+        }
+
+        @Override
+        public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+            return new ReadOnceIndexInput(name, in.slice(sliceDescription, offset, length), file, sliceOffset + offset, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (isClone) {
+                // the descriptor is shared with the input this clone or slice was created from, and closed with it
+                in.close();
+                return;
+            }
+            try {
+                in.close();
+            } finally {
+                try (AdvisedFile ignored = file) {
+                    if (isMergeOnly(name)) {
+                        file.advise(0L, 0L, Advice.DONT_NEED);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.engine.EngineFactory;
+import org.elasticsearch.index.engine.ReadOnlyEngine;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotBlockCache;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.snapshots.SnapshotId;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The store of an index that is mounted from a snapshot. The shards of such an index read their files from the snapshot in the
+ * repository through the node's {@link SnapshotBlockCache} instead of restoring them, and are served by a {@link ReadOnlyEngine}.
+ */
+public class SearchableSnapshotIndexStore extends IndexStore {
+
+    /**
+     * The value of {@code index.store.type} of indices that are mounted from a snapshot
+     */
+    public static final String TYPE = "snapshot";
+
+    public static final Setting<String> SNAPSHOT_REPOSITORY_SETTING =
+        Setting.simpleString("index.store.snapshot.repository_name", Property.IndexScope, Property.PrivateIndex, Property.Final);
+    public static final Setting<String> SNAPSHOT_NAME_SETTING =
+        Setting.simpleString("index.store.snapshot.snapshot_name", Property.IndexScope, Property.PrivateIndex, Property.Final);
+    public static final Setting<String> SNAPSHOT_UUID_SETTING =
+        Setting.simpleString("index.store.snapshot.snapshot_uuid", Property.IndexScope, Property.PrivateIndex, Property.Final);
+    public static final Setting<String> SNAPSHOT_INDEX_NAME_SETTING =
+        Setting.simpleString("index.store.snapshot.index_name", Property.IndexScope, Property.PrivateIndex, Property.Final);
+    public static final Setting<String> SNAPSHOT_INDEX_ID_SETTING =
+        Setting.simpleString("index.store.snapshot.index_id", Property.IndexScope, Property.PrivateIndex, Property.Final);
+
+    /**
+     * The maximum size of the blocks of mounted snapshots that a node keeps on its local disk
+     */
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING =
+        Setting.byteSizeSetting("indices.store.snapshot_cache.size", new ByteSizeValue(1, ByteSizeUnit.GB), Property.NodeScope);
+
+    /**
+     * The size of the blocks of mounted snapshots that are read from the repository and cached at once
+     */
+    public static final Setting<ByteSizeValue> CACHE_BLOCK_SIZE_SETTING =
+        Setting.byteSizeSetting("indices.store.snapshot_cache.block_size", new ByteSizeValue(256, ByteSizeUnit.KB),
+            new ByteSizeValue(4, ByteSizeUnit.KB), new ByteSizeValue(16, ByteSizeUnit.MB), Property.NodeScope);
+
+    private final Supplier<RepositoriesService> repositoriesService;
+    private final SnapshotBlockCache blockCache;
+
+    public SearchableSnapshotIndexStore(IndexSettings indexSettings, Supplier<RepositoriesService> repositoriesService,
+                                        SnapshotBlockCache blockCache) {
+        super(indexSettings);
+        this.repositoriesService = repositoriesService;
+        this.blockCache = blockCache;
+    }
+
+    /**
+     * Returns <code>true</code> if the index with the given settings is mounted from a snapshot
+     */
+    public static boolean isSearchableSnapshot(Settings indexSettings) {
+        return TYPE.equals(IndexModule.INDEX_STORE_TYPE_SETTING.get(indexSettings));
+    }
+
+    /**
+     * Returns the engine factory for indices that are mounted from a snapshot, they never write to their store
+     */
+    public static Optional<EngineFactory> getEngineFactory(IndexSettings indexSettings) {
+        if (isSearchableSnapshot(indexSettings.getSettings())) {
+            return Optional.of(config -> new ReadOnlyEngine(config, null, null, true, Function.identity()));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public DirectoryService newDirectoryService(ShardPath path) {
+        return new DirectoryService(path.getShardId(), indexSettings) {
+            @Override
+            public Directory newDirectory() {
+                final Settings settings = indexSettings.getSettings();
+                final String repositoryName = SNAPSHOT_REPOSITORY_SETTING.get(settings);
+                final Repository repository = repositoriesService.get().repository(repositoryName);
+                if (repository instanceof BlobStoreRepository == false) {
+                    throw new IllegalArgumentException("repository [" + repositoryName + "] of type [" +
+                        repository.getMetadata().type() + "] does not support mounting snapshots");
+                }
+                final SnapshotId snapshotId = new SnapshotId(SNAPSHOT_NAME_SETTING.get(settings), SNAPSHOT_UUID_SETTING.get(settings));
+                final IndexId indexId = new IndexId(SNAPSHOT_INDEX_NAME_SETTING.get(settings), SNAPSHOT_INDEX_ID_SETTING.get(settings));
+                return ((BlobStoreRepository) repository).openSnapshotDirectory(snapshotId, indexId, shardId, blockCache);
+            }
+        };
+    }
+}
@@ -533,6 +533,31 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         }
     }
 
+    /**
+     * Verifies the length of the given file, the magic number its header starts with and the checksum its footer records, without
+     * reading the rest of the file. This detects truncated, replaced and partially written files, but not all bytes that were
+     * corrupted after the file was written, which {@link #checkIntegrity(StoreFileMetaData, Directory)} does.
+     */
+    public static void checkFooter(final StoreFileMetaData md, final Directory directory) throws IOException {
+        try (IndexInput input = directory.openInput(md.name(), IOContext.READONCE)) {
+            if (input.length() != md.length()) {
+                throw new CorruptIndexException("expected length=" + md.length() + " != actual length: " + input.length() +
+                    " : file truncated?", input);
+            }
+            final int magic = input.readInt();
+            if (magic != CodecUtil.CODEC_MAGIC) {
+                throw new CorruptIndexException("codec header mismatch: actual header=" + magic + " vs expected header=" +
+                    CodecUtil.CODEC_MAGIC, input);
+            }
+            // throws an exception if the footer is malformed
+            String checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+            if (!checksum.equals(md.checksum())) {
+                throw new CorruptIndexException("inconsistent metadata: footer checksum=" + checksum +
+                    ", metadata checksum=" + md.checksum(), input);
+            }
+        }
+    }
+
     public boolean isMarkedCorrupted() throws IOException {
         ensureOpen();
         /* marking a store as corrupted is basically adding a _corrupted to all
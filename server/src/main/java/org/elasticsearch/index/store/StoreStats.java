@@ -20,6 +20,7 @@
 package org.elasticsearch.index.store;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -33,13 +34,20 @@ import java.io.IOException;
 public class StoreStats implements Streamable, ToXContentFragment {
 
     private long sizeInBytes;
+    @Nullable
+    private ChecksumVerificationStats checksumVerification;
 
     public StoreStats() {
 
     }
 
     public StoreStats(long sizeInBytes) {
+        this(sizeInBytes, null);
+    }
+
+    public StoreStats(long sizeInBytes, @Nullable ChecksumVerificationStats checksumVerification) {
         this.sizeInBytes = sizeInBytes;
+        this.checksumVerification = checksumVerification;
     }
 
     public void add(StoreStats stats) {
@@ -47,6 +55,12 @@ public class StoreStats implements Streamable, ToXContentFragment {
             return;
         }
         sizeInBytes += stats.sizeInBytes;
+        if (stats.checksumVerification != null) {
+            if (checksumVerification == null) {
+                checksumVerification = new ChecksumVerificationStats();
+            }
+            checksumVerification.add(stats.checksumVerification);
+        }
     }
 
 
@@ -66,12 +80,23 @@ public class StoreStats implements Streamable, ToXContentFragment {
         return size();
     }
 
+    /**
+     * Returns the progress of the background checksum verifications, or {@code null} if no shard verifies its files in the background
+     */
+    @Nullable
+    public ChecksumVerificationStats getChecksumVerification() {
+        return checksumVerification;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         sizeInBytes = in.readVLong();
         if (in.getVersion().before(Version.V_6_0_0_alpha1)) {
             in.readVLong(); // throttleTimeInNanos
         }
+        if (in.getVersion().onOrAfter(Version.V_7_0_0)) {
+            checksumVerification = in.readOptionalWriteable(ChecksumVerificationStats::new);
+        }
     }
 
     @Override
@@ -80,12 +105,18 @@ public class StoreStats implements Streamable, ToXContentFragment {
         if (out.getVersion().before(Version.V_6_0_0_alpha1)) {
             out.writeVLong(0L); // throttleTimeInNanos
         }
+        if (out.getVersion().onOrAfter(Version.V_7_0_0)) {
+            out.writeOptionalWriteable(checksumVerification);
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.STORE);
         builder.humanReadableField(Fields.SIZE_IN_BYTES, Fields.SIZE, size());
+        if (checksumVerification != null) {
+            checksumVerification.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
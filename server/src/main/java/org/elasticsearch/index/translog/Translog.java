@@ -1871,8 +1871,24 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         return createEmptyTranslog(location, initialGlobalCheckpoint, shardId, channelFactory, primaryTerm);
     }
 
+    /**
+     * Creates a new empty translog that uses the given translog UUID, so that it can be associated with an existing commit
+     * that can't be rewritten, for instance because it is read from a snapshot.
+     */
+    public static void createEmptyTranslog(final Path location, final long initialGlobalCheckpoint, final ShardId shardId,
+                                           final String translogUUID, final long primaryTerm) throws IOException {
+        createEmptyTranslog(location, initialGlobalCheckpoint, shardId, translogUUID, FileChannel::open, primaryTerm);
+    }
+
     static String createEmptyTranslog(Path location, long initialGlobalCheckpoint, ShardId shardId,
                                       ChannelFactory channelFactory, long primaryTerm) throws IOException {
+        final String translogUUID = UUIDs.randomBase64UUID();
+        createEmptyTranslog(location, initialGlobalCheckpoint, shardId, translogUUID, channelFactory, primaryTerm);
+        return translogUUID;
+    }
+
+    private static void createEmptyTranslog(Path location, long initialGlobalCheckpoint, ShardId shardId, String translogUUID,
+                                            ChannelFactory channelFactory, long primaryTerm) throws IOException {
         IOUtils.rm(location);
         Files.createDirectories(location);
         final Checkpoint checkpoint =
@@ -1880,13 +1896,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         final Path checkpointFile = location.resolve(CHECKPOINT_FILE_NAME);
         Checkpoint.write(channelFactory, checkpointFile, checkpoint, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
         IOUtils.fsync(checkpointFile, false);
-        final String translogUUID = UUIDs.randomBase64UUID();
         TranslogWriter writer = TranslogWriter.create(shardId, translogUUID, 1,
             location.resolve(getFilename(1)), channelFactory,
             new ByteSizeValue(10), 1, initialGlobalCheckpoint,
             () -> { throw new UnsupportedOperationException(); }, () -> { throw new UnsupportedOperationException(); }, primaryTerm,
                 new TragicExceptionHolder());
         writer.close();
-        return translogUUID;
     }
 }
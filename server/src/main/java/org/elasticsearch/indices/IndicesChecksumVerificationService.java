@@ -0,0 +1,121 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.store.RateLimiter;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies the checksums of the files of the shards that check their files in the background once they have started, see
+ * {@link IndexSettings#INDEX_CHECK_ON_STARTUP}. The shards of the node are verified one after the other by a single task on the
+ * generic thread pool, and all of them share the same rate limit, so that starting many shards at once does not multiply the
+ * number of threads and the rate at which the node reads from its disks.
+ */
+public final class IndicesChecksumVerificationService implements IndexEventListener, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(IndicesChecksumVerificationService.class);
+
+    public static final Setting<ByteSizeValue> INDICES_CHECKSUM_VERIFICATION_MAX_BYTES_PER_SEC_SETTING =
+        Setting.byteSizeSetting("indices.checksum_verification.max_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB),
+            Property.NodeScope);
+
+    private final ThreadPool threadPool;
+    @Nullable
+    private final RateLimiter rateLimiter;
+    private final Queue<IndexShard> pendingShards = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean closed;
+
+    IndicesChecksumVerificationService(Settings settings, ThreadPool threadPool) {
+        this.threadPool = threadPool;
+        final ByteSizeValue maxBytesPerSec = INDICES_CHECKSUM_VERIFICATION_MAX_BYTES_PER_SEC_SETTING.get(settings);
+        this.rateLimiter = maxBytesPerSec.getBytes() <= 0 ? null : new RateLimiter.SimpleRateLimiter(maxBytesPerSec.getMbFrac());
+    }
+
+    @Override
+    public void afterIndexShardStarted(IndexShard indexShard) {
+        if (closed == false && indexShard.hasBackgroundChecksumVerification()) {
+            pendingShards.add(indexShard);
+            maybeVerifyPendingShards();
+        }
+    }
+
+    @Override
+    public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
+        if (indexShard != null) {
+            pendingShards.remove(indexShard);
+        }
+    }
+
+    /**
+     * Forks a task that verifies the pending shards unless a task is already running.
+     */
+    private void maybeVerifyPendingShards() {
+        if (closed == false && pendingShards.isEmpty() == false && running.compareAndSet(false, true)) {
+            threadPool.generic().execute(new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    logger.warn("failed to verify the checksums of shards in the background", e);
+                }
+
+                @Override
+                protected void doRun() {
+                    IndexShard indexShard;
+                    while (closed == false && (indexShard = pendingShards.poll()) != null) {
+                        if (indexShard.state() != IndexShardState.CLOSED) {
+                            indexShard.verifyChecksumsInBackground(rateLimiter);
+                        }
+                    }
+                }
+
+                @Override
+                public void onAfter() {
+                    running.set(false);
+                    // a shard may have been added after the queue was found empty but before the task stopped running
+                    maybeVerifyPendingShards();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pendingShards.clear();
+    }
+}
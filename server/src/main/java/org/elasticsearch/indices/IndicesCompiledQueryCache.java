@@ -0,0 +1,217 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.query.ParsedQuery;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Caches the Lucene queries that query builders are turned into on each shard, so that shards do not need to parse query strings,
+ * analyze query text or look up field types again for queries that are run over and over.
+ * <p>
+ * Entries are keyed by the query builder after it was rewritten on the shard, so that parts that depend on the content of the
+ * shard are resolved first, and by everything else the query depends on: the shard, the version of the mappings and of the index
+ * settings, the types of the request and the cluster alias of the index. Queries that depend on the current time, on scripts or on
+ * other features that prevent caching on the {@link QueryShardContext} are not cached. Entries are weighed by the serialized size
+ * of their query builder and the memory used by their query. The keys of each shard are tracked so that the entries of a shard
+ * are dropped without scanning the whole cache when the shard is closed, and stale entries of older mappings or settings are
+ * evicted over time.
+ * <p>
+ * The cache is disabled by default.
+ */
+public final class IndicesCompiledQueryCache implements Closeable {
+
+    public static final Setting<ByteSizeValue> INDICES_COMPILED_QUERY_CACHE_SIZE =
+        Setting.memorySizeSetting("indices.queries.compiled_cache.size", "0b", Property.NodeScope);
+
+    // the size of queries that can't tell how much memory they use
+    static final long DEFAULT_RAM_BYTES_USED = 1024;
+
+    private final Cache<Key, Entry> cache;
+    private final Map<ShardId, Set<Key>> keysByShard = ConcurrentCollections.newConcurrentMap();
+
+    IndicesCompiledQueryCache(Settings settings) {
+        final long sizeInBytes = INDICES_COMPILED_QUERY_CACHE_SIZE.get(settings).getBytes();
+        this.cache = sizeInBytes <= 0 ? null : CacheBuilder.<Key, Entry>builder()
+            .setMaximumWeight(sizeInBytes)
+            .weigher((key, entry) -> entry.ramBytesUsed)
+            .removalListener(notification -> {
+                final Set<Key> keys = keysByShard.get(notification.getKey().shardId);
+                if (keys != null) {
+                    keys.remove(notification.getKey());
+                }
+            })
+            .build();
+    }
+
+    private static long ramBytesUsed(ParsedQuery parsedQuery) {
+        long ramBytesUsed = 0;
+        if (parsedQuery.query() instanceof Accountable) {
+            ramBytesUsed += ((Accountable) parsedQuery.query()).ramBytesUsed();
+        } else {
+            ramBytesUsed += DEFAULT_RAM_BYTES_USED;
+        }
+        return ramBytesUsed + parsedQuery.namedFilters().size() * DEFAULT_RAM_BYTES_USED;
+    }
+
+    /**
+     * Returns the cached query of the given rewritten query builder, or creates it with the given loader and caches it unless the
+     * context says that it can't be cached.
+     */
+    public ParsedQuery getOrCompute(QueryShardContext context, QueryBuilder rewrittenQuery,
+                                    CheckedFunction<QueryBuilder, ParsedQuery, IOException> loader) throws IOException {
+        if (cache == null) {
+            return loader.apply(rewrittenQuery);
+        }
+        // read the versions before the query is created, so that it reflects at least these versions
+        final Key key = new Key(new ShardId(context.index(), context.getShardId()), context.getFullyQualifiedIndex().getName(),
+            context.getMapperService().mergeCount(), context.getIndexSettings().getIndexMetaData().getSettingsVersion(),
+            context.getTypes(), rewrittenQuery);
+        final Entry entry = cache.get(key);
+        if (entry != null) {
+            return entry.parsedQuery;
+        }
+        // the context only ever becomes not cachable, so it needs to be cachable before to tell about this query
+        final boolean cachable = context.isCachable();
+        final ParsedQuery parsedQuery = loader.apply(rewrittenQuery);
+        if (cachable && context.isCachable()) {
+            final long serializedSize = serializedSize(rewrittenQuery);
+            if (serializedSize >= 0) {
+                // the shard can't be closed while it is queried, so its keys can't be dropped concurrently
+                keysByShard.computeIfAbsent(key.shardId, shardId -> ConcurrentCollections.newConcurrentSet()).add(key);
+                cache.put(key, new Entry(parsedQuery, serializedSize + ramBytesUsed(parsedQuery)));
+            }
+        }
+        return parsedQuery;
+    }
+
+    /**
+     * Returns the serialized size of the given query builder, which grows with the number and the size of its parameters like the
+     * size of the builder on the heap does, or {@code -1} if the builder can't be serialized and should not be cached.
+     */
+    private static long serializedSize(QueryBuilder query) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeNamedWriteable(query);
+            return out.size();
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Drops the cached queries of the given shard
+     */
+    public void onClose(ShardId shardId) {
+        if (cache == null) {
+            return;
+        }
+        final Set<Key> keys = keysByShard.remove(shardId);
+        if (keys != null) {
+            for (Key key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    long weight() {
+        return cache == null ? 0 : cache.weight();
+    }
+
+    @Override
+    public void close() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static final class Entry {
+        private final ParsedQuery parsedQuery;
+        private final long ramBytesUsed;
+
+        Entry(ParsedQuery parsedQuery, long ramBytesUsed) {
+            this.parsedQuery = parsedQuery;
+            this.ramBytesUsed = ramBytesUsed;
+        }
+    }
+
+    private static final class Key {
+        private final ShardId shardId;
+        private final String fullyQualifiedIndexName;
+        private final long mappingsMergeCount;
+        private final long settingsVersion;
+        private final String[] types;
+        private final QueryBuilder query;
+
+        Key(ShardId shardId, String fullyQualifiedIndexName, long mappingsMergeCount, long settingsVersion, String[] types,
+            QueryBuilder query) {
+            this.shardId = shardId;
+            this.fullyQualifiedIndexName = fullyQualifiedIndexName;
+            this.mappingsMergeCount = mappingsMergeCount;
+            this.settingsVersion = settingsVersion;
+            this.types = types;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mappingsMergeCount == key.mappingsMergeCount
+                && settingsVersion == key.settingsVersion
+                && shardId.equals(key.shardId)
+                && fullyQualifiedIndexName.equals(key.fullyQualifiedIndexName)
+                && Arrays.equals(types, key.types)
+                && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardId, fullyQualifiedIndexName, mappingsMergeCount, settingsVersion, Arrays.hashCode(types), query);
+        }
+    }
+}
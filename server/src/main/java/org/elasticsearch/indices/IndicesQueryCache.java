@@ -37,6 +37,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.cache.query.ElasticsearchQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.ShardId;
 
@@ -121,16 +122,25 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
-        return new CachingWeightWrapper(in);
+        return new CachingWeightWrapper(in, policy);
     }
 
     private class CachingWeightWrapper extends Weight {
 
         private final Weight in;
+        private final QueryCachingPolicy policy;
 
-        protected CachingWeightWrapper(Weight in) {
+        protected CachingWeightWrapper(Weight in, QueryCachingPolicy policy) {
             super(in.getQuery());
             this.in = in;
+            this.policy = policy;
+        }
+
+        // tells the policy how many documents the filter matches on the segment, which is what it costs to evaluate it again
+        private void onCost(LeafReaderContext context, long cost) {
+            if (policy instanceof ElasticsearchQueryCachingPolicy) {
+                ((ElasticsearchQueryCachingPolicy) policy).onCost(getQuery(), cost, context.reader().maxDoc());
+            }
         }
 
         @Override
@@ -153,13 +163,21 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         @Override
         public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorerSupplier(context);
+            final ScorerSupplier scorerSupplier = in.scorerSupplier(context);
+            if (scorerSupplier != null) {
+                onCost(context, scorerSupplier.cost());
+            }
+            return scorerSupplier;
         }
 
         @Override
         public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.bulkScorer(context);
+            final BulkScorer bulkScorer = in.bulkScorer(context);
+            if (bulkScorer != null) {
+                onCost(context, bulkScorer.cost());
+            }
+            return bulkScorer;
         }
 
         @Override
@@ -25,6 +25,7 @@ import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.LockObtainFailedException;
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.CollectionUtil;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.ElasticsearchException;
@@ -85,6 +86,7 @@ import org.elasticsearch.index.engine.CommitStats;
 import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.engine.InternalEngineFactory;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.flush.FlushStats;
 import org.elasticsearch.index.get.GetStats;
 import org.elasticsearch.index.mapper.MapperService;
@@ -202,6 +204,8 @@ public class IndicesService extends AbstractLifecycleComponent
     private final TimeValue cleanInterval;
     private final IndicesRequestCache indicesRequestCache;
     private final IndicesQueryCache indicesQueryCache;
+    private final IndicesCompiledQueryCache indicesCompiledQueryCache;
+    private final IndicesChecksumVerificationService indicesChecksumVerificationService;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
     private final Map<String, Function<IndexSettings, IndexStore>> indexStoreFactories;
@@ -230,6 +234,8 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.indicesCompiledQueryCache = new IndicesCompiledQueryCache(settings);
+        this.indicesChecksumVerificationService = new IndicesChecksumVerificationService(settings, threadPool);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(settings, threadPool,
@@ -247,6 +253,15 @@ public class IndicesService extends AbstractLifecycleComponent
                     "equal to 0 and not [" + sizeInBytes + "]";
                 circuitBreakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(-sizeInBytes);
             }
+
+            @Override
+            public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, Accountable fieldData) {
+                onRemoval(shardId, fieldName, wasEvicted, fieldData.ramBytesUsed());
+                if (fieldData instanceof GlobalOrdinalsIndexFieldData) {
+                    // the ordinal map that global ordinals may build on demand is accounted for separately
+                    ((GlobalOrdinalsIndexFieldData) fieldData).releaseOrdinalMap();
+                }
+            }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
         this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache,  logger, threadPool, this.cleanInterval);
@@ -299,7 +314,9 @@ public class IndicesService extends AbstractLifecycleComponent
             indicesFieldDataCache,
             cacheCleaner,
             indicesRequestCache,
-            indicesQueryCache);
+            indicesQueryCache,
+            indicesCompiledQueryCache,
+            indicesChecksumVerificationService);
     }
 
     /**
@@ -464,10 +481,12 @@ public class IndicesService extends AbstractLifecycleComponent
             @Override
             public void onStoreClosed(ShardId shardId) {
                 indicesQueryCache.onClose(shardId);
+                indicesCompiledQueryCache.onClose(shardId);
             }
         };
         finalListeners.add(onStoreClose);
         finalListeners.add(oldShardsStats);
+        finalListeners.add(indicesChecksumVerificationService);
         final IndexService indexService =
                 createIndexService(
                         "create index",
@@ -667,6 +686,10 @@ public class IndicesService extends AbstractLifecycleComponent
         return indicesQueryCache;
     }
 
+    public IndicesCompiledQueryCache getIndicesCompiledQueryCache() {
+        return indicesCompiledQueryCache;
+    }
+
     static class OldShardsStats implements IndexEventListener {
 
         final SearchStats searchStats = new SearchStats();
@@ -32,19 +32,19 @@ import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NotifyOnceListener;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.Loggers;
-import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.CancellableThreads;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.core.internal.io.IOUtils;
-import org.elasticsearch.core.internal.io.Streams;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.RecoveryEngineException;
 import org.elasticsearch.index.seqno.LocalCheckpointTracker;
@@ -59,17 +59,17 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.RemoteTransportException;
 
-import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
 
@@ -93,6 +93,7 @@ public class RecoverySourceHandler {
     // Request containing source and target node information
     private final StartRecoveryRequest request;
     private final int chunkSizeInBytes;
+    private final int maxConcurrentFileChunks;
     private final RecoveryTargetHandler recoveryTarget;
 
     protected final RecoveryResponse response;
@@ -115,13 +116,14 @@ public class RecoverySourceHandler {
 
     public RecoverySourceHandler(final IndexShard shard, RecoveryTargetHandler recoveryTarget,
                                  final StartRecoveryRequest request,
-                                 final int fileChunkSizeInBytes) {
+                                 final int fileChunkSizeInBytes, final int maxConcurrentFileChunks) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.request = request;
         this.shardId = this.request.shardId().id();
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
+        this.maxConcurrentFileChunks = maxConcurrentFileChunks;
         this.response = new RecoveryResponse();
     }
 
@@ -364,10 +366,7 @@ public class RecoverySourceHandler {
                 cancellableThreads.execute(() ->
                         recoveryTarget.receiveFileInfo(response.phase1FileNames, response.phase1FileSizes, response.phase1ExistingFileNames,
                                 response.phase1ExistingFileSizes, translogOps.get()));
-                // How many bytes we've copied since we last called RateLimiter.pause
-                final Function<StoreFileMetaData, OutputStream> outputStreamFactories =
-                        md -> new BufferedOutputStream(new RecoveryOutputStream(md, translogOps), chunkSizeInBytes);
-                sendFiles(store, phase1Files.toArray(new StoreFileMetaData[phase1Files.size()]), outputStreamFactories);
+                sendFiles(store, phase1Files.toArray(new StoreFileMetaData[phase1Files.size()]), translogOps);
                 // Send the CLEAN_FILES request, which takes all of the files that
                 // were transferred and renames them from their temporary file
                 // names to the actual file names. It also writes checksums for
@@ -635,75 +634,170 @@ public class RecoverySourceHandler {
     }
 
 
-    final class RecoveryOutputStream extends OutputStream {
-        private final StoreFileMetaData md;
+    /**
+     * Sends the chunks of files to the recovery target. The chunks are read straight from the files into a pool of at most
+     * {@code maxConcurrentFileChunks} chunk sized buffers, and a buffer is only reused once the target acknowledged its chunk, so up to
+     * {@code maxConcurrentFileChunks} chunks are in flight at the same time, across file boundaries.
+     */
+    final class FileChunkSender {
         private final Supplier<Integer> translogOps;
-        private long position = 0;
+        private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(maxConcurrentFileChunks);
+        private final AtomicReference<Tuple<StoreFileMetaData, Exception>> failure = new AtomicReference<>();
+        private int allocatedBuffers = 0;
 
-        RecoveryOutputStream(StoreFileMetaData md, Supplier<Integer> translogOps) {
-            this.md = md;
+        FileChunkSender(Supplier<Integer> translogOps) {
             this.translogOps = translogOps;
         }
 
-        @Override
-        public void write(int b) throws IOException {
-            throw new UnsupportedOperationException("we can't send single bytes over the wire");
+        void sendFile(StoreFileMetaData md, IndexInput indexInput) throws IOException {
+            long position = 0;
+            while (position < md.length()) {
+                final byte[] buffer = acquireBuffer();
+                final int length = Math.toIntExact(Math.min(buffer.length, md.length() - position));
+                try {
+                    indexInput.readBytes(buffer, 0, length);
+                } catch (Exception e) {
+                    releaseBuffer(buffer);
+                    throw e;
+                }
+                sendChunk(md, position, buffer, length, md.length() == position + length);
+                position += length;
+            }
         }
 
-        @Override
-        public void write(byte[] b, int offset, int length) throws IOException {
-            sendNextChunk(position, new BytesArray(b, offset, length), md.length() == position + length);
-            position += length;
-            assert md.length() >= position : "length: " + md.length() + " but positions was: " + position;
-        }
+        private void sendChunk(StoreFileMetaData md, long position, byte[] buffer, int length, boolean lastChunk) throws IOException {
+            final ActionListener<Void> listener = new NotifyOnceListener<Void>() {
+                @Override
+                protected void innerOnResponse(Void aVoid) {
+                    releaseBuffer(buffer);
+                }
 
-        private void sendNextChunk(long position, BytesArray content, boolean lastChunk) throws IOException {
-            // Actually send the file chunk to the target node, waiting for it to complete
-            cancellableThreads.executeIO(() ->
-                    recoveryTarget.writeFileChunk(md, position, content, lastChunk, translogOps.get())
-            );
+                @Override
+                protected void innerOnFailure(Exception e) {
+                    failure.compareAndSet(null, Tuple.tuple(md, e));
+                    releaseBuffer(buffer);
+                }
+            };
+            try {
+                rethrowFailure();
+                // the target acknowledges the chunk asynchronously, we only block here if the rate limiter pauses us
+                cancellableThreads.execute(() ->
+                    recoveryTarget.writeFileChunk(md, position, new BytesArray(buffer, 0, length), lastChunk, translogOps.get(), listener));
+            } catch (Exception e) {
+                listener.onFailure(e);
+                throw e;
+            }
             if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
                 throw new IndexShardClosedException(request.shardId());
             }
         }
+
+        private byte[] acquireBuffer() throws IOException {
+            rethrowFailure();
+            final byte[] buffer = freeBuffers.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+            if (allocatedBuffers < maxConcurrentFileChunks) {
+                allocatedBuffers++;
+                return new byte[chunkSizeInBytes];
+            }
+            final AtomicReference<byte[]> freeBuffer = new AtomicReference<>();
+            cancellableThreads.execute(() -> freeBuffer.set(freeBuffers.take()));
+            return freeBuffer.get();
+        }
+
+        private void releaseBuffer(byte[] buffer) {
+            final boolean added = freeBuffers.offer(buffer);
+            assert added : "more buffers were released than allocated";
+        }
+
+        /**
+         * Waits for the target to acknowledge all chunks that are in flight and rethrows the first failure, if any.
+         */
+        void awaitInFlightChunks() throws IOException {
+            final List<byte[]> buffers = new ArrayList<>(allocatedBuffers);
+            cancellableThreads.execute(() -> {
+                while (buffers.size() < allocatedBuffers) {
+                    buffers.add(freeBuffers.take());
+                }
+            });
+            freeBuffers.addAll(buffers);
+            rethrowFailure();
+        }
+
+        /**
+         * The file whose chunk failed to be sent, if any.
+         */
+        @Nullable
+        StoreFileMetaData failedFile() {
+            final Tuple<StoreFileMetaData, Exception> fileFailure = failure.get();
+            return fileFailure == null ? null : fileFailure.v1();
+        }
+
+        private void rethrowFailure() throws IOException {
+            final Tuple<StoreFileMetaData, Exception> fileFailure = failure.get();
+            if (fileFailure != null) {
+                final Exception e = fileFailure.v2();
+                if (e instanceof IOException) {
+                    throw (IOException) e;
+                }
+                throw ExceptionsHelper.convertToRuntime(e);
+            }
+        }
     }
 
-    void sendFiles(Store store, StoreFileMetaData[] files, Function<StoreFileMetaData, OutputStream> outputStreamFactory) throws Exception {
+    void sendFiles(Store store, StoreFileMetaData[] files, Supplier<Integer> translogOps) throws Exception {
         store.incRef();
         try {
             ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetaData::length)); // send smallest first
+            final FileChunkSender sender = new FileChunkSender(translogOps);
             for (int i = 0; i < files.length; i++) {
                 final StoreFileMetaData md = files[i];
                 try (IndexInput indexInput = store.directory().openInput(md.name(), IOContext.READONCE)) {
-                    // it's fine that we are only having the indexInput in the try/with block. The copy methods handles
-                    // exceptions during close correctly and doesn't hide the original exception.
-                    Streams.copy(new InputStreamIndexInput(indexInput, md.length()), outputStreamFactory.apply(md));
+                    sender.sendFile(md, indexInput);
                 } catch (Exception e) {
-                    final IOException corruptIndexException;
-                    if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(e)) != null) {
-                        if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
-                            logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
-                            failEngine(corruptIndexException);
-                            throw corruptIndexException;
-                        } else { // corruption has happened on the way to replica
-                            RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
-                                    "checksums are ok", null);
-                            exception.addSuppressed(e);
-                            logger.warn(() -> new ParameterizedMessage(
-                                    "{} Remote file corruption on node {}, recovering {}. local checksum OK",
-                                    shardId, request.targetNode(), md), corruptIndexException);
-                            throw exception;
-                        }
-                    } else {
-                        throw e;
-                    }
+                    // a chunk of an earlier file may have failed while it was in flight
+                    final StoreFileMetaData failedFile = sender.failedFile();
+                    handleErrorOnSendFiles(store, failedFile == null ? md : failedFile, e);
+                }
+            }
+            // chunks stay in flight across files, but the target needs all of them before it can clean the files
+            try {
+                sender.awaitInFlightChunks();
+            } catch (Exception e) {
+                final StoreFileMetaData failedFile = sender.failedFile();
+                if (failedFile == null) {
+                    throw e;
                 }
+                handleErrorOnSendFiles(store, failedFile, e);
             }
         } finally {
             store.decRef();
         }
     }
 
+    private void handleErrorOnSendFiles(Store store, StoreFileMetaData md, Exception e) throws Exception {
+        final IOException corruptIndexException;
+        if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(e)) != null) {
+            if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
+                logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
+                failEngine(corruptIndexException);
+                throw corruptIndexException;
+            } else { // corruption has happened on the way to replica
+                RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
+                        "checksums are ok", null);
+                exception.addSuppressed(e);
+                logger.warn(() -> new ParameterizedMessage(
+                        "{} Remote file corruption on node {}, recovering {}. local checksum OK",
+                        shardId, request.targetNode(), md), corruptIndexException);
+                throw exception;
+            }
+        } else {
+            throw e;
+        }
+    }
+
     protected void failEngine(IOException cause) {
         shard.failShard("recovery", cause);
     }
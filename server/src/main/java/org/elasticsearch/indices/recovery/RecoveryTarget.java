@@ -31,6 +31,7 @@ import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -47,18 +48,22 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardNotRecoveringException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -89,6 +94,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
     private final AtomicBoolean finished = new AtomicBoolean();
 
     private final ConcurrentMap<String, IndexOutput> openIndexOutputs = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, FileChunkWriter> fileChunkWriters = ConcurrentCollections.newConcurrentMap();
     private final CancellableThreads cancellableThreads;
 
     // last time this status was accessed
@@ -333,6 +339,12 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
                 }
                 iterator.remove();
             }
+            // release the recovery source from waiting for the chunks that were held back
+            final IllegalStateException closedException = new IllegalStateException("recovery [" + recoveryId + "] was closed");
+            for (FileChunkWriter writer : fileChunkWriters.values()) {
+                writer.fail(closedException);
+            }
+            fileChunkWriters.clear();
             // trash temporary files
             for (String file : tempFileNames.keySet()) {
                 logger.trace("cleaning temporary file [{}]", file);
@@ -454,11 +466,18 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
             if (indexShard.indexSettings().getIndexVersionCreated().before(Version.V_6_0_0_rc1)) {
                 store.ensureIndexHasHistoryUUID();
             }
-            // TODO: Assign the global checkpoint to the max_seqno of the safe commit if the index version >= 6.2
-            final String translogUUID = Translog.createEmptyTranslog(
-                indexShard.shardPath().resolveTranslog(), SequenceNumbers.UNASSIGNED_SEQ_NO, shardId,
-                indexShard.getPendingPrimaryTerm());
-            store.associateIndexWithNewTranslog(translogUUID);
+            if (SearchableSnapshotIndexStore.isSearchableSnapshot(indexShard.indexSettings().getSettings())) {
+                // the store reads the same snapshot as the source, its commit can't be rewritten so the translog takes over its UUID
+                final String translogUUID = store.readLastCommittedSegmentsInfo().getUserData().get(Translog.TRANSLOG_UUID_KEY);
+                Translog.createEmptyTranslog(indexShard.shardPath().resolveTranslog(), SequenceNumbers.UNASSIGNED_SEQ_NO, shardId,
+                    translogUUID, indexShard.getPendingPrimaryTerm());
+            } else {
+                // TODO: Assign the global checkpoint to the max_seqno of the safe commit if the index version >= 6.2
+                final String translogUUID = Translog.createEmptyTranslog(
+                    indexShard.shardPath().resolveTranslog(), SequenceNumbers.UNASSIGNED_SEQ_NO, shardId,
+                    indexShard.getPendingPrimaryTerm());
+                store.associateIndexWithNewTranslog(translogUUID);
+            }
         } catch (CorruptIndexException | IndexFormatTooNewException | IndexFormatTooOldException ex) {
             // this is a fatal exception at this stage.
             // this means we transferred files from the remote that have not be checksummed and they are
@@ -487,12 +506,29 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
         }
     }
 
+    /**
+     * Writes a file chunk to the target store. Chunks of the same file may arrive out of order if the recovery source has several of
+     * them in flight; such chunks are held back until all preceding chunks of the file have been written. The listener is only
+     * notified once the chunk has been written, so that the recovery source never has more chunks buffered here than it keeps in
+     * flight.
+     */
     @Override
     public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
-                               boolean lastChunk, int totalTranslogOps) throws IOException {
+                               boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener) {
+        try {
+            state().getTranslog().totalOperations(totalTranslogOps);
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        final FileChunkWriter writer = fileChunkWriters.computeIfAbsent(fileMetaData.name(), name -> new FileChunkWriter());
+        writer.writeChunk(new FileChunk(fileMetaData, position, content, lastChunk, listener));
+    }
+
+    private void innerWriteFileChunk(StoreFileMetaData fileMetaData, long position,
+                                     BytesReference content, boolean lastChunk) throws IOException {
         final Store store = store();
         final String name = fileMetaData.name();
-        state().getTranslog().totalOperations(totalTranslogOps);
         final RecoveryState.Index indexState = state().getIndex();
         IndexOutput indexOutput;
         if (position == 0) {
@@ -519,6 +555,82 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
             store.directory().sync(Collections.singleton(temporaryFileName));
             IndexOutput remove = removeOpenIndexOutputs(name);
             assert remove == null || remove == indexOutput; // remove maybe null if we got finished
+            fileChunkWriters.remove(name);
+        }
+    }
+
+    private static final class FileChunk {
+        final StoreFileMetaData md;
+        final long position;
+        final BytesReference content;
+        final boolean lastChunk;
+        final ActionListener<Void> listener;
+
+        FileChunk(StoreFileMetaData md, long position, BytesReference content, boolean lastChunk, ActionListener<Void> listener) {
+            this.md = md;
+            this.position = position;
+            this.content = content;
+            this.lastChunk = lastChunk;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Buffers the chunks of a single file that arrived ahead of their predecessors and writes them out sequentially. Chunks are only
+     * acknowledged once written, so the number of buffered chunks is bounded by the number of chunks the recovery source keeps in
+     * flight. Once a chunk failed to be written, all buffered and later chunks of the file are failed too.
+     */
+    private final class FileChunkWriter {
+        private final PriorityQueue<FileChunk> pendingChunks = new PriorityQueue<>(Comparator.comparingLong(chunk -> chunk.position));
+        private long lastPosition = 0;
+        private Exception failure = null;
+
+        void writeChunk(FileChunk newChunk) {
+            final List<FileChunk> writtenChunks = new ArrayList<>();
+            final List<FileChunk> failedChunks = new ArrayList<>();
+            final Exception e;
+            synchronized (this) {
+                if (failure == null) {
+                    pendingChunks.add(newChunk);
+                    FileChunk chunk;
+                    try {
+                        while ((chunk = pendingChunks.peek()) != null && chunk.position == lastPosition) {
+                            innerWriteFileChunk(chunk.md, chunk.position, chunk.content, chunk.lastChunk);
+                            pendingChunks.remove();
+                            writtenChunks.add(chunk);
+                            lastPosition += chunk.content.length();
+                        }
+                    } catch (Exception inner) {
+                        failure = inner;
+                        failedChunks.addAll(pendingChunks);
+                        pendingChunks.clear();
+                    }
+                } else {
+                    failedChunks.add(newChunk);
+                }
+                e = failure;
+            }
+            // notify outside of the lock, the recovery source sends the next chunks as soon as these are acknowledged
+            for (FileChunk chunk : writtenChunks) {
+                chunk.listener.onResponse(null);
+            }
+            for (FileChunk chunk : failedChunks) {
+                chunk.listener.onFailure(e);
+            }
+        }
+
+        void fail(Exception e) {
+            final List<FileChunk> failedChunks;
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+                failedChunks = new ArrayList<>(pendingChunks);
+                pendingChunks.clear();
+            }
+            for (FileChunk chunk : failedChunks) {
+                chunk.listener.onFailure(e);
+            }
         }
     }
 
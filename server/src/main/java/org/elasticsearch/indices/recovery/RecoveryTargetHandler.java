@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.store.Store;
@@ -88,8 +89,12 @@ public interface RecoveryTargetHandler {
      */
     void cleanFiles(int totalTranslogOps, Store.MetadataSnapshot sourceMetaData) throws IOException;
 
-    /** writes a partial file chunk to the target store */
+    /**
+     * Writes a partial file chunk to the target store. Several chunks of a file may be in flight at the same time, so the target must
+     * not rely on receiving them in order. The listener is notified once the chunk has been written to the store of the target, so a
+     * chunk that arrives ahead of its predecessors is only acknowledged after them.
+     */
     void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
-                        boolean lastChunk, int totalTranslogOps) throws IOException;
+                        boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener);
 
 }
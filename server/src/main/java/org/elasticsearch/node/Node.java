@@ -96,7 +96,9 @@ import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.index.engine.EngineFactory;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotBlockCache;
 import org.elasticsearch.index.store.IndexStore;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
 import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.analysis.AnalysisModule;
@@ -132,6 +134,7 @@ import org.elasticsearch.plugins.RepositoryPlugin;
 import org.elasticsearch.plugins.ScriptPlugin;
 import org.elasticsearch.plugins.SearchPlugin;
 import org.elasticsearch.repositories.RepositoriesModule;
+import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.script.ScriptModule;
 import org.elasticsearch.script.ScriptService;
@@ -165,6 +168,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -411,7 +415,21 @@ public class Node implements Closeable {
                             .stream()
                             .map(IndexStorePlugin::getIndexStoreFactories)
                             .flatMap(m -> m.entrySet().stream())
-                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> {
+                                throw new IllegalStateException("duplicate index store factory");
+                            }, HashMap::new));
+            // indices mounted from a snapshot read the blocks of their files through a node-wide cache on the local disk
+            final SnapshotBlockCache snapshotBlockCache = new SnapshotBlockCache(
+                nodeEnvironment.nodeDataPaths()[0].resolve("snapshot_cache"),
+                Math.toIntExact(SearchableSnapshotIndexStore.CACHE_BLOCK_SIZE_SETTING.get(settings).getBytes()),
+                SearchableSnapshotIndexStore.CACHE_SIZE_SETTING.get(settings).getBytes());
+            resourcesToClose.add(snapshotBlockCache);
+            final SetOnce<RepositoriesService> repositoriesServiceReference = new SetOnce<>();
+            if (indexStoreFactories.putIfAbsent(SearchableSnapshotIndexStore.TYPE, indexSettings ->
+                    new SearchableSnapshotIndexStore(indexSettings, repositoriesServiceReference::get, snapshotBlockCache)) != null) {
+                throw new IllegalStateException("registered index store type [" + SearchableSnapshotIndexStore.TYPE +
+                    "] conflicts with a built-in type");
+            }
 
             final IndicesService indicesService =
                     new IndicesService(settings, pluginsService, nodeEnvironment, xContentRegistry, analysisModule.getAnalysisRegistry(),
@@ -525,6 +543,7 @@ public class Node implements Closeable {
                     b.bind(MetaDataUpgrader.class).toInstance(metaDataUpgrader);
                     b.bind(MetaStateService.class).toInstance(metaStateService);
                     b.bind(IndicesService.class).toInstance(indicesService);
+                    b.bind(SnapshotBlockCache.class).toInstance(snapshotBlockCache);
                     b.bind(AliasValidator.class).toInstance(aliasValidator);
                     b.bind(MetaDataCreateIndexService.class).toInstance(metaDataCreateIndexService);
                     b.bind(SearchService.class).toInstance(searchService);
@@ -554,6 +573,7 @@ public class Node implements Closeable {
                 }
             );
             injector = modules.createInjector();
+            repositoriesServiceReference.set(injector.getInstance(RepositoriesService.class));
 
             // TODO hack around circular dependencies problems in AllocationService
             clusterModule.getAllocationService().setGatewayAllocator(injector.getInstance(GatewayAllocator.class));
@@ -805,6 +825,7 @@ public class Node implements Closeable {
         toClose.add(injector.getInstance(IndicesClusterStateService.class));
         toClose.add(() -> stopWatch.stop().start("indices"));
         toClose.add(injector.getInstance(IndicesService.class));
+        toClose.add(injector.getInstance(SnapshotBlockCache.class));
         // close filter/fielddata caches after indices
         toClose.add(injector.getInstance(IndicesStore.class));
         toClose.add(() -> stopWatch.stop().start("routing"));
@@ -37,6 +37,7 @@ import org.elasticsearch.snapshots.SnapshotShardFailure;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class FilterRepository implements Repository {
 
@@ -88,6 +89,11 @@ public class FilterRepository implements Repository {
         in.deleteSnapshot(snapshotId, repositoryStateId);
     }
 
+    @Override
+    public void deleteSnapshot(SnapshotId snapshotId, long repositoryStateId, Executor executor) {
+        in.deleteSnapshot(snapshotId, repositoryStateId, executor);
+    }
+
     @Override
     public long getSnapshotThrottleTimeInNanos() {
         return in.getSnapshotThrottleTimeInNanos();
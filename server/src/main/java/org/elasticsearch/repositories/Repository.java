@@ -36,6 +36,7 @@ import org.elasticsearch.snapshots.SnapshotShardFailure;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 /**
@@ -143,6 +144,18 @@ public interface Repository extends LifecycleComponent {
      */
     void deleteSnapshot(SnapshotId snapshotId, long repositoryStateId);
 
+    /**
+     * Deletes snapshot, optionally forking to the given executor. Repositories that can't make use of the executor don't need to
+     * override this method, it delegates to {@link #deleteSnapshot(SnapshotId, long)} by default.
+     *
+     * @param snapshotId snapshot id
+     * @param repositoryStateId the unique id identifying the state of the repository when the snapshot deletion began
+     * @param executor executor the repository may fork to in order to delete the data of several shards concurrently
+     */
+    default void deleteSnapshot(SnapshotId snapshotId, long repositoryStateId, Executor executor) {
+        deleteSnapshot(snapshotId, repositoryStateId);
+    }
+
     /**
      * Returns snapshot throttle time in nanoseconds
      */
@@ -22,12 +22,14 @@ package org.elasticsearch.repositories.blobstore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexFormatTooNewException;
 import org.apache.lucene.index.IndexFormatTooOldException;
 import org.apache.lucene.index.IndexNotFoundException;
 import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
@@ -43,6 +45,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
@@ -56,15 +59,20 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.NotXContentException;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
@@ -77,6 +85,8 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.Streams;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardClosedException;
+import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardRestoreFailedException;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotException;
@@ -84,8 +94,11 @@ import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.ContentDefinedChunker;
 import org.elasticsearch.index.snapshots.blobstore.RateLimitingInputStream;
+import org.elasticsearch.index.snapshots.blobstore.SearchableSnapshotDirectory;
 import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotBlockCache;
 import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
@@ -104,20 +117,29 @@ import org.elasticsearch.snapshots.SnapshotMissingException;
 import org.elasticsearch.snapshots.SnapshotShardFailure;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
@@ -205,12 +227,22 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private static final String DATA_BLOB_PREFIX = "__";
 
+    private static final String CHUNK_BLOB_PREFIX = "chunk-";
+
     private final Settings settings;
 
     private final RateLimiter snapshotRateLimiter;
 
     private final RateLimiter restoreRateLimiter;
 
+    private final int maxConcurrentFileUploads;
+
+    private final int maxConcurrentShardDeletes;
+
+    private final boolean deduplicateChunks;
+
+    private final int dedupAverageChunkSize;
+
     private final CounterMetric snapshotRateLimitingTimeInNanos = new CounterMetric();
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
@@ -247,6 +279,25 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         snapshotRateLimiter = getRateLimiter(metadata.settings(), "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(metadata.settings(), "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         readOnly = metadata.settings().getAsBoolean("readonly", false);
+        maxConcurrentFileUploads = metadata.settings().getAsInt("max_concurrent_file_uploads", 3);
+        if (maxConcurrentFileUploads < 1) {
+            throw new IllegalArgumentException("the maximum number of concurrent file uploads must be at least 1: [" +
+                maxConcurrentFileUploads + "]");
+        }
+        maxConcurrentShardDeletes = metadata.settings().getAsInt("max_concurrent_shard_deletes", 5);
+        if (maxConcurrentShardDeletes < 1) {
+            throw new IllegalArgumentException("the maximum number of concurrent shard deletes must be at least 1: [" +
+                maxConcurrentShardDeletes + "]");
+        }
+        deduplicateChunks = metadata.settings().getAsBoolean("deduplicate_chunks", false);
+        final ByteSizeValue averageChunkSize = metadata.settings().getAsBytesSize("dedup_average_chunk_size",
+            new ByteSizeValue(256, ByteSizeUnit.KB));
+        if (averageChunkSize.getBytes() < 64 || averageChunkSize.getBytes() > ContentDefinedChunker.MAX_AVERAGE_SIZE
+            || Long.bitCount(averageChunkSize.getBytes()) != 1) {
+            throw new IllegalArgumentException("the average chunk size must be a power of two between 64b and " +
+                new ByteSizeValue(ContentDefinedChunker.MAX_AVERAGE_SIZE) + ": [" + averageChunkSize + "]");
+        }
+        dedupAverageChunkSize = Math.toIntExact(averageChunkSize.getBytes());
 
         indexShardSnapshotFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_CODEC, SNAPSHOT_NAME_FORMAT,
             BlobStoreIndexShardSnapshot::fromXContent, namedXContentRegistry, isCompress());
@@ -413,6 +464,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     @Override
     public void deleteSnapshot(SnapshotId snapshotId, long repositoryStateId) {
+        // without an executor to fork to, the data of the shards is deleted one shard after the other on the calling thread
+        deleteSnapshot(snapshotId, repositoryStateId, EsExecutors.newDirectExecutorService());
+    }
+
+    @Override
+    public void deleteSnapshot(SnapshotId snapshotId, long repositoryStateId, Executor executor) {
         if (isReadOnly()) {
             throw new RepositoryException(metadata.name(), "cannot delete snapshot from a readonly repository");
         }
@@ -440,6 +497,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             // Now delete all indices
             if (snapshot != null) {
                 final List<String> indices = snapshot.indices();
+                final List<Tuple<IndexId, ShardId>> shardsToDelete = new ArrayList<>();
                 for (String index : indices) {
                     final IndexId indexId = repositoryData.resolveIndexId(index);
 
@@ -455,16 +513,19 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
                     if (indexMetaData != null) {
                         for (int shardId = 0; shardId < indexMetaData.getNumberOfShards(); shardId++) {
-                            try {
-                                delete(snapshotId, indexId, new ShardId(indexMetaData.getIndex(), shardId));
-                            } catch (SnapshotException ex) {
-                                final int finalShardId = shardId;
-                                logger.warn(() -> new ParameterizedMessage("[{}] failed to delete shard data for shard [{}][{}]",
-                                    snapshotId, index, finalShardId), ex);
-                            }
+                            shardsToDelete.add(new Tuple<>(indexId, new ShardId(indexMetaData.getIndex(), shardId)));
                         }
                     }
                 }
+                // the shard containers are independent of each other, so their data is deleted concurrently
+                new SharedWorkQueue<>(shardsToDelete, shard -> {
+                    try {
+                        delete(snapshotId, shard.v1(), shard.v2());
+                    } catch (SnapshotException ex) {
+                        logger.warn(() -> new ParameterizedMessage("[{}] failed to delete shard data for shard [{}][{}]",
+                            snapshotId, shard.v2().getIndexName(), shard.v2().id()), ex);
+                    }
+                }).run(executor, maxConcurrentShardDeletes - 1);
             }
 
             // cleanup indices that are no longer part of the repository
@@ -847,7 +908,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     @Override
     public void snapshotShard(IndexShard shard, Store store, SnapshotId snapshotId, IndexId indexId, IndexCommit snapshotIndexCommit,
                               IndexShardSnapshotStatus snapshotStatus) {
-        SnapshotContext snapshotContext = new SnapshotContext(store, snapshotId, indexId, snapshotStatus, System.currentTimeMillis());
+        SnapshotContext snapshotContext = new SnapshotContext(store, snapshotId, indexId, snapshotStatus, System.currentTimeMillis(),
+            shard.getThreadPool().executor(ThreadPool.Names.SNAPSHOT));
         try {
             snapshotContext.snapshot(snapshotIndexCommit);
         } catch (Exception e) {
@@ -879,6 +941,75 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             snapshot.incrementalSize(), snapshot.totalSize());
     }
 
+    /**
+     * Opens a read-only directory over the files of a shard snapshot that fetches the parts of the files it reads from this repository
+     * on demand instead of restoring them. The shard snapshot is only loaded once the directory is first accessed.
+     *
+     * @param snapshotId snapshot id
+     * @param indexId    id of the index in the repository
+     * @param shardId    shard in the snapshot
+     * @param blockCache cache for the blocks of the files that were read
+     */
+    public Directory openSnapshotDirectory(SnapshotId snapshotId, IndexId indexId, ShardId shardId, SnapshotBlockCache blockCache) {
+        return new SearchableSnapshotDirectory("[" + metadata.name() + "][" + snapshotId + "][" + indexId + "][" + shardId.id() + "]",
+            () -> {
+                final Context context = new Context(snapshotId, indexId, shardId);
+                return Tuple.tuple(context.blobContainer, context.loadSnapshot());
+            }, blockCache);
+    }
+
+    /**
+     * Checks the integrity of a shard snapshot by comparing the Lucene footer of each snapshotted file with the checksum recorded
+     * when the file was snapshotted. Only the footers are read from the repository, so this is much cheaper than a restore but
+     * does not detect corruption in the body of a file.
+     *
+     * @param snapshotId snapshot id
+     * @param indexId    id of the index in the repository
+     * @param shardId    shard in the snapshot
+     * @return the names of the files whose footer does not match, empty if all files are intact
+     */
+    public List<String> verifyShardSnapshotFooters(SnapshotId snapshotId, IndexId indexId, ShardId shardId) throws IOException {
+        final Context context = new Context(snapshotId, indexId, shardId);
+        final List<String> corruptedFiles = new ArrayList<>();
+        final byte[] footer = new byte[CodecUtil.footerLength()];
+        for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : context.loadSnapshot().indexFiles()) {
+            if (fileInfo.hasUnknownChecksum()) {
+                continue; // written by a version that did not record checksums
+            }
+            if (fileInfo.length() < footer.length) {
+                corruptedFiles.add(fileInfo.physicalName());
+                continue;
+            }
+            readFileRange(context.blobContainer, fileInfo, fileInfo.length() - footer.length, footer);
+            final ByteArrayIndexInput footerInput = new ByteArrayIndexInput(fileInfo.physicalName(), footer);
+            if (footerInput.readInt() != CodecUtil.FOOTER_MAGIC || footerInput.readInt() != 0
+                || Store.digestToString(footerInput.readLong()).equals(fileInfo.checksum()) == false) {
+                corruptedFiles.add(fileInfo.physicalName());
+            }
+        }
+        return corruptedFiles;
+    }
+
+    /**
+     * Reads a range of a snapshotted file that may span several of its parts
+     */
+    private static void readFileRange(BlobContainer blobContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo, long position,
+                                      byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int part = fileInfo.partAt(position);
+            final long positionInPart = position - fileInfo.partOffset(part);
+            final int length = Math.toIntExact(Math.min(bytes.length - offset, fileInfo.partBytes(part) - positionInPart));
+            try (InputStream stream = blobContainer.readBlob(fileInfo.partName(part), positionInPart, length)) {
+                if (org.elasticsearch.common.io.Streams.readFully(stream, bytes, offset, length) != length) {
+                    throw new EOFException("part [" + fileInfo.partName(part) + "] is shorter than expected");
+                }
+            }
+            offset += length;
+            position += length;
+        }
+    }
+
     @Override
     public void verify(String seed, DiscoveryNode localNode) {
         assertSnapshotOrGenericThread();
@@ -1054,6 +1185,26 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         }
                     }
                 }
+
+                // Delete all chunks that aren't part of a file of a snapshot
+                final Set<String> referencedChunks = new HashSet<>();
+                for (SnapshotFiles snapshotFiles : snapshots) {
+                    for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                        for (BlobStoreIndexShardSnapshot.FileInfo.Chunk chunk : fileInfo.chunks()) {
+                            referencedChunks.add(chunk.name());
+                        }
+                    }
+                }
+                for (final String blobName : blobs.keySet()) {
+                    if (blobName.startsWith(CHUNK_BLOB_PREFIX) && referencedChunks.contains(blobName) == false) {
+                        try {
+                            blobContainer.deleteBlobIgnoringIfNotExists(blobName);
+                        } catch (IOException e) {
+                            logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete chunk blob [{}] during finalization",
+                                snapshotId, shardId, blobName), e);
+                        }
+                    }
+                }
             } catch (IOException e) {
                 String message = "Failed to finalize " + reason + " with shard index [" + currentIndexGen + "]";
                 throw new IndexShardSnapshotFailedException(shardId, message, e);
@@ -1156,6 +1307,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         private final Store store;
         private final IndexShardSnapshotStatus snapshotStatus;
         private final long startTime;
+        private final Executor executor;
+        private final Map<String, BlobStoreIndexShardSnapshot.FileInfo> chunkedFiles = ConcurrentCollections.newConcurrentMap();
+        private final Set<String> uploadedChunks = ConcurrentCollections.newConcurrentSet();
+        private Map<String, BlobMetaData> existingBlobs;
 
         /**
          * Constructs new context
@@ -1164,12 +1319,15 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
          * @param snapshotId     snapshot id
          * @param indexId        the id of the index being snapshotted
          * @param snapshotStatus snapshot status to report progress
+         * @param executor       executor that helps uploading the files of the shard
          */
-        SnapshotContext(Store store, SnapshotId snapshotId, IndexId indexId, IndexShardSnapshotStatus snapshotStatus, long startTime) {
+        SnapshotContext(Store store, SnapshotId snapshotId, IndexId indexId, IndexShardSnapshotStatus snapshotStatus, long startTime,
+                        Executor executor) {
             super(snapshotId, indexId, store.shardId());
             this.snapshotStatus = snapshotStatus;
             this.store = store;
             this.startTime = startTime;
+            this.executor = executor;
         }
 
         /**
@@ -1186,6 +1344,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             } catch (IOException e) {
                 throw new IndexShardSnapshotFailedException(shardId, "failed to list blobs", e);
             }
+            existingBlobs = blobs;
 
             long generation = findLatestFileNameGeneration(blobs);
             Tuple<BlobStoreIndexShardSnapshots, Integer> tuple = buildBlobStoreIndexShardSnapshots(blobs);
@@ -1264,13 +1423,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 snapshotStatus.moveToStarted(startTime, indexIncrementalFileCount,
                     indexTotalNumberOfFiles, indexIncrementalSize, indexTotalFileCount);
 
-                for (BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo : filesToSnapshot) {
-                    try {
-                        snapshotFile(snapshotFileInfo);
-                    } catch (IOException e) {
-                        throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
-                    }
+                try {
+                    snapshotFiles(filesToSnapshot);
+                } catch (IOException e) {
+                    throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
                 }
+                // files that were split into chunks are only known once they have been read
+                indexCommitPointFiles.replaceAll(fileInfo -> chunkedFiles.getOrDefault(fileInfo.name(), fileInfo));
             } finally {
                 store.decRef();
             }
@@ -1309,12 +1468,29 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             snapshotStatus.moveToDone(System.currentTimeMillis());
         }
 
+        /**
+         * Snapshots the given files. The files are uploaded by the calling thread and by up to {@code max_concurrent_file_uploads - 1}
+         * helpers forked to the snapshot thread pool, which bounds the number of concurrent uploads across all shards of the node.
+         *
+         * @param filesToSnapshot files to be snapshotted
+         */
+        private void snapshotFiles(final List<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot) throws IOException {
+            // upload the largest files first so that the uploads finish at roughly the same time
+            final List<BlobStoreIndexShardSnapshot.FileInfo> files = new ArrayList<>(filesToSnapshot);
+            files.sort(Comparator.comparingLong(BlobStoreIndexShardSnapshot.FileInfo::length).reversed());
+            new SharedWorkQueue<>(files, this::snapshotFile).run(executor, maxConcurrentFileUploads - 1);
+        }
+
         /**
          * Snapshot individual file
          *
          * @param fileInfo file to be snapshotted
          */
         private void snapshotFile(final BlobStoreIndexShardSnapshot.FileInfo fileInfo) throws IOException {
+            if (deduplicateChunks && fileInfo.length() > 0) {
+                snapshotFileInChunks(fileInfo);
+                return;
+            }
             final String file = fileInfo.physicalName();
             try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
                 for (int i = 0; i < fileInfo.numberOfParts(); i++) {
@@ -1338,6 +1514,44 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
         }
 
+        /**
+         * Snapshots a file as a sequence of content-defined chunks. Chunks are named after the hash of their content and only
+         * uploaded if no chunk with the same name and length exists in the shard container yet.
+         *
+         * @param fileInfo file to be snapshotted
+         */
+        private void snapshotFileInChunks(final BlobStoreIndexShardSnapshot.FileInfo fileInfo) throws IOException {
+            final String file = fileInfo.physicalName();
+            try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
+                InputStream inputStream = new InputStreamIndexInput(indexInput, fileInfo.length());
+                if (snapshotRateLimiter != null) {
+                    inputStream = new RateLimitingInputStream(inputStream, snapshotRateLimiter, snapshotRateLimitingTimeInNanos::inc);
+                }
+                inputStream = new AbortableInputStream(inputStream, file);
+                final ContentDefinedChunker chunker = new ContentDefinedChunker(inputStream, dedupAverageChunkSize);
+                final byte[] buffer = new byte[chunker.maxChunkSize()];
+                final List<BlobStoreIndexShardSnapshot.FileInfo.Chunk> chunks = new ArrayList<>();
+                int length;
+                while ((length = chunker.nextChunk(buffer)) > 0) {
+                    final MessageDigest digest = MessageDigests.sha256();
+                    digest.update(buffer, 0, length);
+                    final String chunkName = CHUNK_BLOB_PREFIX + MessageDigests.toHexString(digest.digest());
+                    final BlobMetaData existingChunk = existingBlobs.get(chunkName);
+                    if ((existingChunk == null || existingChunk.length() != length) && uploadedChunks.add(chunkName)) {
+                        blobContainer.writeBlob(chunkName, new ByteArrayInputStream(buffer, 0, length), length, false);
+                    }
+                    chunks.add(new BlobStoreIndexShardSnapshot.FileInfo.Chunk(chunkName, length));
+                }
+                Store.verify(indexInput);
+                chunkedFiles.put(fileInfo.name(), new BlobStoreIndexShardSnapshot.FileInfo(fileInfo.name(), fileInfo.metadata(), chunks));
+                snapshotStatus.addProcessedFile(fileInfo.length());
+            } catch (Exception t) {
+                failStoreIfCorrupted(t);
+                snapshotStatus.addProcessedFile(0);
+                throw t;
+            }
+        }
+
         private void failStoreIfCorrupted(Exception e) {
             if (Lucene.isCorruptionException(e)) {
                 try {
@@ -1357,6 +1571,15 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
          * @return true if file exists in the list of blobs
          */
         private boolean snapshotFileExistsInBlobs(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Map<String, BlobMetaData> blobs) {
+            if (fileInfo.chunks().isEmpty() == false) {
+                for (BlobStoreIndexShardSnapshot.FileInfo.Chunk chunk : fileInfo.chunks()) {
+                    final BlobMetaData chunkMetaData = blobs.get(chunk.name());
+                    if (chunkMetaData == null || chunkMetaData.length() != chunk.length()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
             BlobMetaData blobMetaData = blobs.get(fileInfo.name());
             if (blobMetaData != null) {
                 return blobMetaData.length() == fileInfo.length();
@@ -1406,6 +1629,91 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Processes a queue of items on the calling thread with the help of tasks forked to an executor. The calling thread never waits
+     * for a helper to start, so a busy executor only reduces the parallelism and can't deadlock the caller. Processing stops at the
+     * first failure, which is rethrown once all helpers that started have finished.
+     */
+    private static final class SharedWorkQueue<T> {
+
+        private final Queue<T> pendingItems;
+        private final CheckedConsumer<T, IOException> consumer;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private int activeHelpers = 0;
+        private boolean closed = false;
+
+        SharedWorkQueue(final Collection<T> items, final CheckedConsumer<T, IOException> consumer) {
+            this.pendingItems = new ConcurrentLinkedQueue<>(items);
+            this.consumer = consumer;
+        }
+
+        /**
+         * Processes all items using the calling thread and up to {@code maxHelpers} helpers forked to the given executor
+         */
+        void run(final Executor executor, final int maxHelpers) throws IOException {
+            final int helpers = Math.min(maxHelpers, pendingItems.size() - 1);
+            for (int i = 0; i < helpers; i++) {
+                try {
+                    executor.execute(this::help);
+                } catch (EsRejectedExecutionException e) {
+                    break;
+                }
+            }
+            processPendingItems();
+            synchronized (this) {
+                closed = true;
+                boolean interrupted = false;
+                while (activeHelpers > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final Exception e = failure.get();
+            if (e != null) {
+                if (e instanceof IOException) {
+                    throw (IOException) e;
+                }
+                throw ExceptionsHelper.convertToRuntime(e);
+            }
+        }
+
+        private void help() {
+            synchronized (this) {
+                if (closed) {
+                    return; // all items have been processed before this helper got a thread
+                }
+                activeHelpers++;
+            }
+            try {
+                processPendingItems();
+            } finally {
+                synchronized (this) {
+                    activeHelpers--;
+                    notifyAll();
+                }
+            }
+        }
+
+        private void processPendingItems() {
+            T item;
+            while (failure.get() == null && (item = pendingItems.poll()) != null) {
+                try {
+                    consumer.accept(item);
+                } catch (Exception e) {
+                    if (failure.compareAndSet(null, e) == false && failure.get() != e) {
+                        failure.get().addSuppressed(e);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * This is a BWC layer to ensure we update the snapshots metadata with the corresponding hashes before we compare them.
      * The new logic for StoreFileMetaData reads the entire {@code .si} and {@code segments.n} files to strengthen the
@@ -1567,6 +1875,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
                     // restore the files from the snapshot to the Lucene store
                     for (final BlobStoreIndexShardSnapshot.FileInfo fileToRecover : filesToRecover) {
+                        if (targetShard.state() == IndexShardState.CLOSED) {
+                            // got closed on us, don't bother restoring the remaining files
+                            throw new IndexShardClosedException(shardId);
+                        }
                         // if a file with a same physical name already exist in the store we need to delete it
                         // before restoring it from the snapshot. We could be lenient and try to reuse the existing
                         // store files (and compare their names/length/checksum again with the snapshot files) but to
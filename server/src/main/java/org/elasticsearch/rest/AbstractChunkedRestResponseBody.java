@@ -0,0 +1,120 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link ChunkedRestResponseBody} that is written in parts, and whose chunks end with the first part that reaches the size hint.
+ */
+abstract class AbstractChunkedRestResponseBody implements ChunkedRestResponseBody {
+
+    private final ChunkOutputStream chunkOutput;
+    private final String contentType;
+    private boolean done = false;
+
+    AbstractChunkedRestResponseBody(ChunkOutputStream chunkOutput, String contentType) {
+        this.chunkOutput = chunkOutput;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Writes the next part of the body to the chunk output stream, or closes whatever writes to that stream and returns
+     * {@code false} if all parts were written.
+     */
+    protected abstract boolean writeNextPart() throws IOException;
+
+    @Override
+    public final boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public final void writeChunk(int sizeHint, OutputStream out) throws IOException {
+        if (done) {
+            throw new IllegalStateException("the body was already written");
+        }
+        chunkOutput.startChunk(out);
+        try {
+            while (chunkOutput.written < sizeHint) {
+                if (writeNextPart() == false) {
+                    done = true;
+                    break;
+                }
+            }
+        } finally {
+            chunkOutput.endChunk();
+        }
+    }
+
+    @Override
+    public final String getResponseContentTypeString() {
+        return contentType;
+    }
+
+    /**
+     * A stream that forwards the bytes it receives to the stream of the chunk that is being written, and counts them.
+     */
+    static final class ChunkOutputStream extends OutputStream {
+        private OutputStream out;
+        private long written;
+
+        private void startChunk(OutputStream out) {
+            this.out = out;
+            this.written = 0;
+        }
+
+        private void endChunk() {
+            this.out = null;
+        }
+
+        private OutputStream out() {
+            if (out == null) {
+                throw new IllegalStateException("bytes can only be written while a chunk is written");
+            }
+            return out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out().write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out().write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            // the streams of the chunks belong to the callers of writeChunk
+        }
+    }
+}
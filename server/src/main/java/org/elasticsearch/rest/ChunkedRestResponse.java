@@ -0,0 +1,76 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A response whose content is serialized while it is sent, see {@link ChunkedRestResponseBody}.
+ */
+public class ChunkedRestResponse extends RestResponse {
+
+    private final RestStatus status;
+    private final ChunkedRestResponseBody body;
+    private BytesReference content;
+
+    public ChunkedRestResponse(RestStatus status, ChunkedRestResponseBody body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    @Override
+    public String contentType() {
+        return body.getResponseContentTypeString();
+    }
+
+    /**
+     * Serializes the whole content at once, for channels that can't send it in chunks. The content can only be serialized once, so
+     * {@link #chunkedContent()} must not be used after this method.
+     */
+    @Override
+    public BytesReference content() {
+        if (content == null) {
+            final BytesStreamOutput out = new BytesStreamOutput();
+            try {
+                while (body.isDone() == false) {
+                    body.writeChunk(Integer.MAX_VALUE, out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            content = out.bytes();
+        }
+        return content;
+    }
+
+    @Override
+    public ChunkedRestResponseBody chunkedContent() {
+        return body;
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.io.UTF8StreamWriter;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * The body of a {@link RestResponse} that is serialized while it is sent. The HTTP transport pulls the body in chunks whenever the
+ * network channel can take more bytes, so a large body is never held in memory as a whole and a slow client holds back its
+ * serialization instead of letting it pile up on the node.
+ */
+public interface ChunkedRestResponseBody {
+
+    /**
+     * Whether the whole body was written.
+     */
+    boolean isDone();
+
+    /**
+     * Writes the next chunk of the body to the given stream. A chunk ends with the first part of the body that brings the number of
+     * bytes written by this call to the given size hint, or with the end of the body.
+     */
+    void writeChunk(int sizeHint, OutputStream out) throws IOException;
+
+    /**
+     * The content type of the body.
+     */
+    String getResponseContentTypeString();
+
+    /**
+     * Returns a body that renders the fragments of the given object one after the other, with a builder of the given channel.
+     */
+    static ChunkedRestResponseBody fromXContent(ChunkedToXContent chunkedToXContent, ToXContent.Params params,
+                                                RestChannel channel) throws IOException {
+        final AbstractChunkedRestResponseBody.ChunkOutputStream chunkOutput = new AbstractChunkedRestResponseBody.ChunkOutputStream();
+        final XContentBuilder builder = channel.newBuilder(channel.request().getXContentType(), true, chunkOutput);
+        final Iterator<? extends ToXContent> fragments = chunkedToXContent.toXContentChunked(params);
+        return new AbstractChunkedRestResponseBody(chunkOutput, builder.contentType().mediaType()) {
+            @Override
+            protected boolean writeNextPart() throws IOException {
+                if (fragments.hasNext()) {
+                    fragments.next().toXContent(builder, params);
+                    builder.flush();
+                    return true;
+                }
+                builder.close();
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a body that writes the given parts of text one after the other.
+     */
+    static ChunkedRestResponseBody fromText(String contentType, Iterator<CheckedConsumer<UTF8StreamWriter, IOException>> parts) {
+        final AbstractChunkedRestResponseBody.ChunkOutputStream chunkOutput = new AbstractChunkedRestResponseBody.ChunkOutputStream();
+        final UTF8StreamWriter writer = new UTF8StreamWriter().setOutput(chunkOutput);
+        return new AbstractChunkedRestResponseBody(chunkOutput, contentType) {
+            @Override
+            protected boolean writeNextPart() throws IOException {
+                if (parts.hasNext()) {
+                    parts.next().accept(writer);
+                    writer.flush();
+                    return true;
+                }
+                writer.close();
+                return false;
+            }
+        };
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.rest;
 
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 
 import java.util.ArrayList;
@@ -44,6 +45,15 @@ public abstract class RestResponse {
      */
     public abstract BytesReference content();
 
+    /**
+     * The response content if it is serialized while it is sent, in which case a channel that can send it in chunks should use it
+     * instead of {@link #content()}. Returns {@code null} by default, for responses whose content is serialized before it is sent.
+     */
+    @Nullable
+    public ChunkedRestResponseBody chunkedContent() {
+        return null;
+    }
+
     /**
      * The rest status code.
      */
@@ -20,18 +20,21 @@
 package org.elasticsearch.rest.action.cat;
 
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.Table;
-import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.UTF8StreamWriter;
-import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.SizeValue;
 import org.elasticsearch.common.unit.TimeValue;
-import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -60,20 +63,21 @@ public class RestTable {
 
     public static RestResponse buildXContentBuilder(Table table, RestChannel channel) throws Exception {
         RestRequest request = channel.request();
-        XContentBuilder builder = channel.newBuilder();
         List<DisplayHeader> displayHeaders = buildDisplayHeaders(table, request);
-
-        builder.startArray();
         List<Integer> rowOrder = getRowOrder(table, request);
-        for (Integer row : rowOrder) {
-            builder.startObject();
-            for (DisplayHeader header : displayHeaders) {
-                builder.field(header.display, renderValue(request, table.getAsMap().get(header.name).get(row).value));
-            }
-            builder.endObject();
-        }
-        builder.endArray();
-        return new BytesRestResponse(RestStatus.OK, builder);
+
+        // renders one row per fragment so that the rows of large tables are serialized while they are sent
+        ChunkedToXContent rows = params -> Iterators.concat(
+            Collections.<ToXContent>singletonList((builder, p) -> builder.startArray()).iterator(),
+            rowOrder.stream().<ToXContent>map(row -> (builder, p) -> {
+                builder.startObject();
+                for (DisplayHeader header : displayHeaders) {
+                    builder.field(header.display, renderValue(request, table.getAsMap().get(header.name).get(row).value));
+                }
+                return builder.endObject();
+            }).iterator(),
+            Collections.<ToXContent>singletonList((builder, p) -> builder.endArray()).iterator());
+        return new ChunkedRestResponse(RestStatus.OK, ChunkedRestResponseBody.fromXContent(rows, ToXContent.EMPTY_PARAMS, channel));
     }
 
     public static RestResponse buildTextPlainResponse(Table table, RestChannel channel) throws IOException {
@@ -82,37 +86,40 @@ public class RestTable {
 
         List<DisplayHeader> headers = buildDisplayHeaders(table, request);
         int[] width = buildWidths(table, request, verbose, headers);
-
-        BytesStream bytesOut = Streams.flushOnCloseStream(channel.bytesOutput());
-        UTF8StreamWriter out = new UTF8StreamWriter().setOutput(bytesOut);
         int lastHeader = headers.size() - 1;
+
+        List<CheckedConsumer<UTF8StreamWriter, IOException>> lines = new ArrayList<>();
         if (verbose) {
-            for (int col = 0; col < headers.size(); col++) {
-                DisplayHeader header = headers.get(col);
-                boolean isLastColumn = col == lastHeader;
-                pad(new Table.Cell(header.display, table.findHeaderByName(header.name)), width[col], request, out, isLastColumn);
-                if (!isLastColumn) {
-                    out.append(" ");
+            lines.add(out -> {
+                for (int col = 0; col < headers.size(); col++) {
+                    DisplayHeader header = headers.get(col);
+                    boolean isLastColumn = col == lastHeader;
+                    pad(new Table.Cell(header.display, table.findHeaderByName(header.name)), width[col], request, out, isLastColumn);
+                    if (!isLastColumn) {
+                        out.append(" ");
+                    }
                 }
-            }
-            out.append("\n");
+                out.append("\n");
+            });
         }
 
         List<Integer> rowOrder = getRowOrder(table, request);
 
         for (Integer row: rowOrder) {
-            for (int col = 0; col < headers.size(); col++) {
-                DisplayHeader header = headers.get(col);
-                boolean isLastColumn = col == lastHeader;
-                pad(table.getAsMap().get(header.name).get(row), width[col], request, out, isLastColumn);
-                if (!isLastColumn) {
-                    out.append(" ");
+            lines.add(out -> {
+                for (int col = 0; col < headers.size(); col++) {
+                    DisplayHeader header = headers.get(col);
+                    boolean isLastColumn = col == lastHeader;
+                    pad(table.getAsMap().get(header.name).get(row), width[col], request, out, isLastColumn);
+                    if (!isLastColumn) {
+                        out.append(" ");
+                    }
                 }
-            }
-            out.append("\n");
+                out.append("\n");
+            });
         }
-        out.close();
-        return new BytesRestResponse(RestStatus.OK, BytesRestResponse.TEXT_CONTENT_TYPE, bytesOut.bytes());
+        return new ChunkedRestResponse(RestStatus.OK,
+            ChunkedRestResponseBody.fromText(BytesRestResponse.TEXT_CONTENT_TYPE, lines.iterator()));
     }
 
     static List<Integer> getRowOrder(Table table, RestRequest request) {
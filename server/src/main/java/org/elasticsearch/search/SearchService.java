@@ -786,11 +786,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Map<String, InnerHitContextBuilder> innerHitBuilders = new HashMap<>();
         if (source.query() != null) {
             InnerHitContextBuilder.extractInnerHits(source.query(), innerHitBuilders);
-            context.parsedQuery(queryShardContext.toQuery(source.query()));
+            context.parsedQuery(queryShardContext.toQuery(source.query(), indicesService.getIndicesCompiledQueryCache()));
         }
         if (source.postFilter() != null) {
             InnerHitContextBuilder.extractInnerHits(source.postFilter(), innerHitBuilders);
-            context.parsedPostFilter(queryShardContext.toQuery(source.postFilter()));
+            context.parsedPostFilter(queryShardContext.toQuery(source.postFilter(), indicesService.getIndicesCompiledQueryCache()));
         }
         if (innerHitBuilders.size() > 0) {
             for (Map.Entry<String, InnerHitContextBuilder> entry : innerHitBuilders.entrySet()) {
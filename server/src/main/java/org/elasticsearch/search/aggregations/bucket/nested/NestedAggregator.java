@@ -67,7 +67,7 @@ public class NestedAggregator extends BucketsAggregator implements SingleBucketA
 
         Query parentFilter = parentObjectMapper != null ? parentObjectMapper.nestedTypeFilter()
             : Queries.newNonNestedFilter(context.mapperService().getIndexSettings().getIndexVersionCreated());
-        this.parentFilter = context.bitsetFilterCache().getBitSetProducer(parentFilter);
+        this.parentFilter = context.bitsetFilterCache().getParentBitSetProducer(parentFilter);
         this.childFilter = childObjectMapper.nestedTypeFilter();
         this.collectsFromSingleBucket = collectsFromSingleBucket;
     }
@@ -58,7 +58,7 @@ public class ReverseNestedAggregator extends BucketsAggregator implements Single
         } else {
             parentFilter = objectMapper.nestedTypeFilter();
         }
-        parentBitsetProducer = context.bitsetFilterCache().getBitSetProducer(parentFilter);
+        parentBitsetProducer = context.bitsetFilterCache().getParentBitSetProducer(parentFilter);
     }
 
     @Override
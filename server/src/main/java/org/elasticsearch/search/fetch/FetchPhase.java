@@ -21,6 +21,9 @@ package org.elasticsearch.search.fetch;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -33,9 +36,11 @@ import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BitSet;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.lucene.index.ElasticsearchLeafReader;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.xcontent.XContentHelper;
@@ -61,6 +66,7 @@ import org.elasticsearch.search.lookup.SourceLookup;
 import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -77,6 +83,18 @@ import java.util.Set;
 public class FetchPhase implements SearchPhase {
     private static final Logger LOGGER = LogManager.getLogger(FetchPhase.class);
 
+    /**
+     * The minimum number of documents of a segment to load before their stored fields are read sequentially
+     */
+    static final int SEQUENTIAL_STORED_FIELDS_MIN_DOCS = 10;
+
+    /**
+     * The maximum ratio of the range of doc ids to the number of documents of a segment to load for their stored fields to be
+     * read sequentially, since sequential reads decompress whole blocks that are wasted if only a single document of a block is
+     * loaded
+     */
+    static final int SEQUENTIAL_STORED_FIELDS_MAX_SPARSITY = 4;
+
     private final FetchSubPhase[] fetchSubPhases;
 
     public FetchPhase(List<FetchSubPhase> fetchSubPhases) {
@@ -144,31 +162,58 @@ public class FetchPhase implements SearchPhase {
 
         try {
             SearchHit[] hits = new SearchHit[context.docIdsToLoadSize()];
-            FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
+            // load the hits in doc id order, so that the documents of a segment are read one after the other and each block of
+            // stored fields is only decompressed once, and put them back in the requested order
+            DocIdToIndex[] docs = new DocIdToIndex[context.docIdsToLoadSize()];
             for (int index = 0; index < context.docIdsToLoadSize(); index++) {
-                if (context.isCancelled()) {
-                    throw new TaskCancelledException("cancelled");
-                }
-                int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-                int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-                LeafReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
-                int subDocId = docId - subReaderContext.docBase;
-
-                final SearchHit searchHit;
-                int rootDocId = findRootDocumentIfNested(context, subReaderContext, subDocId);
-                if (rootDocId != -1) {
-                    searchHit = createNestedSearchHit(context, docId, subDocId, rootDocId,
-                        storedToRequestedFields, subReaderContext);
-                } else {
-                    searchHit = createSearchHit(context, fieldsVisitor, docId, subDocId,
-                        storedToRequestedFields, subReaderContext);
-                }
+                docs[index] = new DocIdToIndex(context.docIdsToLoad()[context.docIdsToLoadFrom() + index], index);
+            }
+            Arrays.sort(docs);
+
+            List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+            FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
+            int currentReaderIndex = -1;
+            LeafReaderContext subReaderContext = null;
+            CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader = null;
+            try {
+                for (int index = 0; index < docs.length; index++) {
+                    if (context.isCancelled()) {
+                        throw new TaskCancelledException("cancelled");
+                    }
+                    int docId = docs[index].docId;
+                    int readerIndex = ReaderUtil.subIndex(docId, leaves);
+                    if (currentReaderIndex != readerIndex) {
+                        currentReaderIndex = readerIndex;
+                        subReaderContext = leaves.get(readerIndex);
+                        int numSegmentDocs = 1;
+                        int maxDoc = subReaderContext.docBase + subReaderContext.reader().maxDoc();
+                        while (index + numSegmentDocs < docs.length && docs[index + numSegmentDocs].docId < maxDoc) {
+                            numSegmentDocs++;
+                        }
+                        int docIdRange = docs[index + numSegmentDocs - 1].docId - docId + 1;
+                        fieldReader = storedFieldsReader(subReaderContext, numSegmentDocs, docIdRange);
+                    }
+                    int subDocId = docId - subReaderContext.docBase;
+
+                    final SearchHit searchHit;
+                    int rootDocId = findRootDocumentIfNested(context, subReaderContext, subDocId);
+                    if (rootDocId != -1) {
+                        searchHit = createNestedSearchHit(context, docId, subDocId, rootDocId,
+                            storedToRequestedFields, subReaderContext, fieldReader);
+                    } else {
+                        searchHit = createSearchHit(context, fieldsVisitor, docId, subDocId,
+                            storedToRequestedFields, subReaderContext, fieldReader);
+                    }
 
-                hits[index] = searchHit;
-                hitContext.reset(searchHit, subReaderContext, subDocId, context.searcher());
-                for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
-                    fetchSubPhase.hitExecute(context, hitContext);
+                    hits[docs[index].index] = searchHit;
+                    hitContext.reset(searchHit, subReaderContext, subDocId, context.searcher());
+                    for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
+                        fetchSubPhase.hitExecute(context, hitContext);
+                    }
                 }
+            } finally {
+                // releases what the sub phases cached for the hits of this phase
+                hitContext.close();
             }
             if (context.isCancelled()) {
                 throw new TaskCancelledException("cancelled");
@@ -189,10 +234,49 @@ public class FetchPhase implements SearchPhase {
         }
     }
 
+    private static final class DocIdToIndex implements Comparable<DocIdToIndex> {
+        final int docId;
+        final int index;
+
+        DocIdToIndex(int docId, int index) {
+            this.docId = docId;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(DocIdToIndex o) {
+            return Integer.compare(docId, o.docId);
+        }
+    }
+
+    /**
+     * Returns the function that loads the stored fields of the documents of the given segment. When enough documents that are
+     * close to each other are loaded, they are read through a merge instance of the stored fields reader, which keeps the last
+     * decompressed block of documents around instead of decompressing it again for every document. This is only done if the
+     * segment reader is not wrapped by a reader that could filter the stored fields.
+     *
+     * @param numDocs    the number of documents of the segment to load
+     * @param docIdRange the number of doc ids between the first and the last document to load, both included
+     */
+    static CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldsReader(LeafReaderContext context, int numDocs,
+                                                                                     int docIdRange) {
+        if (numDocs >= SEQUENTIAL_STORED_FIELDS_MIN_DOCS && docIdRange <= (long) numDocs * SEQUENTIAL_STORED_FIELDS_MAX_SPARSITY) {
+            LeafReader reader = context.reader();
+            while (reader instanceof ElasticsearchLeafReader) {
+                reader = ((ElasticsearchLeafReader) reader).getDelegate();
+            }
+            if (reader instanceof CodecReader) {
+                StoredFieldsReader fieldsReader = ((CodecReader) reader).getFieldsReader().getMergeInstance();
+                return fieldsReader::visitDocument;
+            }
+        }
+        return context.reader()::document;
+    }
+
     private int findRootDocumentIfNested(SearchContext context, LeafReaderContext subReaderContext, int subDocId) throws IOException {
         if (context.mapperService().hasNested()) {
             BitSet bits = context.bitsetFilterCache()
-                .getBitSetProducer(Queries.newNonNestedFilter(context.indexShard().indexSettings().getIndexVersionCreated()))
+                .getParentBitSetProducer(Queries.newNonNestedFilter(context.indexShard().indexSettings().getIndexVersionCreated()))
                 .getBitSet(subReaderContext);
             if (!bits.get(subDocId)) {
                 return bits.nextSetBit(subDocId);
@@ -206,7 +290,8 @@ public class FetchPhase implements SearchPhase {
                                       int docId,
                                       int subDocId,
                                       Map<String, Set<String>> storedToRequestedFields,
-                                      LeafReaderContext subReaderContext) {
+                                      LeafReaderContext subReaderContext,
+                                      CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader) {
         DocumentMapper documentMapper = context.mapperService().documentMapper();
         Text typeText = documentMapper.typeText();
         if (fieldsVisitor == null) {
@@ -214,7 +299,7 @@ public class FetchPhase implements SearchPhase {
         }
 
         Map<String, DocumentField> searchFields = getSearchFields(context, fieldsVisitor, subDocId,
-            storedToRequestedFields, subReaderContext);
+            storedToRequestedFields, fieldReader);
 
         SearchHit searchHit = new SearchHit(docId, fieldsVisitor.uid().id(), typeText, searchFields);
         // Set _source if requested.
@@ -222,6 +307,12 @@ public class FetchPhase implements SearchPhase {
         sourceLookup.setSegmentAndDocument(subReaderContext, subDocId);
         if (fieldsVisitor.source() != null) {
             sourceLookup.setSource(fieldsVisitor.source());
+        } else if (context.sourceRequested() && documentMapper.syntheticSourceLoader() != null) {
+            try {
+                sourceLookup.setSource(documentMapper.syntheticSourceLoader().load(subReaderContext.reader(), subDocId));
+            } catch (IOException e) {
+                throw new FetchPhaseExecutionException(context, "Failed to reconstruct the source of doc id [" + docId + "]", e);
+            }
         }
         return searchHit;
     }
@@ -230,8 +321,8 @@ public class FetchPhase implements SearchPhase {
                                                        FieldsVisitor fieldsVisitor,
                                                        int subDocId,
                                                        Map<String, Set<String>> storedToRequestedFields,
-                                                       LeafReaderContext subReaderContext) {
-        loadStoredFields(context, subReaderContext, fieldsVisitor, subDocId);
+                                                       CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader) {
+        loadStoredFields(context, fieldReader, fieldsVisitor, subDocId);
         fieldsVisitor.postProcess(context.mapperService());
 
         if (fieldsVisitor.fields().isEmpty()) {
@@ -259,7 +350,8 @@ public class FetchPhase implements SearchPhase {
                                             int nestedSubDocId,
                                             int rootSubDocId,
                                             Map<String, Set<String>> storedToRequestedFields,
-                                            LeafReaderContext subReaderContext) throws IOException {
+                                            LeafReaderContext subReaderContext,
+                                            CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader) throws IOException {
         // Also if highlighting is requested on nested documents we need to fetch the _source from the root document,
         // otherwise highlighting will attempt to fetch the _source from the nested doc, which will fail,
         // because the entire _source is only stored with the root document.
@@ -268,7 +360,7 @@ public class FetchPhase implements SearchPhase {
         final boolean needSource = context.sourceRequested() || context.highlight() != null;
         if (needSource || (context instanceof InnerHitsContext.InnerHitSubContext == false)) {
             FieldsVisitor rootFieldsVisitor = new FieldsVisitor(needSource);
-            loadStoredFields(context, subReaderContext, rootFieldsVisitor, rootSubDocId);
+            loadStoredFields(context, fieldReader, rootFieldsVisitor, rootSubDocId);
             rootFieldsVisitor.postProcess(context.mapperService());
             uid = rootFieldsVisitor.uid();
             source = rootFieldsVisitor.source();
@@ -282,7 +374,7 @@ public class FetchPhase implements SearchPhase {
         if (context.hasStoredFields() && !context.storedFieldsContext().fieldNames().isEmpty()) {
             FieldsVisitor nestedFieldsVisitor = new CustomFieldsVisitor(storedToRequestedFields.keySet(), false);
             searchFields = getSearchFields(context, nestedFieldsVisitor, nestedSubDocId,
-                storedToRequestedFields, subReaderContext);
+                storedToRequestedFields, fieldReader);
         }
 
         DocumentMapper documentMapper = context.mapperService().documentMapper();
@@ -382,7 +474,7 @@ public class FetchPhase implements SearchPhase {
             }
             DocIdSetIterator childIter = childScorer.iterator();
 
-            BitSet parentBits = context.bitsetFilterCache().getBitSetProducer(parentFilter).getBitSet(subReaderContext);
+            BitSet parentBits = context.bitsetFilterCache().getParentBitSetProducer(parentFilter).getBitSet(subReaderContext);
 
             int offset = 0;
             if (indexSettings.getIndexVersionCreated().onOrAfter(Version.V_6_5_0)) {
@@ -421,10 +513,11 @@ public class FetchPhase implements SearchPhase {
         return nestedIdentity;
     }
 
-    private void loadStoredFields(SearchContext searchContext, LeafReaderContext readerContext, FieldsVisitor fieldVisitor, int docId) {
+    private void loadStoredFields(SearchContext searchContext, CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader,
+                                  FieldsVisitor fieldVisitor, int docId) {
         fieldVisitor.reset();
         try {
-            readerContext.reader().document(docId, fieldVisitor);
+            fieldReader.accept(docId, fieldVisitor);
         } catch (IOException e) {
             throw new FetchPhaseExecutionException(searchContext, "Failed to fetch doc id [" + docId + "]", e);
         }
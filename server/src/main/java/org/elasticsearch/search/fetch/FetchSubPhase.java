@@ -22,11 +22,15 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.IndexSearcher;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,7 +38,7 @@ import java.util.Map;
  */
 public interface FetchSubPhase {
 
-    class HitContext {
+    class HitContext implements Releasable {
         private SearchHit hit;
         private IndexSearcher searcher;
         private LeafReaderContext readerContext;
@@ -75,6 +79,23 @@ public interface FetchSubPhase {
             return cache;
         }
 
+        /**
+         * Releases the values of the {@link #cache()} that hold resources, once all hits were processed
+         */
+        @Override
+        public void close() {
+            if (cache != null) {
+                final List<Releasable> releasables = new ArrayList<>();
+                for (Object value : cache.values()) {
+                    if (value instanceof Releasable) {
+                        releasables.add((Releasable) value);
+                    }
+                }
+                cache = null;
+                Releasables.close(releasables);
+            }
+        }
+
     }
 
     /**
@@ -51,6 +51,13 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
                 throw new IllegalArgumentException("unable to fetch fields from _source field: _source is disabled in the mappings " +
                         "for index [" + context.indexShard().shardId().getIndexName() + "]");
             }
+            // copy the included fields straight from the stored source rather than parsing it to a map
+            try {
+                hitContext.hit().sourceRef(fetchSourceContext.getSourceFilter().filter(source.internalSourceRef()));
+            } catch (IOException e) {
+                throw new ElasticsearchException("Error filtering source", e);
+            }
+            return;
         }
 
         Object value = source.filter(fetchSourceContext);
@@ -59,8 +66,7 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
         }
 
         try {
-            final int initialCapacity = nestedHit ? 1024 : Math.min(1024, source.internalSourceRef().length());
-            BytesStreamOutput streamOutput = new BytesStreamOutput(initialCapacity);
+            BytesStreamOutput streamOutput = new BytesStreamOutput(1024);
             XContentBuilder builder = new XContentBuilder(source.sourceContentType().xContent(), streamOutput);
             if (value != null) {
                 builder.value(value);
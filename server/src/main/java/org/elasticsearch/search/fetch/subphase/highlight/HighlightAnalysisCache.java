@@ -0,0 +1,351 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch.subphase.highlight;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.search.fetch.FetchSubPhase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches the tokens that analyzers produce for the field values of highlighted documents, so that highlighting the same documents
+ * again, for instance when the same query is run again or when paging through results, replays the tokens instead of analyzing
+ * the texts again. Entries are keyed by segment, document, field and a 128 bits hash of the text, so that keys stay small for
+ * large texts, and the cache is bounded by the size of the tokens. The keys of each segment are tracked so that the entries of a
+ * segment can be dropped without scanning the whole cache once the segment is closed.
+ * <p>
+ * Only the terms, positions and offsets of the tokens are cached, which is all the highlighters need.
+ */
+public final class HighlightAnalysisCache {
+
+    public static final Setting<ByteSizeValue> ANALYSIS_CACHE_SIZE_SETTING =
+        Setting.memorySizeSetting("search.highlight.analysis_cache.size", "1%", Property.NodeScope);
+
+    private static final String HIT_CONTEXT_CACHE_KEY = "highlight-analysis-cache";
+
+    private final Cache<Key, Tokens> cache;
+    // the keys of the segments that the cache listens to, to drop their entries once they are closed
+    private final Map<IndexReader.CacheKey, Set<Key>> keysBySegment = ConcurrentCollections.newConcurrentMap();
+
+    public HighlightAnalysisCache(Settings settings) {
+        final long maxWeight = ANALYSIS_CACHE_SIZE_SETTING.get(settings).getBytes();
+        this.cache = maxWeight <= 0 ? null : CacheBuilder.<Key, Tokens>builder()
+            .setMaximumWeight(maxWeight)
+            .weigher((key, tokens) -> Key.RAM_BYTES_USED + tokens.ramBytesUsed())
+            .removalListener(notification -> {
+                final Set<Key> keys = keysBySegment.get(notification.getKey().segmentKey);
+                if (keys != null) {
+                    keys.remove(notification.getKey());
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Returns an analyzer that replays the cached tokens of the values of the current document of the given hit context, and
+     * analyzes and caches the values that are not cached yet with the given analyzer. The returned analyzer is shared by all hits
+     * of the fetch phase and only reads the current document of the hit context when it analyzes a value, so it must be used for
+     * the current hit only. It is closed when the fetch phase releases the hit context.
+     */
+    public Analyzer wrap(Analyzer analyzer, FetchSubPhase.HitContext hitContext) {
+        final IndexReader.CacheHelper cacheHelper = hitContext.reader().getCoreCacheHelper();
+        if (cache == null || cacheHelper == null) {
+            // the reader can't tell when its segment is the same
+            return analyzer;
+        }
+        final IndexReader.CacheKey segmentKey = cacheHelper.getKey();
+        if (keysBySegment.putIfAbsent(segmentKey, ConcurrentCollections.newConcurrentSet()) == null) {
+            cacheHelper.addClosedListener(this::onClose);
+        }
+        final CachingAnalyzers analyzers =
+            (CachingAnalyzers) hitContext.cache().computeIfAbsent(HIT_CONTEXT_CACHE_KEY, k -> new CachingAnalyzers());
+        // the wrapper reuses the token streams of each field, like the analyzer it wraps
+        final CachingAnalyzer cachingAnalyzer = analyzers.byAnalyzer.computeIfAbsent(analyzer, CachingAnalyzer::new);
+        cachingAnalyzer.segmentKey = segmentKey;
+        cachingAnalyzer.docId = hitContext.docId();
+        return cachingAnalyzer;
+    }
+
+    private void onClose(IndexReader.CacheKey segmentKey) {
+        final Set<Key> keys = keysBySegment.remove(segmentKey);
+        if (keys != null) {
+            for (Key key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    int segmentCount() {
+        return keysBySegment.size();
+    }
+
+    private Tokens load(Key key, String text, Analyzer analyzer) throws IOException {
+        try {
+            return cache.computeIfAbsent(key, k -> {
+                final Tokens tokens = Tokens.analyze(analyzer, k.field, text);
+                final Set<Key> keys = keysBySegment.get(k.segmentKey);
+                if (keys != null) {
+                    keys.add(k);
+                }
+                return tokens;
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("failed to analyze [" + key.field + "]", e.getCause());
+        }
+    }
+
+    /**
+     * The caching analyzers of the hits of a fetch phase, one per wrapped analyzer
+     */
+    private static final class CachingAnalyzers implements Releasable {
+        private final Map<Analyzer, CachingAnalyzer> byAnalyzer = new IdentityHashMap<>();
+
+        @Override
+        public void close() {
+            for (CachingAnalyzer analyzer : byAnalyzer.values()) {
+                analyzer.close();
+            }
+            byAnalyzer.clear();
+        }
+    }
+
+    private final class CachingAnalyzer extends Analyzer {
+        private final Analyzer delegate;
+        // the document whose values are analyzed, set for each hit
+        private IndexReader.CacheKey segmentKey;
+        private int docId;
+
+        CachingAnalyzer(Analyzer delegate) {
+            super(PER_FIELD_REUSE_STRATEGY);
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            return new TokenStreamComponents(new CachedTokenizer(this, fieldName));
+        }
+
+        @Override
+        public int getPositionIncrementGap(String fieldName) {
+            return delegate.getPositionIncrementGap(fieldName);
+        }
+
+        @Override
+        public int getOffsetGap(String fieldName) {
+            return delegate.getOffsetGap(fieldName);
+        }
+    }
+
+    /**
+     * Replays the tokens of the text it reads, analyzing and caching them first if they are not cached yet
+     */
+    private final class CachedTokenizer extends Tokenizer {
+        private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+        private final PositionIncrementAttribute posIncAtt = addAttribute(PositionIncrementAttribute.class);
+        private final PositionLengthAttribute posLenAtt = addAttribute(PositionLengthAttribute.class);
+        private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+
+        private final CachingAnalyzer analyzer;
+        private final String fieldName;
+        private Tokens tokens;
+        private int upto;
+
+        CachedTokenizer(CachingAnalyzer analyzer, String fieldName) {
+            this.analyzer = analyzer;
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            final StringBuilder text = new StringBuilder();
+            final char[] buffer = new char[1024];
+            for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+                text.append(buffer, 0, read);
+            }
+            final String value = text.toString();
+            tokens = load(new Key(analyzer.segmentKey, analyzer.docId, fieldName, value), value, analyzer.delegate);
+            upto = 0;
+        }
+
+        @Override
+        public boolean incrementToken() {
+            if (upto == tokens.size) {
+                return false;
+            }
+            clearAttributes();
+            termAtt.setEmpty().append(tokens.terms[upto]);
+            posIncAtt.setPositionIncrement(tokens.positionIncrements[upto]);
+            posLenAtt.setPositionLength(tokens.positionLengths[upto]);
+            offsetAtt.setOffset(tokens.startOffsets[upto], tokens.endOffsets[upto]);
+            upto++;
+            return true;
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            offsetAtt.setOffset(tokens.finalOffset, tokens.finalOffset);
+            posIncAtt.setPositionIncrement(tokens.finalPositionIncrement);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            tokens = null;
+        }
+    }
+
+    /**
+     * Identifies a value of a field of a document. Fields may have several values, which are told apart by their length and a
+     * hash of their content rather than by the content itself, so that the cache does not keep a copy of every highlighted text.
+     */
+    private static final class Key {
+        // the field name is shared with the mappings, so it is not accounted for
+        static final long RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        private final IndexReader.CacheKey segmentKey;
+        private final int docId;
+        private final String field;
+        private final int textLength;
+        private final long textHash1;
+        private final long textHash2;
+
+        Key(IndexReader.CacheKey segmentKey, int docId, String field, String text) {
+            this.segmentKey = segmentKey;
+            this.docId = docId;
+            this.field = field;
+            this.textLength = text.length();
+            final BytesRef bytes = new BytesRef(text);
+            final MurmurHash3.Hash128 hash = MurmurHash3.hash128(bytes.bytes, bytes.offset, bytes.length, 0, new MurmurHash3.Hash128());
+            this.textHash1 = hash.h1;
+            this.textHash2 = hash.h2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return docId == key.docId && segmentKey == key.segmentKey && field.equals(key.field) && textLength == key.textLength
+                && textHash1 == key.textHash1 && textHash2 == key.textHash2;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(segmentKey, docId, field, textLength, textHash1);
+        }
+    }
+
+    private static final class Tokens {
+        private String[] terms = new String[8];
+        private int[] positionIncrements = new int[8];
+        private int[] positionLengths = new int[8];
+        private int[] startOffsets = new int[8];
+        private int[] endOffsets = new int[8];
+        private int size;
+        private int finalOffset;
+        private int finalPositionIncrement;
+
+        static Tokens analyze(Analyzer analyzer, String field, String text) throws IOException {
+            final Tokens tokens = new Tokens();
+            try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
+                final CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+                final PositionIncrementAttribute posIncAtt = tokenStream.addAttribute(PositionIncrementAttribute.class);
+                final PositionLengthAttribute posLenAtt = tokenStream.addAttribute(PositionLengthAttribute.class);
+                final OffsetAttribute offsetAtt = tokenStream.addAttribute(OffsetAttribute.class);
+                tokenStream.reset();
+                while (tokenStream.incrementToken()) {
+                    tokens.add(termAtt.toString(), posIncAtt.getPositionIncrement(), posLenAtt.getPositionLength(),
+                        offsetAtt.startOffset(), offsetAtt.endOffset());
+                }
+                tokenStream.end();
+                tokens.finalOffset = offsetAtt.endOffset();
+                tokens.finalPositionIncrement = posIncAtt.getPositionIncrement();
+            }
+            return tokens;
+        }
+
+        private void add(String term, int positionIncrement, int positionLength, int startOffset, int endOffset) {
+            if (size == terms.length) {
+                final int newLength = ArrayUtil.oversize(size + 1, RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+                terms = Arrays.copyOf(terms, newLength);
+                positionIncrements = Arrays.copyOf(positionIncrements, newLength);
+                positionLengths = Arrays.copyOf(positionLengths, newLength);
+                startOffsets = Arrays.copyOf(startOffsets, newLength);
+                endOffsets = Arrays.copyOf(endOffsets, newLength);
+            }
+            terms[size] = term;
+            positionIncrements[size] = positionIncrement;
+            positionLengths[size] = positionLength;
+            startOffsets[size] = startOffset;
+            endOffsets[size] = endOffset;
+            size++;
+        }
+
+        long ramBytesUsed() {
+            long bytes = RamUsageEstimator.shallowSizeOf(terms) + 4L * Integer.BYTES * terms.length;
+            for (int i = 0; i < size; i++) {
+                bytes += sizeOf(terms[i]);
+            }
+            return bytes;
+        }
+    }
+
+    private static long sizeOf(String s) {
+        return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Character.BYTES * s.length();
+    }
+}
@@ -34,6 +34,7 @@ import org.apache.lucene.search.highlight.TextFragment;
 import org.apache.lucene.util.BytesRefHash;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -53,6 +54,17 @@ import static org.elasticsearch.search.fetch.subphase.highlight.UnifiedHighlight
 public class PlainHighlighter implements Highlighter {
     private static final String CACHE_KEY = "highlight-plain";
 
+    @Nullable
+    private final HighlightAnalysisCache analysisCache;
+
+    public PlainHighlighter() {
+        this(null);
+    }
+
+    public PlainHighlighter(@Nullable HighlightAnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
     @Override
     public HighlightField highlight(HighlighterContext highlighterContext) {
         SearchContextHighlight.Field field = highlighterContext.field;
@@ -102,6 +114,9 @@ public class PlainHighlighter implements Highlighter {
         ArrayList<TextFragment> fragsList = new ArrayList<>();
         List<Object> textsToHighlight;
         Analyzer analyzer = HighlightUtils.getAnalyzer(context.mapperService().documentMapper(hitContext.hit().getType()), fieldType);
+        if (analysisCache != null && context.indexShard().indexSettings().isHighlightCacheAnalysis()) {
+            analyzer = analysisCache.wrap(analyzer, hitContext);
+        }
         final int maxAnalyzedOffset = context.indexShard().indexSettings().getHighlightMaxAnalyzedOffset();
 
         try {
@@ -31,6 +31,7 @@ import org.apache.lucene.search.uhighlight.Snippet;
 import org.apache.lucene.search.uhighlight.UnifiedHighlighter.OffsetSource;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CollectionUtil;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.index.IndexSettings;
@@ -50,6 +51,22 @@ import java.util.stream.Collectors;
 import static org.apache.lucene.search.uhighlight.CustomUnifiedHighlighter.MULTIVAL_SEP_CHAR;
 
 public class UnifiedHighlighter implements Highlighter {
+
+    @Nullable
+    private final HighlightAnalysisCache analysisCache;
+
+    public UnifiedHighlighter() {
+        this(null);
+    }
+
+    /**
+     * @param analysisCache caches the tokens of the texts that are analyzed to highlight documents of indices with
+     *                      {@link IndexSettings#HIGHLIGHT_CACHE_ANALYSIS_SETTING} enabled
+     */
+    public UnifiedHighlighter(@Nullable HighlightAnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
     @Override
     public boolean canHighlight(MappedFieldType fieldType) {
         return true;
@@ -68,7 +85,12 @@ public class UnifiedHighlighter implements Highlighter {
         int numberOfFragments;
         try {
 
-            final Analyzer analyzer = getAnalyzer(context.mapperService().documentMapper(hitContext.hit().getType()), fieldType);
+            final OffsetSource offsetSource = getOffsetSource(fieldType);
+            Analyzer analyzer = getAnalyzer(context.mapperService().documentMapper(hitContext.hit().getType()), fieldType);
+            if (offsetSource == OffsetSource.ANALYSIS && analysisCache != null
+                    && context.indexShard().indexSettings().isHighlightCacheAnalysis()) {
+                analyzer = analysisCache.wrap(analyzer, hitContext);
+            }
             List<Object> fieldValues = loadFieldValues(fieldType, field, context, hitContext);
             if (fieldValues.size() == 0) {
                 return null;
@@ -77,7 +99,6 @@ public class UnifiedHighlighter implements Highlighter {
             final IndexSearcher searcher = new IndexSearcher(hitContext.reader());
             final CustomUnifiedHighlighter highlighter;
             final String fieldValue = mergeFieldValues(fieldValues, MULTIVAL_SEP_CHAR);
-            final OffsetSource offsetSource = getOffsetSource(fieldType);
             if ((offsetSource == OffsetSource.ANALYSIS) && (fieldValue.length() > maxAnalyzedOffset)) {
                 throw new IllegalArgumentException(
                     "The length of [" + highlighterContext.fieldName + "] field of [" + hitContext.hit().getId() +
@@ -22,6 +22,7 @@ package org.elasticsearch.search.lookup;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
 
@@ -38,7 +39,8 @@ public class SearchLookup {
     public SearchLookup(MapperService mapperService, Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup,
                         @Nullable String[] types) {
         docMap = new DocLookup(mapperService, fieldDataLookup, types);
-        sourceLookup = new SourceLookup();
+        DocumentMapper documentMapper = mapperService == null ? null : mapperService.documentMapper();
+        sourceLookup = new SourceLookup(documentMapper == null ? null : documentMapper.syntheticSourceLoader());
         fieldsLookup = new FieldsLookup(mapperService, types);
     }
 
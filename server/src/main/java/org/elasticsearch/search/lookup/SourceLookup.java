@@ -22,11 +22,13 @@ import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 import java.util.Collection;
@@ -38,6 +40,9 @@ import static java.util.Collections.emptyMap;
 
 public class SourceLookup implements Map {
 
+    @Nullable
+    private final SyntheticSourceLoader syntheticSourceLoader;
+
     private LeafReader reader;
 
     private int docId = -1;
@@ -46,6 +51,18 @@ public class SourceLookup implements Map {
     private Map<String, Object> source;
     private XContentType sourceContentType;
 
+    public SourceLookup() {
+        this(null);
+    }
+
+    /**
+     * @param syntheticSourceLoader reconstructs the source of documents whose source isn't stored, if the mapping has a synthetic
+     *                              source
+     */
+    public SourceLookup(@Nullable SyntheticSourceLoader syntheticSourceLoader) {
+        this.syntheticSourceLoader = syntheticSourceLoader;
+    }
+
     public Map<String, Object> source() {
         return source;
     }
@@ -68,6 +85,9 @@ public class SourceLookup implements Map {
             FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
             reader.document(docId, sourceFieldVisitor);
             BytesReference source = sourceFieldVisitor.source();
+            if (source == null && syntheticSourceLoader != null) {
+                source = syntheticSourceLoader.load(reader, docId);
+            }
             if (source == null) {
                 this.source = emptyMap();
                 this.sourceContentType = null;
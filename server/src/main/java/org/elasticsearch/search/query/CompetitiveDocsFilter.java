@@ -0,0 +1,411 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ConjunctionDISI;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafFieldComparator;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.DocIdSetBuilder;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.cache.query.ElasticsearchQueryCachingPolicy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Skips the documents that can't compete for the top hits of a search that is sorted on a long or date field, without having to
+ * collect them. Once the queue of top hits is full, its bottom value bounds the values of the documents that can still enter the
+ * queue, so the documents whose values are out of that range are skipped by intersecting the query with the documents that the
+ * indexed points of the field find in the range. The range, and so the filter, shrinks as better hits replace the bottom of the
+ * queue.
+ * <p>
+ * The documents are skipped, so the collector can't count them. This filter is only used when the total number of hits is not
+ * tracked and when no other collector needs to see all the matching documents.
+ */
+final class CompetitiveDocsFilter {
+
+    // the number of iterations of a segment between two checks whether the filter should be rebuilt with the current bottom
+    static final int CHECK_INTERVAL = 256;
+    // the filter is only rebuilt if the estimated number of competitive documents is this many times smaller than before
+    static final int MIN_REDUCTION = 8;
+
+    private final String field;
+    private final boolean reverse;
+    private final long missingValue;
+    private final Sort sort;
+
+    private boolean hasBottom = false;
+    private long bottom;
+
+    private CompetitiveDocsFilter(SortedNumericSortField sortField, Sort sort) {
+        this.field = sortField.getField();
+        this.reverse = sortField.getReverse();
+        this.missingValue = sortField.getMissingValue() == null ? 0L : ((Number) sortField.getMissingValue()).longValue();
+        final SortField[] sortFields = sort.getSort().clone();
+        sortFields[0] = new TrackingSortField(sortField);
+        this.sort = new Sort(sortFields);
+    }
+
+    /**
+     * Returns a filter for searches with the given sort, or {@code null} if its primary sort is not on a single long value or if
+     * the index is sorted, in which case the collector already terminates the collection of the segments whose sort matches
+     */
+    @Nullable
+    static CompetitiveDocsFilter create(IndexReader reader, Sort sort) {
+        for (LeafReaderContext context : reader.leaves()) {
+            if (context.reader().getMetaData().getSort() != null) {
+                return null;
+            }
+        }
+        final SortField primarySort = sort.getSort()[0];
+        if (primarySort.getClass() != SortedNumericSortField.class
+                || ((SortedNumericSortField) primarySort).getNumericType() != SortField.Type.LONG) {
+            return null;
+        }
+        return new CompetitiveDocsFilter((SortedNumericSortField) primarySort, sort);
+    }
+
+    /**
+     * The sort that the top hits must be collected with, so that the filter knows the bottom of the queue
+     */
+    Sort sort() {
+        return sort;
+    }
+
+    /**
+     * Returns the given query, restricted to the documents that can compete
+     */
+    Query wrap(Query query) {
+        return new CompetitiveDocsQuery(query);
+    }
+
+    private void setBottom(long bottom) {
+        this.hasBottom = true;
+        this.bottom = bottom;
+    }
+
+    private boolean isCompetitive(long value) {
+        // documents with the same value as the bottom may still compete on the secondary sorts
+        return reverse ? value >= bottom : value <= bottom;
+    }
+
+    /**
+     * A sort field that tells this filter about the bottom of the queue of top hits
+     */
+    private final class TrackingSortField extends SortedNumericSortField {
+
+        TrackingSortField(SortedNumericSortField sortField) {
+            super(sortField.getField(), sortField.getNumericType(), sortField.getReverse(), sortField.getSelector());
+            if (sortField.getMissingValue() != null) {
+                setMissingValue(sortField.getMissingValue());
+            }
+        }
+
+        @Override
+        public FieldComparator<?> getComparator(int numHits, int sortPos) {
+            return new TrackingComparator<>(super.getComparator(numHits, sortPos));
+        }
+    }
+
+    private final class TrackingComparator<T> extends FieldComparator<T> {
+        private final FieldComparator<T> in;
+
+        TrackingComparator(FieldComparator<T> in) {
+            this.in = in;
+        }
+
+        @Override
+        public int compare(int slot1, int slot2) {
+            return in.compare(slot1, slot2);
+        }
+
+        @Override
+        public void setTopValue(T value) {
+            in.setTopValue(value);
+        }
+
+        @Override
+        public T value(int slot) {
+            return in.value(slot);
+        }
+
+        @Override
+        public int compareValues(T first, T second) {
+            return in.compareValues(first, second);
+        }
+
+        @Override
+        public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
+            final LeafFieldComparator leafComparator = in.getLeafComparator(context);
+            return new LeafFieldComparator() {
+                @Override
+                public void setBottom(int slot) throws IOException {
+                    leafComparator.setBottom(slot);
+                    CompetitiveDocsFilter.this.setBottom(((Number) in.value(slot)).longValue());
+                }
+
+                @Override
+                public int compareBottom(int doc) throws IOException {
+                    return leafComparator.compareBottom(doc);
+                }
+
+                @Override
+                public int compareTop(int doc) throws IOException {
+                    return leafComparator.compareTop(doc);
+                }
+
+                @Override
+                public void copy(int slot, int doc) throws IOException {
+                    leafComparator.copy(slot, doc);
+                }
+
+                @Override
+                public void setScorer(Scorable scorer) throws IOException {
+                    leafComparator.setScorer(scorer);
+                }
+            };
+        }
+    }
+
+    /**
+     * Matches the documents of the wrapped query that can still compete, all of them until the queue of top hits is full. The
+     * wrapped query goes through the query cache as if it was not wrapped, but this query is built for a single search, so it
+     * is kept out of the usage history of the caching policy.
+     */
+    private final class CompetitiveDocsQuery extends Query implements ElasticsearchQueryCachingPolicy.SingleUseQuery {
+        private final Query in;
+
+        CompetitiveDocsQuery(Query in) {
+            this.in = in;
+        }
+
+        @Override
+        public Query rewrite(IndexReader reader) throws IOException {
+            final Query rewritten = in.rewrite(reader);
+            return rewritten == in ? this : new CompetitiveDocsQuery(rewritten);
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            final Weight inWeight = searcher.createWeight(in, scoreMode, boost);
+            return new Weight(this) {
+                @Override
+                public void extractTerms(Set<Term> terms) {
+                    inWeight.extractTerms(terms);
+                }
+
+                @Override
+                public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+                    return inWeight.explain(context, doc);
+                }
+
+                @Override
+                public Scorer scorer(LeafReaderContext context) throws IOException {
+                    final Scorer inScorer = inWeight.scorer(context);
+                    if (inScorer == null) {
+                        return null;
+                    }
+                    final Scorer competitiveScorer =
+                        new ConstantScoreScorer(this, 0f, ScoreMode.COMPLETE_NO_SCORES, new CompetitiveDocsIterator(context));
+                    final DocIdSetIterator iterator = ConjunctionDISI.intersectScorers(Arrays.asList(inScorer, competitiveScorer));
+                    return new Scorer(this) {
+                        @Override
+                        public int docID() {
+                            return iterator.docID();
+                        }
+
+                        @Override
+                        public DocIdSetIterator iterator() {
+                            return iterator;
+                        }
+
+                        @Override
+                        public float getMaxScore(int upTo) throws IOException {
+                            return inScorer.getMaxScore(upTo);
+                        }
+
+                        @Override
+                        public float score() throws IOException {
+                            return inScorer.score();
+                        }
+                    };
+                }
+
+                @Override
+                public boolean isCacheable(LeafReaderContext ctx) {
+                    // the matching documents change while the query runs
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public String toString(String field) {
+            return "CompetitiveDocs(" + in.toString(field) + ", " + CompetitiveDocsFilter.this.field + ")";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj) && in.equals(((CompetitiveDocsQuery) obj).in) && filter() == ((CompetitiveDocsQuery) obj).filter();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classHash() + in.hashCode();
+        }
+
+        private CompetitiveDocsFilter filter() {
+            return CompetitiveDocsFilter.this;
+        }
+    }
+
+    private final class CompetitiveDocsIterator extends DocIdSetIterator {
+        private final int maxDoc;
+        @Nullable
+        private final PointValues pointValues;
+        private DocIdSetIterator in;
+        private long competitiveCount;
+        private int checkCountdown = 0;
+        private int doc = -1;
+
+        CompetitiveDocsIterator(LeafReaderContext context) throws IOException {
+            this.maxDoc = context.reader().maxDoc();
+            final PointValues pointValues = context.reader().getPointValues(field);
+            this.pointValues = pointValues != null && pointValues.getBytesPerDimension() == Long.BYTES ? pointValues : null;
+            this.in = DocIdSetIterator.all(maxDoc);
+            this.competitiveCount = maxDoc;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            if (target >= maxDoc) {
+                return doc = NO_MORE_DOCS;
+            }
+            if (--checkCountdown <= 0) {
+                checkCountdown = CHECK_INTERVAL;
+                maybeUpdate(target);
+            }
+            final int current = in.docID();
+            return doc = current >= target ? current : in.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return maxDoc;
+        }
+
+        private void maybeUpdate(int target) throws IOException {
+            // documents without a value are not in the points, so they can only be skipped if the missing value can't compete
+            if (hasBottom == false || pointValues == null || isCompetitive(missingValue)) {
+                return;
+            }
+            final RangeVisitor visitor = new RangeVisitor(target);
+            final long estimatedCount = pointValues.estimatePointCount(visitor);
+            if (estimatedCount > competitiveCount / MIN_REDUCTION) {
+                return;
+            }
+            final DocIdSetBuilder builder = new DocIdSetBuilder(maxDoc, pointValues, field);
+            visitor.builder = builder;
+            pointValues.intersect(visitor);
+            final DocIdSet docIdSet = builder.build();
+            final DocIdSetIterator iterator = docIdSet.iterator();
+            in = iterator == null ? DocIdSetIterator.empty() : iterator;
+            competitiveCount = estimatedCount;
+        }
+    }
+
+    /**
+     * Finds the documents from a target that have a value that can compete with the current bottom
+     */
+    private final class RangeVisitor implements PointValues.IntersectVisitor {
+        private final int target;
+        private final long bottom = CompetitiveDocsFilter.this.bottom;
+        DocIdSetBuilder builder;
+        DocIdSetBuilder.BulkAdder adder;
+
+        RangeVisitor(int target) {
+            this.target = target;
+        }
+
+        private boolean isCompetitive(long value) {
+            return reverse ? value >= bottom : value <= bottom;
+        }
+
+        @Override
+        public void grow(int count) {
+            adder = builder.grow(count);
+        }
+
+        @Override
+        public void visit(int docID) {
+            if (docID >= target) {
+                adder.add(docID);
+            }
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+            if (docID >= target && isCompetitive(LongPoint.decodeDimension(packedValue, 0))) {
+                adder.add(docID);
+            }
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+            final long min = LongPoint.decodeDimension(minPackedValue, 0);
+            final long max = LongPoint.decodeDimension(maxPackedValue, 0);
+            if (isCompetitive(min) && isCompetitive(max)) {
+                return PointValues.Relation.CELL_INSIDE_QUERY;
+            } else if (isCompetitive(min) || isCompetitive(max)) {
+                return PointValues.Relation.CELL_CROSSES_QUERY;
+            }
+            return PointValues.Relation.CELL_OUTSIDE_QUERY;
+        }
+    }
+}
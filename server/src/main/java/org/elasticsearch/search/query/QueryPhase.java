@@ -260,9 +260,12 @@ public class QueryPhase implements SearchPhase {
 
             final boolean doProfile = searchContext.getProfilers() != null;
             // create the top docs collector last when the other collectors are known
-            final TopDocsCollectorContext topDocsFactory = createTopDocsCollectorContext(searchContext, reader, hasFilterCollector);
+            final TopDocsCollectorContext topDocsFactory = createTopDocsCollectorContext(searchContext, reader, hasFilterCollector,
+                searchContext.queryCollectors().isEmpty() == false || doProfile);
             // add the top docs collector, the first collector context in the chain
             collectors.addFirst(topDocsFactory);
+            // the top docs collector may restrict the query to the documents that can compete
+            query = topDocsFactory.wrapQuery(query);
 
             final Collector queryCollector;
             if (doProfile) {
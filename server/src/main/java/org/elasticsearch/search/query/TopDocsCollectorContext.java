@@ -35,6 +35,7 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopDocsCollector;
 import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
@@ -84,6 +85,13 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         return false;
     }
 
+    /**
+     * Returns the query that should be executed to collect the top docs, the provided <code>query</code> by default
+     */
+    Query wrapQuery(Query query) {
+        return query;
+    }
+
     static class EmptyTopDocsCollectorContext extends TopDocsCollectorContext {
         private final Collector collector;
         private final Supplier<TotalHits> hitCountSupplier;
@@ -175,16 +183,17 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
 
     abstract static class SimpleTopDocsCollectorContext extends TopDocsCollectorContext {
 
-        private static TopDocsCollector<?> createCollector(@Nullable SortAndFormats sortAndFormats, int numHits,
+        private static TopDocsCollector<?> createCollector(@Nullable Sort sort, int numHits,
                 @Nullable ScoreDoc searchAfter, int hitCountThreshold) {
-            if (sortAndFormats == null) {
+            if (sort == null) {
                 return TopScoreDocCollector.create(numHits, searchAfter, hitCountThreshold);
             } else {
-                return TopFieldCollector.create(sortAndFormats.sort, numHits, (FieldDoc) searchAfter, hitCountThreshold);
+                return TopFieldCollector.create(sort, numHits, (FieldDoc) searchAfter, hitCountThreshold);
             }
         }
 
         private final @Nullable SortAndFormats sortAndFormats;
+        private final @Nullable CompetitiveDocsFilter competitiveDocsFilter;
         private final Collector collector;
         private final Supplier<TotalHits> totalHitsSupplier;
         private final Supplier<TopDocs> topDocsSupplier;
@@ -200,6 +209,7 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
          * @param trackMaxScore True if max score should be tracked
          * @param trackTotalHits True if the total number of hits should be tracked
          * @param hasFilterCollector True if the collector chain contains at least one collector that can filters document
+         * @param hasOtherCollector True if the collector chain contains at least one collector that needs all the matching documents
          */
         private SimpleTopDocsCollectorContext(IndexReader reader,
                                               Query query,
@@ -208,20 +218,35 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                                               int numHits,
                                               boolean trackMaxScore,
                                               boolean trackTotalHits,
-                                              boolean hasFilterCollector) throws IOException {
+                                              boolean hasFilterCollector,
+                                              boolean hasOtherCollector) throws IOException {
             super(REASON_SEARCH_TOP_HITS, numHits);
             this.sortAndFormats = sortAndFormats;
+            final Sort sort = sortAndFormats == null ? null : sortAndFormats.sort;
 
             // implicit total hit counts are valid only when there is no filter collector in the chain
             final int hitCount = hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
             final TopDocsCollector<?> topDocsCollector;
             if (hitCount == -1 && trackTotalHits) {
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, Integer.MAX_VALUE);
+                competitiveDocsFilter = null;
+                topDocsCollector = createCollector(sort, numHits, searchAfter, Integer.MAX_VALUE);
                 topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
                 totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
             } else {
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1); // don't compute hit counts via the collector
-                topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                // the documents that can't compete with the top hits can be skipped if no collector needs them
+                competitiveDocsFilter = sort == null || trackMaxScore || hasFilterCollector || hasOtherCollector ?
+                    null : CompetitiveDocsFilter.create(reader, sort);
+                final Sort collectorSort = competitiveDocsFilter == null ? sort : competitiveDocsFilter.sort();
+                // don't compute hit counts via the collector
+                topDocsCollector = createCollector(collectorSort, numHits, searchAfter, 1);
+                topDocsSupplier = new CachedSupplier<>(() -> {
+                    final TopDocs topDocs = topDocsCollector.topDocs();
+                    if (collectorSort != sort) {
+                        // report the sort fields of the request rather than the ones that track the bottom of the queue
+                        return new TopFieldDocs(topDocs.totalHits, topDocs.scoreDocs, sort.getSort());
+                    }
+                    return topDocs;
+                });
                 if (hitCount == -1) {
                     assert trackTotalHits == false;
                     totalHitsSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
@@ -254,6 +279,11 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
+        @Override
+        Query wrapQuery(Query query) {
+            return competitiveDocsFilter == null ? query : competitiveDocsFilter.wrap(query);
+        }
+
         @Override
         void postProcess(QuerySearchResult result) throws IOException {
             final TopDocs topDocs = topDocsSupplier.get();
@@ -275,8 +305,9 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                                                  int numberOfShards,
                                                  boolean trackTotalHits,
                                                  boolean hasFilterCollector) throws IOException {
+            // the documents that can't compete are not skipped since the scroll context needs the number of hits of the first round
             super(reader, query, sortAndFormats, scrollContext.lastEmittedDoc, numHits, trackMaxScore,
-                trackTotalHits, hasFilterCollector);
+                trackTotalHits, hasFilterCollector, true);
             this.scrollContext = Objects.requireNonNull(scrollContext);
             this.numberOfShards = numberOfShards;
         }
@@ -342,10 +373,12 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
     /**
      * Creates a {@link TopDocsCollectorContext} from the provided <code>searchContext</code>.
      * @param hasFilterCollector True if the collector chain contains at least one collector that can filters document.
+     * @param hasOtherCollector True if the collector chain contains at least one collector that needs all the matching documents.
      */
     static TopDocsCollectorContext createTopDocsCollectorContext(SearchContext searchContext,
                                                                  IndexReader reader,
-                                                                 boolean hasFilterCollector) throws IOException {
+                                                                 boolean hasFilterCollector,
+                                                                 boolean hasOtherCollector) throws IOException {
         final Query query = searchContext.query();
         // top collectors don't like a size of 0
         final int totalNumDocs = Math.max(1, reader.numDocs());
@@ -372,7 +405,8 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                 }
             }
             return new SimpleTopDocsCollectorContext(reader, query, searchContext.sort(), searchContext.searchAfter(), numDocs,
-                                                     searchContext.trackScores(), searchContext.trackTotalHits(), hasFilterCollector) {
+                                                     searchContext.trackScores(), searchContext.trackTotalHits(), hasFilterCollector,
+                                                     hasOtherCollector) {
                 @Override
                 boolean shouldRescore() {
                     return rescore;
@@ -64,13 +64,16 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -194,6 +197,15 @@ public class RestoreService implements ClusterStateApplier {
 
             // Make sure that we can restore from this snapshot
             validateSnapshotRestorable(request.repositoryName, snapshotInfo);
+            if (request.mount()) {
+                if (repository instanceof BlobStoreRepository == false) {
+                    throw new SnapshotRestoreException(snapshot, "repository of type [" + repository.getMetadata().type() +
+                        "] does not support mounting snapshots");
+                }
+                if (request.partial()) {
+                    throw new SnapshotRestoreException(snapshot, "cannot mount a snapshot partially");
+                }
+            }
 
             // Resolve the indices from the snapshot that need to be restored
             final List<String> indicesInSnapshot = filterIndices(snapshotInfo.indices(), request.indices(), request.indicesOptions());
@@ -257,6 +269,12 @@ public class RestoreService implements ClusterStateApplier {
                             String renamedIndexName = indexEntry.getKey();
                             IndexMetaData snapshotIndexMetaData = metaData.index(index);
                             snapshotIndexMetaData = updateIndexSettings(snapshotIndexMetaData, request.indexSettings, request.ignoreIndexSettings);
+                            if (request.mount()) {
+                                snapshotIndexMetaData = mountedIndexMetaData(snapshotIndexMetaData, repositoryData.resolveIndexId(index));
+                            } else if (SearchableSnapshotIndexStore.isSearchableSnapshot(snapshotIndexMetaData.getSettings())) {
+                                // the snapshot contains an index that was mounted itself, its files are restored like any other
+                                snapshotIndexMetaData = unmountedIndexMetaData(snapshotIndexMetaData);
+                            }
                             try {
                                 snapshotIndexMetaData = metaDataIndexUpgradeService.upgradeIndexMetaData(snapshotIndexMetaData,
                                     minIndexCompatibilityVersion);
@@ -291,6 +309,10 @@ public class RestoreService implements ClusterStateApplier {
                                 mdBuilder.put(updatedIndexMetaData, true);
                                 renamedIndex = updatedIndexMetaData.getIndex();
                             } else {
+                                if (request.mount()) {
+                                    throw new SnapshotRestoreException(snapshot, "cannot mount index [" + renamedIndexName +
+                                        "] because an index with the same name already exists in the cluster");
+                                }
                                 validateExistingIndex(currentIndexMetaData, snapshotIndexMetaData, renamedIndexName, partial);
                                 // Index exists and it's closed - open it in metadata and start recovery
                                 IndexMetaData.Builder indexMdBuilder = IndexMetaData.builder(snapshotIndexMetaData).state(IndexMetaData.State.OPEN);
@@ -403,6 +425,42 @@ public class RestoreService implements ClusterStateApplier {
                     }
                 }
 
+                /**
+                 * Turns the metadata of an index in the snapshot into the metadata of an index whose shards read their files from the
+                 * snapshot. Mounted indices are read-only, so they get a write block.
+                 */
+                private IndexMetaData mountedIndexMetaData(IndexMetaData indexMetaData, IndexId indexId) {
+                    if (indexMetaData.getCreationVersion().before(Version.V_6_0_0)) {
+                        throw new SnapshotRestoreException(snapshot, "cannot mount index [" + indexMetaData.getIndex().getName() +
+                            "] because it was created before version [" + Version.V_6_0_0 + "] and lacks sequence numbers");
+                    }
+                    final Settings settings = Settings.builder()
+                        .put(indexMetaData.getSettings())
+                        .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), SearchableSnapshotIndexStore.TYPE)
+                        .put(SearchableSnapshotIndexStore.SNAPSHOT_REPOSITORY_SETTING.getKey(), snapshot.getRepository())
+                        .put(SearchableSnapshotIndexStore.SNAPSHOT_NAME_SETTING.getKey(), snapshot.getSnapshotId().getName())
+                        .put(SearchableSnapshotIndexStore.SNAPSHOT_UUID_SETTING.getKey(), snapshot.getSnapshotId().getUUID())
+                        .put(SearchableSnapshotIndexStore.SNAPSHOT_INDEX_NAME_SETTING.getKey(), indexId.getName())
+                        .put(SearchableSnapshotIndexStore.SNAPSHOT_INDEX_ID_SETTING.getKey(), indexId.getId())
+                        .put(IndexMetaData.SETTING_BLOCKS_WRITE, true)
+                        .build();
+                    return IndexMetaData.builder(indexMetaData).settings(settings).build();
+                }
+
+                /**
+                 * Removes the settings that point the shards of a mounted index to the snapshot it was mounted from
+                 */
+                private IndexMetaData unmountedIndexMetaData(IndexMetaData indexMetaData) {
+                    final Settings.Builder settings = Settings.builder().put(indexMetaData.getSettings());
+                    settings.remove(IndexModule.INDEX_STORE_TYPE_SETTING.getKey());
+                    settings.remove(SearchableSnapshotIndexStore.SNAPSHOT_REPOSITORY_SETTING.getKey());
+                    settings.remove(SearchableSnapshotIndexStore.SNAPSHOT_NAME_SETTING.getKey());
+                    settings.remove(SearchableSnapshotIndexStore.SNAPSHOT_UUID_SETTING.getKey());
+                    settings.remove(SearchableSnapshotIndexStore.SNAPSHOT_INDEX_NAME_SETTING.getKey());
+                    settings.remove(SearchableSnapshotIndexStore.SNAPSHOT_INDEX_ID_SETTING.getKey());
+                    return IndexMetaData.builder(indexMetaData).settings(settings).build();
+                }
+
                 private void validateExistingIndex(IndexMetaData currentIndexMetaData, IndexMetaData snapshotIndexMetaData, String renamedIndex, boolean partial) {
                     // Index exist - checking that it's closed
                     if (currentIndexMetaData.getState() != IndexMetaData.State.CLOSE) {
@@ -897,6 +955,8 @@ public class RestoreService implements ClusterStateApplier {
 
         private final String[] ignoreIndexSettings;
 
+        private final boolean mount;
+
         /**
          * Constructs new restore request
          *
@@ -918,6 +978,32 @@ public class RestoreService implements ClusterStateApplier {
                               String renamePattern, String renameReplacement, Settings settings,
                               TimeValue masterNodeTimeout, boolean includeGlobalState, boolean partial, boolean includeAliases,
                               Settings indexSettings, String[] ignoreIndexSettings, String cause) {
+            this(repositoryName, snapshotName, indices, indicesOptions, renamePattern, renameReplacement, settings, masterNodeTimeout,
+                includeGlobalState, partial, includeAliases, indexSettings, ignoreIndexSettings, false, cause);
+        }
+
+        /**
+         * Constructs new restore request
+         *
+         * @param repositoryName     repositoryName
+         * @param snapshotName       snapshotName
+         * @param indices            list of indices to restore
+         * @param indicesOptions     indices options
+         * @param renamePattern      pattern to rename indices
+         * @param renameReplacement  replacement for renamed indices
+         * @param settings           repository specific restore settings
+         * @param masterNodeTimeout  master node timeout
+         * @param includeGlobalState include global state into restore
+         * @param partial            allow partial restore
+         * @param indexSettings      index settings that should be changed on restore
+         * @param ignoreIndexSettings index settings that shouldn't be restored
+         * @param mount              mount the indices from the snapshot instead of restoring them
+         * @param cause              cause for restoring the snapshot
+         */
+        public RestoreRequest(String repositoryName, String snapshotName, String[] indices, IndicesOptions indicesOptions,
+                              String renamePattern, String renameReplacement, Settings settings,
+                              TimeValue masterNodeTimeout, boolean includeGlobalState, boolean partial, boolean includeAliases,
+                              Settings indexSettings, String[] ignoreIndexSettings, boolean mount, String cause) {
             this.repositoryName = Objects.requireNonNull(repositoryName);
             this.snapshotName = Objects.requireNonNull(snapshotName);
             this.indices = indices;
@@ -931,6 +1017,7 @@ public class RestoreService implements ClusterStateApplier {
             this.includeAliases = includeAliases;
             this.indexSettings = indexSettings;
             this.ignoreIndexSettings = ignoreIndexSettings;
+            this.mount = mount;
             this.cause = cause;
         }
 
@@ -1051,6 +1138,15 @@ public class RestoreService implements ClusterStateApplier {
             return ignoreIndexSettings;
         }
 
+        /**
+         * Returns true if the indices are mounted from the snapshot instead of restored
+         *
+         * @return mount flag
+         */
+        public boolean mount() {
+            return mount;
+        }
+
 
         /**
          * Return master node timeout
@@ -1314,7 +1314,7 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(() -> {
             try {
                 Repository repository = repositoriesService.repository(snapshot.getRepository());
-                repository.deleteSnapshot(snapshot.getSnapshotId(), repositoryStateId);
+                repository.deleteSnapshot(snapshot.getSnapshotId(), repositoryStateId, threadPool.executor(ThreadPool.Names.SNAPSHOT));
                 logger.info("snapshot [{}] deleted", snapshot);
 
                 removeSnapshotDeletionFromClusterState(snapshot, null, listener);
@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
 
 /**
  * A connection profile describes how many connection are established to specific node for each of the available request types.
@@ -348,6 +349,30 @@ public final class ConnectionProfile {
             return channels.get(offset + Math.floorMod(counter.incrementAndGet(), length));
         }
 
+        /**
+         * Returns one of the channels out configured for this handle. The channel with the lowest load is selected,
+         * ties are broken in a round-robin fashion. This prevents small messages from queueing up behind large ones
+         * if another channel of the same type is idle.
+         */
+        <T> T getChannel(List<T> channels, ToLongFunction<T> load) {
+            if (length == 0) {
+                throw new IllegalStateException("can't select channel size is 0 for types: " + types);
+            }
+            assert channels.size() >= offset + length : "illegal size: " + channels.size() + " expected >= " + (offset + length);
+            final int start = Math.floorMod(counter.incrementAndGet(), length);
+            T selected = channels.get(offset + start);
+            long minLoad = load.applyAsLong(selected);
+            for (int i = 1; i < length && minLoad > 0; i++) {
+                final T channel = channels.get(offset + Math.floorMod(start + i, length));
+                final long channelLoad = load.applyAsLong(channel);
+                if (channelLoad < minLoad) {
+                    selected = channel;
+                    minLoad = channelLoad;
+                }
+            }
+            return selected;
+        }
+
         /**
          * Returns all types for this handle
          */
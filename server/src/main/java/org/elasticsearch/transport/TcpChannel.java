@@ -25,6 +25,7 @@ import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.unit.TimeValue;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -85,6 +86,7 @@ public interface TcpChannel extends CloseableChannel {
     class ChannelStats {
 
         private volatile long lastAccessedTime;
+        private final AtomicLong pendingOutboundBytes = new AtomicLong();
 
         public ChannelStats() {
             lastAccessedTime = TimeValue.nsecToMSec(System.nanoTime());
@@ -97,5 +99,20 @@ public interface TcpChannel extends CloseableChannel {
         long lastAccessedTime() {
             return lastAccessedTime;
         }
+
+        void markOutboundPending(long bytes) {
+            pendingOutboundBytes.addAndGet(bytes);
+        }
+
+        void markOutboundSent(long bytes) {
+            pendingOutboundBytes.addAndGet(-bytes);
+        }
+
+        /**
+         * Returns the number of bytes that have been handed to the channel for sending but were not yet flushed to the network.
+         */
+        long pendingOutboundBytes() {
+            return pendingOutboundBytes.get();
+        }
     }
 }
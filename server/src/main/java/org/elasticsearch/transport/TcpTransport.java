@@ -29,6 +29,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.NotifyOnceListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -199,6 +200,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
 
     private final MeanMetric readBytesMetric = new MeanMetric();
     private final MeanMetric transmittedBytesMetric = new MeanMetric();
+    private final Map<TransportRequestOptions.Type, LaneMetrics> laneMetrics = new EnumMap<>(TransportRequestOptions.Type.class);
     private volatile Map<String, RequestHandlerRegistry<? extends TransportRequest>> requestHandlers = Collections.emptyMap();
     private final ResponseHandlers responseHandlers = new ResponseHandlers();
     private final TransportLogger transportLogger;
@@ -228,6 +230,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             (v, features, channel, response, requestId) -> sendResponse(v, features, channel, response, requestId,
                 TcpTransportHandshaker.HANDSHAKE_ACTION_NAME, TransportResponseOptions.EMPTY, TransportStatus.setHandshake((byte) 0)));
         this.keepAlive = new TransportKeepAlive(threadPool, this::internalSendMessage);
+        for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+            laneMetrics.put(type, new LaneMetrics());
+        }
         this.nodeName = Node.NODE_NAME_SETTING.get(settings);
 
         final Settings defaultFeatures = DEFAULT_FEATURES_SETTING.get(settings);
@@ -306,7 +311,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             if (connectionTypeHandle == null) {
                 throw new IllegalArgumentException("no type channel for [" + type + "]");
             }
-            return connectionTypeHandle.getChannel(channels);
+            return connectionTypeHandle.getChannel(channels, channel -> channel.getChannelStats().pendingOutboundBytes());
         }
 
         @Override
@@ -796,7 +801,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             // this might be called in a different thread
             ReleaseListener releaseListener = new ReleaseListener(stream,
                 () -> messageListener.onRequestSent(node, requestId, action, request, finalOptions));
-            internalSendMessage(channel, message, releaseListener);
+            // handshakes are sent before the channels are assigned to connection types, so they do not count towards a lane
+            final LaneMetrics lane = TransportStatus.isHandshake(status) ? null : laneMetrics.get(options.type());
+            internalSendMessage(channel, message, lane, releaseListener);
             addedReleaseListener = true;
         } finally {
             if (!addedReleaseListener) {
@@ -809,13 +816,22 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
      * sends a message to the given channel, using the given callbacks.
      */
     private void internalSendMessage(TcpChannel channel, BytesReference message, ActionListener<Void> listener) {
+        internalSendMessage(channel, message, null, listener);
+    }
+
+    /**
+     * sends a message to the given channel, using the given callbacks, and accounts for it in the metrics of the given lane.
+     */
+    private void internalSendMessage(TcpChannel channel, BytesReference message, @Nullable LaneMetrics lane,
+                                     ActionListener<Void> listener) {
         channel.getChannelStats().markAccessed(threadPool.relativeTimeInMillis());
         transportLogger.logOutboundMessage(channel, message);
+        final SendListener sendListener = new SendListener(channel, message.length(), lane, listener);
         try {
-            channel.sendMessage(message, new SendListener(channel, message.length(), listener));
+            channel.sendMessage(message, sendListener);
         } catch (Exception ex) {
-            // call listener to ensure that any resources are released
-            listener.onFailure(ex);
+            // call listener to ensure that any resources are released and that the message is no longer accounted as pending
+            sendListener.onFailure(ex);
             onException(channel, ex);
         }
     }
@@ -1400,22 +1416,38 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
 
         private final TcpChannel channel;
         private final long messageSize;
+        @Nullable
+        private final LaneMetrics lane;
         private final ActionListener<Void> delegateListener;
 
-        private SendListener(TcpChannel channel, long messageSize, ActionListener<Void> delegateListener) {
+        private SendListener(TcpChannel channel, long messageSize, @Nullable LaneMetrics lane, ActionListener<Void> delegateListener) {
             this.channel = channel;
             this.messageSize = messageSize;
+            this.lane = lane;
             this.delegateListener = delegateListener;
+            channel.getChannelStats().markOutboundPending(messageSize);
+            if (lane != null) {
+                lane.pending.inc(messageSize);
+            }
         }
 
         @Override
         protected void innerOnResponse(Void v) {
+            channel.getChannelStats().markOutboundSent(messageSize);
             transmittedBytesMetric.inc(messageSize);
+            if (lane != null) {
+                lane.pending.dec(messageSize);
+                lane.transmitted.inc(messageSize);
+            }
             delegateListener.onResponse(v);
         }
 
         @Override
         protected void innerOnFailure(Exception e) {
+            channel.getChannelStats().markOutboundSent(messageSize);
+            if (lane != null) {
+                lane.pending.dec(messageSize);
+            }
             logger.warn(() -> new ParameterizedMessage("send message failed [channel: {}]", channel), e);
             delegateListener.onFailure(e);
         }
@@ -1455,8 +1487,23 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
 
     @Override
     public final TransportStats getStats() {
+        final Map<TransportRequestOptions.Type, TransportStats.LaneStats> lanes = new EnumMap<>(TransportRequestOptions.Type.class);
+        for (Map.Entry<TransportRequestOptions.Type, LaneMetrics> entry : laneMetrics.entrySet()) {
+            final LaneMetrics lane = entry.getValue();
+            lanes.put(entry.getKey(), new TransportStats.LaneStats(lane.transmitted.count(), lane.transmitted.sum(),
+                lane.pending.count(), lane.pending.sum()));
+        }
         return new TransportStats(acceptedChannels.size(), readBytesMetric.count(), readBytesMetric.sum(), transmittedBytesMetric.count(),
-            transmittedBytesMetric.sum());
+            transmittedBytesMetric.sum(), Collections.unmodifiableMap(lanes));
+    }
+
+    /**
+     * The metrics of the requests sent over the channels of a single connection type.
+     */
+    private static final class LaneMetrics {
+        private final MeanMetric transmitted = new MeanMetric();
+        // the requests that were handed to a channel but were not yet written to the network
+        private final MeanMetric pending = new MeanMetric();
     }
 
     /**
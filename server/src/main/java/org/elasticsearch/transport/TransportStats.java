@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -28,6 +29,10 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
 
 public class TransportStats implements Writeable, ToXContentFragment {
 
@@ -36,13 +41,20 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final Map<TransportRequestOptions.Type, LaneStats> lanes;
 
     public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, Collections.emptyMap());
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize,
+                          Map<TransportRequestOptions.Type, LaneStats> lanes) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.lanes = lanes;
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -51,6 +63,11 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0)) {
+            lanes = in.readMap(i -> i.readEnum(TransportRequestOptions.Type.class), LaneStats::new);
+        } else {
+            lanes = Collections.emptyMap();
+        }
     }
 
     @Override
@@ -60,6 +77,9 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0)) {
+            out.writeMap(lanes, StreamOutput::writeEnum, (o, laneStats) -> laneStats.writeTo(o));
+        }
     }
 
     public long serverOpen() {
@@ -102,6 +122,14 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * Returns the statistics of the requests that this node sent over the channels of each connection type, see
+     * {@link ConnectionProfile}. Handshakes, keep-alive pings and responses are not included.
+     */
+    public Map<TransportRequestOptions.Type, LaneStats> getLanes() {
+        return lanes;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -110,10 +138,83 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, new ByteSizeValue(rxSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+        if (lanes.isEmpty() == false) {
+            builder.startObject(Fields.LANES);
+            for (Map.Entry<TransportRequestOptions.Type, LaneStats> lane : new EnumMap<>(lanes).entrySet()) {
+                builder.startObject(lane.getKey().name().toLowerCase(Locale.ROOT));
+                lane.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
 
+    /**
+     * The statistics of the requests sent over the channels of a single connection type.
+     */
+    public static class LaneStats implements Writeable, ToXContentFragment {
+
+        private final long txCount;
+        private final long txSize;
+        private final long pendingCount;
+        private final long pendingSize;
+
+        public LaneStats(long txCount, long txSize, long pendingCount, long pendingSize) {
+            this.txCount = txCount;
+            this.txSize = txSize;
+            this.pendingCount = pendingCount;
+            this.pendingSize = pendingSize;
+        }
+
+        public LaneStats(StreamInput in) throws IOException {
+            txCount = in.readVLong();
+            txSize = in.readVLong();
+            pendingCount = in.readVLong();
+            pendingSize = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(txCount);
+            out.writeVLong(txSize);
+            out.writeVLong(pendingCount);
+            out.writeVLong(pendingSize);
+        }
+
+        /**
+         * Returns the number of requests that were sent.
+         */
+        public long getTxCount() {
+            return txCount;
+        }
+
+        public ByteSizeValue getTxSize() {
+            return new ByteSizeValue(txSize);
+        }
+
+        /**
+         * Returns the number of requests that were handed to a channel but were not yet written to the network.
+         */
+        public long getPendingCount() {
+            return pendingCount;
+        }
+
+        public ByteSizeValue getPendingSize() {
+            return new ByteSizeValue(pendingSize);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.TX_COUNT, txCount);
+            builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+            builder.field(Fields.PENDING_COUNT, pendingCount);
+            builder.humanReadableField(Fields.PENDING_SIZE_IN_BYTES, Fields.PENDING_SIZE, new ByteSizeValue(pendingSize));
+            return builder;
+        }
+    }
+
     static final class Fields {
         static final String TRANSPORT = "transport";
         static final String SERVER_OPEN = "server_open";
@@ -123,5 +224,9 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String LANES = "lanes";
+        static final String PENDING_COUNT = "pending_count";
+        static final String PENDING_SIZE = "pending_size";
+        static final String PENDING_SIZE_IN_BYTES = "pending_size_in_bytes";
     }
 }
@@ -39,6 +39,7 @@ import org.elasticsearch.script.ScriptStats;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
 import org.elasticsearch.threadpool.ThreadPoolStats;
+import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportStats;
 
 import java.io.IOException;
@@ -218,6 +219,15 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(nodeStats.getTransport().getServerOpen(), deserializedNodeStats.getTransport().getServerOpen());
                     assertEquals(nodeStats.getTransport().getTxCount(), deserializedNodeStats.getTransport().getTxCount());
                     assertEquals(nodeStats.getTransport().getTxSize(), deserializedNodeStats.getTransport().getTxSize());
+                    assertEquals(nodeStats.getTransport().getLanes().keySet(), deserializedNodeStats.getTransport().getLanes().keySet());
+                    for (Map.Entry<TransportRequestOptions.Type, TransportStats.LaneStats> lane :
+                        nodeStats.getTransport().getLanes().entrySet()) {
+                        TransportStats.LaneStats deserializedLane = deserializedNodeStats.getTransport().getLanes().get(lane.getKey());
+                        assertEquals(lane.getValue().getTxCount(), deserializedLane.getTxCount());
+                        assertEquals(lane.getValue().getTxSize(), deserializedLane.getTxSize());
+                        assertEquals(lane.getValue().getPendingCount(), deserializedLane.getPendingCount());
+                        assertEquals(lane.getValue().getPendingSize(), deserializedLane.getPendingSize());
+                    }
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
@@ -412,8 +422,18 @@ public class NodeStatsTests extends ESTestCase {
             }
             fsInfo = new FsInfo(randomNonNegativeLong(), ioStats, paths);
         }
-        TransportStats transportStats = frequently() ? new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(),
-                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
+        TransportStats transportStats = null;
+        if (frequently()) {
+            Map<TransportRequestOptions.Type, TransportStats.LaneStats> lanes = new HashMap<>();
+            for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+                if (randomBoolean()) {
+                    lanes.put(type, new TransportStats.LaneStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                        randomNonNegativeLong(), randomNonNegativeLong()));
+                }
+            }
+            transportStats = new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), lanes);
+        }
         HttpStats httpStats = frequently() ? new HttpStats(randomNonNegativeLong(), randomNonNegativeLong()) : null;
         AllCircuitBreakerStats allCircuitBreakerStats = null;
         if (frequently()) {
@@ -60,6 +60,7 @@ public class RestoreSnapshotRequestTests extends AbstractWireSerializingTestCase
         }
         instance.partial(randomBoolean());
         instance.includeAliases(randomBoolean());
+        instance.mount(randomBoolean());
 
         if (randomBoolean()) {
             Map<String, Object> settings = new HashMap<>();
@@ -30,6 +30,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -53,6 +54,7 @@ import org.junit.Before;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
@@ -271,6 +273,24 @@ public class SearchResponseTests extends ESTestCase {
         }
     }
 
+    public void testToXContentChunked() throws IOException {
+        SearchResponse response = createTestItem(randomBoolean());
+        XContentType xContentType = randomFrom(XContentType.values());
+        ToXContent.Params params = new ToXContent.MapParams(singletonMap(RestSearchAction.TYPED_KEYS_PARAM, "true"));
+        BytesReference expected = XContentHelper.toXContent(response, xContentType, params, false);
+        try (XContentBuilder builder = XContentBuilder.builder(xContentType.xContent())) {
+            Iterator<? extends ToXContent> fragments = response.toXContentChunked(params);
+            int numFragments = 0;
+            while (fragments.hasNext()) {
+                fragments.next().toXContent(builder, params);
+                numFragments++;
+            }
+            assertEquals(expected, BytesReference.bytes(builder));
+            // the header of the response and of its hits, the hits one by one, the end of the hits, the other sections, the end
+            assertEquals(response.getHits().getHits().length + 5, numFragments);
+        }
+    }
+
     public void testSerialization() throws IOException {
         SearchResponse searchResponse = createTestItem(false);
         BytesStreamOutput bytesStreamOutput = new BytesStreamOutput();
@@ -26,6 +26,7 @@ import org.junit.Before;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -49,6 +50,7 @@ import java.util.stream.Collectors;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CacheTests extends ESTestCase {
     private int numberOfEntries;
@@ -943,4 +945,62 @@ public class CacheTests extends ESTestCase {
             assertEquals(RemovalNotification.RemovalReason.INVALIDATED, removalNotifications.get(i).getRemovalReason());
         }
     }
+
+    public void testKeysSeePendingPromotions() {
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder().build();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        // fewer reads than a read buffer holds, so that the promotions are still pending
+        final List<Integer> readKeys = new ArrayList<>();
+        for (int i = 0; i < Cache.READ_BUFFER_SIZE / 2; i++) {
+            final int key = randomIntBetween(0, numberOfEntries - 1);
+            cache.get(key);
+            readKeys.remove(Integer.valueOf(key));
+            readKeys.add(0, key);
+        }
+        final Iterator<Integer> keys = cache.keys().iterator();
+        for (Integer readKey : readKeys) {
+            assertEquals(readKey, keys.next());
+        }
+    }
+
+    public void testFrequencyAwareAdmission() {
+        final int maximumWeight = randomIntBetween(10, 100);
+        final boolean frequencyAwareAdmission = randomBoolean();
+        final List<Integer> evictedKeys = new ArrayList<>();
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder()
+            .setMaximumWeight(maximumWeight)
+            .setFrequencyAwareAdmission(frequencyAwareAdmission)
+            .removalListener(notification -> evictedKeys.add(notification.getKey()))
+            .build();
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < maximumWeight; i++) {
+                assertNotNull(cache.get(i));
+            }
+        }
+
+        // a key that is used once does not evict keys that are used over and over
+        final int newKey = maximumWeight;
+        cache.put(newKey, Integer.toString(newKey));
+        assertEquals(maximumWeight, cache.count());
+        if (frequencyAwareAdmission) {
+            assertEquals(Collections.singletonList(newKey), evictedKeys);
+            assertNull(cache.get(newKey));
+            // until it is used as frequently as the least recently used key
+            int attempts = 1;
+            while (cache.get(newKey) == null) {
+                cache.put(newKey, Integer.toString(newKey));
+                assertThat(++attempts, lessThanOrEqualTo(16));
+            }
+            assertEquals(0, (int) evictedKeys.get(evictedKeys.size() - 1));
+        } else {
+            assertEquals(Collections.singletonList(0), evictedKeys);
+            assertNotNull(cache.get(newKey));
+        }
+        assertEquals(maximumWeight, cache.count());
+    }
 }
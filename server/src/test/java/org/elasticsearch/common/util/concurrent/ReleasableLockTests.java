@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ReleasableLockTests extends ESTestCase {
@@ -94,4 +95,20 @@ public class ReleasableLockTests extends ESTestCase {
         assertFalse(otherLock.isHeldByCurrentThread());
     }
 
+    public void testTryAcquire() throws InterruptedException {
+        final ReleasableLock lock = new ReleasableLock(new ReentrantLock());
+        try (ReleasableLock locked = lock.tryAcquire()) {
+            assertSame(lock, locked);
+            assertTrue(lock.isHeldByCurrentThread());
+            final Thread thread = new Thread(() -> {
+                try (ReleasableLock other = lock.tryAcquire()) {
+                    assertNull(other);
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+        assertFalse(lock.isHeldByCurrentThread());
+    }
+
 }
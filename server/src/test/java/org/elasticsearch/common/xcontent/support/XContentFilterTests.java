@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent.support;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import static org.elasticsearch.common.xcontent.XContentHelper.convertToMap;
+import static org.elasticsearch.common.xcontent.XContentHelper.toXContent;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class XContentFilterTests extends AbstractFilteringTestCase {
+
+    @Override
+    protected void testFilter(Builder expected, Builder actual, Set<String> includes, Set<String> excludes) throws IOException {
+        final XContentType xContentType = randomFrom(XContentType.values());
+        final boolean humanReadable = randomBoolean();
+
+        String[] sourceIncludes;
+        if (includes == null) {
+            sourceIncludes = randomBoolean() ? Strings.EMPTY_ARRAY : null;
+        } else {
+            sourceIncludes = includes.toArray(new String[includes.size()]);
+        }
+        String[] sourceExcludes;
+        if (excludes == null) {
+            sourceExcludes = randomBoolean() ? Strings.EMPTY_ARRAY : null;
+        } else {
+            sourceExcludes = excludes.toArray(new String[excludes.size()]);
+        }
+
+        final BytesReference filtered = new XContentFilter(sourceIncludes, sourceExcludes)
+            .filter(toBytes(actual, xContentType, humanReadable));
+        assertEquals("Filtered source must be equal to the expected source",
+                convertToMap(toBytes(expected, xContentType, humanReadable), true, xContentType).v2(),
+                convertToMap(filtered, true, xContentType).v2());
+    }
+
+    public void testSameAsMapFilter() throws IOException {
+        final XContentType xContentType = randomFrom(XContentType.values());
+        final XContentBuilder builder = XContentFactory.contentBuilder(xContentType).startObject()
+                .field("foo.bar", 2)
+                .startObject("foo")
+                    .field("baz", 3)
+                    .startObject("empty").endObject()
+                .endObject()
+                .startArray("photos")
+                    .value("a")
+                    .startObject().field("url", "b").field("size", 4).endObject()
+                    .startArray().value("c").endArray()
+                    .startObject().endObject()
+                .endArray()
+                .field("photosCount", 2)
+                .nullField("nothing")
+                .endObject();
+        final BytesReference source = BytesReference.bytes(builder);
+        final Map<String, Object> sourceAsMap = convertToMap(source, true, xContentType).v2();
+
+        final String[][] patterns = new String[][] {
+            Strings.EMPTY_ARRAY, {"foo"}, {"foo.*"}, {"foo.bar"}, {"*.empty"}, {"photos"}, {"photos.url"}, {"photos*"}, {"nothing"},
+            {"*"}, {"f*", "photos.size"}, {"missing"}
+        };
+        for (String[] includes : patterns) {
+            for (String[] excludes : patterns) {
+                final BytesReference filtered = new XContentFilter(includes, excludes).filter(source);
+                assertEquals("includes " + Arrays.toString(includes) + " excludes " + Arrays.toString(excludes),
+                        XContentMapValues.filter(sourceAsMap, includes, excludes),
+                        convertToMap(filtered, true, xContentType).v2());
+            }
+        }
+    }
+
+    public void testKeepsFieldOrder() throws IOException {
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+                .field("c", 1)
+                .field("skipped", 2)
+                .startObject("a").field("z", 1).field("y", 2).endObject()
+                .field("b", 3)
+                .endObject();
+        final BytesReference filtered = new XContentFilter(Strings.EMPTY_ARRAY, new String[] {"skipped"})
+            .filter(BytesReference.bytes(builder));
+        assertThat(filtered.utf8ToString(), equalTo("{\"c\":1,\"a\":{\"z\":1,\"y\":2},\"b\":3}"));
+        assertThat(new ArrayList<>(convertToMap(filtered, true, XContentType.JSON).v2().keySet()), contains("c", "a", "b"));
+    }
+
+    private static BytesReference toBytes(Builder test, XContentType xContentType, boolean humanReadable) throws IOException {
+        ToXContentObject toXContent = (builder, params) -> test.apply(builder);
+        return toXContent(toXContent, xContentType, humanReadable);
+    }
+}
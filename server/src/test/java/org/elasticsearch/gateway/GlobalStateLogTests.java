@@ -0,0 +1,143 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.cluster.metadata.IndexTemplateMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.metadata.RepositoriesMetaData;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class GlobalStateLogTests extends ESTestCase {
+
+    public void testAppendsChangesToTheLog() throws IOException {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            final Path[] dataPaths = env.nodeDataPaths();
+            final GlobalStateLog log = new GlobalStateLog();
+            MetaData metaData = MetaData.builder()
+                .clusterUUID(randomAlphaOfLength(10))
+                .persistentSettings(Settings.builder().put("setting", "value").build())
+                .put(template("template_1"))
+                .put(template("template_2"))
+                .build();
+            log.write(metaData, dataPaths);
+            final long generation = MetaData.FORMAT.findMaxStateId(MetaData.GLOBAL_STATE_FILE_PREFIX, dataPaths);
+            assertLoadedState(metaData, dataPaths);
+
+            // changes are appended to the log of the state file
+            metaData = MetaData.builder(metaData).version(metaData.version() + 1).removeTemplate("template_1")
+                .put(template("template_3")).build();
+            log.write(metaData, dataPaths);
+            assertLoadedState(metaData, dataPaths);
+
+            metaData = MetaData.builder(metaData).version(metaData.version() + 1)
+                .persistentSettings(Settings.builder().put("other_setting", "value").build())
+                .putCustom(RepositoriesMetaData.TYPE, new RepositoriesMetaData(Collections.singletonList(
+                    new RepositoryMetaData("repo", "fs", Settings.builder().put("location", "path").build()))))
+                .build();
+            log.write(metaData, dataPaths);
+            assertLoadedState(metaData, dataPaths);
+
+            metaData = MetaData.builder(metaData).version(metaData.version() + 1).removeCustom(RepositoriesMetaData.TYPE).build();
+            log.write(metaData, dataPaths);
+            assertLoadedState(metaData, dataPaths);
+
+            assertThat(MetaData.FORMAT.findMaxStateId(MetaData.GLOBAL_STATE_FILE_PREFIX, dataPaths), equalTo(generation));
+            for (Path dataPath : dataPaths) {
+                assertTrue(Files.exists(logFile(dataPath, generation)));
+            }
+        }
+    }
+
+    public void testWritesTheFullStateOnceTheLogIsLarge() throws IOException {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            final Path[] dataPaths = env.nodeDataPaths();
+            final GlobalStateLog log = new GlobalStateLog();
+            MetaData metaData = MetaData.builder().put(template("template")).build();
+            log.write(metaData, dataPaths);
+            final long generation = MetaData.FORMAT.findMaxStateId(MetaData.GLOBAL_STATE_FILE_PREFIX, dataPaths);
+
+            int writes = 0;
+            while (MetaData.FORMAT.findMaxStateId(MetaData.GLOBAL_STATE_FILE_PREFIX, dataPaths) == generation) {
+                metaData = MetaData.builder(metaData).version(metaData.version() + 1)
+                    .persistentSettings(Settings.builder().put("setting", randomAlphaOfLength(100)).build()).build();
+                log.write(metaData, dataPaths);
+                assertLoadedState(metaData, dataPaths);
+                writes++;
+            }
+            assertThat(writes, greaterThan(1));
+            // the log of the previous state file is deleted together with it
+            for (Path dataPath : dataPaths) {
+                assertFalse(Files.exists(logFile(dataPath, generation)));
+            }
+        }
+    }
+
+    public void testIgnoresIncompleteEntries() throws IOException {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            final Path[] dataPaths = env.nodeDataPaths();
+            final GlobalStateLog log = new GlobalStateLog();
+            final MetaData metaData = MetaData.builder().put(template("template_1")).build();
+            log.write(metaData, dataPaths);
+            final long generation = MetaData.FORMAT.findMaxStateId(MetaData.GLOBAL_STATE_FILE_PREFIX, dataPaths);
+            final MetaData first = MetaData.builder(metaData).version(1).put(template("template_2")).build();
+            log.write(first, dataPaths);
+            final long firstLength = Files.size(logFile(dataPaths[0], generation));
+            log.write(MetaData.builder(first).version(2).put(template("template_3")).build(), dataPaths);
+
+            // the node stopped while it wrote the second entry
+            for (Path dataPath : dataPaths) {
+                final Path logFile = logFile(dataPath, generation);
+                try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(randomLongBetween(firstLength, Files.size(logFile) - 1));
+                }
+            }
+            assertLoadedState(first, dataPaths);
+        }
+    }
+
+    private void assertLoadedState(MetaData expected, Path[] dataPaths) throws IOException {
+        final MetaData loaded = GlobalStateLog.replay(MetaData.FORMAT.loadLatestState(logger, xContentRegistry(), dataPaths),
+            xContentRegistry(), dataPaths);
+        assertThat(loaded.version(), equalTo(expected.version()));
+        assertThat(loaded.clusterUUID(), equalTo(expected.clusterUUID()));
+        assertTrue(MetaData.isGlobalStateEquals(expected, loaded));
+    }
+
+    private static IndexTemplateMetaData template(String name) {
+        return IndexTemplateMetaData.builder(name).patterns(Collections.singletonList(name + "*")).build();
+    }
+
+    private static Path logFile(Path dataPath, long generation) {
+        return dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME)
+            .resolve(MetaData.GLOBAL_STATE_FILE_PREFIX + generation + GlobalStateLog.LOG_FILE_EXTENSION);
+    }
+}
@@ -20,8 +20,10 @@
 package org.elasticsearch.http;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.UTF8StreamWriter;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -32,6 +34,8 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -264,6 +268,54 @@ public class DefaultRestChannelTests extends ESTestCase {
         // ESTestCase#after will invoke ensureAllArraysAreReleased which will fail if the response content was not released
     }
 
+    public void testHeadResponseReleasedBeforeSend() throws Exception {
+        final Settings settings = Settings.builder().build();
+        final TestRequest httpRequest = new TestRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.HEAD, "/");
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        HttpHandlingSettings handlingSettings = HttpHandlingSettings.fromSettings(settings);
+
+        DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays, handlingSettings,
+            threadPool.getThreadContext());
+        final BytesRestResponse response;
+        try (XContentBuilder builder = channel.newBuilder()) {
+            builder.startObject().field("field", randomAlphaOfLength(10)).endObject();
+            response = new BytesRestResponse(RestStatus.OK, builder);
+        }
+        final int contentLength = response.content().length();
+
+        channel.sendResponse(response);
+        ArgumentCaptor<TestResponse> responseCaptor = ArgumentCaptor.forClass(TestResponse.class);
+        verify(httpChannel).sendResponse(responseCaptor.capture(), any());
+        TestResponse httpResponse = responseCaptor.getValue();
+        assertEquals(0, httpResponse.content().length());
+        assertEquals(Integer.toString(contentLength), httpResponse.headers.get(DefaultRestChannel.CONTENT_LENGTH).get(0));
+        // the body was released although the response was not sent yet
+        MockBigArrays.ensureAllArraysAreReleased();
+    }
+
+    public void testChunkedResponse() {
+        final Settings settings = Settings.builder().build();
+        final TestRequest httpRequest = new TestRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/");
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        HttpHandlingSettings handlingSettings = HttpHandlingSettings.fromSettings(settings);
+
+        DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays, handlingSettings,
+            threadPool.getThreadContext());
+        final ChunkedRestResponseBody body = ChunkedRestResponseBody.fromText(BytesRestResponse.TEXT_CONTENT_TYPE,
+            Arrays.<CheckedConsumer<UTF8StreamWriter, IOException>>asList(out -> out.append("foo"), out -> out.append("bar")).iterator());
+        channel.sendResponse(new ChunkedRestResponse(RestStatus.OK, body));
+
+        ArgumentCaptor<TestResponse> responseCaptor = ArgumentCaptor.forClass(TestResponse.class);
+        verify(httpChannel).sendResponse(responseCaptor.capture(), any());
+        TestResponse httpResponse = responseCaptor.getValue();
+        assertNull(httpResponse.content());
+        assertSame(body, httpResponse.chunkedContent);
+        // the body was not serialized before it was handed to the http channel
+        assertFalse(body.isDone());
+        assertNull(httpResponse.headers.get(DefaultRestChannel.CONTENT_LENGTH));
+        assertEquals(BytesRestResponse.TEXT_CONTENT_TYPE, httpResponse.headers.get(DefaultRestChannel.CONTENT_TYPE).get(0));
+    }
+
     @SuppressWarnings("unchecked")
     public void testConnectionClose() throws Exception {
         final Settings settings = Settings.builder().build();
@@ -378,7 +430,12 @@ public class DefaultRestChannelTests extends ESTestCase {
 
         @Override
         public HttpResponse createResponse(RestStatus status, BytesReference content) {
-            return new TestResponse(status, content);
+            return new TestResponse(status, content, null);
+        }
+
+        @Override
+        public HttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+            return new TestResponse(status, null, content);
         }
     }
 
@@ -386,11 +443,13 @@ public class DefaultRestChannelTests extends ESTestCase {
 
         private final RestStatus status;
         private final BytesReference content;
+        private final ChunkedRestResponseBody chunkedContent;
         private final Map<String, List<String>> headers = new HashMap<>();
 
-        TestResponse(RestStatus status, BytesReference content) {
+        TestResponse(RestStatus status, BytesReference content, ChunkedRestResponseBody chunkedContent) {
             this.status = status;
             this.content = content;
+            this.chunkedContent = chunkedContent;
         }
 
         public String contentType() {
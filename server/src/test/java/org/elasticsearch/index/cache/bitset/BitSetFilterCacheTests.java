@@ -37,6 +37,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.SparseFixedBitSet;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -46,10 +47,13 @@ import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class BitSetFilterCacheTests extends ESTestCase {
 
@@ -179,6 +183,53 @@ public class BitSetFilterCacheTests extends ESTestCase {
         assertEquals(0, stats.get());
     }
 
+    public void testParentBlockBitSetOnlyForParentFilters() throws IOException {
+        BitsetFilterCache cache = new BitsetFilterCache(INDEX_SETTINGS, new BitsetFilterCache.Listener() {
+            @Override
+            public void onCache(ShardId shardId, Accountable accountable) {
+
+            }
+
+            @Override
+            public void onRemoval(ShardId shardId, Accountable accountable) {
+
+            }
+        });
+
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        for (int i = 0; i < 4; i++) {
+            List<Document> block = new ArrayList<>();
+            for (int j = 0; j < 255; j++) {
+                block.add(new Document());
+            }
+            Document parent = new Document();
+            parent.add(new StringField("type", "parent", Field.Store.NO));
+            block.add(parent);
+            writer.addDocuments(block);
+        }
+        writer.forceMerge(1);
+        DirectoryReader reader = DirectoryReader.open(writer);
+        writer.close();
+        reader = ElasticsearchDirectoryReader.wrap(reader, new ShardId("test", "_na_", 0));
+
+        TermQuery parentFilter = new TermQuery(new Term("type", "parent"));
+        LeafReaderContext leaf = reader.leaves().get(0);
+        BitSet regular = cache.getBitSetProducer(parentFilter).getBitSet(leaf);
+        BitSet parents = cache.getParentBitSetProducer(parentFilter).getBitSet(leaf);
+        assertThat(regular, instanceOf(SparseFixedBitSet.class));
+        assertThat(parents, instanceOf(ParentBlockBitSet.class));
+        assertSame(regular, cache.getBitSetProducer(parentFilter).getBitSet(leaf));
+        assertSame(parents, cache.getParentBitSetProducer(parentFilter).getBitSet(leaf));
+        assertEquals(regular.cardinality(), parents.cardinality());
+        for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+            assertEquals(regular.get(doc), parents.get(doc));
+        }
+        assertThat(cache.getLoadedFilters().get(leaf.reader().getCoreCacheHelper().getKey()).count(), equalTo(2));
+
+        IOUtils.close(reader, dir);
+    }
+
     public void testSetNullListener() {
         try {
             new BitsetFilterCache(INDEX_SETTINGS, null);
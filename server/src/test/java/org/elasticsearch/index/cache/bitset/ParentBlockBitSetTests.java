@@ -0,0 +1,66 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.bitset;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+public class ParentBlockBitSetTests extends ESTestCase {
+
+    public void testSameAsFixedBitSet() throws IOException {
+        final int maxDoc = randomIntBetween(1, 3 << ParentBlockBitSet.WINDOW_SHIFT);
+        final FixedBitSet expected = new FixedBitSet(maxDoc);
+        // parents are the last document of blocks of random sizes
+        for (int doc = randomIntBetween(0, 1000); doc < maxDoc; doc += randomIntBetween(1, 1000)) {
+            expected.set(doc);
+        }
+        if (randomBoolean()) {
+            expected.set(maxDoc - 1);
+        }
+        final ParentBlockBitSet actual = ParentBlockBitSet.of(new BitSetIterator(expected, expected.cardinality()), maxDoc);
+        assertEquals(maxDoc, actual.length());
+        assertEquals(expected.cardinality(), actual.cardinality());
+        for (int i = 0; i < maxDoc; i++) {
+            assertEquals(expected.get(i), actual.get(i));
+            assertEquals(expected.prevSetBit(i), actual.prevSetBit(i));
+            assertEquals(expected.nextSetBit(i), actual.nextSetBit(i));
+        }
+    }
+
+    public void testEmpty() throws IOException {
+        final int maxDoc = randomIntBetween(1, 10000);
+        final ParentBlockBitSet bitSet = ParentBlockBitSet.of(DocIdSetIterator.empty(), maxDoc);
+        assertEquals(0, bitSet.cardinality());
+        final int index = randomIntBetween(0, maxDoc - 1);
+        assertFalse(bitSet.get(index));
+        assertEquals(-1, bitSet.prevSetBit(index));
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, bitSet.nextSetBit(index));
+    }
+
+    public void testUseFor() {
+        assertTrue(ParentBlockBitSet.useFor(10, 100000));
+        assertFalse(ParentBlockBitSet.useFor(10000, 100000));
+        assertFalse(ParentBlockBitSet.useFor(0, 10));
+    }
+}
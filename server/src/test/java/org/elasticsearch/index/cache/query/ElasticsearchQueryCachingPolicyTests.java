@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ElasticsearchQueryCachingPolicyTests extends ESTestCase {
+
+    private static Query rangeQuery(long from) {
+        return new IndexOrDocValuesQuery(LongPoint.newRangeQuery("field", from, from + 10),
+            SortedNumericDocValuesField.newSlowRangeQuery("field", from, from + 10));
+    }
+
+    private static void use(ElasticsearchQueryCachingPolicy policy, Query query, int times) {
+        for (int i = 0; i < times; i++) {
+            policy.onUse(query);
+        }
+    }
+
+    public void testCostlyFiltersAreCachedEarlier() throws IOException {
+        ElasticsearchQueryCachingPolicy policy = new ElasticsearchQueryCachingPolicy();
+        Query range = rangeQuery(0);
+        use(policy, range, 1);
+        assertFalse(policy.shouldCache(range));
+        use(policy, range, 1);
+        assertTrue(policy.shouldCache(range));
+
+        Query phrase = new PhraseQuery("field", "quick", "fox");
+        use(policy, phrase, ElasticsearchQueryCachingPolicy.COSTLY_MIN_FREQUENCY);
+        assertFalse(policy.shouldCache(phrase));
+        // the phrase matches many documents of a segment, so it becomes costly
+        policy.onCost(phrase, 50, 100);
+        assertTrue(policy.shouldCache(phrase));
+
+        Query sparsePhrase = new PhraseQuery("field", "lazy", "dog");
+        use(policy, sparsePhrase, ElasticsearchQueryCachingPolicy.COSTLY_MIN_FREQUENCY);
+        policy.onCost(sparsePhrase, 0, 1000);
+        assertFalse(policy.shouldCache(sparsePhrase));
+    }
+
+    public void testFiltersThatAreNotReusedRaiseMinFrequency() throws IOException {
+        ElasticsearchQueryCachingPolicy policy = new ElasticsearchQueryCachingPolicy();
+        for (int i = 0; i < ElasticsearchQueryCachingPolicy.REUSE_HISTORY_SIZE; i++) {
+            Query query = rangeQuery(i * 100);
+            use(policy, query, ElasticsearchQueryCachingPolicy.COSTLY_MIN_FREQUENCY);
+            assertTrue(policy.shouldCache(query));
+        }
+        // none of the cached filters was used again
+        Query query = rangeQuery(-100);
+        use(policy, query, ElasticsearchQueryCachingPolicy.COSTLY_MIN_FREQUENCY);
+        assertFalse(policy.shouldCache(query));
+        use(policy, query, 1);
+        assertTrue(policy.shouldCache(query));
+
+        // reusing cached filters lowers it again
+        for (int i = 0; i < ElasticsearchQueryCachingPolicy.REUSE_HISTORY_SIZE; i++) {
+            use(policy, rangeQuery(i * 100), 1);
+        }
+        Query other = rangeQuery(-200);
+        use(policy, other, ElasticsearchQueryCachingPolicy.COSTLY_MIN_FREQUENCY);
+        assertTrue(policy.shouldCache(other));
+    }
+
+    public void testSingleUseQueriesAreNotTracked() throws IOException {
+        ElasticsearchQueryCachingPolicy policy = new ElasticsearchQueryCachingPolicy();
+        Query range = rangeQuery(0);
+        use(policy, range, 1);
+        // enough single use queries to push the range out of the history of recent uses if they were recorded
+        for (int i = 0; i < ElasticsearchQueryCachingPolicy.REUSE_HISTORY_SIZE; i++) {
+            Query singleUse = new SingleUseQuery();
+            use(policy, singleUse, ElasticsearchQueryCachingPolicy.COSTLY_MIN_FREQUENCY);
+            assertFalse(policy.shouldCache(singleUse));
+        }
+        use(policy, range, 1);
+        assertTrue(policy.shouldCache(range));
+        assertTrue(policy.stats().getSkipDecisions().isEmpty());
+    }
+
+    public void testStats() throws IOException {
+        ElasticsearchQueryCachingPolicy policy = new ElasticsearchQueryCachingPolicy();
+        Query range = rangeQuery(0);
+        Query phrase = new PhraseQuery("field", "quick", "fox");
+        use(policy, range, 2);
+        use(policy, phrase, 2);
+        assertTrue(policy.shouldCache(range));
+        assertFalse(policy.shouldCache(phrase));
+        assertFalse(policy.shouldCache(phrase));
+
+        QueryCacheStats stats = new QueryCacheStats(1, 2, 3, 4, 5);
+        stats.add(policy.stats());
+        assertThat(stats.getHitCount(), equalTo(2L));
+        assertThat(stats.getCacheDecisions().get("IndexOrDocValuesQuery"), equalTo(1L));
+        assertNull(stats.getSkipDecisions().get("IndexOrDocValuesQuery"));
+        assertThat(stats.getSkipDecisions().get("PhraseQuery"), equalTo(2L));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        stats.writeTo(out);
+        QueryCacheStats read = new QueryCacheStats();
+        try (StreamInput in = out.bytes().streamInput()) {
+            read.readFrom(in);
+        }
+        assertThat(read.getMemorySizeInBytes(), equalTo(1L));
+        assertThat(read.getCacheDecisions(), equalTo(stats.getCacheDecisions()));
+        assertThat(read.getSkipDecisions(), equalTo(stats.getSkipDecisions()));
+    }
+
+    private static class SingleUseQuery extends Query implements ElasticsearchQueryCachingPolicy.SingleUseQuery {
+
+        @Override
+        public String toString(String field) {
+            return "SingleUseQuery";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class PersistedGlobalOrdinalsTests extends ESTestCase {
+
+    public void testWriteAndRead() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int numSegments = between(2, 5);
+            for (int i = 0; i < numSegments; i++) {
+                final int numDocs = between(1, 50);
+                for (int j = 0; j < numDocs; j++) {
+                    final Document document = new Document();
+                    for (int k = between(0, 3); k > 0; k--) {
+                        document.add(new SortedSetDocValuesField("field", new BytesRef(randomAlphaOfLength(between(1, 3)))));
+                    }
+                    writer.addDocument(document);
+                }
+                writer.commit();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+                final long[] valueCounts = new long[subs.length];
+                for (int i = 0; i < subs.length; i++) {
+                    subs[i] = DocValues.getSortedSet(reader.leaves().get(i).reader(), "field");
+                    valueCounts[i] = subs[i].getValueCount();
+                }
+                final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+                final byte[][] segmentIds = PersistedGlobalOrdinals.segmentIds(reader);
+                assertArrayEquals(segmentIds, PersistedGlobalOrdinals.segmentIds(SegmentInfos.readLatestCommit(dir)));
+
+                assertNull(PersistedGlobalOrdinals.read(dir, "field", segmentIds, valueCounts));
+                PersistedGlobalOrdinals.write(dir, "field", segmentIds, valueCounts, GlobalOrdinalMap.of(ordinalMap));
+                // writing again replaces the persisted file
+                PersistedGlobalOrdinals.write(dir, "field", segmentIds, valueCounts, GlobalOrdinalMap.of(ordinalMap));
+
+                final GlobalOrdinalMap read = PersistedGlobalOrdinals.read(dir, "field", segmentIds, valueCounts);
+                assertNotNull(read);
+                assertThat(read.getValueCount(), equalTo(ordinalMap.getValueCount()));
+                for (int i = 0; i < subs.length; i++) {
+                    for (long ord = 0; ord < valueCounts[i]; ord++) {
+                        assertThat(read.getGlobalOrds(i).get(ord), equalTo(ordinalMap.getGlobalOrds(i).get(ord)));
+                    }
+                }
+                for (long globalOrd = 0; globalOrd < ordinalMap.getValueCount(); globalOrd++) {
+                    assertThat(read.getFirstSegmentNumber(globalOrd), equalTo(ordinalMap.getFirstSegmentNumber(globalOrd)));
+                    assertThat(read.getFirstSegmentOrd(globalOrd), equalTo(ordinalMap.getFirstSegmentOrd(globalOrd)));
+                }
+
+                // the persisted map is only used for the same field and segments
+                assertNull(PersistedGlobalOrdinals.read(dir, "other_field", segmentIds, valueCounts));
+                final byte[][] otherSegmentIds = segmentIds.clone();
+                otherSegmentIds[randomIntBetween(0, otherSegmentIds.length - 1)] = randomByteArrayOfLength(segmentIds[0].length);
+                assertNull(PersistedGlobalOrdinals.read(dir, "field", otherSegmentIds, valueCounts));
+
+                // only the persisted maps of the given fields survive the deletion of stale files
+                PersistedGlobalOrdinals.write(dir, "other_field", segmentIds, valueCounts, GlobalOrdinalMap.of(ordinalMap));
+                PersistedGlobalOrdinals.deleteStaleFiles(dir, Collections.singleton("other_field"));
+                assertNull(PersistedGlobalOrdinals.read(dir, "field", segmentIds, valueCounts));
+                assertNotNull(PersistedGlobalOrdinals.read(dir, "other_field", segmentIds, valueCounts));
+                PersistedGlobalOrdinals.deleteStaleFiles(dir, Collections.emptySet());
+                for (String file : dir.listAll()) {
+                    assertFalse(file, file.startsWith(PersistedGlobalOrdinals.FILE_PREFIX));
+                }
+            }
+        }
+    }
+}
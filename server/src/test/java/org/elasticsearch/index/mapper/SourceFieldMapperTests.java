@@ -19,7 +19,11 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -208,6 +212,113 @@ public class SourceFieldMapperTests extends ESSingleNodeTestCase {
             .startObject("_source").array("excludes", "foo.*").endObject()
             .endObject().endObject());
         assertFalse(parser.parse("type", new CompressedXContent(mapping)).sourceMapper().isComplete());
+
+        mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .endObject().endObject());
+        assertFalse(parser.parse("type", new CompressedXContent(mapping)).sourceMapper().isComplete());
+    }
+
+    public void testSyntheticNotUpdateable() throws Exception {
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        String mapping1 = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").endObject().endObject());
+        String mapping2 = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .endObject().endObject());
+        assertConflicts(mapping1, mapping2, parser, "Cannot update synthetic setting for [_source]");
+
+        // not changing is ok
+        assertConflicts(mapping2, mapping2, parser);
+    }
+
+    public void testSyntheticCannotBeDisabledOrFiltered() throws Exception {
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        String disabled = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).field("enabled", false).endObject()
+            .endObject().endObject());
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> parser.parse("type", new CompressedXContent(disabled)));
+        assertThat(e.getMessage(), containsString("[_source] can't be both disabled and synthetic"));
+
+        String filtered = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).array("includes", "foo.*").endObject()
+            .endObject().endObject());
+        e = expectThrows(MapperParsingException.class, () -> parser.parse("type", new CompressedXContent(filtered)));
+        assertThat(e.getMessage(), containsString("[_source] can't be both filtered and synthetic"));
+    }
+
+    public void testSyntheticUnsupportedFields() throws Exception {
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        String text = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .startObject("properties").startObject("field").field("type", "text").endObject().endObject()
+            .endObject().endObject());
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse("type", new CompressedXContent(text)));
+        assertThat(e.getMessage(), containsString("field [field] of type [text] doesn't support synthetic _source"));
+
+        String nested = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .startObject("properties").startObject("obj").field("type", "nested").endObject().endObject()
+            .endObject().endObject());
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(nested)));
+        assertThat(e.getMessage(), containsString("nested object [obj] doesn't support synthetic _source"));
+
+        String copyTo = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .startObject("properties")
+                .startObject("field").field("type", "keyword").field("copy_to", "other").endObject()
+                .startObject("other").field("type", "keyword").endObject()
+            .endObject()
+            .endObject().endObject());
+        e = expectThrows(IllegalArgumentException.class, () -> parser.parse("type", new CompressedXContent(copyTo)));
+        assertThat(e.getMessage(), containsString("field [field] is copied to other fields"));
+    }
+
+    public void testSynthetic() throws Exception {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .startObject("properties")
+                .startObject("long").field("type", "long").endObject()
+                .startObject("double").field("type", "double").endObject()
+                .startObject("keyword").field("type", "keyword").endObject()
+                .startObject("bool").field("type", "boolean").endObject()
+                .startObject("text").field("type", "text").field("store", true).endObject()
+                .startObject("missing").field("type", "integer").endObject()
+                .startObject("obj").startObject("properties")
+                    .startObject("float").field("type", "float").endObject()
+                    .startObject("empty").startObject("properties")
+                        .startObject("short").field("type", "short").endObject()
+                    .endObject().endObject()
+                .endObject().endObject()
+            .endObject()
+            .endObject().endObject());
+        DocumentMapper documentMapper = createIndex("test").mapperService().documentMapperParser()
+            .parse("type", new CompressedXContent(mapping));
+        assertTrue(documentMapper.sourceMapper().isSynthetic());
+        assertNotNull(documentMapper.syntheticSourceLoader());
+
+        ParsedDocument doc = documentMapper.parse(SourceToParse.source("test", "type", "1",
+            BytesReference.bytes(XContentFactory.jsonBuilder().startObject()
+                .array("long", 3, 1)
+                .field("text", "some text")
+                .field("double", 1.5)
+                .array("keyword", "b", "a", "b")
+                .field("bool", true)
+                .startObject("obj").field("float", 2.5f).startObject("empty").endObject().endObject()
+                .endObject()),
+            XContentType.JSON));
+        assertNull(doc.rootDoc().getField("_source"));
+
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            writer.addDocument(doc.rootDoc());
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                BytesReference source = documentMapper.syntheticSourceLoader().load(reader.leaves().get(0).reader(), 0);
+                assertThat(source.utf8ToString(), equalTo("{\"bool\":true,\"double\":1.5,\"keyword\":[\"a\",\"b\"],"
+                    + "\"long\":[1,3],\"obj\":{\"float\":2.5},\"text\":\"some text\"}"));
+            }
+        }
     }
 
     public void testSourceObjectContainsExtraTokens() throws Exception {
@@ -20,9 +20,23 @@
 package org.elasticsearch.index.query;
 
 import com.carrotsearch.randomizedtesting.generators.RandomPicks;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.search.join.QueryBitSetProducer;
 import org.apache.lucene.search.join.ScoreMode;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
 import org.elasticsearch.common.Strings;
@@ -41,7 +55,9 @@ import org.elasticsearch.test.VersionUtils;
 import org.hamcrest.Matchers;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.elasticsearch.index.IndexSettingsTests.newIndexMeta;
@@ -354,4 +370,60 @@ public class NestedQueryBuilderTests extends AbstractQueryTestCase<NestedQueryBu
         nestedContextBuilder.build(searchContext, innerHitsContext);
         assertThat(innerHitsContext.getInnerHits().size(), Matchers.equalTo(0));
     }
+
+    public void testIntersectChildren() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            final int numParents = between(1, 50);
+            final int[] parentDocs = new int[numParents];
+            final int[] expectedCounts = new int[numParents];
+            int docId = 0;
+            for (int i = 0; i < numParents; i++) {
+                List<Document> block = new ArrayList<>();
+                for (int j = between(0, 5); j > 0; j--) {
+                    Document child = new Document();
+                    child.add(new StringField("type", "child", Field.Store.NO));
+                    boolean matches = randomBoolean();
+                    child.add(new StringField("value", matches ? "a" : "b", Field.Store.NO));
+                    if (matches) {
+                        expectedCounts[i]++;
+                    }
+                    block.add(child);
+                }
+                Document parent = new Document();
+                parent.add(new StringField("type", "parent", Field.Store.NO));
+                block.add(parent);
+                writer.addDocuments(block);
+                docId += block.size();
+                parentDocs[i] = docId - 1;
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertThat(reader.leaves().size(), equalTo(1));
+                IndexSearcher searcher = new IndexSearcher(reader);
+                Weight childWeight = searcher.createWeight(new TermQuery(new Term("type", "child")),
+                    org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES, 1f);
+                Weight innerHitQueryWeight = searcher.createWeight(new TermQuery(new Term("value", "a")),
+                    org.apache.lucene.search.ScoreMode.COMPLETE, 1f);
+
+                // collect the children of a random subset of the parents, in doc id order
+                List<Integer> selected = new ArrayList<>();
+                for (int i = 0; i < numParents; i++) {
+                    if (randomBoolean()) {
+                        selected.add(i);
+                    }
+                }
+                int[] selectedDocs = new int[selected.size()];
+                Collector[] collectors = new Collector[selected.size()];
+                for (int i = 0; i < selected.size(); i++) {
+                    selectedDocs[i] = parentDocs[selected.get(i)];
+                    collectors[i] = new TotalHitCountCollector();
+                }
+                NestedQueryBuilder.NestedInnerHitSubContext.intersectChildren(childWeight, innerHitQueryWeight,
+                    new QueryBitSetProducer(new TermQuery(new Term("type", "parent"))), reader.leaves().get(0), selectedDocs, collectors);
+                for (int i = 0; i < selected.size(); i++) {
+                    assertThat(((TotalHitCountCollector) collectors[i]).getTotalHits(), equalTo(expectedCounts[selected.get(i)]));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.store.ChecksumVerificationStats;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.test.DummyShardLock;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class BackgroundChecksumVerificationTests extends ESTestCase {
+
+    private static final IndexSettings INDEX_SETTINGS = IndexSettingsModule.newIndexSettings("index",
+        Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT).build());
+
+    public void testVerifiesAllFiles() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        try (Store store = new Store(shardId, INDEX_SETTINGS, newDirectory(), new DummyShardLock(shardId))) {
+            final List<StoreFileMetaData> files = new ArrayList<>();
+            long totalBytes = 0;
+            for (int i = between(1, 5); i > 0; i--) {
+                final StoreFileMetaData file = writeFile(store.directory(), "file_" + i, between(0, 1 << 18));
+                files.add(file);
+                totalBytes += file.length();
+            }
+            // a file that was deleted since the list of files was taken is skipped
+            files.add(new StoreFileMetaData("missing", 100, "0", Version.LATEST));
+            totalBytes += 100;
+
+            final BackgroundChecksumVerification verification = new BackgroundChecksumVerification(store, () -> false);
+            assertStats(verification.stats(), 0, 0, 1, 0, 0);
+            verification.verify(files, randomBoolean() ? null : new RateLimiter.SimpleRateLimiter(1 << 10));
+            assertStats(verification.stats(), totalBytes, totalBytes, 0, 1, 0);
+        }
+    }
+
+    public void testCorruptedFile() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        try (Store store = new Store(shardId, INDEX_SETTINGS, newDirectory(), new DummyShardLock(shardId))) {
+            final StoreFileMetaData file = writeFile(store.directory(), "file", between(1, 1 << 16));
+            flipByte(store.directory(), file.name(), randomLongBetween(CodecUtil.headerLength("test"),
+                file.length() - CodecUtil.footerLength() - 1));
+
+            // the footer is intact, so only reading the whole file finds the corruption
+            Store.checkFooter(file, store.directory());
+            final BackgroundChecksumVerification verification = new BackgroundChecksumVerification(store, () -> false);
+            expectThrows(CorruptIndexException.class, () -> verification.verify(Collections.singletonList(file), null));
+            assertStats(verification.stats(), file.length(), file.length() - CodecUtil.footerLength(), 0, 0, 1);
+        }
+    }
+
+    public void testCorruptedFooter() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        try (Store store = new Store(shardId, INDEX_SETTINGS, newDirectory(), new DummyShardLock(shardId))) {
+            final StoreFileMetaData file = writeFile(store.directory(), "file", between(1, 1 << 16));
+            flipByte(store.directory(), file.name(), randomFrom(0L, file.length() - 1 - between(0, 7)));
+            expectThrows(CorruptIndexException.class, () -> Store.checkFooter(file, store.directory()));
+        }
+    }
+
+    public void testCancel() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        try (Store store = new Store(shardId, INDEX_SETTINGS, newDirectory(), new DummyShardLock(shardId))) {
+            final List<StoreFileMetaData> files = new ArrayList<>();
+            long totalBytes = 0;
+            for (int i = between(1, 5); i > 0; i--) {
+                final StoreFileMetaData file = writeFile(store.directory(), "file_" + i, between(0, 1 << 18));
+                files.add(file);
+                totalBytes += file.length();
+            }
+            final AtomicBoolean cancelled = new AtomicBoolean(true);
+            final BackgroundChecksumVerification verification = new BackgroundChecksumVerification(store, cancelled::get);
+            verification.verify(files, null);
+            // cancelled verifications are neither in progress, completed nor failed
+            assertStats(verification.stats(), totalBytes, 0, 0, 0, 0);
+        }
+    }
+
+    private static void assertStats(ChecksumVerificationStats stats, long totalInBytes, long verifiedInBytes, long inProgress,
+                                    long completed, long failed) {
+        assertThat(stats.getTotalInBytes(), equalTo(totalInBytes));
+        assertThat(stats.getVerifiedInBytes(), equalTo(verifiedInBytes));
+        assertThat(stats.getInProgress(), equalTo(inProgress));
+        assertThat(stats.getCompleted(), equalTo(completed));
+        assertThat(stats.getFailed(), equalTo(failed));
+    }
+
+    private StoreFileMetaData writeFile(Directory directory, String name, int contentLength) throws IOException {
+        try (IndexOutput output = directory.createOutput(name, IOContext.DEFAULT)) {
+            CodecUtil.writeHeader(output, "test", 0);
+            output.writeBytes(randomByteArrayOfLength(contentLength), contentLength);
+            CodecUtil.writeFooter(output);
+        }
+        try (IndexInput input = directory.openInput(name, IOContext.DEFAULT)) {
+            final String checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+            return new StoreFileMetaData(name, input.length(), checksum, Version.LATEST);
+        }
+    }
+
+    private static void flipByte(Directory directory, String name, long position) throws IOException {
+        final byte[] content;
+        try (IndexInput input = directory.openInput(name, IOContext.DEFAULT)) {
+            content = new byte[Math.toIntExact(input.length())];
+            input.readBytes(content, 0, content.length);
+        }
+        content[Math.toIntExact(position)] ^= 42;
+        directory.deleteFile(name);
+        try (IndexOutput output = directory.createOutput(name, IOContext.DEFAULT)) {
+            output.writeBytes(content, content.length);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ContentDefinedChunkerTests extends ESTestCase {
+
+    public void testChunksReassembleToInput() throws IOException {
+        final int averageSize = 1 << between(6, 12);
+        final byte[] data = randomByteArrayOfLength(between(0, 1 << 16));
+        final List<byte[]> chunks = chunk(data, averageSize);
+        final ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks.size(); i++) {
+            final byte[] chunk = chunks.get(i);
+            assertThat(chunk.length, lessThanOrEqualTo(averageSize * 4));
+            if (i < chunks.size() - 1) {
+                assertThat(chunk.length, greaterThan(averageSize / 4));
+            }
+            reassembled.write(chunk);
+        }
+        assertArrayEquals(data, reassembled.toByteArray());
+    }
+
+    public void testBoundariesSurviveInsertion() throws IOException {
+        final int averageSize = 1 << 8;
+        final byte[] data = randomByteArrayOfLength(1 << 16);
+        final byte[] inserted = randomByteArrayOfLength(between(1, 100));
+        final byte[] modified = new byte[data.length + inserted.length];
+        final int insertPosition = between(0, data.length);
+        System.arraycopy(data, 0, modified, 0, insertPosition);
+        System.arraycopy(inserted, 0, modified, insertPosition, inserted.length);
+        System.arraycopy(data, insertPosition, modified, insertPosition + inserted.length, data.length - insertPosition);
+
+        final Set<String> originalChunks = new HashSet<>();
+        for (byte[] chunk : chunk(data, averageSize)) {
+            originalChunks.add(Arrays.toString(chunk));
+        }
+        final List<byte[]> modifiedChunks = chunk(modified, averageSize);
+        int shared = 0;
+        for (byte[] chunk : modifiedChunks) {
+            if (originalChunks.contains(Arrays.toString(chunk))) {
+                shared++;
+            }
+        }
+        // only the chunks around the insertion change, so the vast majority of the chunks is shared with the original
+        assertThat(shared, greaterThanOrEqualTo(modifiedChunks.size() - 8));
+    }
+
+    public void testAverageChunkSize() throws IOException {
+        final int averageSize = 1 << between(6, 10);
+        final List<byte[]> chunks = chunk(randomByteArrayOfLength(averageSize << 10), averageSize);
+        final double actualAverage = (double) (averageSize << 10) / chunks.size();
+        assertThat(actualAverage, greaterThan(averageSize * 0.85));
+        assertThat(actualAverage, lessThan(averageSize * 1.15));
+    }
+
+    public void testInvalidAverageSize() {
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(new ByteArrayInputStream(new byte[0]), 1000));
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(new ByteArrayInputStream(new byte[0]), 32));
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(new ByteArrayInputStream(new byte[0]),
+            ContentDefinedChunker.MAX_AVERAGE_SIZE << 1));
+    }
+
+    private static List<byte[]> chunk(byte[] data, int averageSize) throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(new ByteArrayInputStream(data), averageSize);
+        final byte[] buffer = new byte[chunker.maxChunkSize()];
+        final List<byte[]> chunks = new ArrayList<>();
+        int length;
+        while ((length = chunker.nextChunk(buffer)) > 0) {
+            chunks.add(Arrays.copyOf(buffer, length));
+        }
+        return chunks;
+    }
+}
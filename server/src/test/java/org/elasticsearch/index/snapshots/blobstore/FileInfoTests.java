@@ -34,6 +34,9 @@ import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -172,4 +175,42 @@ public class FileInfoTests extends ESTestCase {
         }
 
     }
+
+    public void testChunksToFromXContent() throws IOException {
+        final List<FileInfo.Chunk> chunks = new ArrayList<>();
+        long length = 0;
+        final int numChunks = randomIntBetween(1, 20);
+        for (int i = 0; i < numChunks; i++) {
+            final FileInfo.Chunk chunk = new FileInfo.Chunk("chunk-" + randomAlphaOfLength(10).toLowerCase(Locale.ROOT),
+                randomLongBetween(1, 1 << 20));
+            chunks.add(chunk);
+            length += chunk.length();
+        }
+        StoreFileMetaData meta = new StoreFileMetaData("foobar", length, randomAlphaOfLengthBetween(1, 10), Version.LATEST);
+        FileInfo info = new FileInfo("_foobar", meta, chunks);
+        assertThat(info.numberOfParts(), equalTo((long) numChunks));
+        long offset = 0;
+        for (int i = 0; i < numChunks; i++) {
+            assertThat(info.partName(i), equalTo(chunks.get(i).name()));
+            assertThat(info.partBytes(i), equalTo(chunks.get(i).length()));
+            assertThat(info.partOffset(i), equalTo(offset));
+            assertThat(info.partAt(offset), equalTo(i));
+            assertThat(info.partAt(offset + chunks.get(i).length() - 1), equalTo(i));
+            offset += chunks.get(i).length();
+        }
+
+        XContentBuilder builder = XContentFactory.contentBuilder(XContentType.JSON).prettyPrint();
+        FileInfo.toXContent(info, builder, ToXContent.EMPTY_PARAMS);
+        byte[] xcontent = BytesReference.toBytes(BytesReference.bytes(shuffleXContent(builder)));
+        final FileInfo parsedInfo;
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, xcontent)) {
+            parser.nextToken();
+            parsedInfo = FileInfo.fromXContent(parser);
+        }
+        assertThat(parsedInfo.chunks(), equalTo(chunks));
+        assertThat(parsedInfo.isSame(info), is(true));
+
+        expectThrows(IllegalArgumentException.class, () -> new FileInfo("_foobar",
+            new StoreFileMetaData("foobar", meta.length() + 1, meta.checksum(), Version.LATEST), chunks));
+    }
 }
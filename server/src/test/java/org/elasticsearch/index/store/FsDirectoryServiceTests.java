@@ -20,8 +20,11 @@ package org.elasticsearch.index.store;
 
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FileSwitchDirectory;
+import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.store.SleepingLockWrapper;
+import org.elasticsearch.bootstrap.FileAccessAdvice;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
@@ -47,6 +50,7 @@ public class FsDirectoryServiceTests extends ESTestCase {
         Settings build = Settings.builder()
                 .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), "mmapfs")
                 .putList(IndexModule.INDEX_STORE_PRE_LOAD_SETTING.getKey(), preload)
+                .put(FsDirectoryService.INDEX_READ_ADVICE_SETTING.getKey(), false)
                 .build();
         IndexSettings settings = IndexSettingsModule.newIndexSettings("foo", build);
         IndexStore store = new IndexStore(settings);
@@ -71,4 +75,26 @@ public class FsDirectoryServiceTests extends ESTestCase {
             assertFalse(((MMapDirectory) fsd.getSecondaryDir()).getPreload());
         }
     }
+
+    public void testReadAdvice() throws IOException {
+        final boolean readAdvice = randomBoolean();
+        Settings build = Settings.builder()
+                .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), "niofs")
+                .put(FsDirectoryService.INDEX_READ_ADVICE_SETTING.getKey(), readAdvice)
+                .build();
+        IndexSettings settings = IndexSettingsModule.newIndexSettings("foo", build);
+        IndexStore store = new IndexStore(settings);
+        Path tempDir = createTempDir().resolve(settings.getUUID()).resolve("0");
+        Files.createDirectories(tempDir);
+        ShardPath path = new ShardPath(false, tempDir, tempDir, new ShardId(settings.getIndex(), 0));
+        FsDirectoryService fsDirectoryService = new FsDirectoryService(settings, store, path);
+        try (Directory directory = fsDirectoryService.newDirectory()) {
+            if (readAdvice && FileAccessAdvice.isSupported()) {
+                assertTrue(directory.toString(), directory instanceof ReadAdviceDirectory);
+                assertTrue(directory.toString(), FilterDirectory.unwrap(directory) instanceof NIOFSDirectory);
+            } else {
+                assertTrue(directory.toString(), directory instanceof NIOFSDirectory);
+            }
+        }
+    }
 }
@@ -0,0 +1,254 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MergeInfo;
+import org.elasticsearch.bootstrap.FileAccessAdvice.Advice;
+import org.elasticsearch.bootstrap.FileAccessAdvice.AdvisedFile;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class ReadAdviceDirectoryTests extends ESTestCase {
+
+    private static final class RecordedAdvice {
+        final Path file;
+        final long offset;
+        final long length;
+        final Advice advice;
+
+        RecordedAdvice(Path file, long offset, long length, Advice advice) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.advice = advice;
+        }
+    }
+
+    public void testReadOnceReadsAheadAndDropsFile() throws IOException {
+        final Path location = createTempDir();
+        final List<RecordedAdvice> advices = Collections.synchronizedList(new ArrayList<>());
+        final byte[] content = randomByteArrayOfLength(between(1, 1 << 16));
+        try (Directory dir = new ReadAdviceDirectory(newFSDirectory(location), location, Collections.emptySet(),
+            recording(advices))) {
+            writeFile(dir, "foo", content);
+            // only files that were read by merges and not by searches are dropped
+            try (IndexInput input = dir.openInput("foo", new IOContext(new MergeInfo(1, content.length, false, 1)))) {
+                assertThat(input.length(), equalTo((long) content.length));
+            }
+            final byte[] read = new byte[content.length];
+            try (IndexInput input = dir.openInput("foo", IOContext.READONCE)) {
+                input.readBytes(read, 0, read.length);
+            }
+            assertArrayEquals(content, read);
+            assertThat(advices.size(), equalTo(2));
+            assertThat(advices.get(0).file, equalTo(location.resolve("foo")));
+            assertThat(advices.get(0).advice, equalTo(Advice.WILL_NEED));
+            assertThat(advices.get(0).offset, equalTo(0L));
+            assertThat(advices.get(0).length, equalTo((long) content.length));
+            assertThat(advices.get(1).advice, equalTo(Advice.DONT_NEED));
+        }
+    }
+
+    public void testReadAheadFollowsPosition() throws IOException {
+        final Path location = createTempDir();
+        final List<RecordedAdvice> advices = Collections.synchronizedList(new ArrayList<>());
+        final long window = ReadAdviceDirectory.READ_AHEAD_WINDOW_BYTES;
+        try (Directory dir = new ReadAdviceDirectory(newFSDirectory(location), location, Collections.emptySet(),
+            recording(advices))) {
+            writeFile(dir, "foo", new byte[Math.toIntExact(window * 2 + 1)]);
+            try (IndexInput input = dir.openInput("foo", IOContext.READONCE)) {
+                // nothing is read ahead until the first read
+                assertThat(advices.size(), equalTo(0));
+                input.readByte();
+                assertThat(advices.size(), equalTo(1));
+                assertThat(advices.get(0).offset, equalTo(0L));
+                input.seek(window / 2);
+                input.readByte();
+                assertThat(advices.size(), equalTo(2));
+                assertThat(advices.get(1).offset, equalTo(window));
+                assertThat(advices.get(1).length, equalTo(window));
+                input.seek(window * 2);
+                input.readByte();
+                assertThat(advices.size(), equalTo(3));
+                assertThat(advices.get(2).offset, equalTo(window * 2));
+                assertThat(advices.get(2).length, equalTo(1L));
+                input.seek(0L);
+                input.readByte();
+                assertThat(advices.size(), equalTo(3));
+            }
+            for (RecordedAdvice advice : advices.subList(0, 3)) {
+                assertThat(advice.advice, equalTo(Advice.WILL_NEED));
+                assertThat(advice.length, greaterThan(0L));
+            }
+        }
+    }
+
+    public void testFooterReadDoesNotReadAheadStart() throws IOException {
+        final Path location = createTempDir();
+        final List<RecordedAdvice> advices = Collections.synchronizedList(new ArrayList<>());
+        final int length = between(16, 1 << 16);
+        try (Directory dir = new ReadAdviceDirectory(newFSDirectory(location), location, Collections.emptySet(),
+            recording(advices))) {
+            writeFile(dir, "foo", randomByteArrayOfLength(length));
+            try (IndexInput input = dir.openInput("foo", IOContext.READONCE)) {
+                input.seek(length - 16);
+                input.readLong();
+            }
+            // the file was not read by a merge, so it is not dropped from the page cache
+            assertThat(advices.size(), equalTo(1));
+            assertThat(advices.get(0).advice, equalTo(Advice.WILL_NEED));
+            assertThat(advices.get(0).offset, equalTo(length - 16L));
+            assertThat(advices.get(0).length, equalTo(16L));
+        }
+    }
+
+    public void testSearchedFilesAreNotDropped() throws IOException {
+        final Path location = createTempDir();
+        final List<RecordedAdvice> advices = Collections.synchronizedList(new ArrayList<>());
+        try (ReadAdviceDirectory dir = new ReadAdviceDirectory(newFSDirectory(location), location, Collections.singleton("dvd"),
+            recording(advices))) {
+            writeFile(dir, "_0.dvd", randomByteArrayOfLength(between(1, 1024)));
+            writeFile(dir, "_0.tim", randomByteArrayOfLength(between(1, 1024)));
+
+            // preloaded extensions are read ahead when opened for searches
+            try (IndexInput input = dir.openInput("_0.dvd", IOContext.READ)) {
+                assertTrue(dir.isSearched("_0.dvd"));
+                assertThat(advices.size(), equalTo(1));
+                assertThat(advices.get(0).advice, equalTo(Advice.WILL_NEED));
+            }
+            try (IndexInput input = dir.openInput("_0.tim", IOContext.READ)) {
+                assertTrue(dir.isSearched("_0.tim"));
+                assertThat(advices.size(), equalTo(1));
+            }
+
+            advices.clear();
+            try (IndexInput input = dir.openInput("_0.tim", IOContext.READONCE)) {
+                input.readByte();
+            }
+            assertThat(advices.size(), equalTo(1));
+            assertThat(advices.get(0).advice, equalTo(Advice.WILL_NEED));
+
+            // a file that is searched and merged is not dropped either
+            try (IndexInput input = dir.openInput("_0.tim", new IOContext(new MergeInfo(1, 1024, false, 1)))) {
+                assertTrue(dir.isMerged("_0.tim"));
+            }
+            advices.clear();
+            try (IndexInput input = dir.openInput("_0.tim", IOContext.READONCE)) {
+                input.readByte();
+            }
+            assertThat(advices.size(), equalTo(1));
+            assertThat(advices.get(0).advice, equalTo(Advice.WILL_NEED));
+
+            dir.deleteFile("_0.tim");
+            assertFalse(dir.isSearched("_0.tim"));
+            assertFalse(dir.isMerged("_0.tim"));
+        }
+    }
+
+    public void testClonesAndSlicesReadAheadThroughOneDescriptor() throws IOException {
+        final Path location = createTempDir();
+        final List<RecordedAdvice> advices = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+        final ReadAdviceDirectory.Advisor advisor = file -> {
+            opened.incrementAndGet();
+            return new AdvisedFile() {
+                @Override
+                public boolean advise(long offset, long length, Advice advice) {
+                    return advices.add(new RecordedAdvice(file, offset, length, advice));
+                }
+
+                @Override
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            };
+        };
+        final int length = between(1024, 1 << 16);
+        try (Directory dir = new ReadAdviceDirectory(newFSDirectory(location), location, Collections.emptySet(), advisor)) {
+            writeFile(dir, "foo", randomByteArrayOfLength(length));
+            try (IndexInput input = dir.openInput("foo", IOContext.READONCE)) {
+                final IndexInput clone = input.clone();
+                clone.readByte();
+                assertThat(advices.size(), equalTo(1));
+                assertThat(advices.get(0).offset, equalTo(0L));
+
+                final long sliceOffset = between(1, length / 2);
+                final IndexInput slice = input.slice("slice", sliceOffset, length - sliceOffset);
+                slice.readByte();
+                assertThat(advices.size(), equalTo(2));
+                assertThat(advices.get(1).offset, equalTo(sliceOffset));
+                assertThat(advices.get(1).length, equalTo(length - sliceOffset));
+
+                // closing clones and slices keeps the descriptor open for the input
+                clone.close();
+                slice.close();
+                assertThat(closed.get(), equalTo(0));
+            }
+            assertThat(opened.get(), equalTo(1));
+            assertThat(closed.get(), equalTo(1));
+        }
+    }
+
+    public void testRenameAndCloseForgetFiles() throws IOException {
+        final Path location = createTempDir();
+        final ReadAdviceDirectory dir = new ReadAdviceDirectory(newFSDirectory(location), location, Collections.emptySet(),
+            recording(Collections.synchronizedList(new ArrayList<>())));
+        try {
+            writeFile(dir, "foo", randomByteArrayOfLength(between(1, 1024)));
+            writeFile(dir, "bar", randomByteArrayOfLength(between(1, 1024)));
+            dir.openInput("foo", IOContext.READ).close();
+            dir.openInput("bar", IOContext.READ).close();
+            assertTrue(dir.isSearched("foo"));
+            assertTrue(dir.isSearched("bar"));
+
+            dir.rename("foo", "baz");
+            assertFalse(dir.isSearched("foo"));
+            assertFalse(dir.isSearched("baz"));
+            assertTrue(dir.isSearched("bar"));
+        } finally {
+            dir.close();
+        }
+        assertFalse(dir.isSearched("bar"));
+    }
+
+    private static ReadAdviceDirectory.Advisor recording(List<RecordedAdvice> advices) {
+        return file -> (offset, length, advice) -> advices.add(new RecordedAdvice(file, offset, length, advice));
+    }
+
+    private static void writeFile(Directory dir, String name, byte[] content) throws IOException {
+        try (IndexOutput output = dir.createOutput(name, IOContext.DEFAULT)) {
+            output.writeBytes(content, content.length);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.indices;
+
+import org.apache.lucene.store.RateLimiter;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IndicesChecksumVerificationServiceTests extends ESTestCase {
+
+    public void testVerifiesShardsOneAfterTheOtherWithASharedLimit() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        final boolean unlimited = randomBoolean();
+        final Settings settings = Settings.builder()
+            .put(IndicesChecksumVerificationService.INDICES_CHECKSUM_VERIFICATION_MAX_BYTES_PER_SEC_SETTING.getKey(),
+                unlimited ? "0" : "10mb")
+            .build();
+        try (IndicesChecksumVerificationService service = new IndicesChecksumVerificationService(settings, threadPool)) {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final Set<RateLimiter> rateLimiters = ConcurrentHashMap.newKeySet();
+            final AtomicInteger verified = new AtomicInteger();
+            final List<IndexShard> shards = new ArrayList<>();
+            for (int i = between(1, 20); i > 0; i--) {
+                final IndexShard shard = mock(IndexShard.class);
+                when(shard.hasBackgroundChecksumVerification()).thenReturn(true);
+                when(shard.state()).thenReturn(IndexShardState.STARTED);
+                doAnswer(invocation -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    if (invocation.getArguments()[0] != null) {
+                        rateLimiters.add((RateLimiter) invocation.getArguments()[0]);
+                    }
+                    Thread.sleep(randomIntBetween(0, 5));
+                    running.decrementAndGet();
+                    verified.incrementAndGet();
+                    return null;
+                }).when(shard).verifyChecksumsInBackground(any());
+                shards.add(shard);
+            }
+
+            final Thread[] threads = new Thread[between(1, 4)];
+            for (int t = 0; t < threads.length; t++) {
+                final int offset = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = offset; i < shards.size(); i += threads.length) {
+                        service.afterIndexShardStarted(shards.get(i));
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertBusy(() -> assertThat(verified.get(), equalTo(shards.size())));
+            assertThat(maxRunning.get(), lessThanOrEqualTo(1));
+            if (unlimited) {
+                assertThat(rateLimiters.size(), equalTo(0));
+            } else {
+                assertThat(rateLimiters.size(), equalTo(1));
+                assertThat(rateLimiters.iterator().next().getMBPerSec(), equalTo(10.0));
+            }
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testSkipsShardsWithoutBackgroundVerification() {
+        final ThreadPool threadPool = mock(ThreadPool.class);
+        try (IndicesChecksumVerificationService service = new IndicesChecksumVerificationService(Settings.EMPTY, threadPool)) {
+            final IndexShard shard = mock(IndexShard.class);
+            when(shard.hasBackgroundChecksumVerification()).thenReturn(false);
+            service.afterIndexShardStarted(shard);
+            verify(threadPool, never()).generic();
+            verify(shard, never()).verifyChecksumsInBackground(any());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.query.ParsedQuery;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class IndicesCompiledQueryCacheTests extends ESSingleNodeTestCase {
+
+    private static IndicesCompiledQueryCache newCache() {
+        return new IndicesCompiledQueryCache(Settings.builder()
+            .put(IndicesCompiledQueryCache.INDICES_COMPILED_QUERY_CACHE_SIZE.getKey(), "1mb").build());
+    }
+
+    private static ParsedQuery toQuery(IndexService indexService, QueryBuilder queryBuilder, IndicesCompiledQueryCache cache) {
+        QueryShardContext context = indexService.newQueryShardContext(0, null, () -> 42L, null);
+        return context.toQuery(queryBuilder, cache);
+    }
+
+    public void testCachesQueries() {
+        IndexService indexService = createIndex("index", Settings.EMPTY, "type", "field", "type=text", "date", "type=date");
+        try (IndicesCompiledQueryCache cache = newCache()) {
+            ParsedQuery first = toQuery(indexService, QueryBuilders.queryStringQuery("field:(foo OR bar)").queryName("q"), cache);
+            assertThat(cache.count(), equalTo(1));
+            ParsedQuery second = toQuery(indexService, QueryBuilders.queryStringQuery("field:(foo OR bar)").queryName("q"), cache);
+            assertThat(second, sameInstance(first));
+            assertThat(second.namedFilters().keySet(), equalTo(first.namedFilters().keySet()));
+
+            // other parameters are other entries
+            ParsedQuery other = toQuery(indexService, QueryBuilders.queryStringQuery("field:(foo OR baz)").queryName("q"), cache);
+            assertThat(other.query(), not(equalTo(first.query())));
+            assertThat(cache.count(), equalTo(2));
+
+            // queries that depend on the current time are not cached
+            toQuery(indexService, QueryBuilders.rangeQuery("date").gte("now-1d"), cache);
+            assertThat(cache.count(), equalTo(2));
+
+            // updating the mappings invalidates the entries
+            client().admin().indices().preparePutMapping("index").setType("type")
+                .setSource("{\"properties\":{\"other\":{\"type\":\"keyword\"}}}", XContentType.JSON).get();
+            ParsedQuery afterUpdate = toQuery(indexService, QueryBuilders.queryStringQuery("field:(foo OR bar)").queryName("q"), cache);
+            assertThat(afterUpdate, not(sameInstance(first)));
+            assertThat(afterUpdate.query(), equalTo(first.query()));
+            assertThat(cache.count(), equalTo(3));
+
+            // updating the index settings invalidates the entries
+            client().admin().indices().prepareUpdateSettings("index")
+                .setSettings(Settings.builder().put(IndexSettings.MAX_RESULT_WINDOW_SETTING.getKey(), 100)).get();
+            ParsedQuery afterSettingsUpdate =
+                toQuery(indexService, QueryBuilders.queryStringQuery("field:(foo OR bar)").queryName("q"), cache);
+            assertThat(afterSettingsUpdate, not(sameInstance(afterUpdate)));
+            assertThat(cache.count(), equalTo(4));
+
+            cache.onClose(new ShardId(indexService.index(), 0));
+            assertThat(cache.count(), equalTo(0));
+            assertThat(cache.weight(), equalTo(0L));
+        }
+    }
+
+    public void testWeighsQueryBuildersBySerializedSize() {
+        IndexService indexService = createIndex("index", Settings.EMPTY, "type", "field", "type=keyword");
+        try (IndicesCompiledQueryCache cache = newCache()) {
+            toQuery(indexService, QueryBuilders.termsQuery("field", "foo"), cache);
+            final long smallWeight = cache.weight();
+            cache.onClose(new ShardId(indexService.index(), 0));
+            assertThat(cache.weight(), equalTo(0L));
+
+            final String[] terms = new String[1000];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = randomAlphaOfLength(20) + i;
+            }
+            toQuery(indexService, QueryBuilders.termsQuery("field", terms), cache);
+            assertThat(cache.weight(), greaterThan(smallWeight + terms.length * 20));
+        }
+    }
+
+    public void testDisabledByDefault() {
+        IndexService indexService = createIndex("index", Settings.EMPTY, "type", "field", "type=text");
+        try (IndicesCompiledQueryCache cache = new IndicesCompiledQueryCache(Settings.EMPTY)) {
+            ParsedQuery first = toQuery(indexService, QueryBuilders.termQuery("field", "foo"), cache);
+            ParsedQuery second = toQuery(indexService, QueryBuilders.termQuery("field", "foo"), cache);
+            assertThat(second, not(sameInstance(first)));
+            assertThat(cache.count(), equalTo(0));
+        }
+    }
+}
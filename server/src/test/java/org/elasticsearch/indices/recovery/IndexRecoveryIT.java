@@ -44,6 +44,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.recovery.RecoveryStats;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.indices.IndicesService;
@@ -507,6 +508,80 @@ public class IndexRecoveryIT extends ESIntegTestCase {
         }
     }
 
+    public void testReplicaRecoverySeededFromSnapshot() throws Exception {
+        logger.info("--> start node A");
+        String nodeA = internalCluster().startNode();
+
+        logger.info("--> create repository");
+        assertAcked(client().admin().cluster().preparePutRepository(REPO_NAME)
+                .setType("fs").setSettings(Settings.builder()
+                                .put("location", randomRepoPath())
+                                .put("compress", randomBoolean())
+                ).get());
+
+        logger.info("--> create index on node: {}", nodeA);
+        createAndPopulateIndex(INDEX_NAME, 1, SHARD_COUNT, REPLICA_COUNT);
+
+        logger.info("--> snapshot");
+        CreateSnapshotResponse createSnapshotResponse = client().admin().cluster().prepareCreateSnapshot(REPO_NAME, SNAP_NAME)
+                .setWaitForCompletion(true).setIndices(INDEX_NAME).get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+
+        logger.info("--> start node B");
+        String nodeB = internalCluster().startNode();
+        ensureGreen();
+
+        logger.info("--> bump replica count and seed replicas from the repository");
+        client().admin().indices().prepareUpdateSettings(INDEX_NAME)
+                .setSettings(Settings.builder()
+                    .put("number_of_replicas", 1)
+                    .put(IndexSettings.INDEX_RECOVERY_REPOSITORY_SETTING.getKey(), REPO_NAME)).execute().actionGet();
+        ensureGreen();
+
+        logger.info("--> request recoveries");
+        RecoveryResponse response = client().admin().indices().prepareRecoveries(INDEX_NAME).execute().actionGet();
+        List<RecoveryState> nodeBResponses = findRecoveriesForTargetNode(nodeB, response.shardRecoveryStates().get(INDEX_NAME));
+        assertThat(nodeBResponses.size(), equalTo(1));
+
+        // the files of the snapshot were fetched from the repository, so the peer recovery reuses them instead of copying them
+        RecoveryState nodeBRecoveryState = nodeBResponses.get(0);
+        assertRecoveryState(nodeBRecoveryState, 0, PeerRecoverySource.INSTANCE, false, Stage.DONE, nodeA, nodeB);
+        validateIndexRecoveryState(nodeBRecoveryState.getIndex());
+        assertThat(nodeBRecoveryState.getIndex().reusedFileCount(), greaterThan(0));
+        assertHitCount(client().prepareSearch(INDEX_NAME).setPreference("_only_nodes:" + nodeB).setSize(0).get(),
+            client().prepareSearch(INDEX_NAME).setSize(0).get().getHits().getTotalHits());
+    }
+
+    public void testReplicaRecoveryWithUnknownSeedRepository() throws Exception {
+        logger.info("--> start node A");
+        internalCluster().startNode();
+
+        logger.info("--> create index");
+        createAndPopulateIndex(INDEX_NAME, 1, SHARD_COUNT, REPLICA_COUNT);
+
+        logger.info("--> start node B");
+        String nodeB = internalCluster().startNode();
+        ensureGreen();
+
+        logger.info("--> bump replica count and seed replicas from a repository that does not exist");
+        client().admin().indices().prepareUpdateSettings(INDEX_NAME)
+                .setSettings(Settings.builder()
+                    .put("number_of_replicas", 1)
+                    .put(IndexSettings.INDEX_RECOVERY_REPOSITORY_SETTING.getKey(), "unknown")).execute().actionGet();
+        ensureGreen();
+
+        logger.info("--> the replica recovered all files from the primary");
+        RecoveryResponse response = client().admin().indices().prepareRecoveries(INDEX_NAME).execute().actionGet();
+        List<RecoveryState> nodeBResponses = findRecoveriesForTargetNode(nodeB, response.shardRecoveryStates().get(INDEX_NAME));
+        assertThat(nodeBResponses.size(), equalTo(1));
+        RecoveryState nodeBRecoveryState = nodeBResponses.get(0);
+        assertThat(nodeBRecoveryState.getRecoverySource().getType(), equalTo(RecoverySource.Type.PEER));
+        assertThat(nodeBRecoveryState.getIndex().reusedFileCount(), equalTo(0));
+        assertThat(nodeBRecoveryState.getIndex().recoveredFileCount(), greaterThan(0));
+        assertHitCount(client().prepareSearch(INDEX_NAME).setPreference("_only_nodes:" + nodeB).setSize(0).get(),
+            client().prepareSearch(INDEX_NAME).setSize(0).get().getHits().getTotalHits());
+    }
+
     private List<RecoveryState> findRecoveriesForTargetNode(String nodeName, List<RecoveryState> recoveryStates) {
         List<RecoveryState> nodeResponses = new ArrayList<>();
         for (RecoveryState recoveryState : recoveryStates) {
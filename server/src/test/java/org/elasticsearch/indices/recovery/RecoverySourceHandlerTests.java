@@ -32,6 +32,8 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
@@ -40,9 +42,9 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.lease.Releasable;
-import org.elasticsearch.common.lucene.store.IndexOutputOutputStream;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
@@ -57,6 +59,7 @@ import org.elasticsearch.index.mapper.ParseContext;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.SeqNoStats;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
@@ -78,14 +81,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyObject;
@@ -107,8 +117,9 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         final RecoverySettings recoverySettings = new RecoverySettings(settings, service);
         final StartRecoveryRequest request = getStartRecoveryRequest();
         Store store = newStore(createTempDir());
-        RecoverySourceHandler handler = new RecoverySourceHandler(null, null, request,
-            recoverySettings.getChunkSize().bytesAsInt());
+        Store targetStore = newStore(createTempDir());
+        RecoverySourceHandler handler = new RecoverySourceHandler(startedShard(), new TargetStoreRecoveryTargetHandler(targetStore),
+            request, recoverySettings.getChunkSize().bytesAsInt(), between(1, 5));
         Directory dir = store.directory();
         RandomIndexWriter writer = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
         int numDocs = randomIntBetween(10, 100);
@@ -126,20 +137,7 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         for (StoreFileMetaData md : metadata) {
             metas.add(md);
         }
-        Store targetStore = newStore(createTempDir());
-        handler.sendFiles(store, metas.toArray(new StoreFileMetaData[0]), (md) -> {
-            try {
-                return new IndexOutputOutputStream(targetStore.createVerifyingOutput(md.name(), md, IOContext.DEFAULT)) {
-                    @Override
-                    public void close() throws IOException {
-                        super.close();
-                        targetStore.directory().sync(Collections.singleton(md.name())); // sync otherwise MDW will mess with it
-                    }
-                };
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        handler.sendFiles(store, metas.toArray(new StoreFileMetaData[0]), () -> 0);
         Store.MetadataSnapshot targetStoreMetadata = targetStore.getMetadata(null);
         Store.RecoveryDiff recoveryDiff = targetStoreMetadata.recoveryDiff(metadata);
         assertEquals(metas.size(), recoveryDiff.identical.size());
@@ -150,6 +148,123 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, targetStore);
     }
 
+    public void testSendFileChunksConcurrently() throws Exception {
+        final int maxConcurrentFileChunks = between(1, 5);
+        final int chunkSize = between(1, 64);
+        final Store store = newStore(createTempDir());
+        final List<StoreFileMetaData> files = new ArrayList<>();
+        final Map<String, byte[]> fileBytes = new HashMap<>();
+        final Map<String, byte[]> receivedBytes = new HashMap<>();
+        final int numFiles = between(1, 5);
+        for (int i = 0; i < numFiles; i++) {
+            final byte[] bytes = randomByteArrayOfLength(between(1, 512));
+            final String name = "file_" + i;
+            try (IndexOutput output = store.directory().createOutput(name, IOContext.DEFAULT)) {
+                output.writeBytes(bytes, bytes.length);
+            }
+            files.add(new StoreFileMetaData(name, bytes.length, "0", org.apache.lucene.util.Version.LATEST));
+            fileBytes.put(name, bytes);
+            receivedBytes.put(name, new byte[bytes.length]);
+        }
+        final int numChunks = fileBytes.values().stream().mapToInt(bytes -> (bytes.length + chunkSize - 1) / chunkSize).sum();
+        final List<Tuple<BytesReference, ActionListener<Void>>> unacknowledgedChunks = new ArrayList<>();
+        final AtomicInteger maxUnacknowledgedChunks = new AtomicInteger();
+        final Set<byte[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        final RecoveryTargetHandler recoveryTarget = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                                       int totalTranslogOps, ActionListener<Void> listener) {
+                final BytesRef bytes = content.toBytesRef();
+                System.arraycopy(bytes.bytes, bytes.offset, receivedBytes.get(fileMetaData.name()), Math.toIntExact(position),
+                    bytes.length);
+                final BytesReference expected = new BytesArray(BytesRef.deepCopyOf(bytes));
+                synchronized (unacknowledgedChunks) {
+                    buffers.add(bytes.bytes);
+                    // the content must stay untouched until the chunk is acknowledged
+                    unacknowledgedChunks.add(Tuple.tuple(expected, ActionListener.wrap(r -> {
+                        assertEquals(expected, content);
+                        listener.onResponse(r);
+                    }, listener::onFailure)));
+                    maxUnacknowledgedChunks.accumulateAndGet(unacknowledgedChunks.size(), Math::max);
+                }
+            }
+        };
+        final RecoverySourceHandler handler = new RecoverySourceHandler(startedShard(), recoveryTarget, getStartRecoveryRequest(),
+            chunkSize, maxConcurrentFileChunks);
+        final AtomicReference<Exception> senderFailure = new AtomicReference<>();
+        final Thread sender = new Thread(() -> {
+            try {
+                handler.sendFiles(store, files.toArray(new StoreFileMetaData[0]), () -> 0);
+            } catch (Exception e) {
+                senderFailure.set(e);
+            }
+        });
+        sender.start();
+        // the window of chunks in flight is not drained at file boundaries
+        assertBusy(() -> {
+            synchronized (unacknowledgedChunks) {
+                assertThat(unacknowledgedChunks.size(), equalTo(Math.min(maxConcurrentFileChunks, numChunks)));
+            }
+        });
+        // acknowledge the chunks in random order while the source keeps sending
+        while (sender.isAlive()) {
+            ActionListener<Void> listener = null;
+            synchronized (unacknowledgedChunks) {
+                if (unacknowledgedChunks.isEmpty() == false) {
+                    listener = unacknowledgedChunks.remove(randomIntBetween(0, unacknowledgedChunks.size() - 1)).v2();
+                }
+            }
+            if (listener != null) {
+                listener.onResponse(null);
+            } else {
+                Thread.sleep(1);
+            }
+        }
+        sender.join();
+        assertNull(senderFailure.get());
+        assertThat(unacknowledgedChunks.size(), equalTo(0));
+        assertThat(maxUnacknowledgedChunks.get(), lessThanOrEqualTo(maxConcurrentFileChunks));
+        // the chunks are read into a pool of buffers rather than copied
+        assertThat(buffers.size(), lessThanOrEqualTo(maxConcurrentFileChunks));
+        for (String name : fileBytes.keySet()) {
+            assertArrayEquals(fileBytes.get(name), receivedBytes.get(name));
+        }
+        IOUtils.close(store);
+    }
+
+    public void testSendFileChunksFailure() throws Exception {
+        final int maxConcurrentFileChunks = between(1, 5);
+        final int numChunks = between(1, 10);
+        final Store store = newStore(createTempDir());
+        try (IndexOutput output = store.directory().createOutput("test", IOContext.DEFAULT)) {
+            output.writeBytes(randomByteArrayOfLength(numChunks), numChunks);
+        }
+        final StoreFileMetaData md = new StoreFileMetaData("test", numChunks, "0", org.apache.lucene.util.Version.LATEST);
+        final int failedChunk = between(0, numChunks - 1);
+        final RecoveryTargetHandler recoveryTarget = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                                       int totalTranslogOps, ActionListener<Void> listener) {
+                if (position == failedChunk) {
+                    listener.onFailure(new IOException("simulated"));
+                } else {
+                    listener.onResponse(null);
+                }
+            }
+        };
+        final RecoverySourceHandler handler = new RecoverySourceHandler(startedShard(), recoveryTarget, getStartRecoveryRequest(), 1,
+            maxConcurrentFileChunks);
+        final IOException e = expectThrows(IOException.class, () -> handler.sendFiles(store, new StoreFileMetaData[] {md}, () -> 0));
+        assertThat(e.getMessage(), equalTo("simulated"));
+        IOUtils.close(store);
+    }
+
+    private static IndexShard startedShard() {
+        final IndexShard shard = mock(IndexShard.class);
+        when(shard.state()).thenReturn(IndexShardState.STARTED);
+        return shard;
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean() ? Store.MetadataSnapshot.EMPTY :
             new Store.MetadataSnapshot(Collections.emptyMap(),
@@ -174,7 +289,7 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         when(shard.state()).thenReturn(IndexShardState.STARTED);
         final RecoveryTargetHandler recoveryTarget = mock(RecoveryTargetHandler.class);
         final RecoverySourceHandler handler =
-            new RecoverySourceHandler(shard, recoveryTarget, request, fileChunkSizeInBytes);
+            new RecoverySourceHandler(shard, recoveryTarget, request, fileChunkSizeInBytes, between(1, 5));
         final List<Translog.Operation> operations = new ArrayList<>();
         final int initialNumberOfDocs = randomIntBetween(16, 64);
         for (int i = 0; i < initialNumberOfDocs; i++) {
@@ -280,9 +395,10 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         final StartRecoveryRequest request = getStartRecoveryRequest();
         Path tempDir = createTempDir();
         Store store = newStore(tempDir, false);
+        Store targetStore = newStore(createTempDir(), false);
         AtomicBoolean failedEngine = new AtomicBoolean(false);
-        RecoverySourceHandler handler = new RecoverySourceHandler(null, null, request,
-                recoverySettings.getChunkSize().bytesAsInt()) {
+        RecoverySourceHandler handler = new RecoverySourceHandler(startedShard(), new TargetStoreRecoveryTargetHandler(targetStore),
+                request, recoverySettings.getChunkSize().bytesAsInt(), between(1, 5)) {
             @Override
             protected void failEngine(IOException cause) {
                 assertFalse(failedEngine.get());
@@ -310,21 +426,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         CorruptionUtils.corruptFile(random(), FileSystemUtils.files(tempDir, (p) ->
             (p.getFileName().toString().equals("write.lock") ||
                 p.getFileName().toString().startsWith("extra")) == false));
-        Store targetStore = newStore(createTempDir(), false);
         try {
-            handler.sendFiles(store, metas.toArray(new StoreFileMetaData[0]), (md) -> {
-                try {
-                    return new IndexOutputOutputStream(targetStore.createVerifyingOutput(md.name(), md, IOContext.DEFAULT)) {
-                        @Override
-                        public void close() throws IOException {
-                            super.close();
-                            store.directory().sync(Collections.singleton(md.name())); // sync otherwise MDW will mess with it
-                        }
-                    };
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+            handler.sendFiles(store, metas.toArray(new StoreFileMetaData[0]), () -> 0);
             fail("corrupted index");
         } catch (IOException ex) {
             assertNotNull(ExceptionsHelper.unwrapCorruption(ex));
@@ -340,8 +443,20 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         Path tempDir = createTempDir();
         Store store = newStore(tempDir, false);
         AtomicBoolean failedEngine = new AtomicBoolean(false);
-        RecoverySourceHandler handler = new RecoverySourceHandler(null, null, request,
-                recoverySettings.getChunkSize().bytesAsInt()) {
+        final boolean throwCorruptedIndexException = randomBoolean();
+        final RecoveryTargetHandler recoveryTarget = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                                       int totalTranslogOps, ActionListener<Void> listener) {
+                if (throwCorruptedIndexException) {
+                    throw new RuntimeException(new CorruptIndexException("foo", "bar"));
+                } else {
+                    throw new RuntimeException("boom");
+                }
+            }
+        };
+        RecoverySourceHandler handler = new RecoverySourceHandler(startedShard(), recoveryTarget, request,
+                recoverySettings.getChunkSize().bytesAsInt(), between(1, 5)) {
             @Override
             protected void failEngine(IOException cause) {
                 assertFalse(failedEngine.get());
@@ -365,16 +480,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         for (StoreFileMetaData md : metadata) {
             metas.add(md);
         }
-        final boolean throwCorruptedIndexException = randomBoolean();
-        Store targetStore = newStore(createTempDir(), false);
         try {
-            handler.sendFiles(store, metas.toArray(new StoreFileMetaData[0]), (md) -> {
-                if (throwCorruptedIndexException) {
-                    throw new RuntimeException(new CorruptIndexException("foo", "bar"));
-                } else {
-                    throw new RuntimeException("boom");
-                }
-            });
+            handler.sendFiles(store, metas.toArray(new StoreFileMetaData[0]), () -> 0);
             fail("exception index");
         } catch (RuntimeException ex) {
             assertNull(ExceptionsHelper.unwrapCorruption(ex));
@@ -387,7 +494,7 @@ public class RecoverySourceHandlerTests extends ESTestCase {
             fail("not expected here");
         }
         assertFalse(failedEngine.get());
-        IOUtils.close(store, targetStore);
+        IOUtils.close(store);
     }
 
     public void testThrowExceptionOnPrimaryRelocatedBeforePhase1Started() throws IOException {
@@ -409,7 +516,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
                 shard,
                 mock(RecoveryTargetHandler.class),
                 request,
-                recoverySettings.getChunkSize().bytesAsInt()) {
+                recoverySettings.getChunkSize().bytesAsInt(),
+                between(1, 5)) {
 
             @Override
             public void phase1(final IndexCommit snapshot, final Supplier<Integer> translogOps) {
@@ -470,5 +578,85 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         return new Store(shardId,  INDEX_SETTINGS, baseDirectoryWrapper, new DummyShardLock(shardId));
     }
 
+    private static class TestRecoveryTargetHandler implements RecoveryTargetHandler {
+        @Override
+        public void prepareForTranslogOperations(boolean fileBasedRecovery, int totalTranslogOps) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void finalizeRecovery(long globalCheckpoint) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void ensureClusterStateVersion(long clusterStateVersion) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void handoffPrimaryContext(ReplicationTracker.PrimaryContext primaryContext) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long indexTranslogOperations(List<Translog.Operation> operations, int totalTranslogOps,
+                                            long maxSeenAutoIdTimestampOnPrimary, long maxSeqNoOfUpdatesOrDeletesOnPrimary) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void receiveFileInfo(List<String> phase1FileNames, List<Long> phase1FileSizes, List<String> phase1ExistingFileNames,
+                                    List<Long> phase1ExistingFileSizes, int totalTranslogOps) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cleanFiles(int totalTranslogOps, Store.MetadataSnapshot sourceMetaData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                                   int totalTranslogOps, ActionListener<Void> listener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Writes the file chunks it receives to a store, verifying the files like a recovery target does.
+     */
+    private static class TargetStoreRecoveryTargetHandler extends TestRecoveryTargetHandler {
+        private final Store targetStore;
+        private final Map<String, IndexOutput> outputs = new HashMap<>();
+
+        TargetStoreRecoveryTargetHandler(Store targetStore) {
+            this.targetStore = targetStore;
+        }
+
+        @Override
+        public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                                   int totalTranslogOps, ActionListener<Void> listener) {
+            IndexOutput output = outputs.get(fileMetaData.name());
+            try {
+                if (output == null) {
+                    output = targetStore.createVerifyingOutput(fileMetaData.name(), fileMetaData, IOContext.DEFAULT);
+                    outputs.put(fileMetaData.name(), output);
+                }
+                final BytesRef bytes = content.toBytesRef();
+                output.writeBytes(bytes.bytes, bytes.offset, bytes.length);
+                if (lastChunk) {
+                    outputs.remove(fileMetaData.name()).close();
+                    targetStore.directory().sync(Collections.singleton(fileMetaData.name())); // sync otherwise MDW will mess with it
+                }
+            } catch (IOException e) {
+                IOUtils.closeWhileHandlingException(outputs.remove(fileMetaData.name()));
+                listener.onFailure(e);
+                return;
+            }
+            listener.onResponse(null);
+        }
+    }
+
 
 }
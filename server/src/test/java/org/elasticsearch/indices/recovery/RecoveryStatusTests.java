@@ -19,16 +19,27 @@
 package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -88,4 +99,77 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
         // which will fail because it's started
         status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
     }
+
+    public void testWriteFileChunksOutOfOrder() throws IOException {
+        IndexService service = createIndex("foo");
+
+        IndexShard indexShard = service.getShardOrNull(0);
+        DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT);
+        RecoveryTarget status = new RecoveryTarget(indexShard, node, new PeerRecoveryTargetService.RecoveryListener() {
+            @Override
+            public void onRecoveryDone(RecoveryState state) {
+            }
+
+            @Override
+            public void onRecoveryFailure(RecoveryState state, RecoveryFailedException e, boolean sendShardFailure) {
+            }
+        }, version -> {});
+
+        final byte[] bytes;
+        final String checksum;
+        try (Directory dir = newDirectory()) {
+            try (IndexOutput output = dir.createOutput("foo.bar", IOContext.DEFAULT)) {
+                CodecUtil.writeHeader(output, "foo", 0);
+                final byte[] payload = randomByteArrayOfLength(between(1, 4096));
+                output.writeBytes(payload, payload.length);
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = dir.openInput("foo.bar", IOContext.DEFAULT)) {
+                bytes = new byte[(int) input.length()];
+                input.readBytes(bytes, 0, bytes.length);
+                checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+            }
+        }
+        final StoreFileMetaData md = new StoreFileMetaData("foo.bar", bytes.length, checksum, MIN_SUPPORTED_LUCENE_VERSION);
+        status.state().getIndex().addFileDetail(md.name(), md.length(), false);
+
+        final List<long[]> chunks = new ArrayList<>();
+        for (int position = 0; position < bytes.length; ) {
+            final int length = Math.min(between(1, 512), bytes.length - position);
+            chunks.add(new long[] {position, length});
+            position += length;
+        }
+        Collections.shuffle(chunks, random());
+        final Map<Long, Integer> arrived = new HashMap<>();
+        final Map<Long, PlainActionFuture<Void>> acks = new HashMap<>();
+        for (long[] chunk : chunks) {
+            final int position = (int) chunk[0];
+            final int length = (int) chunk[1];
+            final PlainActionFuture<Void> ack = new PlainActionFuture<>();
+            acks.put(chunk[0], ack);
+            arrived.put(chunk[0], length);
+            status.writeFileChunk(md, position, new BytesArray(bytes, position, length), position + length == bytes.length, 0, ack);
+            // a chunk is only acknowledged once it is written, which requires all the chunks before it
+            long writtenUpTo = 0;
+            while (arrived.containsKey(writtenUpTo)) {
+                writtenUpTo += arrived.get(writtenUpTo);
+            }
+            for (Map.Entry<Long, PlainActionFuture<Void>> entry : acks.entrySet()) {
+                assertEquals(entry.getKey() < writtenUpTo, entry.getValue().isDone());
+            }
+        }
+        for (PlainActionFuture<Void> ack : acks.values()) {
+            ack.actionGet();
+        }
+        assertNull(status.getOpenIndexOutput(md.name()));
+        assertEquals(bytes.length, status.state().getIndex().recoveredBytes());
+
+        final String tempFileName = status.getTempNameForFile(md.name());
+        try (IndexInput input = status.store().directory().openInput(tempFileName, IOContext.DEFAULT)) {
+            final byte[] written = new byte[(int) input.length()];
+            input.readBytes(written, 0, written.length);
+            assertArrayEquals(bytes, written);
+        }
+        status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
+    }
 }
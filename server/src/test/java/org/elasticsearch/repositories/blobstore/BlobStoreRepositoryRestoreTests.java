@@ -19,6 +19,7 @@
 
 package org.elasticsearch.repositories.blobstore;
 
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.TestUtil;
 import org.elasticsearch.cluster.metadata.RepositoryMetaData;
@@ -26,7 +27,11 @@ import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.TestEnvironment;
@@ -36,6 +41,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotBlockCache;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.repositories.IndexId;
@@ -44,6 +50,8 @@ import org.elasticsearch.repositories.fs.FsRepository;
 import org.elasticsearch.snapshots.Snapshot;
 import org.elasticsearch.snapshots.SnapshotId;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -51,6 +59,9 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 /**
  * This class tests the behavior of {@link BlobStoreRepository} when it
@@ -174,9 +185,111 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
         }
     }
 
+    public void testSearchSnapshotWithoutRestore() throws IOException {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        IndexShard shard = newShard(shardId, true);
+        try {
+            // index documents in the shards
+            final int numDocs = scaledRandomIntBetween(1, 500);
+            recoverShardFromStore(shard);
+            for (int i = 0; i < numDocs; i++) {
+                indexDoc(shard, "_doc", Integer.toString(i));
+                if (rarely()) {
+                    flushShard(shard, false);
+                }
+            }
+            assertDocCount(shard, numDocs);
+
+            // snapshot the shard, splitting the files in small parts so that blocks are read from several parts
+            final BlobStoreRepository repository = (BlobStoreRepository) createRepository(Settings.builder()
+                .put("chunk_size", new ByteSizeValue(between(1, 64), ByteSizeUnit.KB)).build());
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
+            snapshotShard(shard, snapshot, repository);
+            final Store.MetadataSnapshot storeFiles = shard.snapshotStoreMetadata();
+
+            // a cache smaller than the shard forces blocks to be evicted and loaded again while the index is read
+            final int blockSize = between(512, 16384);
+            final long maxCacheSize = randomLongBetween(blockSize, 256 * 1024L);
+            try (SnapshotBlockCache blockCache = new SnapshotBlockCache(createTempDir(), blockSize, maxCacheSize);
+                 Directory directory = repository.openSnapshotDirectory(snapshot.getSnapshotId(), indexId, shardId, blockCache)) {
+                for (StoreFileMetaData storeFile : storeFiles) {
+                    assertEquals(storeFile.length(), directory.fileLength(storeFile.name()));
+                }
+                TestUtil.checkIndex(directory);
+                try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                    assertEquals(numDocs, reader.numDocs());
+                }
+                assertThat(blockCache.sizeInBytes(), lessThanOrEqualTo(maxCacheSize));
+                expectThrows(UnsupportedOperationException.class, () -> directory.deleteFile(randomFrom(directory.listAll())));
+            }
+        } finally {
+            if (shard != null && shard.state() != IndexShardState.CLOSED) {
+                try {
+                    shard.close("test", false);
+                } finally {
+                    IOUtils.close(shard.store());
+                }
+            }
+        }
+    }
+
+    public void testVerifyShardSnapshotFooters() throws IOException {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        IndexShard shard = newShard(shardId, true);
+        try {
+            recoverShardFromStore(shard);
+            final int numDocs = scaledRandomIntBetween(1, 100);
+            for (int i = 0; i < numDocs; i++) {
+                indexDoc(shard, "_doc", Integer.toString(i));
+            }
+            flushShard(shard, true);
+
+            // files must be stored in whole blobs so that flipping the last byte of a blob corrupts a footer
+            final BlobStoreRepository repository = (BlobStoreRepository) createRepository(Settings.builder()
+                .put("deduplicate_chunks", false).build());
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
+            snapshotShard(shard, snapshot, repository);
+            assertThat(repository.verifyShardSnapshotFooters(snapshot.getSnapshotId(), indexId, shardId), empty());
+
+            // flip a byte of the checksum of one of the snapshotted files
+            final BlobContainer shardContainer = repository.blobStore().blobContainer(
+                repository.basePath().add("indices").add(indexId.getId()).add(Integer.toString(shardId.id())));
+            final String blobName = randomFrom(shardContainer.listBlobsByPrefix("__").keySet());
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Streams.copy(shardContainer.readBlob(blobName), out);
+            final byte[] content = out.toByteArray();
+            content[content.length - 1] ^= 0xFF;
+            shardContainer.writeBlob(blobName, new ByteArrayInputStream(content), content.length, false);
+            assertThat(repository.verifyShardSnapshotFooters(snapshot.getSnapshotId(), indexId, shardId), hasSize(1));
+        } finally {
+            if (shard != null && shard.state() != IndexShardState.CLOSED) {
+                try {
+                    shard.close("test", false);
+                } finally {
+                    IOUtils.close(shard.store());
+                }
+            }
+        }
+    }
+
     /** Create a {@link Repository} with a random name **/
     private Repository createRepository() {
-        Settings settings = Settings.builder().put("location", randomAlphaOfLength(10)).build();
+        return createRepository(Settings.EMPTY);
+    }
+
+    /** Create a {@link Repository} with a random name and the given additional settings **/
+    private Repository createRepository(Settings additionalSettings) {
+        Settings settings = Settings.builder()
+            .put("location", randomAlphaOfLength(10))
+            .put("max_concurrent_file_uploads", between(1, 5))
+            .put("deduplicate_chunks", randomBoolean())
+            .put("dedup_average_chunk_size", new ByteSizeValue(1L << between(10, 16), ByteSizeUnit.BYTES))
+            .put(additionalSettings)
+            .build();
         RepositoryMetaData repositoryMetaData = new RepositoryMetaData(randomAlphaOfLength(10), FsRepository.TYPE, settings);
         final FsRepository repository = new FsRepository(repositoryMetaData, createEnvironment(), xContentRegistry()) {
             @Override
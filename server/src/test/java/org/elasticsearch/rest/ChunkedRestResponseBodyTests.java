@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.UTF8StreamWriter;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.rest.FakeRestChannel;
+import org.elasticsearch.test.rest.FakeRestRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ChunkedRestResponseBodyTests extends ESTestCase {
+
+    public void testFromXContentRendersLikeToXContent() throws IOException {
+        final List<ToXContent> fragments = new ArrayList<>();
+        fragments.add((builder, params) -> builder.startObject().startArray("values"));
+        final int values = randomIntBetween(0, 100);
+        for (int i = 0; i < values; i++) {
+            final String value = randomAlphaOfLengthBetween(1, 100);
+            fragments.add((builder, params) -> builder.value(value));
+        }
+        fragments.add((builder, params) -> builder.endArray().endObject());
+        final ChunkedToXContent chunkedToXContent = params -> fragments.iterator();
+
+        final FakeRestChannel channel = new FakeRestChannel(new FakeRestRequest(), randomBoolean(), 1);
+        final BytesReference expected;
+        try (XContentBuilder builder = channel.newBuilder()) {
+            for (ToXContent fragment : fragments) {
+                fragment.toXContent(builder, ToXContent.EMPTY_PARAMS);
+            }
+            expected = BytesReference.bytes(builder);
+        }
+
+        final ChunkedRestResponseBody body = ChunkedRestResponseBody.fromXContent(chunkedToXContent, ToXContent.EMPTY_PARAMS, channel);
+        final int sizeHint = randomIntBetween(1, 1024);
+        assertEquals(expected, writeAllChunks(body, sizeHint));
+    }
+
+    public void testFromTextWritesAllParts() throws IOException {
+        final List<CheckedConsumer<UTF8StreamWriter, IOException>> parts = new ArrayList<>();
+        final StringBuilder expected = new StringBuilder();
+        final int lines = randomIntBetween(0, 100);
+        for (int i = 0; i < lines; i++) {
+            final String line = randomAlphaOfLengthBetween(0, 100) + "\n";
+            expected.append(line);
+            parts.add(out -> out.append(line));
+        }
+
+        final ChunkedRestResponseBody body = ChunkedRestResponseBody.fromText(BytesRestResponse.TEXT_CONTENT_TYPE, parts.iterator());
+        assertEquals(BytesRestResponse.TEXT_CONTENT_TYPE, body.getResponseContentTypeString());
+        assertEquals(expected.toString(), writeAllChunks(body, randomIntBetween(1, 1024)).utf8ToString());
+    }
+
+    public void testChunksEndWithThePartThatReachesTheSizeHint() throws IOException {
+        final List<CheckedConsumer<UTF8StreamWriter, IOException>> parts = new ArrayList<>();
+        final int partLength = randomIntBetween(1, 10);
+        final int numParts = randomIntBetween(1, 100);
+        for (int i = 0; i < numParts; i++) {
+            parts.add(out -> out.append(randomAlphaOfLength(partLength)));
+        }
+        final ChunkedRestResponseBody body = ChunkedRestResponseBody.fromText(BytesRestResponse.TEXT_CONTENT_TYPE, parts.iterator());
+        final int sizeHint = randomIntBetween(1, 100);
+        int total = 0;
+        while (body.isDone() == false) {
+            final BytesStreamOutput out = new BytesStreamOutput();
+            body.writeChunk(sizeHint, out);
+            // a chunk holds whole parts and stops with the first part that reaches the size hint
+            assertThat(out.size(), lessThanOrEqualTo(sizeHint + partLength - 1));
+            total += out.size();
+        }
+        assertEquals(numParts * partLength, total);
+        expectThrows(IllegalStateException.class, () -> body.writeChunk(sizeHint, new BytesStreamOutput()));
+    }
+
+    public void testChunkedRestResponseMaterializesTheWholeBody() throws IOException {
+        final List<CheckedConsumer<UTF8StreamWriter, IOException>> parts = new ArrayList<>();
+        final int numParts = randomIntBetween(1, 10);
+        for (int i = 0; i < numParts; i++) {
+            parts.add(out -> out.append("part"));
+        }
+        final ChunkedRestResponse response = new ChunkedRestResponse(RestStatus.OK,
+            ChunkedRestResponseBody.fromText(BytesRestResponse.TEXT_CONTENT_TYPE, parts.iterator()));
+        assertThat(response.content().length(), greaterThan(0));
+        assertEquals(numParts * "part".length(), response.content().length());
+        assertTrue(response.chunkedContent().isDone());
+    }
+
+    private static BytesReference writeAllChunks(ChunkedRestResponseBody body, int sizeHint) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        while (body.isDone() == false) {
+            body.writeChunk(sizeHint, out);
+        }
+        return out.bytes();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class FetchPhaseTests extends ESTestCase {
+
+    public void testStoredFieldsReader() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            final int numDocs = between(FetchPhase.SEQUENTIAL_STORED_FIELDS_MIN_DOCS, 200);
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                document.add(new StoredField("field", "value-" + i));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+            final ShardId shardId = new ShardId("index", "_na_", 0);
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId)) {
+                final LeafReaderContext context = reader.leaves().get(0);
+                // sequential and random reads through the merge instance load the same fields as the reader
+                final boolean sparse = randomBoolean();
+                final int docIdRange = sparse ? numDocs * FetchPhase.SEQUENTIAL_STORED_FIELDS_MAX_SPARSITY + 1 : numDocs;
+                final CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader =
+                    FetchPhase.storedFieldsReader(context, numDocs, docIdRange);
+                final FieldsVisitor visitor = new CustomFieldsVisitor(Collections.singleton("field"), false);
+                for (int i = 0; i < numDocs; i++) {
+                    final int docId = randomBoolean() ? i : randomIntBetween(0, numDocs - 1);
+                    visitor.reset();
+                    fieldReader.accept(docId, visitor);
+                    assertThat(visitor.fields().get("field"), equalTo(Collections.singletonList("value-" + docId)));
+                }
+            }
+        }
+    }
+
+    public void testStoredFieldsReaderDoesNotBypassFilterReaders() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < FetchPhase.SEQUENTIAL_STORED_FIELDS_MIN_DOCS; i++) {
+                Document document = new Document();
+                document.add(new StoredField("field", "value"));
+                writer.addDocument(document);
+            }
+            final AtomicInteger filteredReads = new AtomicInteger();
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final LeafReader filterReader = new FilterLeafReader(reader.leaves().get(0).reader()) {
+                    @Override
+                    public void document(int docID, StoredFieldVisitor visitor) throws IOException {
+                        filteredReads.incrementAndGet();
+                        super.document(docID, visitor);
+                    }
+
+                    @Override
+                    public CacheHelper getCoreCacheHelper() {
+                        return null;
+                    }
+
+                    @Override
+                    public CacheHelper getReaderCacheHelper() {
+                        return null;
+                    }
+                };
+                final int numDocs = FetchPhase.SEQUENTIAL_STORED_FIELDS_MIN_DOCS;
+                final CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader =
+                    FetchPhase.storedFieldsReader(filterReader.getContext(), numDocs, numDocs);
+                final FieldsVisitor visitor = new CustomFieldsVisitor(Collections.singleton("field"), false);
+                fieldReader.accept(0, visitor);
+                assertThat(filteredReads.get(), equalTo(1));
+                assertThat(visitor.fields().get("field"), equalTo(Collections.singletonList("value")));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch.subphase.highlight;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class HighlightAnalysisCacheTests extends ESTestCase {
+
+    public void testReplaysTokens() throws IOException {
+        final HighlightAnalysisCache cache = new HighlightAnalysisCache(Settings.EMPTY);
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+                final Document document = new Document();
+                document.add(new StringField("id", "1", Field.Store.NO));
+                writer.addDocument(document);
+                writer.addDocument(document);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir);
+                 Analyzer analyzer = new StandardAnalyzer()) {
+                final LeafReaderContext context = reader.leaves().get(0);
+                final FetchSubPhase.HitContext hitContext = hitContext(reader, 0);
+                final String text = "The quick brown fox, the lazy dog";
+                final List<String> expected = tokens(analyzer, text);
+                final Analyzer wrapped = cache.wrap(analyzer, hitContext);
+                assertThat(tokens(wrapped, text), equalTo(expected));
+                assertThat(cache.count(), equalTo(1));
+                // the second time the tokens are replayed from the cache, by the same wrapper
+                assertSame(wrapped, cache.wrap(analyzer, hitContext));
+                assertThat(tokens(wrapped, text), equalTo(expected));
+                assertThat(cache.count(), equalTo(1));
+
+                tokens(cache.wrap(analyzer, hitContext), "another text");
+                assertThat(cache.count(), equalTo(2));
+                // values of the same field are told apart by their content even if they have the same length
+                final String sameLength = "anotter text";
+                assertThat(tokens(cache.wrap(analyzer, hitContext), sameLength), equalTo(tokens(analyzer, sameLength)));
+                assertThat(cache.count(), equalTo(3));
+
+                // the wrapper is reused for the next hit, whose values are cached separately
+                hitContext.reset(null, context, 1, new IndexSearcher(reader));
+                assertSame(wrapped, cache.wrap(analyzer, hitContext));
+                assertThat(tokens(wrapped, text), equalTo(expected));
+                assertThat(cache.count(), equalTo(4));
+
+                // the wrapper is closed with the hit context, the wrapped analyzer is left open
+                hitContext.close();
+                expectThrows(AlreadyClosedException.class, () -> wrapped.tokenStream("field", text));
+                assertThat(tokens(analyzer, text), equalTo(expected));
+            }
+            // the entries of the segment are dropped once it is closed
+            assertThat(cache.count(), equalTo(0));
+            assertThat(cache.segmentCount(), equalTo(0));
+        }
+    }
+
+    public void testDisabled() throws IOException {
+        final HighlightAnalysisCache cache = new HighlightAnalysisCache(Settings.builder()
+            .put(HighlightAnalysisCache.ANALYSIS_CACHE_SIZE_SETTING.getKey(), "0b").build());
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+                writer.addDocument(new Document());
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir);
+                 Analyzer analyzer = new StandardAnalyzer()) {
+                assertSame(analyzer, cache.wrap(analyzer, hitContext(reader, 0)));
+            }
+        }
+    }
+
+    private static FetchSubPhase.HitContext hitContext(DirectoryReader reader, int docId) {
+        final FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
+        hitContext.reset(null, reader.leaves().get(0), docId, new IndexSearcher(reader));
+        return hitContext;
+    }
+
+    private static List<String> tokens(Analyzer analyzer, String text) throws IOException {
+        final List<String> tokens = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream("field", text)) {
+            final CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+            final PositionIncrementAttribute posIncAtt = tokenStream.addAttribute(PositionIncrementAttribute.class);
+            final OffsetAttribute offsetAtt = tokenStream.addAttribute(OffsetAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                tokens.add(termAtt + "/" + posIncAtt.getPositionIncrement() + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+            }
+            tokenStream.end();
+            tokens.add("end/" + offsetAtt.endOffset());
+        }
+        return tokens;
+    }
+}
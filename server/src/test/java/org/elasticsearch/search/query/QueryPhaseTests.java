@@ -21,10 +21,13 @@ package org.elasticsearch.search.query;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
@@ -46,7 +49,10 @@ import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
@@ -64,11 +70,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 
 public class QueryPhaseTests extends IndexShardTestCase {
 
@@ -538,6 +547,95 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testSkipNonCompetitiveDocs() throws Exception {
+        Directory dir = newDirectory();
+        // no merges, so that the bottom of the queue is carried from segment to segment
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numDocs = scaledRandomIntBetween(20000, 30000);
+        final int docsPerSegment = randomIntBetween(1000, 5000);
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            if (randomBoolean()) {
+                doc.add(new StringField("foo", "bar", Store.NO));
+            }
+            if (rarely() == false) {
+                final long value = randomLongBetween(-1000000, 1000000);
+                doc.add(new LongPoint("timestamp", value));
+                doc.add(new SortedNumericDocValuesField("timestamp", value));
+            }
+            w.addDocument(doc);
+            if ((i + 1) % docsPerSegment == 0) {
+                w.commit();
+            }
+        }
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertThat(reader.leaves().size(), greaterThan(1));
+        final AtomicInteger collected = new AtomicInteger();
+        final IndexSearcher contextSearcher = new IndexSearcher(reader) {
+            @Override
+            protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+                super.search(leaves, weight, new FilterCollector(collector) {
+                    @Override
+                    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                        return new FilterLeafCollector(super.getLeafCollector(context)) {
+                            @Override
+                            public void collect(int doc) throws IOException {
+                                collected.incrementAndGet();
+                                super.collect(doc);
+                            }
+                        };
+                    }
+                });
+            }
+        };
+        final int size = randomIntBetween(1, 10);
+        for (boolean reverse : new boolean[] {false, true}) {
+            for (boolean missingFirst : new boolean[] {false, true}) {
+                final SortField sortField = new SortedNumericSortField("timestamp", SortField.Type.LONG, reverse);
+                sortField.setMissingValue(reverse == missingFirst ? Long.MAX_VALUE : Long.MIN_VALUE);
+                final Sort sort = new Sort(sortField, SortField.FIELD_DOC);
+                for (Query query : new Query[] {new MatchAllDocsQuery(), new TermQuery(new Term("foo", "bar"))}) {
+                    final TopDocs expected = new IndexSearcher(reader).search(query, size, sort);
+                    final int count = new IndexSearcher(reader).count(query);
+
+                    TestSearchContext context = new TestSearchContext(null, indexShard);
+                    context.parsedQuery(new ParsedQuery(query));
+                    context.setSize(size);
+                    context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+                    context.sort(new SortAndFormats(sort, new DocValueFormat[] {DocValueFormat.RAW, DocValueFormat.RAW}));
+                    context.trackTotalHits(false);
+                    collected.set(0);
+                    QueryPhase.execute(context, contextSearcher, checkCancelled -> {});
+                    final TopDocs topDocs = context.queryResult().topDocs().topDocs;
+                    assertThat(topDocs, instanceOf(TopFieldDocs.class));
+                    assertArrayEquals(sort.getSort(), ((TopFieldDocs) topDocs).fields);
+                    assertThat(topDocs.scoreDocs.length, equalTo(expected.scoreDocs.length));
+                    for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                        assertThat(topDocs.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+                        assertArrayEquals(((FieldDoc) expected.scoreDocs[i]).fields, ((FieldDoc) topDocs.scoreDocs[i]).fields);
+                    }
+                    if (missingFirst) {
+                        // documents without a value can always compete, and they are not in the points, so none can be skipped
+                        assertThat(collected.get(), equalTo(count));
+                    } else {
+                        // the documents that can't compete were skipped
+                        assertThat(collected.get(), lessThan(numDocs / 2));
+                    }
+
+                    // the total number of hits is only known if it can be counted without collecting the documents
+                    context.trackTotalHits(true);
+                    QueryPhase.execute(context, contextSearcher, checkCancelled -> {});
+                    assertThat(context.queryResult().topDocs().topDocs.totalHits.value, equalTo((long) count));
+                    assertThat(context.queryResult().topDocs().topDocs.scoreDocs.length, equalTo(expected.scoreDocs.length));
+                }
+            }
+        }
+        reader.close();
+        dir.close();
+    }
+
     private static IndexSearcher getAssertingEarlyTerminationSearcher(IndexReader reader, int size) {
         return new IndexSearcher(reader) {
             protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
@@ -75,11 +75,13 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineTestCase;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.InvalidIndexNameException;
 import org.elasticsearch.ingest.IngestTestPlugin;
@@ -398,6 +400,52 @@ public class SharedClusterSnapshotRestoreIT extends AbstractSnapshotIntegTestCas
             copyRestoreUUID.equals(originalIndexUUID));
     }
 
+    public void testMountSnapshot() throws Exception {
+        Client client = client();
+
+        logger.info("-->  creating repository");
+        assertAcked(client.admin().cluster().preparePutRepository("test-repo").setType("fs").setSettings(randomRepoSettings()));
+
+        createIndex("test-idx");
+        ensureGreen();
+
+        logger.info("--> indexing some data");
+        final int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            index("test-idx", "_doc", Integer.toString(i), "foo", "bar" + i);
+        }
+        refresh();
+
+        logger.info("--> snapshot");
+        CreateSnapshotResponse createSnapshotResponse = client.admin().cluster().prepareCreateSnapshot("test-repo", "test-snap")
+            .setWaitForCompletion(true).setIndices("test-idx").get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(),
+            equalTo(createSnapshotResponse.getSnapshotInfo().totalShards()));
+
+        logger.info("--> mounting an index that exists in the cluster fails");
+        SnapshotRestoreException e = expectThrows(SnapshotRestoreException.class, () -> client.admin().cluster()
+            .prepareRestoreSnapshot("test-repo", "test-snap").setMount(true).setWaitForCompletion(true).get());
+        assertThat(e.getMessage(), containsString("an index with the same name already exists"));
+
+        logger.info("--> mount the snapshot under another name");
+        RestoreSnapshotResponse restoreSnapshotResponse = client.admin().cluster().prepareRestoreSnapshot("test-repo", "test-snap")
+            .setMount(true).setRenamePattern("test-idx").setRenameReplacement("test-mounted").setWaitForCompletion(true).get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen("test-mounted");
+
+        assertThat(client.admin().indices().prepareGetSettings("test-mounted").get()
+            .getSetting("test-mounted", IndexModule.INDEX_STORE_TYPE_SETTING.getKey()), equalTo(SearchableSnapshotIndexStore.TYPE));
+        assertHitCount(client.prepareSearch("test-mounted").setSize(0).get(), numDocs);
+        assertHitCount(client.prepareSearch("test-mounted").setQuery(matchQuery("foo", "bar0")).setSize(0).get(), 1L);
+
+        logger.info("--> writes to the mounted index are blocked");
+        assertBlocked(client.prepareIndex("test-mounted", "_doc", "new").setSource("foo", "baz"), IndexMetaData.INDEX_WRITE_BLOCK);
+
+        logger.info("--> the mounted index keeps serving searches after the original index is deleted");
+        cluster().wipeIndices("test-idx");
+        assertHitCount(client.prepareSearch("test-mounted").setSize(0).get(), numDocs);
+    }
+
     public void testRestoreWithDifferentMappingsAndSettings() throws Exception {
         Client client = client();
 
@@ -24,9 +24,12 @@ import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matchers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.equalTo;
 
@@ -152,6 +155,31 @@ public class ConnectionProfileTests extends ESTestCase {
         expectThrows(IllegalStateException.class, () -> build.getHandles().get(1).getChannel(array));
     }
 
+    public void testSelectLeastLoadedChannel() {
+        ConnectionProfile.Builder builder = new ConnectionProfile.Builder();
+        builder.addConnections(1, TransportRequestOptions.Type.BULK,
+            TransportRequestOptions.Type.STATE,
+            TransportRequestOptions.Type.RECOVERY,
+            TransportRequestOptions.Type.PING);
+        builder.addConnections(3, TransportRequestOptions.Type.REG);
+        ConnectionProfile build = builder.build();
+        List<Integer> channels = Arrays.asList(0, 1, 2, 3);
+        ConnectionProfile.ConnectionTypeHandle handle = build.getHandles().get(1);
+        int numIters = randomIntBetween(5, 10);
+        // all channels idle, we round-robin over all of them
+        Set<Integer> selected = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            selected.add(handle.getChannel(channels, channel -> 0L));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), selected);
+        // the least loaded channel is always picked
+        final int idleChannel = randomIntBetween(1, 3);
+        for (int i = 0; i < numIters; i++) {
+            assertEquals(Integer.valueOf(idleChannel),
+                handle.getChannel(channels, channel -> channel == idleChannel ? 0L : randomLongBetween(1, 1024)));
+        }
+    }
+
     public void testConnectionProfileResolve() {
         final ConnectionProfile defaultProfile = ConnectionProfile.buildDefaultConnectionProfile(Settings.EMPTY);
         assertEquals(defaultProfile, ConnectionProfile.resolveConnectionProfile(null, defaultProfile));
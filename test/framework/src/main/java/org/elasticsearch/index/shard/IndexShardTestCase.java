@@ -592,7 +592,8 @@ public abstract class IndexShardTestCase extends ESTestCase {
                 primary,
                 recoveryTarget,
                 request,
-                (int) ByteSizeUnit.MB.toBytes(1));
+                (int) ByteSizeUnit.MB.toBytes(1),
+                between(1, 5));
         primary.updateShardState(primary.routingEntry(), primary.getPendingPrimaryTerm(), null,
             currentClusterStateVersion.incrementAndGet(), inSyncIds, routingTable, Collections.emptySet());
         recovery.recoverToTarget();
@@ -25,8 +25,10 @@ import org.elasticsearch.common.blobstore.BlobMetaData;
 import org.elasticsearch.common.blobstore.BlobPath;
 import org.elasticsearch.common.blobstore.BlobStore;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
@@ -81,6 +83,24 @@ public abstract class ESBlobStoreContainerTestCase extends ESTestCase {
         }
     }
 
+    public void testReadRange() throws IOException {
+        try (BlobStore store = newBlobStore()) {
+            final BlobContainer container = store.blobContainer(new BlobPath());
+            final byte[] data = randomBytes(randomIntBetween(10, scaledRandomIntBetween(1024, 1 << 16)));
+            writeBlob(container, "foobar", new BytesArray(data), randomBoolean());
+            final int position = randomIntBetween(0, data.length - 1);
+            final int length = randomIntBetween(0, data.length - position);
+            try (InputStream stream = container.readBlob("foobar", position, length)) {
+                assertArrayEquals(Arrays.copyOfRange(data, position, position + length), readAll(stream));
+            }
+            // a range that goes past the end of the blob ends with the blob
+            try (InputStream stream = container.readBlob("foobar", position, data.length)) {
+                assertArrayEquals(Arrays.copyOfRange(data, position, data.length), readAll(stream));
+            }
+            expectThrows(NoSuchFileException.class, () -> container.readBlob("missing", position, length));
+        }
+    }
+
     public void testList() throws IOException {
         try(BlobStore store = newBlobStore()) {
             final BlobContainer container = store.blobContainer(new BlobPath());
@@ -173,5 +193,11 @@ public abstract class ESBlobStoreContainerTestCase extends ESTestCase {
         }
     }
 
+    private static byte[] readAll(InputStream stream) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.copy(stream, out);
+        return out.toByteArray();
+    }
+
     protected abstract BlobStore newBlobStore() throws IOException;
 }
@@ -2393,6 +2393,13 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
                 assertEquals(2, transportStats.getTxCount());
                 assertEquals(25, transportStats.getRxSize().getBytes());
                 assertEquals(101, transportStats.getTxSize().getBytes());
+                // the handshake does not count towards a lane
+                TransportStats.LaneStats regLane = transportStats.getLanes().get(TransportRequestOptions.Type.REG);
+                assertEquals(1, regLane.getTxCount());
+                assertEquals(56, regLane.getTxSize().getBytes());
+                assertEquals(0, regLane.getPendingCount());
+                assertEquals(0, regLane.getPendingSize().getBytes());
+                assertEquals(0, transportStats.getLanes().get(TransportRequestOptions.Type.BULK).getTxCount());
             });
             sendResponseLatch.countDown();
             responseLatch.await();